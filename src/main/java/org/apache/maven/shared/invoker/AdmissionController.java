@@ -0,0 +1,331 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the pressure of the host before another Maven process is forked. An invocation is admitted when
+ * <ul>
+ * <li>the system load average per processor is below {@link #setMaxLoadPerProcessor(double) a threshold},</li>
+ * <li>the memory reserved by the running admitted invocations plus the memory required by the new one fits into the
+ * memory of the host or its cgroup, and the new one fits into the currently available memory, and</li>
+ * <li>enough file descriptors are left.</li>
+ * </ul>
+ * The memory required by an invocation is the maximum heap size requested by <code>-Xmx</code> in
+ * <code>MAVEN_OPTS</code> or <code>.mvn/jvm.config</code>, or {@link #setDefaultHeapSize(long) a default} if none is
+ * requested, plus {@link #setNonHeapOverhead(long) an overhead} for metaspace, thread stacks and code cache.
+ * <p>
+ * While the host is under pressure, the invocation is delayed up to {@link #setMaxDelay(long, TimeUnit) a maximum
+ * time}, afterwards it is rejected with an {@link AdmissionRejectedException}. Values which cannot be determined on
+ * the host, e.g. the load average on Windows, are not checked.
+ * </p>
+ *
+ * @see DefaultInvoker#setAdmissionController(AdmissionController)
+ * @since 3.4.0
+ */
+public class AdmissionController {
+
+    /**
+     * The kinds of host pressure an invocation can be delayed or rejected for.
+     */
+    public enum Pressure {
+        /**
+         * The system load average is too high.
+         */
+        LOAD,
+        /**
+         * Not enough memory is left for the maximum heap of another Maven JVM.
+         */
+        MEMORY,
+        /**
+         * Not enough file descriptors are left.
+         */
+        FILE_DESCRIPTORS
+    }
+
+    private final HostMetrics metrics;
+
+    private double maxLoadPerProcessor = 2.0;
+
+    private long defaultHeapSize = 1L << 30;
+
+    private long nonHeapOverhead = 256L << 20;
+
+    private long minFreeFileDescriptors = 256;
+
+    private long maxDelayMillis = TimeUnit.MINUTES.toMillis(1);
+
+    private long pollIntervalMillis = TimeUnit.SECONDS.toMillis(1);
+
+    private long reservedMemory;
+
+    private int admittedCount;
+
+    /**
+     * Creates a new admission controller observing the current host.
+     */
+    public AdmissionController() {
+        this(new HostMetrics());
+    }
+
+    AdmissionController(HostMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Admits an invocation, waiting while the host is under pressure. The returned admission must be closed when
+     * the forked process terminated to release the memory reserved for it.
+     *
+     * @param request The invocation request, must not be <code>null</code>.
+     * @param baseDirectory The base directory of the invocation, used to locate <code>.mvn/jvm.config</code>, may be
+     *            <code>null</code>.
+     * @param logger The logger to report delays to, must not be <code>null</code>.
+     * @return The admission, never <code>null</code>.
+     * @throws AdmissionRejectedException if the host is still under pressure after the maximum delay.
+     */
+    public Admission admit(InvocationRequest request, File baseDirectory, InvokerLogger logger)
+            throws AdmissionRejectedException {
+        long required = requiredMemory(request, baseDirectory);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        boolean delayed = false;
+
+        while (true) {
+            AdmissionRejectedException rejection;
+            synchronized (this) {
+                rejection = checkPressure(required);
+                if (rejection == null) {
+                    reservedMemory += required;
+                    admittedCount++;
+                    return new Admission(required);
+                }
+            }
+
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                throw rejection;
+            }
+            if (!delayed) {
+                logger.info("Delaying Maven invocation: " + rejection.getMessage());
+                delayed = true;
+            }
+
+            try {
+                Thread.sleep(Math.min(pollIntervalMillis, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw rejection;
+            }
+        }
+    }
+
+    private AdmissionRejectedException checkPressure(long required) {
+        int processors = metrics.availableProcessors();
+        double load = metrics.loadAverage();
+        if (load >= 0 && processors > 0 && load / processors > maxLoadPerProcessor) {
+            return new AdmissionRejectedException(
+                    Pressure.LOAD,
+                    String.format(
+                            Locale.ROOT,
+                            "system load average %.2f exceeds %.2f per processor on %d processors",
+                            load,
+                            maxLoadPerProcessor,
+                            processors));
+        }
+
+        long total = metrics.totalMemory();
+        if (total != HostMetrics.UNKNOWN && reservedMemory + required > total) {
+            return new AdmissionRejectedException(
+                    Pressure.MEMORY,
+                    JvmOptions.formatSize(required) + " required in addition to "
+                            + JvmOptions.formatSize(reservedMemory)
+                            + " reserved by " + admittedCount + " running invocation(s) exceeds the host memory of "
+                            + JvmOptions.formatSize(total));
+        }
+
+        long available = metrics.availableMemory();
+        if (available != HostMetrics.UNKNOWN && available < required) {
+            return new AdmissionRejectedException(
+                    Pressure.MEMORY,
+                    JvmOptions.formatSize(required) + " required but only " + JvmOptions.formatSize(available)
+                            + " available");
+        }
+
+        long freeFileDescriptors = metrics.freeFileDescriptors();
+        if (freeFileDescriptors != HostMetrics.UNKNOWN && freeFileDescriptors < minFreeFileDescriptors) {
+            return new AdmissionRejectedException(
+                    Pressure.FILE_DESCRIPTORS,
+                    "only " + freeFileDescriptors + " file descriptors left, at least " + minFreeFileDescriptors
+                            + " required");
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the memory an invocation will reserve.
+     *
+     * @param request The invocation request, must not be <code>null</code>.
+     * @param baseDirectory The base directory of the invocation, may be <code>null</code>.
+     * @return The required memory in bytes.
+     */
+    long requiredMemory(InvocationRequest request, File baseDirectory) {
+        // like the mvn launcher, the options from MAVEN_OPTS follow the ones from .mvn/jvm.config
+        long maxHeapSize = JvmOptions.maxHeapSize(JvmOptions.effectiveMavenOpts(request));
+        if (maxHeapSize == JvmOptions.UNKNOWN) {
+            maxHeapSize = JvmOptions.maxHeapSize(JvmOptions.readJvmConfig(baseDirectory));
+        }
+        if (maxHeapSize == JvmOptions.UNKNOWN && request.getJvmProfile() != null) {
+            maxHeapSize = JvmOptions.maxHeapSize(
+                    String.join(" ", request.getJvmProfile().getJvmOptions()));
+        }
+        return (maxHeapSize != JvmOptions.UNKNOWN ? maxHeapSize : defaultHeapSize) + nonHeapOverhead;
+    }
+
+    private synchronized void release(long memory) {
+        reservedMemory -= memory;
+        admittedCount--;
+    }
+
+    /**
+     * Gets the memory reserved by the admitted invocations which are still running.
+     *
+     * @return The reserved memory in bytes.
+     */
+    public synchronized long getReservedMemory() {
+        return reservedMemory;
+    }
+
+    /**
+     * Gets the number of admitted invocations which are still running.
+     *
+     * @return The number of running invocations.
+     */
+    public synchronized int getAdmittedCount() {
+        return admittedCount;
+    }
+
+    /**
+     * Sets the maximum system load average per processor. The default is <code>2.0</code>.
+     *
+     * @param maxLoadPerProcessor The maximum load average per processor.
+     * @return This admission controller.
+     */
+    public AdmissionController setMaxLoadPerProcessor(double maxLoadPerProcessor) {
+        this.maxLoadPerProcessor = maxLoadPerProcessor;
+        return this;
+    }
+
+    /**
+     * Sets the heap size assumed for invocations which do not request a maximum heap size. The default is 1 GiB.
+     *
+     * @param defaultHeapSize The heap size in bytes.
+     * @return This admission controller.
+     */
+    public AdmissionController setDefaultHeapSize(long defaultHeapSize) {
+        this.defaultHeapSize = defaultHeapSize;
+        return this;
+    }
+
+    /**
+     * Sets the memory a Maven JVM uses in addition to its heap. The default is 256 MiB.
+     *
+     * @param nonHeapOverhead The overhead in bytes.
+     * @return This admission controller.
+     */
+    public AdmissionController setNonHeapOverhead(long nonHeapOverhead) {
+        this.nonHeapOverhead = nonHeapOverhead;
+        return this;
+    }
+
+    /**
+     * Sets the number of file descriptors which must be left to admit an invocation. The default is <code>256</code>.
+     *
+     * @param minFreeFileDescriptors The minimum number of free file descriptors.
+     * @return This admission controller.
+     */
+    public AdmissionController setMinFreeFileDescriptors(long minFreeFileDescriptors) {
+        this.minFreeFileDescriptors = minFreeFileDescriptors;
+        return this;
+    }
+
+    /**
+     * Sets how long an invocation is delayed while the host is under pressure before it is rejected. The default is
+     * one minute, <code>0</code> rejects invocations immediately.
+     *
+     * @param maxDelay The maximum delay.
+     * @param unit The unit of the delay, must not be <code>null</code>.
+     * @return This admission controller.
+     */
+    public AdmissionController setMaxDelay(long maxDelay, TimeUnit unit) {
+        this.maxDelayMillis = unit.toMillis(maxDelay);
+        return this;
+    }
+
+    /**
+     * Sets how often the host pressure is checked again while an invocation is delayed. The default is one second.
+     *
+     * @param pollInterval The poll interval.
+     * @param unit The unit of the interval, must not be <code>null</code>.
+     * @return This admission controller.
+     */
+    public AdmissionController setPollInterval(long pollInterval, TimeUnit unit) {
+        this.pollIntervalMillis = Math.max(1, unit.toMillis(pollInterval));
+        return this;
+    }
+
+    /**
+     * The admission of a single invocation, releases the reserved memory when closed.
+     */
+    public final class Admission implements AutoCloseable {
+
+        private final long memory;
+
+        private boolean released;
+
+        private Admission(long memory) {
+            this.memory = memory;
+        }
+
+        /**
+         * Gets the memory reserved for the invocation.
+         *
+         * @return The reserved memory in bytes.
+         */
+        public long getReservedMemory() {
+            return memory;
+        }
+
+        /**
+         * Releases the memory reserved for the invocation, repeated calls have no effect.
+         */
+        @Override
+        public void close() {
+            synchronized (AdmissionController.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            release(memory);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+/**
+ * Signals that an invocation was not started because the host is under too much pressure to fork another Maven
+ * process.
+ *
+ * @see AdmissionController
+ * @since 3.4.0
+ */
+public class AdmissionRejectedException extends MavenInvocationException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final AdmissionController.Pressure pressure;
+
+    /**
+     * Creates a new exception using the specified pressure and detail message.
+     *
+     * @param pressure The kind of pressure which caused the rejection, must not be <code>null</code>.
+     * @param message The detail message for this exception, may be <code>null</code>.
+     */
+    public AdmissionRejectedException(AdmissionController.Pressure pressure, String message) {
+        super(message);
+        this.pressure = pressure;
+    }
+
+    /**
+     * Gets the kind of pressure which caused the rejection.
+     *
+     * @return The pressure, never <code>null</code>.
+     */
+    public AdmissionController.Pressure getPressure() {
+        return pressure;
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decouples the threads reading the output of Maven from a slow output handler, e.g. one shipping the lines to a
+ * remote log service. Lines are handed over through a bounded lock-free queue and passed to the delegate handler by a
+ * separate drain thread, so a slow handler no longer stalls the reading thread and, once the pipe buffer is full,
+ * Maven itself.
+ * <p>
+ * When the queue is full, the {@link OverflowPolicy overflow policy} decides whether the reading thread waits, the
+ * oldest queued line is dropped or further lines are spilled to a temporary file. The queue depth and the number of
+ * dropped, spilled and blocked lines are exposed, so slow handlers can be noticed. The invoker {@link #flush() flushes}
+ * the handler when the Maven process terminated, so all lines have been passed on when the invocation returns.
+ * </p>
+ *
+ * @since 3.4.0
+ */
+public class AsyncOutputHandler implements InvocationOutputHandler, Flushable {
+
+    /**
+     * The behavior when the queue of the handler is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The reading thread waits until the delegate caught up, i.e. Maven is throttled but no line is lost.
+         */
+        BLOCK,
+        /**
+         * The oldest queued line is dropped in favor of the new one.
+         */
+        DROP_OLDEST,
+        /**
+         * Lines are written to a temporary file until the delegate caught up, no line is lost and Maven is not
+         * throttled at the expense of disk space.
+         */
+        SPILL_TO_DISK
+    }
+
+    private static final ThreadFactory DRAIN_THREADS = InvokerThreads.newThreadFactory("maven-invoker-output-");
+
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final InvocationOutputHandler delegate;
+
+    private final BoundedLineQueue queue;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private final AtomicLong accepted = new AtomicLong();
+
+    private final AtomicLong completed = new AtomicLong();
+
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder spilled = new LongAdder();
+
+    private final LongAdder blocked = new LongAdder();
+
+    private final LongAdder blockedNanos = new LongAdder();
+
+    private final Object spillLock = new Object();
+
+    private File spillDirectory;
+
+    private volatile boolean spilling;
+
+    private Path spillFile;
+
+    private BufferedWriter spillWriter;
+
+    private BufferedReader spillReader;
+
+    private long spillPending;
+
+    private volatile Thread drainThread;
+
+    private volatile Exception failure;
+
+    /**
+     * Creates a new handler which blocks the reading thread when the queue is full.
+     *
+     * @param delegate The handler the lines are passed to, must not be <code>null</code>.
+     * @param capacity The number of lines the queue can hold, rounded up to the next power of two.
+     */
+    public AsyncOutputHandler(InvocationOutputHandler delegate, int capacity) {
+        this(delegate, capacity, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Creates a new handler.
+     *
+     * @param delegate The handler the lines are passed to, must not be <code>null</code>.
+     * @param capacity The number of lines the queue can hold, rounded up to the next power of two.
+     * @param overflowPolicy The behavior when the queue is full, must not be <code>null</code>.
+     */
+    public AsyncOutputHandler(InvocationOutputHandler delegate, int capacity, OverflowPolicy overflowPolicy) {
+        if (delegate == null) {
+            throw new NullPointerException("missing delegate handler");
+        }
+        if (overflowPolicy == null) {
+            throw new NullPointerException("missing overflow policy");
+        }
+        this.delegate = delegate;
+        this.queue = new BoundedLineQueue(capacity);
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Sets the directory for the spill files of the {@link OverflowPolicy#SPILL_TO_DISK} policy.
+     *
+     * @param spillDirectory The directory, may be <code>null</code> to use the default temporary directory.
+     * @return This handler.
+     */
+    public AsyncOutputHandler setSpillDirectory(File spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void consumeLine(String line) throws IOException {
+        if (line == null) {
+            line = "";
+        }
+        accepted.incrementAndGet();
+
+        if (spilling || !queue.offer(line)) {
+            overflow(line);
+        }
+
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+        startDraining();
+    }
+
+    private void overflow(String line) throws IOException {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (!queue.offer(line)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                        completed.incrementAndGet();
+                    }
+                }
+                break;
+            case SPILL_TO_DISK:
+                spill(line);
+                break;
+            default:
+                blocked.increment();
+                long start = System.nanoTime();
+                while (!queue.offer(line)) {
+                    startDraining();
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                    if (Thread.interrupted()) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for the output handler");
+                    }
+                }
+                blockedNanos.add(System.nanoTime() - start);
+                break;
+        }
+    }
+
+    private void spill(String line) throws IOException {
+        synchronized (spillLock) {
+            if (spillWriter == null) {
+                spillFile = spillDirectory != null
+                        ? Files.createTempFile(spillDirectory.toPath(), "maven-invoker-", ".spill")
+                        : Files.createTempFile("maven-invoker-", ".spill");
+                spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+                spillReader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8);
+            }
+            spilling = true;
+            spillWriter.write(line);
+            spillWriter.newLine();
+            spillPending++;
+            spilled.increment();
+        }
+    }
+
+    private void startDraining() {
+        if (draining.compareAndSet(false, true)) {
+            Thread thread = DRAIN_THREADS.newThread(this::drain);
+            drainThread = thread;
+            thread.start();
+        } else {
+            Thread thread = drainThread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    private void drain() {
+        long idleSince = System.nanoTime();
+        while (true) {
+            String line = queue.poll();
+            if (line == null && spilling) {
+                line = unspill();
+            }
+
+            if (line != null) {
+                deliver(line);
+                idleSince = System.nanoTime();
+            } else if (System.nanoTime() - idleSince < IDLE_NANOS) {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            } else {
+                draining.set(false);
+                // a producer may have added a line after the last poll but before the flag was reset
+                if (queue.isEmpty() && !spilling || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private String unspill() {
+        synchronized (spillLock) {
+            if (spillPending == 0) {
+                return null;
+            }
+            try {
+                spillWriter.flush();
+                String line = spillReader.readLine();
+                spillPending--;
+                if (spillPending == 0) {
+                    closeSpillFile();
+                }
+                return line;
+            } catch (IOException e) {
+                recordFailure(e);
+                completed.addAndGet(spillPending);
+                spillPending = 0;
+                closeSpillFile();
+                return null;
+            }
+        }
+    }
+
+    private void closeSpillFile() {
+        spilling = false;
+        try {
+            spillWriter.close();
+            spillReader.close();
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            recordFailure(e);
+        } finally {
+            spillWriter = null;
+            spillReader = null;
+            spillFile = null;
+        }
+    }
+
+    private void deliver(String line) {
+        try {
+            if (failure == null) {
+                delegate.consumeLine(line);
+            }
+        } catch (Exception e) {
+            recordFailure(e);
+        } finally {
+            completed.incrementAndGet();
+        }
+    }
+
+    private void recordFailure(Exception e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Waits until all lines accepted so far have been passed to the delegate handler or dropped.
+     *
+     * @throws IOException if the delegate handler failed or the spill file could not be read.
+     */
+    @Override
+    public void flush() throws IOException {
+        long target = accepted.get();
+        while (completed.get() < target) {
+            startDraining();
+            LockSupport.parkNanos(this, PARK_NANOS);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while flushing the output handler");
+            }
+        }
+        if (delegate instanceof Flushable) {
+            ((Flushable) delegate).flush();
+        }
+        Exception e = failure;
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e != null) {
+            throw new IOException("The output handler failed", e);
+        }
+    }
+
+    /**
+     * Gets the number of lines currently waiting in the queue, not counting spilled lines.
+     *
+     * @return The queue depth.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the highest number of lines waiting in the queue so far.
+     *
+     * @return The maximum queue depth.
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Gets the number of lines waiting in the spill file.
+     *
+     * @return The number of pending spilled lines.
+     */
+    public long getSpillDepth() {
+        synchronized (spillLock) {
+            return spillPending;
+        }
+    }
+
+    /**
+     * Gets the number of lines dropped by the {@link OverflowPolicy#DROP_OLDEST} policy.
+     *
+     * @return The number of dropped lines.
+     */
+    public long getDroppedLines() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of lines written to the spill file by the {@link OverflowPolicy#SPILL_TO_DISK} policy.
+     *
+     * @return The number of spilled lines.
+     */
+    public long getSpilledLines() {
+        return spilled.sum();
+    }
+
+    /**
+     * Gets the number of lines for which the reading thread had to wait with the {@link OverflowPolicy#BLOCK} policy.
+     *
+     * @return The number of blocked lines.
+     */
+    public long getBlockedLines() {
+        return blocked.sum();
+    }
+
+    /**
+     * Gets the total time the reading thread had to wait with the {@link OverflowPolicy#BLOCK} policy.
+     *
+     * @return The blocked time in milliseconds.
+     */
+    public long getBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos.sum());
+    }
+}
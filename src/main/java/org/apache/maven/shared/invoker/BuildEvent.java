@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+/**
+ * An execution event of a Maven build, recorded inside the Maven process by an event spy. See
+ * {@link InvocationRequest#setRecordBuildEvents(boolean)}.
+ *
+ * @since 3.4.0
+ */
+public final class BuildEvent {
+
+    /**
+     * The type of an execution event.
+     */
+    public enum Type {
+        // in the order of the type codes written by BuildEventSpy
+        SESSION_STARTED,
+        SESSION_ENDED,
+        PROJECT_SKIPPED,
+        PROJECT_STARTED,
+        PROJECT_SUCCEEDED,
+        PROJECT_FAILED,
+        MOJO_SKIPPED,
+        MOJO_STARTED,
+        MOJO_SUCCEEDED,
+        MOJO_FAILED
+    }
+
+    private final Type type;
+
+    private final long nanoTime;
+
+    private final String projectId;
+
+    private final String mojoId;
+
+    private final String executionId;
+
+    private final String failure;
+
+    BuildEvent(Type type, long nanoTime, String projectId, String mojoId, String executionId, String failure) {
+        this.type = type;
+        this.nanoTime = nanoTime;
+        this.projectId = projectId;
+        this.mojoId = mojoId;
+        this.executionId = executionId;
+        this.failure = failure;
+    }
+
+    /**
+     * Gets the type of this event.
+     *
+     * @return The type, never <code>null</code>.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the time of this event in nanoseconds since the event spy has been initialized, i.e. since the start of
+     * the build.
+     *
+     * @return The time of this event in nanoseconds.
+     */
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * Gets the project of this event as <code>groupId:artifactId:version</code>.
+     *
+     * @return The project id or <code>null</code> for session events.
+     */
+    public String getProjectId() {
+        return projectId;
+    }
+
+    /**
+     * Gets the mojo of this event as <code>groupId:artifactId:version:goal</code>.
+     *
+     * @return The mojo id or <code>null</code> for session and project events.
+     */
+    public String getMojoId() {
+        return mojoId;
+    }
+
+    /**
+     * Gets the id of the mojo execution of this event.
+     *
+     * @return The execution id or <code>null</code> for session and project events.
+     */
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    /**
+     * Gets the message of the exception which failed a project or mojo.
+     *
+     * @return The failure message or <code>null</code> if nothing failed.
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder(64).append(type).append(" @ ").append(nanoTime);
+        if (projectId != null) {
+            buffer.append(' ').append(projectId);
+        }
+        if (mojoId != null) {
+            buffer.append(' ').append(mojoId).append(" (").append(executionId).append(')');
+        }
+        return buffer.toString();
+    }
+}
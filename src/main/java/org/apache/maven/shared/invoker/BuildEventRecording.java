@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+/**
+ * Injects the {@link BuildEventSpy} and the {@link ExpressionEvaluationSpy} into Maven processes and reads the events
+ * recorded by the former.
+ */
+final class BuildEventRecording {
+
+    private static final Class<?>[] SPY_CLASSES = {BuildEventSpy.class, ExpressionEvaluationSpy.class};
+
+    private static File spyJar;
+
+    private BuildEventRecording() {
+        // hide constructor
+    }
+
+    /**
+     * Gets the extension JAR holding the event spies, creating it in the temporary directory on first use. The JAR only
+     * contains the spies and a Plexus component descriptor, so the spies are neither indexed in the invoker JAR nor
+     * conflict with other extensions. Each spy stays inactive unless the user property it reads is set.
+     *
+     * @return The extension JAR, never <code>null</code>.
+     * @throws IOException if the JAR could not be created.
+     */
+    static synchronized File getSpyJar() throws IOException {
+        if (spyJar != null && spyJar.isFile()) {
+            return spyJar;
+        }
+        File jar = File.createTempFile("maven-invoker-eventspy-", ".jar");
+        jar.deleteOnExit();
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            for (Class<?> spyClass : SPY_CLASSES) {
+                String entry = spyClass.getName().replace('.', '/') + ".class";
+                try (InputStream spy =
+                        BuildEventRecording.class.getClassLoader().getResourceAsStream(entry)) {
+                    if (spy == null) {
+                        throw new IOException("Missing " + entry);
+                    }
+                    out.putNextEntry(new JarEntry(entry));
+                    byte[] buffer = new byte[8192];
+                    for (int read = spy.read(buffer); read >= 0; read = spy.read(buffer)) {
+                        out.write(buffer, 0, read);
+                    }
+                    out.closeEntry();
+                }
+            }
+
+            out.putNextEntry(new JarEntry("META-INF/plexus/components.xml"));
+            out.write(("<component-set><components>"
+                            + "<component>"
+                            + "<role>org.apache.maven.eventspy.EventSpy</role>"
+                            + "<role-hint>maven-invoker</role-hint>"
+                            + "<implementation>" + BuildEventSpy.class.getName() + "</implementation>"
+                            + "</component>"
+                            + "<component>"
+                            + "<role>org.apache.maven.eventspy.EventSpy</role>"
+                            + "<role-hint>maven-invoker-expressions</role-hint>"
+                            + "<implementation>" + ExpressionEvaluationSpy.class.getName() + "</implementation>"
+                            + "<requirements><requirement>"
+                            + "<role>org.apache.maven.project.ProjectBuilder</role>"
+                            + "<field-name>projectBuilder</field-name>"
+                            + "</requirement></requirements>"
+                            + "</component>"
+                            + "</components></component-set>")
+                    .getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        spyJar = jar;
+        return jar;
+    }
+
+    /**
+     * Reads the events recorded by the event spy. A truncated file, e.g. of a killed build, yields the events
+     * written before.
+     *
+     * @param file The file written by the event spy, must not be <code>null</code>.
+     * @return The recorded events or <code>null</code> if the spy did not write the file.
+     * @throws IOException if the file could not be read or has an unknown format.
+     */
+    static BuildEventSummary read(File file) throws IOException {
+        if (file.length() == 0) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != BuildEventSpy.MAGIC || in.readUnsignedByte() != BuildEventSpy.VERSION) {
+                throw new IOException("Unknown build event format in " + file);
+            }
+            long startTime = in.readLong();
+            BuildEvent.Type[] types = BuildEvent.Type.values();
+            List<BuildEvent> events = new ArrayList<>();
+            try {
+                while (true) {
+                    int type = in.read();
+                    if (type < 0) {
+                        break;
+                    }
+                    if (type >= types.length) {
+                        throw new IOException("Unknown build event type " + type + " in " + file);
+                    }
+                    long nanoTime = in.readLong();
+                    String projectId = readString(in);
+                    String mojoId = readString(in);
+                    String executionId = readString(in);
+                    String failure = readString(in);
+                    events.add(new BuildEvent(types[type], nanoTime, projectId, mojoId, executionId, failure));
+                }
+            } catch (EOFException e) {
+                // the process died while writing an event
+            }
+            return new BuildEventSummary(startTime, events);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        String value = in.readUTF();
+        return value.isEmpty() ? null : value;
+    }
+}
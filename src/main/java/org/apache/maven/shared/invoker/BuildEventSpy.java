@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.eventspy.AbstractEventSpy;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Records the execution events of a Maven build to the file named by the user property
+ * <code>maven.invoker.buildEvents</code>. This event spy is not used by the invoker itself but injected into the Maven
+ * process via <code>maven.ext.class.path</code>, so it must not reference any other class of the invoker.
+ * <p>
+ * The file starts with the magic <code>MIEV</code>, a format version byte and the wall-clock time in milliseconds
+ * corresponding to nanosecond offset zero. Each event is written as the type code byte, the nanosecond offset since the
+ * start of the spy and the UTF-8 strings for the project id, the mojo id, the execution id and the failure message,
+ * which are empty if not applicable. The file is flushed after each event.
+ * </p>
+ *
+ * @since 3.4.0
+ */
+public class BuildEventSpy extends AbstractEventSpy {
+
+    static final String FILE_PROPERTY = "maven.invoker.buildEvents";
+
+    static final int MAGIC = 0x4d494556;
+
+    static final int VERSION = 1;
+
+    /**
+     * The recorded event types, the index being the type code.
+     */
+    static final String[] TYPES = {
+        "SessionStarted",
+        "SessionEnded",
+        "ProjectSkipped",
+        "ProjectStarted",
+        "ProjectSucceeded",
+        "ProjectFailed",
+        "MojoSkipped",
+        "MojoStarted",
+        "MojoSucceeded",
+        "MojoFailed"
+    };
+
+    private static final int MAX_MESSAGE_LENGTH = 4096;
+
+    private final long start = System.nanoTime();
+
+    private DataOutputStream out;
+
+    @Override
+    public void init(Context context) throws Exception {
+        String file = null;
+        Map<String, Object> data = context.getData();
+        Object userProperties = data != null ? data.get("userProperties") : null;
+        if (userProperties instanceof Properties) {
+            file = ((Properties) userProperties).getProperty(FILE_PROPERTY);
+        }
+        if (file == null) {
+            file = System.getProperty(FILE_PROPERTY);
+        }
+        if (file != null) {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.flush();
+        }
+    }
+
+    @Override
+    public synchronized void onEvent(Object event) throws Exception {
+        if (out == null || !(event instanceof ExecutionEvent)) {
+            return;
+        }
+        ExecutionEvent executionEvent = (ExecutionEvent) event;
+        int type = typeCode(executionEvent.getType().name());
+        if (type < 0) {
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+
+        MavenProject project = executionEvent.getProject();
+        MojoExecution mojo = executionEvent.getMojoExecution();
+        Exception exception = executionEvent.getException();
+
+        out.writeByte(type);
+        out.writeLong(nanos);
+        writeString(
+                project != null
+                        ? project.getGroupId() + ':' + project.getArtifactId() + ':' + project.getVersion()
+                        : null);
+        writeString(
+                mojo != null
+                        ? mojo.getGroupId()
+                                + ':'
+                                + mojo.getArtifactId()
+                                + ':'
+                                + mojo.getVersion()
+                                + ':'
+                                + mojo.getGoal()
+                        : null);
+        writeString(mojo != null ? mojo.getExecutionId() : null);
+        writeString(exception != null ? String.valueOf(exception.getMessage()) : null);
+        out.flush();
+    }
+
+    @Override
+    public synchronized void close() throws Exception {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private static int typeCode(String name) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeUTF("");
+        } else {
+            out.writeUTF(value.length() > MAX_MESSAGE_LENGTH ? value.substring(0, MAX_MESSAGE_LENGTH) : value);
+        }
+    }
+}
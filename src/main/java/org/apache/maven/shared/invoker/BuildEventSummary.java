@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The execution events recorded during a Maven invocation and the timings aggregated from them. See
+ * {@link InvocationRequest#setRecordBuildEvents(boolean)}.
+ *
+ * @since 3.4.0
+ */
+public final class BuildEventSummary {
+
+    private final long startTime;
+
+    private final List<BuildEvent> events;
+
+    private final long sessionNanos;
+
+    private final Map<String, Long> projectNanos;
+
+    private final Map<String, Long> mojoNanos;
+
+    BuildEventSummary(long startTime, List<BuildEvent> events) {
+        this.startTime = startTime;
+        this.events = Collections.unmodifiableList(new ArrayList<>(events));
+
+        Map<String, Long> projects = new LinkedHashMap<>();
+        Map<String, Long> mojos = new LinkedHashMap<>();
+        Map<String, Long> started = new HashMap<>();
+        long sessionStart = -1;
+        long session = 0;
+        for (BuildEvent event : events) {
+            String key = event.getProjectId() + ' ' + event.getMojoId() + ' ' + event.getExecutionId();
+            switch (event.getType()) {
+                case SESSION_STARTED:
+                    sessionStart = event.getNanoTime();
+                    break;
+                case SESSION_ENDED:
+                    if (sessionStart >= 0) {
+                        session = event.getNanoTime() - sessionStart;
+                    }
+                    break;
+                case PROJECT_STARTED:
+                case MOJO_STARTED:
+                    started.put(key, event.getNanoTime());
+                    break;
+                case PROJECT_SUCCEEDED:
+                case PROJECT_FAILED:
+                    add(projects, event.getProjectId(), started.remove(key), event);
+                    break;
+                case MOJO_SUCCEEDED:
+                case MOJO_FAILED:
+                    add(mojos, event.getMojoId(), started.remove(key), event);
+                    break;
+                default:
+                    break;
+            }
+        }
+        this.sessionNanos = session;
+        this.projectNanos = Collections.unmodifiableMap(projects);
+        this.mojoNanos = Collections.unmodifiableMap(mojos);
+    }
+
+    private static void add(Map<String, Long> durations, String key, Long start, BuildEvent end) {
+        if (start != null) {
+            Long previous = durations.get(key);
+            durations.put(key, (previous != null ? previous : 0L) + end.getNanoTime() - start);
+        }
+    }
+
+    /**
+     * Gets the wall-clock time the event spy has been initialized, i.e. the origin of the event times.
+     *
+     * @return The start time in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Gets the recorded events in the order they occurred.
+     *
+     * @return The events, never <code>null</code>.
+     */
+    public List<BuildEvent> getEvents() {
+        return events;
+    }
+
+    /**
+     * Gets the duration of the build session.
+     *
+     * @return The duration in nanoseconds, <code>0</code> if the session did not end.
+     */
+    public long getSessionNanos() {
+        return sessionNanos;
+    }
+
+    /**
+     * Gets the build durations of the projects.
+     *
+     * @return The durations in nanoseconds by project id, in the order the projects finished, never
+     *         <code>null</code>.
+     */
+    public Map<String, Long> getProjectNanos() {
+        return projectNanos;
+    }
+
+    /**
+     * Gets the total execution durations of the mojos, summed up over all projects and executions.
+     *
+     * @return The durations in nanoseconds by mojo id, in the order the mojos first finished, never
+     *         <code>null</code>.
+     */
+    public Map<String, Long> getMojoNanos() {
+        return mojoNanos;
+    }
+}
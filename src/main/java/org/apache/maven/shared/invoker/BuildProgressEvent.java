@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+/**
+ * A progress event of a running Maven build, reported to a {@link BuildProgressListener} by a
+ * {@link BuildProgressHandler} parsing the output of Maven.
+ *
+ * @since 3.4.0
+ */
+public abstract class BuildProgressEvent {
+
+    private final String line;
+
+    private final long timestamp;
+
+    BuildProgressEvent(String line) {
+        this.line = line;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets the output line this event was parsed from.
+     *
+     * @return The output line, never <code>null</code>.
+     */
+    public String getLine() {
+        return line;
+    }
+
+    /**
+     * Gets the time the event was parsed.
+     *
+     * @return The time in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + line + "]";
+    }
+
+    /**
+     * The build of a module started, e.g. <code>Building app 1.0 [2/5]</code>.
+     */
+    public static final class ModuleStarted extends BuildProgressEvent {
+
+        private final String projectId;
+
+        private final String name;
+
+        private final String version;
+
+        private final int index;
+
+        private final int total;
+
+        ModuleStarted(String line, String projectId, String name, String version, int index, int total) {
+            super(line);
+            this.projectId = projectId;
+            this.name = name;
+            this.version = version;
+            this.index = index;
+            this.total = total;
+        }
+
+        /**
+         * Gets the <code>groupId:artifactId</code> of the module, printed by Maven 3.6.0 and later.
+         *
+         * @return The project id or <code>null</code> if unknown.
+         */
+        public String getProjectId() {
+            return projectId;
+        }
+
+        /**
+         * Gets the name of the module.
+         *
+         * @return The name, never <code>null</code>.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the version of the module.
+         *
+         * @return The version, never <code>null</code>.
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the one-based position of the module in the reactor.
+         *
+         * @return The position of the module, <code>1</code> for a single module build.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Gets the number of modules in the reactor.
+         *
+         * @return The number of modules, <code>1</code> for a single module build.
+         */
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * The execution of a mojo started, e.g. <code>--- compiler:3.13.0:compile (default-compile) @ app ---</code>.
+     */
+    public static final class MojoStarted extends BuildProgressEvent {
+
+        private final String plugin;
+
+        private final String version;
+
+        private final String goal;
+
+        private final String executionId;
+
+        private final String module;
+
+        MojoStarted(String line, String plugin, String version, String goal, String executionId, String module) {
+            super(line);
+            this.plugin = plugin;
+            this.version = version;
+            this.goal = goal;
+            this.executionId = executionId;
+            this.module = module;
+        }
+
+        /**
+         * Gets the plugin, i.e. its artifact id or prefix as printed by Maven.
+         *
+         * @return The plugin, never <code>null</code>.
+         */
+        public String getPlugin() {
+            return plugin;
+        }
+
+        /**
+         * Gets the version of the plugin.
+         *
+         * @return The plugin version, never <code>null</code>.
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the goal of the mojo.
+         *
+         * @return The goal, never <code>null</code>.
+         */
+        public String getGoal() {
+            return goal;
+        }
+
+        /**
+         * Gets the id of the execution.
+         *
+         * @return The execution id, never <code>null</code>.
+         */
+        public String getExecutionId() {
+            return executionId;
+        }
+
+        /**
+         * Gets the artifact id of the module the mojo is executed for.
+         *
+         * @return The artifact id, never <code>null</code>.
+         */
+        public String getModule() {
+            return module;
+        }
+    }
+
+    /**
+     * The build of a module finished, reported by the reactor summary or the build result of a single module build.
+     */
+    public static final class ModuleFinished extends BuildProgressEvent {
+
+        /**
+         * The result of a module build.
+         */
+        public enum Status {
+            SUCCESS,
+            FAILURE,
+            SKIPPED
+        }
+
+        private final String name;
+
+        private final Status status;
+
+        private final String time;
+
+        ModuleFinished(String line, String name, Status status, String time) {
+            super(line);
+            this.name = name;
+            this.status = status;
+            this.time = time;
+        }
+
+        /**
+         * Gets the name of the module, including the version for the first and last module of the reactor summary.
+         *
+         * @return The name, never <code>null</code>.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets the result of the module build.
+         *
+         * @return The status, never <code>null</code>.
+         */
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Gets the build time of the module as printed by Maven, e.g. <code>1.234 s</code>.
+         *
+         * @return The build time or <code>null</code> if not printed.
+         */
+        public String getTime() {
+            return time;
+        }
+    }
+
+    /**
+     * Surefire or Failsafe reported the results of a test class or the totals of a test run.
+     */
+    public static final class TestsRun extends BuildProgressEvent {
+
+        private final String testClass;
+
+        private final int run;
+
+        private final int failures;
+
+        private final int errors;
+
+        private final int skipped;
+
+        TestsRun(String line, String testClass, int run, int failures, int errors, int skipped) {
+            super(line);
+            this.testClass = testClass;
+            this.run = run;
+            this.failures = failures;
+            this.errors = errors;
+            this.skipped = skipped;
+        }
+
+        /**
+         * Gets the test class the results belong to.
+         *
+         * @return The name of the test class or <code>null</code> for the totals of a test run.
+         */
+        public String getTestClass() {
+            return testClass;
+        }
+
+        /**
+         * Gets the number of tests run.
+         *
+         * @return The number of tests run.
+         */
+        public int getRun() {
+            return run;
+        }
+
+        /**
+         * Gets the number of failed tests.
+         *
+         * @return The number of failed tests.
+         */
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * Gets the number of tests with errors.
+         *
+         * @return The number of tests with errors.
+         */
+        public int getErrors() {
+            return errors;
+        }
+
+        /**
+         * Gets the number of skipped tests.
+         *
+         * @return The number of skipped tests.
+         */
+        public int getSkipped() {
+            return skipped;
+        }
+    }
+
+    /**
+     * A download from a remote repository started or finished.
+     */
+    public static final class Download extends BuildProgressEvent {
+
+        private final boolean finished;
+
+        private final String repository;
+
+        private final String url;
+
+        private final String size;
+
+        Download(String line, boolean finished, String repository, String url, String size) {
+            super(line);
+            this.finished = finished;
+            this.repository = repository;
+            this.url = url;
+            this.size = size;
+        }
+
+        /**
+         * Tells whether the download finished or started.
+         *
+         * @return <code>true</code> if the download finished, <code>false</code> if it started.
+         */
+        public boolean isFinished() {
+            return finished;
+        }
+
+        /**
+         * Gets the id of the repository downloaded from.
+         *
+         * @return The repository id or <code>null</code> if not printed, e.g. by Maven 3.3 and earlier.
+         */
+        public String getRepository() {
+            return repository;
+        }
+
+        /**
+         * Gets the URL of the downloaded file.
+         *
+         * @return The URL, never <code>null</code>.
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Gets the size of a finished download as printed by Maven, e.g. <code>12 kB</code>.
+         *
+         * @return The size or <code>null</code> if the download started or the size was not printed.
+         */
+        public String getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the standard output of Maven while the build runs and reports the recognized progress to a
+ * {@link BuildProgressListener}. The parser works line by line without buffering, rejects most lines by their first
+ * characters and only applies a regular expression to lines which are candidates for an event. It understands the
+ * output of Maven 3.x and 4.x in batch mode as well as colored output.
+ * <p>
+ * The handler can be chained with another handler receiving all lines, e.g. to still print the output.
+ * </p>
+ * <p>
+ * Maven does not log when the build of a module in a reactor finished, so the module finished events of a multi
+ * module build are only reported at the end of the build, from the reactor summary. Only a single module build
+ * reports its module finished as soon as the build result is printed.
+ * </p>
+ *
+ * @since 3.4.0
+ */
+public class BuildProgressHandler implements InvocationOutputHandler, Flushable {
+
+    private static final Pattern ANSI_ESCAPE = Pattern.compile("\u001B\\[[;\\d]*m");
+
+    private static final Pattern MODULE_STARTED = Pattern.compile("Building (.+?) (\\S+)(?: +\\[(\\d+)/(\\d+)\\])?");
+
+    private static final Pattern MOJO_STARTED = Pattern.compile("--- (\\S+):(\\S+):(\\S+) \\((\\S+)\\) @ (\\S+) ---");
+
+    private static final Pattern MODULE_FINISHED =
+            Pattern.compile("(.+?) \\.+ ?(SUCCESS|FAILURE|SKIPPED)(?: \\[ *(.*?)\\])?");
+
+    private static final Pattern TESTS_RUN =
+            Pattern.compile("Tests run: (\\d+), Failures: (\\d+), Errors: (\\d+), Skipped: (\\d+)");
+
+    private static final Pattern DOWNLOAD =
+            Pattern.compile("Download(ing|ed)(?: from ([^:]+))?: (\\S+)(?: \\((.+?)(?: at .*)?\\))?");
+
+    private final BuildProgressListener listener;
+
+    private final InvocationOutputHandler delegate;
+
+    private String projectId;
+
+    private BuildProgressEvent.ModuleStarted currentModule;
+
+    private boolean moduleFinished;
+
+    private boolean reactorSummary;
+
+    /**
+     * Creates a new handler which only parses the output.
+     *
+     * @param listener The listener to notify, must not be <code>null</code>.
+     */
+    public BuildProgressHandler(BuildProgressListener listener) {
+        this(listener, null);
+    }
+
+    /**
+     * Creates a new handler which parses the output and passes it on.
+     *
+     * @param listener The listener to notify, must not be <code>null</code>.
+     * @param delegate The handler to pass each line to, may be <code>null</code>.
+     */
+    public BuildProgressHandler(BuildProgressListener listener, InvocationOutputHandler delegate) {
+        if (listener == null) {
+            throw new NullPointerException("missing progress listener");
+        }
+        this.listener = listener;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void consumeLine(String line) throws IOException {
+        if (delegate != null) {
+            delegate.consumeLine(line);
+        }
+        if (line != null) {
+            synchronized (this) {
+                parse(line);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (delegate instanceof Flushable) {
+            ((Flushable) delegate).flush();
+        }
+    }
+
+    private void parse(String line) {
+        String text = line;
+        if (text.indexOf('\u001B') >= 0) {
+            text = ANSI_ESCAPE.matcher(text).replaceAll("");
+        }
+        if (text.startsWith("[")) {
+            if (text.startsWith("[DEBUG]")) {
+                return;
+            }
+            int end = text.indexOf("] ");
+            if (end < 0) {
+                return;
+            }
+            text = text.substring(end + 2);
+        }
+        if (text.isEmpty() || (reactorSummary && parseModuleFinished(line, text))) {
+            return;
+        }
+
+        switch (text.charAt(0)) {
+            case '-':
+                parseSeparator(line, text);
+                break;
+            case 'B':
+                if (text.startsWith("Building ")) {
+                    parseModuleStarted(line, text);
+                } else if (text.startsWith("BUILD ")) {
+                    parseBuildResult(line, text);
+                }
+                break;
+            case 'R':
+                if (text.startsWith("Reactor Summary")) {
+                    reactorSummary = true;
+                }
+                break;
+            case 'T':
+                if (text.startsWith("Tests run: ")) {
+                    parseTestsRun(line, text);
+                }
+                break;
+            case 'D':
+                if (text.startsWith("Download")) {
+                    parseDownload(line, text);
+                }
+                break;
+            default:
+                // no event
+                break;
+        }
+    }
+
+    private void parseSeparator(String line, String text) {
+        if (text.startsWith("--- ")) {
+            Matcher matcher = MOJO_STARTED.matcher(text);
+            if (matcher.matches()) {
+                listener.mojoStarted(new BuildProgressEvent.MojoStarted(
+                        line,
+                        matcher.group(1),
+                        matcher.group(2),
+                        matcher.group(3),
+                        matcher.group(4),
+                        matcher.group(5)));
+            }
+        } else {
+            int start = text.indexOf("< ");
+            int end = text.indexOf(" >", start + 2);
+            if (start > 0 && end > 0) {
+                projectId = text.substring(start + 2, end);
+            } else if (reactorSummary && text.startsWith("-----")) {
+                reactorSummary = false;
+            }
+        }
+    }
+
+    private void parseModuleStarted(String line, String text) {
+        Matcher matcher = MODULE_STARTED.matcher(text);
+        if (!matcher.matches()) {
+            return;
+        }
+        boolean positioned = matcher.group(3) != null;
+        // without the preceding header or the reactor position, this could be e.g. "Building jar: target/app.jar"
+        if (projectId == null && !positioned) {
+            return;
+        }
+        int index = positioned ? Integer.parseInt(matcher.group(3)) : 1;
+        int total = positioned ? Integer.parseInt(matcher.group(4)) : 1;
+        currentModule =
+                new BuildProgressEvent.ModuleStarted(line, projectId, matcher.group(1), matcher.group(2), index, total);
+        moduleFinished = false;
+        projectId = null;
+        listener.moduleStarted(currentModule);
+    }
+
+    private boolean parseModuleFinished(String line, String text) {
+        Matcher matcher = MODULE_FINISHED.matcher(text);
+        if (!matcher.matches()) {
+            return false;
+        }
+        moduleFinished = true;
+        listener.moduleFinished(new BuildProgressEvent.ModuleFinished(
+                line,
+                matcher.group(1),
+                BuildProgressEvent.ModuleFinished.Status.valueOf(matcher.group(2)),
+                matcher.group(3)));
+        return true;
+    }
+
+    private void parseBuildResult(String line, String text) {
+        reactorSummary = false;
+        if (currentModule != null && !moduleFinished) {
+            // a single module build prints no reactor summary
+            BuildProgressEvent.ModuleFinished.Status status = text.startsWith("BUILD SUCCESS")
+                    ? BuildProgressEvent.ModuleFinished.Status.SUCCESS
+                    : BuildProgressEvent.ModuleFinished.Status.FAILURE;
+            listener.moduleFinished(new BuildProgressEvent.ModuleFinished(line, currentModule.getName(), status, null));
+        }
+        currentModule = null;
+        moduleFinished = false;
+    }
+
+    private void parseTestsRun(String line, String text) {
+        Matcher matcher = TESTS_RUN.matcher(text);
+        if (!matcher.lookingAt()) {
+            return;
+        }
+        String testClass = null;
+        int in = text.lastIndexOf("- in ");
+        if (in > matcher.end()) {
+            testClass = text.substring(in + 5).trim();
+        }
+        listener.testsRun(new BuildProgressEvent.TestsRun(
+                line,
+                testClass,
+                Integer.parseInt(matcher.group(1)),
+                Integer.parseInt(matcher.group(2)),
+                Integer.parseInt(matcher.group(3)),
+                Integer.parseInt(matcher.group(4))));
+    }
+
+    private void parseDownload(String line, String text) {
+        Matcher matcher = DOWNLOAD.matcher(text);
+        if (!matcher.matches()) {
+            return;
+        }
+        boolean finished = "ed".equals(matcher.group(1));
+        BuildProgressEvent.Download event = new BuildProgressEvent.Download(
+                line, finished, matcher.group(2), matcher.group(3), finished ? matcher.group(4) : null);
+        if (finished) {
+            listener.downloadFinished(event);
+        } else {
+            listener.downloadStarted(event);
+        }
+    }
+}
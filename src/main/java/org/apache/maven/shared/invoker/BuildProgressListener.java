@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+/**
+ * Receives the progress events of a running Maven build, parsed from its output by a {@link BuildProgressHandler}.
+ * Events are delivered on the thread reading the output, so listeners should return quickly.
+ *
+ * @since 3.4.0
+ */
+public interface BuildProgressListener {
+
+    /**
+     * Called when the build of a module started.
+     *
+     * @param event The event, never <code>null</code>.
+     */
+    default void moduleStarted(BuildProgressEvent.ModuleStarted event) {}
+
+    /**
+     * Called when the execution of a mojo started.
+     *
+     * @param event The event, never <code>null</code>.
+     */
+    default void mojoStarted(BuildProgressEvent.MojoStarted event) {}
+
+    /**
+     * Called when the build of a module finished. The modules of a multi module build are reported together at the
+     * end of the build, once Maven prints the reactor summary.
+     *
+     * @param event The event, never <code>null</code>.
+     */
+    default void moduleFinished(BuildProgressEvent.ModuleFinished event) {}
+
+    /**
+     * Called when tests have been run.
+     *
+     * @param event The event, never <code>null</code>.
+     */
+    default void testsRun(BuildProgressEvent.TestsRun event) {}
+
+    /**
+     * Called when a download started.
+     *
+     * @param event The event, never <code>null</code>.
+     */
+    default void downloadStarted(BuildProgressEvent.Download event) {}
+
+    /**
+     * Called when a download finished.
+     *
+     * @param event The event, never <code>null</code>.
+     */
+    default void downloadFinished(BuildProgressEvent.Download event) {}
+}
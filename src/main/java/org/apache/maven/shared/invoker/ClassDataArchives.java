@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Manages the dynamic Class Data Sharing (AppCDS) archives of the Maven JVM in a cache directory, one per Maven home
+ * and JDK. The first invocation of a Maven home and JDK is a training run, which dumps the loaded classes to a
+ * temporary file via <code>-XX:ArchiveClassesAtExit</code>; the file becomes the archive once Maven terminated
+ * normally. Further invocations map the archive via <code>-XX:SharedArchiveFile</code>.
+ * <p>
+ * The archive name contains a fingerprint of the versions, the JARs of the Maven home and the module image of the
+ * JDK, so a changed Maven home or JDK starts another training run, whose archive replaces the stale one. The JVM
+ * itself ignores archives it cannot use, e.g. because of a different class path.
+ * </p>
+ */
+final class ClassDataArchives {
+
+    /** The first Java version supporting dynamic archives. */
+    static final int MIN_JAVA_VERSION = 13;
+
+    private static final String EXTENSION = ".jsa";
+
+    private static final Set<File> TRAINING = ConcurrentHashMap.newKeySet();
+
+    private final File directory;
+
+    ClassDataArchives(File directory) {
+        if (directory == null) {
+            throw new NullPointerException("missing directory");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Gets the archive to use for a Maven home and JDK.
+     *
+     * @param mavenHome The Maven home, must not be <code>null</code>.
+     * @param mavenVersion The version of the Maven home, must not be <code>null</code>.
+     * @param javaHome The Java home, must not be <code>null</code>.
+     * @param javaVersion The version of the JDK, must not be <code>null</code>.
+     * @return The archive or <code>null</code> if the JDK does not support dynamic archives or another invocation is
+     *         currently training the archive.
+     * @throws IOException if the cache directory cannot be created.
+     */
+    Archive prepare(File mavenHome, String mavenVersion, File javaHome, String javaVersion) throws IOException {
+        if (RuntimeDiscovery.javaFeatureVersion(javaVersion) < MIN_JAVA_VERSION) {
+            return null;
+        }
+        String identity = hash(mavenHome.getCanonicalPath(), javaHome.getCanonicalPath());
+        File archiveFile = new File(
+                directory, identity + '-' + fingerprint(mavenHome, mavenVersion, javaHome, javaVersion) + EXTENSION);
+        if (archiveFile.isFile()) {
+            return new Archive(identity, archiveFile, null);
+        }
+        if (!TRAINING.add(archiveFile)) {
+            return null;
+        }
+        try {
+            Files.createDirectories(directory.toPath());
+            File trainingFile = File.createTempFile(identity + '-', EXTENSION + ".tmp", directory);
+            return new Archive(identity, archiveFile, trainingFile);
+        } catch (IOException | RuntimeException e) {
+            TRAINING.remove(archiveFile);
+            throw e;
+        }
+    }
+
+    static String fingerprint(File mavenHome, String mavenVersion, File javaHome, String javaVersion) {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append(mavenVersion).append('\n').append(javaVersion).append('\n');
+        appendFiles(buffer, new File(mavenHome, "boot"));
+        appendFiles(buffer, new File(mavenHome, "lib"));
+        appendFile(buffer, new File(javaHome, "lib/modules"));
+        appendFile(buffer, new File(javaHome, "release"));
+        return hash(buffer.toString());
+    }
+
+    private static void appendFiles(StringBuilder buffer, File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".jar"));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                appendFile(buffer, file);
+            }
+        }
+    }
+
+    private static void appendFile(StringBuilder buffer, File file) {
+        buffer.append(file.getName())
+                .append(':')
+                .append(file.length())
+                .append(':')
+                .append(file.lastModified())
+                .append('\n');
+    }
+
+    private static String hash(String... values) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String value : values) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return ExpressionEvaluator.hex(digest.digest()).substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The archive of a Maven home and JDK used by one invocation.
+     */
+    final class Archive {
+
+        private final String identity;
+
+        private final File archiveFile;
+
+        private final File trainingFile;
+
+        private Archive(String identity, File archiveFile, File trainingFile) {
+            this.identity = identity;
+            this.archiveFile = archiveFile;
+            this.trainingFile = trainingFile;
+        }
+
+        /**
+         * Gets the archive file, which exists unless this is a training run.
+         *
+         * @return The archive file, never <code>null</code>.
+         */
+        File getArchiveFile() {
+            return archiveFile;
+        }
+
+        /**
+         * Indicates whether the invocation dumps the archive.
+         *
+         * @return <code>true</code> for a training run, <code>false</code> if the archive is reused.
+         */
+        boolean isTraining() {
+            return trainingFile != null;
+        }
+
+        /**
+         * Gets the file the JVM reads or, on a training run, writes the archive to.
+         *
+         * @return The file passed to the JVM, never <code>null</code>.
+         */
+        File getJvmFile() {
+            return trainingFile != null ? trainingFile : archiveFile;
+        }
+
+        /**
+         * Gets the JVM option to append to <code>MAVEN_OPTS</code>.
+         *
+         * @return The JVM option, never <code>null</code>.
+         */
+        String getJvmOption() {
+            return (trainingFile != null ? "-XX:ArchiveClassesAtExit=" : "-XX:SharedArchiveFile=")
+                    + getJvmFile().getAbsolutePath();
+        }
+
+        /**
+         * Completes the invocation. The archive dumped by a training run is kept if Maven terminated normally and
+         * replaces stale archives of the same Maven home and JDK, otherwise it is discarded.
+         *
+         * @param terminatedNormally <code>true</code> if Maven exited by itself, <code>false</code> if it was
+         *            destroyed or did not start.
+         * @throws IOException if the archive cannot be stored.
+         */
+        void complete(boolean terminatedNormally) throws IOException {
+            if (trainingFile == null) {
+                return;
+            }
+            try {
+                if (terminatedNormally && trainingFile.length() > 0) {
+                    move();
+                    deleteStaleArchives();
+                }
+            } finally {
+                Files.deleteIfExists(trainingFile.toPath());
+                TRAINING.remove(archiveFile);
+            }
+        }
+
+        private void move() throws IOException {
+            try {
+                Files.move(
+                        trainingFile.toPath(),
+                        archiveFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(trainingFile.toPath(), archiveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        private void deleteStaleArchives() {
+            File[] archives =
+                    directory.listFiles((dir, name) -> name.startsWith(identity + '-') && name.endsWith(EXTENSION));
+            if (archives != null) {
+                for (File archive : archives) {
+                    if (!archive.equals(archiveFile)) {
+                        // archives mapped by running JVMs cannot be deleted on Windows
+                        archive.delete();
+                    }
+                }
+            }
+        }
+    }
+}
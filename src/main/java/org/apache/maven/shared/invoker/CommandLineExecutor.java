@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedReader;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.maven.shared.utils.cli.CommandLineException;
+import org.apache.maven.shared.utils.cli.CommandLineTimeOutException;
+import org.apache.maven.shared.utils.cli.Commandline;
+import org.apache.maven.shared.utils.cli.ShutdownHookUtils;
+import org.apache.maven.shared.utils.cli.StreamConsumer;
+
+/**
+ * Executes a command line like {@link org.apache.maven.shared.utils.cli.CommandLineUtils} does, but either pumps the
+ * streams of the process on threads created by {@link InvokerThreads}, i.e. virtual threads where available, or
+ * serves them from the event loop of the {@link ProcessIoReactor}. The calling thread waits for the process itself, so
+ * no additional thread is needed to enforce the timeout. Pumping threads block on the pipes, so even as virtual
+ * threads they are limited by the carrier threads of the scheduler, only the event loop scales beyond that.
+ */
+final class CommandLineExecutor {
+
+    private static final ThreadFactory PUMP_THREADS = InvokerThreads.newThreadFactory("maven-invoker-pump-");
+
+    private CommandLineExecutor() {
+        // hide constructor
+    }
+
+    /**
+     * Executes the command line and waits for the process to terminate.
+     *
+     * @param cli The command line to execute, must not be <code>null</code>.
+     * @param systemIn The input fed to the process, may be <code>null</code>.
+     * @param systemOut The consumer of the standard output, may be <code>null</code>.
+     * @param systemErr The consumer of the error output, may be <code>null</code>.
+     * @param timeoutInSeconds The timeout of the process, <code>0</code> or less for no timeout.
+     * @param multiplexed <code>true</code> to serve the streams from the shared {@link ProcessIoReactor},
+     *            <code>false</code> to pump them on dedicated threads.
+     * @return The exit code of the process.
+     * @throws CommandLineException if the process could not be started, timed out or its streams failed.
+     */
+    static int execute(
+            Commandline cli,
+            InputStream systemIn,
+            StreamConsumer systemOut,
+            StreamConsumer systemErr,
+            int timeoutInSeconds,
+            boolean multiplexed)
+            throws CommandLineException {
+        return execute(cli, systemIn, systemOut, systemErr, timeoutInSeconds, multiplexed, null);
+    }
+
+    /**
+     * Executes the command line and waits for the process to terminate.
+     *
+     * @param cli The command line to execute, must not be <code>null</code>.
+     * @param systemIn The input fed to the process, may be <code>null</code>.
+     * @param systemOut The consumer of the standard output, may be <code>null</code>.
+     * @param systemErr The consumer of the error output, may be <code>null</code>.
+     * @param timeoutInSeconds The timeout of the process, <code>0</code> or less for no timeout.
+     * @param multiplexed <code>true</code> to serve the streams from the shared {@link ProcessIoReactor},
+     *            <code>false</code> to pump them on dedicated threads.
+     * @param processListener Notified about the started process before its streams are read, may be
+     *            <code>null</code>.
+     * @return The exit code of the process.
+     * @throws CommandLineException if the process could not be started, timed out or its streams failed.
+     */
+    static int execute(
+            Commandline cli,
+            InputStream systemIn,
+            StreamConsumer systemOut,
+            StreamConsumer systemErr,
+            int timeoutInSeconds,
+            boolean multiplexed,
+            Consumer<Process> processListener)
+            throws CommandLineException {
+        Process process = cli.execute();
+
+        Thread processHook = new Thread(process::destroy, "maven-invoker process shutdown hook");
+        processHook.setContextClassLoader(null);
+        ShutdownHookUtils.addShutDownHook(processHook);
+
+        int exitCode;
+        try {
+            if (processListener != null) {
+                processListener.accept(process);
+            }
+            if (multiplexed) {
+                exitCode = ProcessIoReactor.getInstance()
+                        .register(process, systemIn, systemOut, systemErr, timeoutInSeconds)
+                        .await();
+            } else {
+                exitCode = pump(process, systemIn, systemOut, systemErr, timeoutInSeconds);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommandLineTimeOutException("Error while executing external command, process killed.", e);
+        } finally {
+            ShutdownHookUtils.removeShutdownHook(processHook);
+            process.destroy();
+        }
+
+        flush(systemOut, "stdout");
+        flush(systemErr, "stderr");
+
+        return exitCode;
+    }
+
+    /**
+     * Flushes consumers which hand the lines over asynchronously, so all output has been consumed when the invocation
+     * returns.
+     */
+    private static void flush(StreamConsumer consumer, String stream) throws CommandLineException {
+        if (consumer instanceof Flushable) {
+            try {
+                ((Flushable) consumer).flush();
+            } catch (IOException e) {
+                throw new CommandLineException("Failure processing " + stream + ".", e);
+            }
+        }
+    }
+
+    private static int pump(
+            Process process,
+            InputStream systemIn,
+            StreamConsumer systemOut,
+            StreamConsumer systemErr,
+            int timeoutInSeconds)
+            throws CommandLineException, InterruptedException {
+        InputFeeder inputFeeder = null;
+        LinePump outputPump = null;
+        LinePump errorPump = null;
+        try {
+            if (systemIn != null) {
+                inputFeeder = new InputFeeder(systemIn, process.getOutputStream());
+                PUMP_THREADS.newThread(inputFeeder).start();
+            }
+
+            outputPump = new LinePump(process.getInputStream(), systemOut);
+            PUMP_THREADS.newThread(outputPump).start();
+
+            errorPump = new LinePump(process.getErrorStream(), systemErr);
+            PUMP_THREADS.newThread(errorPump).start();
+
+            if (timeoutInSeconds > 0 && !process.waitFor(timeoutInSeconds, TimeUnit.SECONDS)) {
+                throw new CommandLineTimeOutException(
+                        String.format("Process timed out after %d seconds.", timeoutInSeconds));
+            }
+
+            int exitCode = process.waitFor();
+
+            if (inputFeeder != null) {
+                inputFeeder.stop();
+                inputFeeder.await();
+            }
+            outputPump.await();
+            errorPump.await();
+
+            if (inputFeeder != null && inputFeeder.exception != null) {
+                throw new CommandLineException("Failure processing stdin.", inputFeeder.exception);
+            }
+            if (outputPump.exception != null) {
+                throw new CommandLineException("Failure processing stdout.", outputPump.exception);
+            }
+            if (errorPump.exception != null) {
+                throw new CommandLineException("Failure processing stderr.", errorPump.exception);
+            }
+
+            return exitCode;
+        } finally {
+            if (inputFeeder != null) {
+                inputFeeder.stop();
+            }
+            if (outputPump != null) {
+                outputPump.disable();
+            }
+            if (errorPump != null) {
+                errorPump.disable();
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of a process stream and passes them to a consumer.
+     */
+    private static final class LinePump implements Runnable {
+
+        private final InputStream in;
+
+        private final StreamConsumer consumer;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile boolean disabled;
+
+        private volatile Exception exception;
+
+        LinePump(InputStream in, StreamConsumer consumer) {
+            this.in = in;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void run() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (exception == null && consumer != null && !disabled) {
+                        try {
+                            consumer.consumeLine(line);
+                        } catch (Exception e) {
+                            exception = e;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+
+        void disable() {
+            disabled = true;
+        }
+
+        void await() throws InterruptedException {
+            done.await();
+        }
+    }
+
+    /**
+     * Feeds the available input to the process, polling so that it can be stopped while the input blocks.
+     */
+    private static final class InputFeeder implements Runnable {
+
+        private static final int BUFFER_SIZE = 80;
+
+        private final InputStream input;
+
+        private final OutputStream output;
+
+        private final CountDownLatch stopped = new CountDownLatch(1);
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile Exception exception;
+
+        InputFeeder(InputStream input, OutputStream output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        @Override
+        public void run() {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try {
+                while (stopped.getCount() > 0) {
+                    if (input.available() > 0) {
+                        int read = input.read(buffer);
+                        if (read < 0) {
+                            break;
+                        }
+                        output.write(buffer, 0, read);
+                        output.flush();
+                    } else if (stopped.await(100, TimeUnit.MILLISECONDS)) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                exception = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    output.close();
+                } catch (IOException e) {
+                    if (exception == null) {
+                        exception = e;
+                    }
+                }
+                done.countDown();
+            }
+        }
+
+        void stop() {
+            stopped.countDown();
+        }
+
+        void await() throws InterruptedException {
+            done.await();
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Archives the output of Maven invocations to compressed files on disk. The standard and error output are merged into
+ * one archive, each line being prefixed with a tag naming its stream, i.e. <code>[out] </code> or
+ * <code>[err] </code>. Lines are encoded using UTF-8.
+ * <p>
+ * The archive is flushed whenever the configured block size of uncompressed data has been written, so a crashed build
+ * leaves a readable archive which lacks at most the last block. Once the compressed size of the current file exceeds
+ * the configured maximum file size, the file is finished and a new one named <code>&lt;baseName&gt;-2.log.gz</code>,
+ * <code>&lt;baseName&gt;-3.log.gz</code>, etc. is started. The size of the files may exceed the limit by the data
+ * buffered by the compressor.
+ * </p>
+ * <p>
+ * The handlers returned by {@link #getOutputHandler()} and {@link #getErrorHandler()} can be passed to the request
+ * directly. Alternatively, the archive can be set via {@link InvocationRequest#setLogArchive(CompressedLogArchive)},
+ * so the output is archived in addition to being passed to the configured handlers and the archived size is recorded
+ * on the {@link InvocationResult#getLogArchiveStatistics() result}. An archive can be used by several invocations in
+ * sequence or concurrently, in which case their lines are interleaved.
+ * </p>
+ *
+ * @since 3.4.0
+ */
+public class CompressedLogArchive implements Closeable {
+
+    /**
+     * The default maximum compressed size of an archive file, 64 MiB.
+     */
+    public static final long DEFAULT_MAX_FILE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The default amount of uncompressed data after which the archive is flushed, 64 KiB.
+     */
+    public static final int DEFAULT_FLUSH_BLOCK_SIZE = 64 * 1024;
+
+    private static final byte[] OUT_TAG = "[out] ".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] ERR_TAG = "[err] ".getBytes(StandardCharsets.UTF_8);
+
+    private final File directory;
+
+    private final String baseName;
+
+    private final LogCompressionCodec codec;
+
+    private final InvocationOutputHandler outputHandler = new StreamHandler(OUT_TAG);
+
+    private final InvocationOutputHandler errorHandler = new StreamHandler(ERR_TAG);
+
+    private final List<File> files = new ArrayList<>();
+
+    private long maxFileSize = DEFAULT_MAX_FILE_SIZE;
+
+    private int flushBlockSize = DEFAULT_FLUSH_BLOCK_SIZE;
+
+    private OutputStream out;
+
+    private CountingOutputStream fileOut;
+
+    private long finishedBytes;
+
+    private long lines;
+
+    private long uncompressedBytes;
+
+    private long unflushedBytes;
+
+    private boolean closed;
+
+    /**
+     * Creates a new gzip compressed archive.
+     *
+     * @param directory The directory to write the archive files to, must not be <code>null</code>. It is created if
+     *            it does not exist.
+     * @param baseName The base name of the archive files, must not be <code>null</code>.
+     */
+    public CompressedLogArchive(File directory, String baseName) {
+        this(directory, baseName, LogCompressionCodec.GZIP);
+    }
+
+    /**
+     * Creates a new archive.
+     *
+     * @param directory The directory to write the archive files to, must not be <code>null</code>. It is created if
+     *            it does not exist.
+     * @param baseName The base name of the archive files, must not be <code>null</code>.
+     * @param codec The codec compressing the archive files, must not be <code>null</code>.
+     */
+    public CompressedLogArchive(File directory, String baseName, LogCompressionCodec codec) {
+        if (directory == null) {
+            throw new NullPointerException("missing archive directory");
+        }
+        if (baseName == null) {
+            throw new NullPointerException("missing archive base name");
+        }
+        if (codec == null) {
+            throw new NullPointerException("missing compression codec");
+        }
+        this.directory = directory;
+        this.baseName = baseName;
+        this.codec = codec;
+    }
+
+    /**
+     * Sets the compressed size after which a new archive file is started.
+     *
+     * @param maxFileSize The maximum file size in bytes, must be positive.
+     * @return This archive.
+     */
+    public synchronized CompressedLogArchive setMaxFileSize(long maxFileSize) {
+        if (maxFileSize <= 0) {
+            throw new IllegalArgumentException("max file size must be positive: " + maxFileSize);
+        }
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    /**
+     * Sets the amount of uncompressed data after which the archive is flushed to disk. Smaller blocks lose less data
+     * when the build crashes but compress worse.
+     *
+     * @param flushBlockSize The block size in bytes, must be positive.
+     * @return This archive.
+     */
+    public synchronized CompressedLogArchive setFlushBlockSize(int flushBlockSize) {
+        if (flushBlockSize <= 0) {
+            throw new IllegalArgumentException("flush block size must be positive: " + flushBlockSize);
+        }
+        this.flushBlockSize = flushBlockSize;
+        return this;
+    }
+
+    /**
+     * Gets the handler archiving the standard output of Maven.
+     *
+     * @return The handler, never <code>null</code>.
+     */
+    public InvocationOutputHandler getOutputHandler() {
+        return outputHandler;
+    }
+
+    /**
+     * Gets the handler archiving the error output of Maven.
+     *
+     * @return The handler, never <code>null</code>.
+     */
+    public InvocationOutputHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    /**
+     * Gets the statistics of all data written to this archive so far. The compressed size of the current file only
+     * covers the data already flushed.
+     *
+     * @return The statistics, never <code>null</code>.
+     */
+    public synchronized LogArchiveStatistics getStatistics() {
+        long compressedBytes = finishedBytes + (fileOut != null ? fileOut.count : 0);
+        return new LogArchiveStatistics(lines, uncompressedBytes, compressedBytes, files);
+    }
+
+    /**
+     * Writes all buffered data to the current archive file.
+     *
+     * @throws IOException if the data could not be written.
+     */
+    public synchronized void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+            unflushedBytes = 0;
+            rotateIfFull();
+        }
+    }
+
+    /**
+     * Finishes the current archive file. Lines passed to the handlers afterwards are rejected.
+     *
+     * @throws IOException if the archive file could not be finished.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            finish();
+        }
+    }
+
+    synchronized void write(byte[] tag, String line) throws IOException {
+        if (closed) {
+            throw new IOException("log archive " + new File(directory, baseName) + " has been closed");
+        }
+        if (out == null) {
+            open();
+        }
+        byte[] bytes = (line != null ? line : "").getBytes(StandardCharsets.UTF_8);
+        out.write(tag);
+        out.write(bytes);
+        out.write('\n');
+        int length = tag.length + bytes.length + 1;
+        lines++;
+        uncompressedBytes += length;
+        unflushedBytes += length;
+        if (unflushedBytes >= flushBlockSize) {
+            flush();
+        } else {
+            rotateIfFull();
+        }
+    }
+
+    private void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Could not create log archive directory " + directory);
+        }
+        String index = files.isEmpty() ? "" : String.format(Locale.ROOT, "-%d", files.size() + 1);
+        File file = new File(directory, baseName + index + ".log" + codec.getFileExtension());
+        fileOut = new CountingOutputStream(new FileOutputStream(file));
+        files.add(file);
+        try {
+            out = new BufferedOutputStream(codec.compress(fileOut), 8 * 1024);
+        } catch (IOException | RuntimeException e) {
+            fileOut.close();
+            fileOut = null;
+            throw e;
+        }
+    }
+
+    private void rotateIfFull() throws IOException {
+        if (fileOut != null && fileOut.count >= maxFileSize) {
+            finish();
+        }
+    }
+
+    private void finish() throws IOException {
+        if (out != null) {
+            try {
+                out.close();
+            } finally {
+                finishedBytes += fileOut.count;
+                unflushedBytes = 0;
+                out = null;
+                fileOut = null;
+            }
+        }
+    }
+
+    private final class StreamHandler implements InvocationOutputHandler, Flushable {
+
+        private final byte[] tag;
+
+        StreamHandler(byte[] tag) {
+            this.tag = tag;
+        }
+
+        @Override
+        public void consumeLine(String line) throws IOException {
+            write(tag, line);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            CompressedLogArchive.this.flush();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
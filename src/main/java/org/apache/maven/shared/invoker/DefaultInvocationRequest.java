@@ -24,9 +24,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * Specifies the parameters used to control a Maven invocation.
@@ -116,6 +118,26 @@ public class DefaultInvocationRequest implements InvocationRequest {
 
     private List<String> args = new ArrayList<>();
 
+    private CompressedLogArchive logArchive;
+
+    private Set<KillTrigger> killTriggers = new LinkedHashSet<>();
+
+    private boolean recordBuildEvents;
+
+    private boolean ingestTestReports;
+
+    private int flightRecordingPercentage;
+
+    private boolean gcLogging;
+
+    private int stackSamplingThresholdInSeconds;
+
+    private int stackSamplingIntervalInSeconds = DEFAULT_STACK_SAMPLING_INTERVAL;
+
+    private boolean adaptiveThreads;
+
+    private JvmProfile jvmProfile;
+
     /**
      * <p>getBaseDirectory.</p>
      *
@@ -480,6 +502,15 @@ public class DefaultInvocationRequest implements InvocationRequest {
         return args;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setArgs(List<String> args) {
+        this.args = args != null ? new ArrayList<>(args) : new ArrayList<>();
+        return this;
+    }
+
     /** {@inheritDoc} */
     public InvocationRequest setPomFileName(String pomFilename) {
         this.pomFilename = pomFilename;
@@ -738,4 +769,203 @@ public class DefaultInvocationRequest implements InvocationRequest {
         this.mavenExecutable = mavenExecutable;
         return this;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompressedLogArchive getLogArchive() {
+        return logArchive;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setLogArchive(CompressedLogArchive logArchive) {
+        this.logArchive = logArchive;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<KillTrigger> getKillTriggers() {
+        return killTriggers;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setKillTriggers(Collection<KillTrigger> killTriggers) {
+        this.killTriggers = new LinkedHashSet<>();
+        if (killTriggers != null) {
+            for (KillTrigger killTrigger : killTriggers) {
+                addKillTrigger(killTrigger);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest addKillTrigger(KillTrigger killTrigger) {
+        if (killTrigger == null) {
+            throw new NullPointerException("missing kill trigger");
+        }
+        killTriggers.add(killTrigger);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRecordBuildEvents() {
+        return recordBuildEvents;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setRecordBuildEvents(boolean recordBuildEvents) {
+        this.recordBuildEvents = recordBuildEvents;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIngestTestReports() {
+        return ingestTestReports;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setIngestTestReports(boolean ingestTestReports) {
+        this.ingestTestReports = ingestTestReports;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getFlightRecordingPercentage() {
+        return flightRecordingPercentage;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setFlightRecordingPercentage(int flightRecordingPercentage) {
+        if (flightRecordingPercentage < 0 || flightRecordingPercentage > 100) {
+            throw new IllegalArgumentException(
+                    "flight recording percentage must be between 0 and 100: " + flightRecordingPercentage);
+        }
+        this.flightRecordingPercentage = flightRecordingPercentage;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isGcLogging() {
+        return gcLogging;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setGcLogging(boolean gcLogging) {
+        this.gcLogging = gcLogging;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStackSamplingThresholdInSeconds() {
+        return stackSamplingThresholdInSeconds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setStackSamplingThresholdInSeconds(int stackSamplingThresholdInSeconds) {
+        if (stackSamplingThresholdInSeconds < 0) {
+            throw new IllegalArgumentException(
+                    "stack sampling threshold must not be negative: " + stackSamplingThresholdInSeconds);
+        }
+        this.stackSamplingThresholdInSeconds = stackSamplingThresholdInSeconds;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStackSamplingIntervalInSeconds() {
+        return stackSamplingIntervalInSeconds;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setStackSamplingIntervalInSeconds(int stackSamplingIntervalInSeconds) {
+        if (stackSamplingIntervalInSeconds <= 0) {
+            throw new IllegalArgumentException(
+                    "stack sampling interval must be positive: " + stackSamplingIntervalInSeconds);
+        }
+        this.stackSamplingIntervalInSeconds = stackSamplingIntervalInSeconds;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAdaptiveThreads() {
+        return adaptiveThreads;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setAdaptiveThreads(boolean adaptiveThreads) {
+        this.adaptiveThreads = adaptiveThreads;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JvmProfile getJvmProfile() {
+        return jvmProfile;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationRequest setJvmProfile(JvmProfile jvmProfile) {
+        this.jvmProfile = jvmProfile;
+        return this;
+    }
 }
@@ -18,6 +18,11 @@
  */
 package org.apache.maven.shared.invoker;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.maven.shared.utils.cli.CommandLineException;
 
 /**
@@ -37,6 +42,76 @@ public final class DefaultInvocationResult implements InvocationResult {
      */
     private int exitCode = Integer.MIN_VALUE;
 
+    /**
+     * The statistics of the output archived by the Maven invocation.
+     */
+    private LogArchiveStatistics logArchiveStatistics;
+
+    /**
+     * The kill trigger which stopped the Maven invocation.
+     */
+    private KillTrigger killTrigger;
+
+    /**
+     * The execution events recorded during the Maven invocation.
+     */
+    private BuildEventSummary buildEventSummary;
+
+    /**
+     * The summary of the test reports written by the Maven invocation.
+     */
+    private TestReportSummary testReportSummary;
+
+    /**
+     * The summary of the Flight Recorder profile of the forked Maven JVM.
+     */
+    private FlightRecordingSummary flightRecordingSummary;
+
+    /**
+     * The summary of the GC log written by the forked Maven JVM.
+     */
+    private GcLogSummary gcLogSummary;
+
+    /**
+     * The profile aggregated from thread dumps of the Maven JVM and its forks.
+     */
+    private StackProfile stackProfile;
+
+    /**
+     * The project from which the failed build can be resumed.
+     */
+    private String resumeFrom;
+
+    /**
+     * The results of the earlier attempts of the build.
+     */
+    private List<InvocationResult> previousAttempts = Collections.emptyList();
+
+    /**
+     * Whether the build failed only because of failing tests.
+     */
+    private boolean testFailure;
+
+    /**
+     * The base directory Maven was executed in.
+     */
+    private File baseDirectory;
+
+    /**
+     * The version of the Maven installation which ran the build.
+     */
+    private String mavenVersion;
+
+    /**
+     * The version of the JDK which ran the build.
+     */
+    private String javaVersion;
+
+    /**
+     * The JVM profile applied to the Maven JVM.
+     */
+    private JvmProfile jvmProfile;
+
     /**
      * Creates a new invocation result
      */
@@ -79,4 +154,236 @@ public final class DefaultInvocationResult implements InvocationResult {
     void setExecutionException(CommandLineException executionException) {
         this.executionException = executionException;
     }
+
+    /**
+     * <p>Getter for the field <code>logArchiveStatistics</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.LogArchiveStatistics} object.
+     */
+    public LogArchiveStatistics getLogArchiveStatistics() {
+        return logArchiveStatistics;
+    }
+
+    /**
+     * Sets the statistics of the output archived by the Maven invocation.
+     *
+     * @param logArchiveStatistics The statistics of the archived output, may be <code>null</code>.
+     */
+    void setLogArchiveStatistics(LogArchiveStatistics logArchiveStatistics) {
+        this.logArchiveStatistics = logArchiveStatistics;
+    }
+
+    /**
+     * <p>Getter for the field <code>killTrigger</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.KillTrigger} object.
+     */
+    public KillTrigger getKillTrigger() {
+        return killTrigger;
+    }
+
+    /**
+     * Sets the kill trigger which stopped the Maven invocation.
+     *
+     * @param killTrigger The kill trigger which matched the output, may be <code>null</code>.
+     */
+    void setKillTrigger(KillTrigger killTrigger) {
+        this.killTrigger = killTrigger;
+    }
+
+    /**
+     * <p>Getter for the field <code>buildEventSummary</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.BuildEventSummary} object.
+     */
+    public BuildEventSummary getBuildEventSummary() {
+        return buildEventSummary;
+    }
+
+    /**
+     * Sets the execution events recorded during the Maven invocation.
+     *
+     * @param buildEventSummary The recorded build events, may be <code>null</code>.
+     */
+    void setBuildEventSummary(BuildEventSummary buildEventSummary) {
+        this.buildEventSummary = buildEventSummary;
+    }
+
+    /**
+     * <p>Getter for the field <code>testReportSummary</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.TestReportSummary} object.
+     */
+    public TestReportSummary getTestReportSummary() {
+        return testReportSummary;
+    }
+
+    /**
+     * Sets the summary of the test reports written by the Maven invocation.
+     *
+     * @param testReportSummary The test report summary, may be <code>null</code>.
+     */
+    void setTestReportSummary(TestReportSummary testReportSummary) {
+        this.testReportSummary = testReportSummary;
+    }
+
+    /**
+     * <p>Getter for the field <code>flightRecordingSummary</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.FlightRecordingSummary} object.
+     */
+    public FlightRecordingSummary getFlightRecordingSummary() {
+        return flightRecordingSummary;
+    }
+
+    /**
+     * Sets the summary of the Flight Recorder profile of the forked Maven JVM.
+     *
+     * @param flightRecordingSummary The profile summary, may be <code>null</code>.
+     */
+    void setFlightRecordingSummary(FlightRecordingSummary flightRecordingSummary) {
+        this.flightRecordingSummary = flightRecordingSummary;
+    }
+
+    /**
+     * <p>Getter for the field <code>gcLogSummary</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.GcLogSummary} object.
+     */
+    public GcLogSummary getGcLogSummary() {
+        return gcLogSummary;
+    }
+
+    /**
+     * Sets the summary of the GC log written by the forked Maven JVM.
+     *
+     * @param gcLogSummary The GC log summary, may be <code>null</code>.
+     */
+    void setGcLogSummary(GcLogSummary gcLogSummary) {
+        this.gcLogSummary = gcLogSummary;
+    }
+
+    /**
+     * <p>Getter for the field <code>stackProfile</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.StackProfile} object.
+     */
+    public StackProfile getStackProfile() {
+        return stackProfile;
+    }
+
+    /**
+     * Sets the profile aggregated from thread dumps of the Maven JVM and its forks.
+     *
+     * @param stackProfile The stack profile, may be <code>null</code>.
+     */
+    void setStackProfile(StackProfile stackProfile) {
+        this.stackProfile = stackProfile;
+    }
+
+    /**
+     * <p>Getter for the field <code>resumeFrom</code>.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getResumeFrom() {
+        return resumeFrom;
+    }
+
+    /**
+     * Sets the project from which the failed build can be resumed.
+     *
+     * @param resumeFrom The project selector, may be <code>null</code>.
+     */
+    void setResumeFrom(String resumeFrom) {
+        this.resumeFrom = resumeFrom;
+    }
+
+    /**
+     * <p>Getter for the field <code>previousAttempts</code>.</p>
+     *
+     * @return a {@link java.util.List} object.
+     */
+    public List<InvocationResult> getPreviousAttempts() {
+        return previousAttempts;
+    }
+
+    /**
+     * Sets the results of the earlier attempts of the build.
+     *
+     * @param previousAttempts The results of the earlier attempts, oldest first, must not be <code>null</code>.
+     */
+    void setPreviousAttempts(List<InvocationResult> previousAttempts) {
+        this.previousAttempts = Collections.unmodifiableList(new ArrayList<>(previousAttempts));
+    }
+
+    boolean isTestFailure() {
+        return testFailure;
+    }
+
+    void setTestFailure(boolean testFailure) {
+        this.testFailure = testFailure;
+    }
+
+    File getBaseDirectory() {
+        return baseDirectory;
+    }
+
+    void setBaseDirectory(File baseDirectory) {
+        this.baseDirectory = baseDirectory;
+    }
+
+    /**
+     * <p>Getter for the field <code>mavenVersion</code>.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getMavenVersion() {
+        return mavenVersion;
+    }
+
+    /**
+     * Sets the version of the Maven installation which ran the build.
+     *
+     * @param mavenVersion The Maven version, may be <code>null</code>.
+     */
+    void setMavenVersion(String mavenVersion) {
+        this.mavenVersion = mavenVersion;
+    }
+
+    /**
+     * <p>Getter for the field <code>javaVersion</code>.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getJavaVersion() {
+        return javaVersion;
+    }
+
+    /**
+     * Sets the version of the JDK which ran the build.
+     *
+     * @param javaVersion The Java version, may be <code>null</code>.
+     */
+    void setJavaVersion(String javaVersion) {
+        this.javaVersion = javaVersion;
+    }
+
+    /**
+     * <p>Getter for the field <code>jvmProfile</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.JvmProfile} object.
+     */
+    public JvmProfile getJvmProfile() {
+        return jvmProfile;
+    }
+
+    /**
+     * Sets the JVM profile applied to the Maven JVM.
+     *
+     * @param jvmProfile The JVM profile, may be <code>null</code>.
+     */
+    void setJvmProfile(JvmProfile jvmProfile) {
+        this.jvmProfile = jvmProfile;
+    }
 }
@@ -22,10 +22,15 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.apache.maven.shared.utils.cli.CommandLineException;
-import org.apache.maven.shared.utils.cli.CommandLineUtils;
+import org.apache.maven.shared.utils.cli.CommandLineTimeOutException;
 import org.apache.maven.shared.utils.cli.Commandline;
 
 /**
@@ -59,8 +64,83 @@ public class DefaultInvoker implements Invoker {
 
     private InvocationOutputHandler errorHandler = DEFAULT_OUTPUT_HANDLER;
 
+    private AdmissionController admissionController;
+
+    private boolean multiplexedIo;
+
+    private InvokerStatistics statistics;
+
+    private int resumeRetries;
+
+    private int failedTestRetries;
+
+    private File classDataSharingDirectory;
+
+    private SnapshotUpdateCoalescer snapshotUpdateCoalescer;
+
     /** {@inheritDoc} */
     public InvocationResult execute(InvocationRequest request) throws MavenInvocationException {
+        DefaultInvocationResult result = executeOnce(request);
+
+        List<InvocationResult> attempts = new ArrayList<>();
+        int testReruns = 0;
+        int resumes = 0;
+        while (isRetryable(result)) {
+            DefaultInvocationResult previous = result;
+            if (testReruns < failedTestRetries && isTestRerunnable(result)) {
+                testReruns++;
+                List<TestCaseResult> failingTests =
+                        result.getTestReportSummary().getFailingTests();
+                getLogger()
+                        .info("Running " + failingTests.size() + " failing tests again (" + testReruns + "/"
+                                + failedTestRetries + ")");
+                FailedTestRerun rerun = FailedTestRerun.apply(request, result.getBaseDirectory(), failingTests);
+                try {
+                    result = executeOnce(request);
+                } finally {
+                    rerun.restore(request);
+                }
+                result.setTestReportSummary(previous.getTestReportSummary().merge(result.getTestReportSummary()));
+            } else if (resumes < resumeRetries && result.getResumeFrom() != null) {
+                resumes++;
+                getLogger()
+                        .info("Retrying Maven build (" + resumes + "/" + resumeRetries + "), resuming from "
+                                + result.getResumeFrom());
+                String resumeFrom = request.getResumeFrom();
+                request.setResumeFrom(result.getResumeFrom());
+                try {
+                    result = executeOnce(request);
+                } finally {
+                    request.setResumeFrom(resumeFrom);
+                }
+            } else {
+                break;
+            }
+            attempts.add(previous);
+        }
+
+        if (!attempts.isEmpty()) {
+            result.setPreviousAttempts(attempts);
+        }
+        return result;
+    }
+
+    private static boolean isRetryable(InvocationResult result) {
+        return result.getExitCode() != 0 && result.getExecutionException() == null && result.getKillTrigger() == null;
+    }
+
+    private static boolean isTestRerunnable(DefaultInvocationResult result) {
+        return result.isTestFailure()
+                && result.getBaseDirectory() != null
+                && result.getTestReportSummary() != null
+                && !result.getTestReportSummary().getFailingTests().isEmpty();
+    }
+
+    private DefaultInvocationResult executeOnce(InvocationRequest request) throws MavenInvocationException {
+        long startNanos = System.nanoTime();
+
+        InvocationTrace trace = InvocationTrace.start(request, workingDirectory);
+
         MavenCommandLineBuilder cliBuilder = new MavenCommandLineBuilder();
 
         if (logger != null) {
@@ -83,35 +163,239 @@ public class DefaultInvoker implements Invoker {
             cliBuilder.setBaseDirectory(workingDirectory);
         }
 
+        cliBuilder.setThreadAllocator(ThreadAllocator.getDefault());
+
+        if (classDataSharingDirectory != null) {
+            cliBuilder.setClassDataArchives(new ClassDataArchives(classDataSharingDirectory));
+        }
+
+        cliBuilder.setSnapshotUpdateCoalescer(snapshotUpdateCoalescer);
+
         Commandline cli;
 
         try {
             cli = cliBuilder.build(request);
         } catch (CommandLineConfigurationException e) {
+            abandonCommandLine(cliBuilder, trace);
             throw new MavenInvocationException("Error configuring command line", e);
+        } catch (RuntimeException e) {
+            abandonCommandLine(cliBuilder, trace);
+            throw e;
         }
 
+        trace.commandLineBuilt();
+
         DefaultInvocationResult result = new DefaultInvocationResult();
+        result.setMavenVersion(cliBuilder.getMavenVersion());
+        result.setJavaVersion(cliBuilder.getJavaVersion());
+        result.setJvmProfile(request.getJvmProfile());
 
-        try {
-            int exitCode = executeCommandLine(cli, request, request.getTimeoutInSeconds());
+        TestReportCollector testReports = null;
+
+        boolean started = false;
+
+        boolean succeeded = false;
+
+        try (AdmissionController.Admission admission = admit(request, cli)) {
+            cliBuilder.allocateThreads();
+
+            if (statistics != null) {
+                statistics.invocationStarted();
+                started = true;
+            }
+
+            if (request.isIngestTestReports() || failedTestRetries > 0) {
+                testReports = new TestReportCollector(cli.getWorkingDirectory(), System.currentTimeMillis());
+                testReports.start();
+            }
+
+            int exitCode = executeCommandLine(cli, request, result, request.getTimeoutInSeconds(), trace);
 
             result.setExitCode(exitCode);
+            succeeded = exitCode == 0;
+            if (statistics != null) {
+                statistics.invocationCompleted(exitCode);
+            }
         } catch (CommandLineException e) {
             result.setExecutionException(e);
+            if (e instanceof CommandLineTimeOutException) {
+                trace.timedOut();
+            }
+            if (statistics != null) {
+                statistics.invocationFailed(e);
+            }
+        } finally {
+            readBuildEvents(cliBuilder.getBuildEventsFile(), result);
+            readFlightRecording(cliBuilder.getFlightRecordingFile(), result);
+            readGcLog(cliBuilder.getGcLogFile(), result);
+            releaseThreads(cliBuilder.getThreadAllocation());
+            completeClassDataArchive(
+                    cliBuilder.getClassDataArchive(),
+                    result.getExecutionException() == null && result.getKillTrigger() == null);
+            completeSnapshotUpdate(cliBuilder.getSnapshotUpdateClaim(), succeeded);
+            if (testReports != null) {
+                result.setTestReportSummary(testReports.finish());
+            }
+            if (started) {
+                statistics.invocationFinished(System.nanoTime() - startNanos);
+            }
+            trace.completed(result.getExitCode());
         }
 
         return result;
     }
 
-    private int executeCommandLine(Commandline cli, InvocationRequest request, int timeoutInSeconds)
-            throws CommandLineException {
-        int result;
+    /**
+     * Releases the resources acquired by a command line which will not be executed.
+     */
+    private void abandonCommandLine(MavenCommandLineBuilder cliBuilder, InvocationTrace trace) {
+        File buildEventsFile = cliBuilder.getBuildEventsFile();
+        if (buildEventsFile != null) {
+            buildEventsFile.delete();
+        }
+        File flightRecordingFile = cliBuilder.getFlightRecordingFile();
+        if (flightRecordingFile != null) {
+            flightRecordingFile.delete();
+        }
+        File gcLogFile = cliBuilder.getGcLogFile();
+        if (gcLogFile != null) {
+            gcLogFile.delete();
+        }
+        completeClassDataArchive(cliBuilder.getClassDataArchive(), false);
+        completeSnapshotUpdate(cliBuilder.getSnapshotUpdateClaim(), false);
+        trace.completed(Integer.MIN_VALUE);
+    }
+
+    private void readBuildEvents(File buildEventsFile, DefaultInvocationResult result) {
+        if (buildEventsFile == null) {
+            return;
+        }
+        try {
+            result.setBuildEventSummary(BuildEventRecording.read(buildEventsFile));
+        } catch (IOException e) {
+            getLogger().warn("Failed to read build events from " + buildEventsFile + ": " + e.getMessage());
+        } finally {
+            if (!buildEventsFile.delete()) {
+                buildEventsFile.deleteOnExit();
+            }
+        }
+    }
+
+    private void readFlightRecording(File flightRecordingFile, DefaultInvocationResult result) {
+        if (flightRecordingFile == null) {
+            return;
+        }
+        try {
+            result.setFlightRecordingSummary(FlightRecorderSupport.readSummary(flightRecordingFile));
+        } catch (IOException e) {
+            getLogger().warn("Failed to read flight recording " + flightRecordingFile + ": " + e.getMessage());
+        } finally {
+            if (!flightRecordingFile.delete()) {
+                flightRecordingFile.deleteOnExit();
+            }
+        }
+    }
+
+    private void readGcLog(File gcLogFile, DefaultInvocationResult result) {
+        if (gcLogFile == null) {
+            return;
+        }
+        try {
+            result.setGcLogSummary(GcLogParser.parse(gcLogFile));
+        } catch (IOException e) {
+            getLogger().warn("Failed to read GC log " + gcLogFile + ": " + e.getMessage());
+        } finally {
+            if (!gcLogFile.delete()) {
+                gcLogFile.deleteOnExit();
+            }
+        }
+    }
+
+    private static void releaseThreads(ThreadAllocator.Allocation threadAllocation) {
+        if (threadAllocation != null) {
+            threadAllocation.close();
+        }
+    }
 
+    private static void completeSnapshotUpdate(SnapshotUpdateCoalescer.Claim claim, boolean succeeded) {
+        if (claim != null) {
+            claim.complete(succeeded);
+        }
+    }
+
+    private void completeClassDataArchive(ClassDataArchives.Archive archive, boolean terminatedNormally) {
+        if (archive == null) {
+            return;
+        }
+        try {
+            archive.complete(terminatedNormally);
+        } catch (IOException e) {
+            getLogger().warn("Failed to store class data archive " + archive.getArchiveFile() + ": " + e.getMessage());
+        }
+    }
+
+    private AdmissionController.Admission admit(InvocationRequest request, Commandline cli)
+            throws AdmissionRejectedException {
+        if (admissionController == null) {
+            return null;
+        }
+        if (statistics == null) {
+            return admissionController.admit(request, cli.getWorkingDirectory(), getLogger());
+        }
+        statistics.invocationQueued();
+        try {
+            return admissionController.admit(request, cli.getWorkingDirectory(), getLogger());
+        } finally {
+            statistics.invocationDequeued();
+        }
+    }
+
+    private int executeCommandLine(
+            Commandline cli,
+            InvocationRequest request,
+            DefaultInvocationResult invocationResult,
+            int timeoutInSeconds,
+            InvocationTrace trace)
+            throws CommandLineException {
         InputStream inputStream = request.getInputStream(this.inputStream);
         InvocationOutputHandler outputHandler = request.getOutputHandler(this.outputHandler);
         InvocationOutputHandler errorHandler = request.getErrorHandler(this.errorHandler);
 
+        CompressedLogArchive logArchive = request.getLogArchive();
+        LogArchiveStatistics archivedBefore = null;
+        if (logArchive != null) {
+            archivedBefore = logArchive.getStatistics();
+            outputHandler = TeeOutputHandler.of(outputHandler, logArchive.getOutputHandler());
+            errorHandler = TeeOutputHandler.of(errorHandler, logArchive.getErrorHandler());
+        }
+
+        KillSwitch killSwitch = null;
+        if (!request.getKillTriggers().isEmpty()) {
+            killSwitch = new KillSwitch(request.getKillTriggers());
+            outputHandler = killSwitch.watch(outputHandler);
+            errorHandler = killSwitch.watch(errorHandler);
+        }
+
+        if (statistics != null) {
+            outputHandler = statistics.count(outputHandler);
+            errorHandler = statistics.count(errorHandler);
+        }
+
+        StackSampler stackSampler = null;
+        if (request.getStackSamplingThresholdInSeconds() > 0) {
+            stackSampler = new StackSampler(
+                    StackSampler.findJcmd(request.getJavaHome()),
+                    TimeUnit.SECONDS.toMillis(request.getStackSamplingThresholdInSeconds()),
+                    TimeUnit.SECONDS.toMillis(request.getStackSamplingIntervalInSeconds()));
+        }
+
+        ResumeHint resumeHint = new ResumeHint();
+        outputHandler = resumeHint.watch(outputHandler);
+        errorHandler = resumeHint.watch(errorHandler);
+
+        outputHandler = trace.watch(outputHandler);
+        errorHandler = trace.watch(errorHandler);
+
         if (getLogger().isDebugEnabled()) {
             getLogger().debug("Executing: " + cli);
         }
@@ -121,21 +405,55 @@ public class DefaultInvoker implements Invoker {
                 getLogger().info("Executing in batch mode. The configured input stream will be ignored.");
             }
 
-            result = CommandLineUtils.executeCommandLine(cli, outputHandler, errorHandler, timeoutInSeconds);
-        } else {
-            if (inputStream == null) {
-                getLogger()
-                        .warn("Maven will be executed in interactive mode"
-                                + ", but no input stream has been configured for this MavenInvoker instance.");
+            inputStream = null;
+        } else if (inputStream == null) {
+            getLogger()
+                    .warn("Maven will be executed in interactive mode"
+                            + ", but no input stream has been configured for this MavenInvoker instance.");
+        }
 
-                result = CommandLineUtils.executeCommandLine(cli, outputHandler, errorHandler, timeoutInSeconds);
-            } else {
-                result = CommandLineUtils.executeCommandLine(
-                        cli, inputStream, outputHandler, errorHandler, timeoutInSeconds);
+        long spawnNanos = System.nanoTime();
+        Consumer<Process> processListener = process -> {
+            trace.processSpawned();
+            if (statistics != null) {
+                statistics.processSpawned(System.nanoTime() - spawnNanos);
             }
+        };
+        if (killSwitch != null) {
+            processListener = processListener.andThen(killSwitch::attach);
+        }
+        if (stackSampler != null) {
+            processListener = processListener.andThen(stackSampler::attach);
         }
 
-        return result;
+        trace.processSpawning();
+
+        try {
+            return CommandLineExecutor.execute(
+                    cli, inputStream, outputHandler, errorHandler, timeoutInSeconds, multiplexedIo, processListener);
+        } finally {
+            if (logArchive != null) {
+                invocationResult.setLogArchiveStatistics(
+                        logArchive.getStatistics().since(archivedBefore));
+            }
+            if (killSwitch != null) {
+                KillTrigger trigger = killSwitch.getFiredTrigger();
+                if (trigger != null) {
+                    getLogger().info("Stopped Maven build on kill trigger " + trigger);
+                    if (statistics != null) {
+                        statistics.invocationKilled();
+                    }
+                    trace.killed(trigger);
+                }
+                invocationResult.setKillTrigger(trigger);
+            }
+            if (stackSampler != null) {
+                invocationResult.setStackProfile(stackSampler.finish());
+            }
+            invocationResult.setResumeFrom(resumeHint.getResumeFrom());
+            invocationResult.setTestFailure(resumeHint.isTestFailure());
+            invocationResult.setBaseDirectory(cli.getWorkingDirectory());
+        }
     }
 
     /**
@@ -226,6 +544,190 @@ public class DefaultInvoker implements Invoker {
         return this;
     }
 
+    /**
+     * <p>Getter for the field <code>admissionController</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.AdmissionController} object.
+     * @since 3.4.0
+     */
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    /**
+     * Sets the admission controller which checks the pressure of the host before Maven is forked. An invocation
+     * rejected by the controller fails with an {@link AdmissionRejectedException}.
+     *
+     * @param admissionController The admission controller, may be <code>null</code> to fork Maven unconditionally.
+     * @return This invoker instance.
+     * @since 3.4.0
+     */
+    public DefaultInvoker setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+        return this;
+    }
+
+    /**
+     * <p>isMultiplexedIo.</p>
+     *
+     * @return a boolean.
+     * @since 3.4.0
+     */
+    public boolean isMultiplexedIo() {
+        return multiplexedIo;
+    }
+
+    /**
+     * Sets whether the output of the forked Maven processes is read by a single event loop thread shared by all
+     * running invocations instead of dedicated threads per invocation. Output handlers are then called on the event
+     * loop thread, so they should not block. Use the event loop to run more than a few hundred invocations at once:
+     * dedicated threads block on the pipes of the process, which even virtual threads can only do up to the maximum
+     * number of carrier threads of the JDK.
+     *
+     * @param multiplexedIo <code>true</code> to use the shared event loop, <code>false</code> to use dedicated threads.
+     * @return This invoker instance.
+     * @since 3.4.0
+     */
+    public DefaultInvoker setMultiplexedIo(boolean multiplexedIo) {
+        this.multiplexedIo = multiplexedIo;
+        return this;
+    }
+
+    /**
+     * <p>Getter for the field <code>statistics</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.InvokerStatistics} object.
+     * @since 3.4.0
+     */
+    public InvokerStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Sets the statistics updated by the invocations of this invoker. The same statistics may be shared by several
+     * invokers and exposed via JMX with {@link InvokerStatistics#registerMBean(String)}.
+     *
+     * @param statistics The statistics, may be <code>null</code> to not collect any.
+     * @return This invoker instance.
+     * @since 3.4.0
+     */
+    public DefaultInvoker setStatistics(InvokerStatistics statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
+    /**
+     * <p>Getter for the field <code>resumeRetries</code>.</p>
+     *
+     * @return an int.
+     * @since 3.4.0
+     */
+    public int getResumeRetries() {
+        return resumeRetries;
+    }
+
+    /**
+     * Sets how often a failed build is retried, resuming from the project Maven suggests in its output
+     * (<code>-rf :module</code>) so that the projects built successfully before are not built again. Builds which
+     * could not be executed, timed out or were stopped by a kill trigger are not retried. The results of the earlier
+     * attempts are available via {@link InvocationResult#getPreviousAttempts()}. While retrying, the resume-from
+     * project of the request is changed and restored afterwards.
+     *
+     * @param resumeRetries The maximum number of retries, <code>0</code> to not retry failed builds.
+     * @return This invoker instance.
+     * @since 3.4.0
+     */
+    public DefaultInvoker setResumeRetries(int resumeRetries) {
+        if (resumeRetries < 0) {
+            throw new IllegalArgumentException("resume retries must not be negative: " + resumeRetries);
+        }
+        this.resumeRetries = resumeRetries;
+        return this;
+    }
+
+    /**
+     * <p>Getter for the field <code>failedTestRetries</code>.</p>
+     *
+     * @return an int.
+     * @since 3.4.0
+     */
+    public int getFailedTestRetries() {
+        return failedTestRetries;
+    }
+
+    /**
+     * Sets how often the failing tests of a build which failed only because of its tests are run again. A rerun
+     * builds only the modules of the failing tests (with <code>-pl</code> and <code>-am</code>) and passes the failing
+     * test methods to Surefire and Failsafe via the <code>test</code> and <code>it.test</code> properties. The test
+     * report summary of the result is merged with the ones of the reruns, tests passing on a rerun are reported as
+     * {@link TestReportSummary#getFlakyTests() flaky}. Test reports are ingested for this purpose even if the request
+     * does not ask for it. Builds failing for other reasons are retried by {@link #setResumeRetries(int)} if enabled.
+     * While rerunning tests, the projects, <code>alsoMake</code> flag and properties of the request are changed and
+     * restored afterwards.
+     *
+     * @param failedTestRetries The maximum number of reruns, <code>0</code> to not rerun failing tests.
+     * @return This invoker instance.
+     * @since 3.4.0
+     */
+    public DefaultInvoker setFailedTestRetries(int failedTestRetries) {
+        if (failedTestRetries < 0) {
+            throw new IllegalArgumentException("failed test retries must not be negative: " + failedTestRetries);
+        }
+        this.failedTestRetries = failedTestRetries;
+        return this;
+    }
+
+    /**
+     * <p>Getter for the field <code>classDataSharingDirectory</code>.</p>
+     *
+     * @return a {@link java.io.File} object.
+     * @since 3.4.0
+     */
+    public File getClassDataSharingDirectory() {
+        return classDataSharingDirectory;
+    }
+
+    /**
+     * Sets the directory caching the Class Data Sharing (AppCDS) archives of the Maven JVM, one per Maven home and
+     * JDK. The first invocation of a Maven home and JDK dumps the classes loaded by Maven into an archive via
+     * <code>MAVEN_OPTS</code>, later invocations map the archive to start faster. Archives are recreated when the
+     * Maven home or the JDK change. Class data is only shared if the versions of the Maven home and of the JDK are
+     * known, the JDK is Java 13 or later and the JVM options of the request or the project do not configure class
+     * data sharing themselves.
+     *
+     * @param classDataSharingDirectory The cache directory, may be <code>null</code> to not share class data.
+     * @return This invoker instance.
+     * @since 3.4.0
+     */
+    public DefaultInvoker setClassDataSharingDirectory(File classDataSharingDirectory) {
+        this.classDataSharingDirectory = classDataSharingDirectory;
+        return this;
+    }
+
+    /**
+     * <p>Getter for the field <code>snapshotUpdateCoalescer</code>.</p>
+     *
+     * @return a {@link org.apache.maven.shared.invoker.SnapshotUpdateCoalescer} object.
+     * @since 3.4.0
+     */
+    public SnapshotUpdateCoalescer getSnapshotUpdateCoalescer() {
+        return snapshotUpdateCoalescer;
+    }
+
+    /**
+     * Sets the coalescer of snapshot updates for batches of invocations. Of the invocations requesting
+     * {@link UpdateSnapshotsPolicy#ALWAYS}, only the first one per local repository updates snapshots, the others wait
+     * for it and are run with <code>-nsu</code> within the window of the coalescer once it succeeded.
+     *
+     * @param snapshotUpdateCoalescer The coalescer, may be <code>null</code> to update snapshots as requested.
+     * @return This invoker instance.
+     * @since 3.4.0
+     */
+    public DefaultInvoker setSnapshotUpdateCoalescer(SnapshotUpdateCoalescer snapshotUpdateCoalescer) {
+        this.snapshotUpdateCoalescer = snapshotUpdateCoalescer;
+        return this;
+    }
+
     /** {@inheritDoc} */
     public Invoker setOutputHandler(InvocationOutputHandler outputHandler) {
         this.outputHandler = outputHandler;
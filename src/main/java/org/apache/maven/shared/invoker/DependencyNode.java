@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A node of a dependency tree, see {@link ProjectInspector#getDependencyTree(InvocationRequest, java.io.File)}, or a
+ * dependency declared by an {@link EffectivePom}.
+ *
+ * @since 3.4.0
+ */
+public final class DependencyNode {
+
+    private final String groupId;
+
+    private final String artifactId;
+
+    private final String version;
+
+    private final String type;
+
+    private final String classifier;
+
+    private final String scope;
+
+    private final boolean optional;
+
+    private final List<DependencyNode> children = new ArrayList<>();
+
+    DependencyNode(
+            String groupId,
+            String artifactId,
+            String version,
+            String type,
+            String classifier,
+            String scope,
+            boolean optional) {
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.type = type;
+        this.classifier = classifier;
+        this.scope = scope;
+        this.optional = optional;
+    }
+
+    /**
+     * Gets the group id of the artifact.
+     *
+     * @return The group id, never <code>null</code>.
+     */
+    public String getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * Gets the artifact id of the artifact.
+     *
+     * @return The artifact id, never <code>null</code>.
+     */
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    /**
+     * Gets the version of the artifact.
+     *
+     * @return The version or <code>null</code> if a declared dependency has no version.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the type of the artifact.
+     *
+     * @return The type, never <code>null</code>.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets the classifier of the artifact.
+     *
+     * @return The classifier or <code>null</code> if none.
+     */
+    public String getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * Gets the scope of the dependency.
+     *
+     * @return The scope or <code>null</code> for the root of a dependency tree.
+     */
+    public String getScope() {
+        return scope;
+    }
+
+    /**
+     * Tells whether the dependency is optional.
+     *
+     * @return <code>true</code> if the dependency is optional.
+     */
+    public boolean isOptional() {
+        return optional;
+    }
+
+    /**
+     * Gets the dependencies of this node.
+     *
+     * @return The child nodes, never <code>null</code>, empty for a declared dependency.
+     */
+    public List<DependencyNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    void addChild(DependencyNode child) {
+        children.add(child);
+    }
+
+    @Override
+    public String toString() {
+        return groupId
+                + ':'
+                + artifactId
+                + ':'
+                + type
+                + (classifier != null ? ":" + classifier : "")
+                + ':'
+                + version
+                + (scope != null ? ":" + scope : "")
+                + (optional ? " (optional)" : "");
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The parts of an effective POM commonly needed by tooling, see
+ * {@link ProjectInspector#getEffectivePom(InvocationRequest, java.io.File)}. The complete effective POM is available as
+ * XML.
+ *
+ * @since 3.4.0
+ */
+public final class EffectivePom {
+
+    private final String groupId;
+
+    private final String artifactId;
+
+    private final String version;
+
+    private final String packaging;
+
+    private final String name;
+
+    private final Properties properties;
+
+    private final List<String> modules;
+
+    private final List<DependencyNode> dependencies;
+
+    private final String xml;
+
+    EffectivePom(Builder builder, String xml) {
+        this.groupId = builder.groupId;
+        this.artifactId = builder.artifactId;
+        this.version = builder.version;
+        this.packaging = builder.packaging != null ? builder.packaging : "jar";
+        this.name = builder.name;
+        this.properties = builder.properties;
+        this.modules = Collections.unmodifiableList(builder.modules);
+        this.dependencies = Collections.unmodifiableList(builder.dependencies);
+        this.xml = xml;
+    }
+
+    /**
+     * Gets the group id of the project.
+     *
+     * @return The group id, never <code>null</code>.
+     */
+    public String getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * Gets the artifact id of the project.
+     *
+     * @return The artifact id, never <code>null</code>.
+     */
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    /**
+     * Gets the version of the project.
+     *
+     * @return The version, never <code>null</code>.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the packaging of the project.
+     *
+     * @return The packaging, never <code>null</code>.
+     */
+    public String getPackaging() {
+        return packaging;
+    }
+
+    /**
+     * Gets the name of the project.
+     *
+     * @return The name or <code>null</code> if none.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the properties of the project, including the inherited ones.
+     *
+     * @return A copy of the properties, never <code>null</code>.
+     */
+    public Properties getProperties() {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    /**
+     * Gets the modules of the project.
+     *
+     * @return The module paths, never <code>null</code>.
+     */
+    public List<String> getModules() {
+        return modules;
+    }
+
+    /**
+     * Gets the dependencies of the project with the managed versions and scopes applied. Dependency management and
+     * plugin dependencies are not included.
+     *
+     * @return The dependencies as nodes without children, never <code>null</code>.
+     */
+    public List<DependencyNode> getDependencies() {
+        return dependencies;
+    }
+
+    /**
+     * Gets the effective POM as written by <code>help:effective-pom</code>.
+     *
+     * @return The XML, never <code>null</code>.
+     */
+    public String getXml() {
+        return xml;
+    }
+
+    @Override
+    public String toString() {
+        return groupId + ':' + artifactId + ':' + packaging + ':' + version;
+    }
+
+    /**
+     * Collects the values while the effective POM is parsed.
+     */
+    static final class Builder {
+
+        String groupId;
+
+        String artifactId;
+
+        String version;
+
+        String packaging;
+
+        String name;
+
+        final Properties properties = new Properties();
+
+        final List<String> modules = new ArrayList<>();
+
+        final List<DependencyNode> dependencies = new ArrayList<>();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.maven.eventspy.AbstractEventSpy;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectBuilder;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.project.ProjectBuildingResult;
+
+/**
+ * Evaluates Maven expressions for a list of POM files when the Maven session starts. The POM files and expressions
+ * are read from the properties file named by the user property <code>maven.invoker.expressions</code>, the values are
+ * written to the properties file named by <code>maven.invoker.expressionValues</code>. Like the {@link BuildEventSpy},
+ * this event spy is injected into the Maven process via <code>maven.ext.class.path</code>, so it must not reference
+ * any other class of the invoker.
+ * <p>
+ * The input holds the POM files as <code>pom.&lt;i&gt;</code> and the expressions as <code>expression.&lt;j&gt;</code>,
+ * numbered from zero. The output holds the value of expression <code>j</code> for POM file <code>i</code> as
+ * <code>&lt;i&gt;.&lt;j&gt;</code>, missing if the value is <code>null</code>, and the error building POM file
+ * <code>i</code> as <code>&lt;i&gt;.error</code>. The expressions are evaluated like the <code>help:evaluate</code>
+ * goal does, i.e. by the parameter expression evaluator of Maven with the project built from the POM file as current
+ * project.
+ * </p>
+ *
+ * @since 3.4.0
+ */
+public class ExpressionEvaluationSpy extends AbstractEventSpy {
+
+    static final String INPUT_PROPERTY = "maven.invoker.expressions";
+
+    static final String OUTPUT_PROPERTY = "maven.invoker.expressionValues";
+
+    private static final String EVALUATOR_CLASS = "org.apache.maven.plugin.PluginParameterExpressionEvaluator";
+
+    private static final String MOJO_DESCRIPTOR_CLASS = "org.apache.maven.plugin.descriptor.MojoDescriptor";
+
+    private static final String PLUGIN_DESCRIPTOR_CLASS = "org.apache.maven.plugin.descriptor.PluginDescriptor";
+
+    /**
+     * The {@link ProjectBuilder} injected by Plexus, see the component descriptor written by
+     * {@link BuildEventRecording}.
+     */
+    private Object projectBuilder;
+
+    private String input;
+
+    private String output;
+
+    @Override
+    public void init(Context context) throws Exception {
+        Map<String, Object> data = context.getData();
+        Object userProperties = data != null ? data.get("userProperties") : null;
+        if (userProperties instanceof Properties) {
+            input = ((Properties) userProperties).getProperty(INPUT_PROPERTY);
+            output = ((Properties) userProperties).getProperty(OUTPUT_PROPERTY);
+        }
+        if (input == null) {
+            input = System.getProperty(INPUT_PROPERTY);
+            output = System.getProperty(OUTPUT_PROPERTY);
+        }
+    }
+
+    @Override
+    public synchronized void onEvent(Object event) throws Exception {
+        if (input == null || output == null || !(event instanceof ExecutionEvent)) {
+            return;
+        }
+        ExecutionEvent executionEvent = (ExecutionEvent) event;
+        if (!"SessionStarted".equals(executionEvent.getType().name())) {
+            return;
+        }
+        Properties values = evaluate(executionEvent.getSession(), load(new File(input)));
+        input = null;
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8)) {
+            values.store(writer, null);
+        }
+    }
+
+    private Properties evaluate(MavenSession session, Properties input) throws ReflectiveOperationException {
+        // the invoker is only compiled against maven-core, not against the Plexus, plugin API and model builder types
+        // used by these signatures
+        Method build = ProjectBuilder.class.getMethod("build", File.class, ProjectBuildingRequest.class);
+        ClassLoader loader = MavenSession.class.getClassLoader();
+        Class<?> evaluatorClass = Class.forName(EVALUATOR_CLASS, true, loader);
+        Constructor<?> evaluatorConstructor = evaluatorClass.getConstructor(MavenSession.class, MojoExecution.class);
+        Method evaluate = evaluatorClass.getMethod("evaluate", String.class);
+
+        // like help:evaluate, evaluate in the context of a blank mojo
+        Class<?> mojoDescriptorClass = Class.forName(MOJO_DESCRIPTOR_CLASS, true, loader);
+        Class<?> pluginDescriptorClass = Class.forName(PLUGIN_DESCRIPTOR_CLASS, true, loader);
+        Object mojoDescriptor = mojoDescriptorClass.getConstructor().newInstance();
+        mojoDescriptorClass
+                .getMethod("setPluginDescriptor", pluginDescriptorClass)
+                .invoke(mojoDescriptor, pluginDescriptorClass.getConstructor().newInstance());
+        MojoExecution mojoExecution = (MojoExecution)
+                MojoExecution.class.getConstructor(mojoDescriptorClass).newInstance(mojoDescriptor);
+
+        ProjectBuildingRequest buildingRequest = new DefaultProjectBuildingRequest(session.getProjectBuildingRequest());
+        MavenProject currentProject = session.getCurrentProject();
+        Properties values = new Properties();
+        try {
+            for (int i = 0; input.getProperty("pom." + i) != null; i++) {
+                MavenProject project;
+                try {
+                    File pomFile = new File(input.getProperty("pom." + i));
+                    project = ((ProjectBuildingResult) build.invoke(projectBuilder, pomFile, buildingRequest))
+                            .getProject();
+                } catch (InvocationTargetException e) {
+                    values.setProperty(i + ".error", String.valueOf(e.getCause().getMessage()));
+                    continue;
+                }
+                session.setCurrentProject(project);
+                Object evaluator = evaluatorConstructor.newInstance(session, mojoExecution);
+                for (int j = 0; input.getProperty("expression." + j) != null; j++) {
+                    Object value;
+                    try {
+                        value = evaluate.invoke(evaluator, input.getProperty("expression." + j));
+                    } catch (InvocationTargetException e) {
+                        // like help:evaluate, an invalid expression has no value
+                        value = null;
+                    }
+                    if (value != null) {
+                        values.setProperty(i + "." + j, String.valueOf(value));
+                    }
+                }
+            }
+        } finally {
+            session.setCurrentProject(currentProject);
+        }
+        return values;
+    }
+
+    private static Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Evaluates Maven expressions like <code>project.version</code> or <code>project.build.directory</code> for many POM
+ * files in a single Maven invocation, instead of one <code>help:evaluate</code> invocation per POM file and
+ * expression.
+ * <p>
+ * The expressions are evaluated by the {@link ExpressionEvaluationSpy} injected into a Maven process which runs the
+ * <code>validate</code> phase of an empty project. Each POM file is built on its own, so the POM files do not need to
+ * form a reactor. The values are cached by a SHA-256 hash of the path and content of the POM file, of its local parent
+ * POMs, of the settings files and of the profiles and properties of the request, like {@link ProjectInspector} does.
+ * A POM file is therefore evaluated again once it or its configuration changed. Changes of other inputs, e.g. parent
+ * POMs from a repository, are not detected, use {@link #clearCache()} in that case.
+ * </p>
+ *
+ * @since 3.4.0
+ */
+public class ExpressionEvaluator {
+
+    private final Invoker invoker;
+
+    private final Map<String, Map<String, String>> cache = new HashMap<>();
+
+    /**
+     * Creates a new evaluator.
+     *
+     * @param invoker The invoker used to execute Maven, must not be <code>null</code>.
+     */
+    public ExpressionEvaluator(Invoker invoker) {
+        if (invoker == null) {
+            throw new NullPointerException("missing invoker");
+        }
+        this.invoker = invoker;
+    }
+
+    /**
+     * Evaluates expressions for a single POM file.
+     *
+     * @param pomFile The POM file, must not be <code>null</code>.
+     * @param expressions The expressions, either plain like <code>project.version</code> or in the form
+     *            <code>${project.version}</code>, must not be <code>null</code>.
+     * @return The values by expression, a value being <code>null</code> if the expression is invalid or has no value.
+     * @throws MavenInvocationException if Maven could not be invoked or the POM file could not be built.
+     * @see #evaluate(InvocationRequest, Collection, Collection)
+     */
+    public Map<String, String> evaluate(File pomFile, Collection<String> expressions) throws MavenInvocationException {
+        return evaluate(Collections.singletonList(pomFile), expressions).get(pomFile);
+    }
+
+    /**
+     * Evaluates expressions for several POM files in batch mode.
+     *
+     * @param pomFiles The POM files, must not be <code>null</code>.
+     * @param expressions The expressions, either plain like <code>project.version</code> or in the form
+     *            <code>${project.version}</code>, must not be <code>null</code>.
+     * @return The values by expression by POM file, a value being <code>null</code> if the expression is invalid or
+     *         has no value.
+     * @throws MavenInvocationException if Maven could not be invoked or a POM file could not be built.
+     * @see #evaluate(InvocationRequest, Collection, Collection)
+     */
+    public Map<File, Map<String, String>> evaluate(Collection<File> pomFiles, Collection<String> expressions)
+            throws MavenInvocationException {
+        return evaluate(new DefaultInvocationRequest().setBatchMode(true), pomFiles, expressions);
+    }
+
+    /**
+     * Evaluates expressions for several POM files, invoking Maven at most once. The request supplies the settings,
+     * profiles, properties and other options of the invocation. Its base directory, POM file and arguments are
+     * replaced during the invocation and restored afterwards, so it should not hold any goals and must not be used
+     * concurrently.
+     *
+     * @param request The request to invoke Maven with, must not be <code>null</code>.
+     * @param pomFiles The POM files, must not be <code>null</code>.
+     * @param expressions The expressions, either plain like <code>project.version</code> or in the form
+     *            <code>${project.version}</code>, must not be <code>null</code>.
+     * @return The values by expression by POM file, a value being <code>null</code> if the expression is invalid or
+     *         has no value.
+     * @throws MavenInvocationException if Maven could not be invoked or a POM file could not be built.
+     */
+    public Map<File, Map<String, String>> evaluate(
+            InvocationRequest request, Collection<File> pomFiles, Collection<String> expressions)
+            throws MavenInvocationException {
+        if (request == null) {
+            throw new NullPointerException("missing request");
+        }
+        if (pomFiles == null) {
+            throw new NullPointerException("missing POM files");
+        }
+        if (expressions == null) {
+            throw new NullPointerException("missing expressions");
+        }
+
+        Map<File, String> hashes = new LinkedHashMap<>();
+        Map<File, Map<String, String>> values = new LinkedHashMap<>();
+        List<File> pending = new ArrayList<>();
+        for (File pomFile : pomFiles) {
+            String hash = hash(request, pomFile);
+            hashes.put(pomFile, hash);
+            Map<String, String> cached = cached(hash, expressions);
+            if (cached != null) {
+                values.put(pomFile, cached);
+            } else {
+                pending.add(pomFile);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            List<String> pendingExpressions = new ArrayList<>(new LinkedHashSet<>(expressions));
+            List<Map<String, String>> evaluated = invoke(request, pending, pendingExpressions);
+            for (int i = 0; i < pending.size(); i++) {
+                File pomFile = pending.get(i);
+                Map<String, String> pomValues = evaluated.get(i);
+                synchronized (cache) {
+                    cache.computeIfAbsent(hashes.get(pomFile), h -> new HashMap<>())
+                            .putAll(pomValues);
+                }
+                values.put(pomFile, Collections.unmodifiableMap(pomValues));
+            }
+        }
+
+        // keep the order of the given POM files
+        Map<File, Map<String, String>> result = new LinkedHashMap<>();
+        for (File pomFile : pomFiles) {
+            result.put(pomFile, values.get(pomFile));
+        }
+        return result;
+    }
+
+    /**
+     * Clears the cached values.
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private Map<String, String> cached(String hash, Collection<String> expressions) {
+        synchronized (cache) {
+            Map<String, String> cached = cache.get(hash);
+            if (cached == null || !cached.keySet().containsAll(expressions)) {
+                return null;
+            }
+            Map<String, String> values = new LinkedHashMap<>();
+            for (String expression : expressions) {
+                values.put(expression, cached.get(expression));
+            }
+            return Collections.unmodifiableMap(values);
+        }
+    }
+
+    private List<Map<String, String>> invoke(InvocationRequest request, List<File> pomFiles, List<String> expressions)
+            throws MavenInvocationException {
+        File workDir = null;
+        File previousPomFile = request.getPomFile();
+        File previousBaseDirectory = request.getBaseDirectory();
+        List<String> previousArgs = new ArrayList<>(request.getArgs());
+        Properties previousProperties = request.getProperties();
+        try {
+            workDir = Files.createTempDirectory("maven-invoker-evaluate-").toFile();
+            File input = new File(workDir, "expressions.properties");
+            File output = new File(workDir, "values.properties");
+            File pomFile = new File(workDir, "pom.xml");
+
+            Properties expressionInput = new Properties();
+            for (int i = 0; i < pomFiles.size(); i++) {
+                expressionInput.setProperty("pom." + i, pomFiles.get(i).getAbsolutePath());
+            }
+            for (int j = 0; j < expressions.size(); j++) {
+                expressionInput.setProperty("expression." + j, normalize(expressions.get(j)));
+            }
+            store(expressionInput, input);
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(pomFile), StandardCharsets.UTF_8)) {
+                writer.write("<project><modelVersion>4.0.0</modelVersion>"
+                        + "<groupId>org.apache.maven.shared.invoker</groupId>"
+                        + "<artifactId>maven-invoker-evaluate</artifactId><version>1</version>"
+                        + "<packaging>pom</packaging></project>");
+            }
+
+            Properties properties = new Properties();
+            if (previousProperties != null) {
+                properties.putAll(previousProperties);
+            }
+            String extClassPath = BuildEventRecording.getSpyJar().getAbsolutePath();
+            String userExtClassPath = properties.getProperty("maven.ext.class.path");
+            if (userExtClassPath != null && !userExtClassPath.isEmpty()) {
+                extClassPath = userExtClassPath + File.pathSeparator + extClassPath;
+            }
+            properties.setProperty("maven.ext.class.path", extClassPath);
+            properties.setProperty(ExpressionEvaluationSpy.INPUT_PROPERTY, input.getAbsolutePath());
+            properties.setProperty(ExpressionEvaluationSpy.OUTPUT_PROPERTY, output.getAbsolutePath());
+
+            request.setPomFile(pomFile);
+            request.setBaseDirectory(workDir);
+            request.setArgs(Collections.singletonList("validate"));
+            request.setProperties(properties);
+            InvocationResult result = invoker.execute(request);
+
+            if (!output.isFile()) {
+                if (result.getExecutionException() != null) {
+                    throw new MavenInvocationException(
+                            "Failed to evaluate expressions: "
+                                    + result.getExecutionException().getMessage(),
+                            result.getExecutionException());
+                }
+                throw new MavenInvocationException(
+                        "Failed to evaluate expressions, Maven exited with code " + result.getExitCode());
+            }
+            return values(load(output), pomFiles, expressions);
+        } catch (IOException e) {
+            throw new MavenInvocationException("Failed to evaluate expressions: " + e.getMessage(), e);
+        } finally {
+            request.setPomFile(previousPomFile);
+            request.setBaseDirectory(previousBaseDirectory);
+            request.setArgs(previousArgs);
+            request.setProperties(previousProperties);
+            if (workDir != null) {
+                try {
+                    deleteDirectory(workDir.toPath());
+                } catch (IOException e) {
+                    workDir.deleteOnExit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the values per POM file from the output of the {@link ExpressionEvaluationSpy}.
+     */
+    static List<Map<String, String>> values(Properties output, List<File> pomFiles, List<String> expressions)
+            throws MavenInvocationException {
+        List<Map<String, String>> values = new ArrayList<>();
+        for (int i = 0; i < pomFiles.size(); i++) {
+            String error = output.getProperty(i + ".error");
+            if (error != null) {
+                throw new MavenInvocationException("Failed to build " + pomFiles.get(i) + ": " + error);
+            }
+            Map<String, String> pomValues = new LinkedHashMap<>();
+            for (int j = 0; j < expressions.size(); j++) {
+                pomValues.put(expressions.get(j), output.getProperty(i + "." + j));
+            }
+            values.add(pomValues);
+        }
+        return values;
+    }
+
+    /**
+     * Gets the form <code>${expression}</code> expected by the expression evaluator of Maven.
+     */
+    static String normalize(String expression) {
+        if (expression == null) {
+            throw new NullPointerException("missing expression");
+        }
+        return expression.contains("${") ? expression : "${" + expression + "}";
+    }
+
+    /**
+     * Gets the key of the cached values of a POM file, hashing everything the values depend on.
+     */
+    static String hash(InvocationRequest request, File pomFile) throws MavenInvocationException {
+        if (pomFile == null) {
+            throw new NullPointerException("missing POM file");
+        }
+        try {
+            return ProjectInspector.cacheKey(request, pomFile, "evaluate");
+        } catch (IOException e) {
+            throw new MavenInvocationException("Failed to read " + pomFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+
+    private static void store(Properties properties, File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+    }
+
+    private static Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Derives the invocation which runs only the failing tests of a build again: the modules of the failing tests are
+ * selected with <code>-pl</code> (and <code>-am</code> to build their dependencies), and Surefire and Failsafe are
+ * restricted to the failing test methods.
+ */
+final class FailedTestRerun {
+
+    private final List<String> projects;
+
+    private final boolean alsoMake;
+
+    private final Properties properties;
+
+    private FailedTestRerun(InvocationRequest request) {
+        projects = request.getProjects();
+        alsoMake = request.isAlsoMake();
+        properties = request.getProperties();
+    }
+
+    /**
+     * Changes a request to run only the failing tests.
+     *
+     * @param request The request of the failed build, must not be <code>null</code>.
+     * @param baseDirectory The base directory of the failed build, must not be <code>null</code>.
+     * @param failingTests The failing tests, must not be <code>null</code>.
+     * @return The previous settings of the request to {@link #restore(InvocationRequest) restore} it.
+     */
+    static FailedTestRerun apply(InvocationRequest request, File baseDirectory, List<TestCaseResult> failingTests) {
+        FailedTestRerun previous = new FailedTestRerun(request);
+        Properties properties = new Properties();
+        if (previous.properties != null) {
+            properties.putAll(previous.properties);
+        }
+        String filter = testFilter(failingTests);
+        properties.setProperty("test", filter);
+        properties.setProperty("it.test", filter);
+        properties.setProperty("surefire.failIfNoSpecifiedTests", "false");
+        properties.setProperty("it.failIfNoSpecifiedTests", "false");
+        request.setProperties(properties);
+        request.setProjects(projects(baseDirectory, failingTests));
+        request.setAlsoMake(true);
+        return previous;
+    }
+
+    /**
+     * Restores the settings of a request changed by {@link #apply(InvocationRequest, File, List)}.
+     *
+     * @param request The request, must not be <code>null</code>.
+     */
+    void restore(InvocationRequest request) {
+        request.setProperties(properties);
+        request.setProjects(projects);
+        request.setAlsoMake(alsoMake);
+    }
+
+    /**
+     * Gets the module directories of the tests relative to the base directory of the reactor.
+     */
+    static List<String> projects(File baseDirectory, List<TestCaseResult> tests) {
+        Path base = baseDirectory.getAbsoluteFile().toPath().normalize();
+        Set<String> projects = new LinkedHashSet<>();
+        for (TestCaseResult test : tests) {
+            Path module = test.getModuleDirectory().getAbsoluteFile().toPath().normalize();
+            String project = base.relativize(module).toString();
+            projects.add(project.isEmpty() ? "." : project);
+        }
+        return new ArrayList<>(projects);
+    }
+
+    /**
+     * Gets the value of the <code>test</code> parameter selecting the test methods, e.g.
+     * <code>com.example.FooTest#testA+testB,com.example.BarTest</code>. Parameters of method names like
+     * <code>testA(int)[1]</code> are stripped, a test case without method selects its whole class.
+     */
+    static String testFilter(List<TestCaseResult> tests) {
+        Map<String, Set<String>> methods = new LinkedHashMap<>();
+        for (TestCaseResult test : tests) {
+            if (test.getClassName() == null) {
+                continue;
+            }
+            Set<String> names = methods.computeIfAbsent(test.getClassName(), c -> new LinkedHashSet<>());
+            String name = test.getName();
+            int end = name.length();
+            for (char c : new char[] {'(', '['}) {
+                int index = name.indexOf(c);
+                if (index >= 0 && index < end) {
+                    end = index;
+                }
+            }
+            name = name.substring(0, end).trim();
+            names.add(name.isEmpty() || !isIdentifier(name) ? "*" : name);
+        }
+        StringBuilder filter = new StringBuilder();
+        for (Map.Entry<String, Set<String>> entry : methods.entrySet()) {
+            if (filter.length() > 0) {
+                filter.append(',');
+            }
+            filter.append(entry.getKey());
+            if (!entry.getValue().contains("*")) {
+                filter.append('#').append(String.join("+", entry.getValue()));
+            }
+        }
+        return filter.toString();
+    }
+
+    private static boolean isIdentifier(String name) {
+        if (!Character.isJavaIdentifierStart(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (!Character.isJavaIdentifierPart(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the JDK Flight Recorder backends of {@link InvocationTrace} and of the {@link FlightRecordingSummary}. The
+ * backends are compiled for Java 11 and are only loaded if the running JVM provides the <code>jdk.jfr</code> module,
+ * tracing and summaries are disabled otherwise.
+ */
+final class FlightRecorderSupport {
+
+    private static final String FACTORY = "org.apache.maven.shared.invoker.FlightRecorderTraceFactory";
+
+    private static final String SUMMARY_READER = "org.apache.maven.shared.invoker.FlightRecordingSummaryReader";
+
+    private static final InvocationTrace.Factory INSTANCE = load(FACTORY, InvocationTrace.Factory.class);
+
+    private static final SummaryReader SUMMARY_READER_INSTANCE = load(SUMMARY_READER, SummaryReader.class);
+
+    /**
+     * Reads a recording into a summary, implemented by the Java 11 backend.
+     */
+    interface SummaryReader {
+
+        FlightRecordingSummary read(File recording) throws IOException;
+    }
+
+    private FlightRecorderSupport() {}
+
+    private static <T> T load(String className, Class<T> type) {
+        try {
+            return Class.forName(className)
+                    .asSubclass(type)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    static boolean isAvailable() {
+        return INSTANCE != null;
+    }
+
+    static boolean isSummaryAvailable() {
+        return SUMMARY_READER_INSTANCE != null;
+    }
+
+    /**
+     * Checks whether a JDK supports <code>-XX:StartFlightRecording</code> without unlocking commercial features, which
+     * OpenJDK does since 11 and, by the backport, since 8u262.
+     *
+     * @param javaVersion The version of the JDK, e.g. <code>1.8.0_392</code>, must not be <code>null</code>.
+     * @return <code>true</code> if the JDK can record, <code>false</code> otherwise.
+     */
+    static boolean isRecordingSupported(String javaVersion) {
+        int feature = RuntimeDiscovery.javaFeatureVersion(javaVersion);
+        if (feature >= 11) {
+            return true;
+        }
+        if (feature != 8) {
+            return false;
+        }
+        int separator = javaVersion.indexOf('_');
+        if (separator < 0) {
+            return false;
+        }
+        int end = separator + 1;
+        while (end < javaVersion.length() && Character.isDigit(javaVersion.charAt(end))) {
+            end++;
+        }
+        return end > separator + 1 && Integer.parseInt(javaVersion.substring(separator + 1, end)) >= 262;
+    }
+
+    /**
+     * Summarizes a recording file.
+     *
+     * @param recording The recording file, must not be <code>null</code>.
+     * @return The summary or <code>null</code> if the file is empty or recordings cannot be read by this JVM.
+     * @throws IOException If the recording could not be read.
+     */
+    static FlightRecordingSummary readSummary(File recording) throws IOException {
+        if (SUMMARY_READER_INSTANCE == null || recording.length() <= 0) {
+            return null;
+        }
+        return SUMMARY_READER_INSTANCE.read(recording);
+    }
+
+    static InvocationTrace start(InvocationRequest request, File defaultBaseDirectory) {
+        if (INSTANCE == null) {
+            return InvocationTrace.DISABLED;
+        }
+        return INSTANCE.start(request.getBaseDirectory(defaultBaseDirectory), () -> goalsOf(request));
+    }
+
+    private static String goalsOf(InvocationRequest request) {
+        List<String> goals = new ArrayList<>();
+        if (request.getGoals() != null) {
+            goals.addAll(request.getGoals());
+        }
+        if (request.getArgs() != null) {
+            goals.addAll(request.getArgs());
+        }
+        return String.join(" ", goals);
+    }
+}
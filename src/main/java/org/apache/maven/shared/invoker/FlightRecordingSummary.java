@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Summarizes the JDK Flight Recorder profile of a forked Maven JVM. See
+ * {@link InvocationRequest#setFlightRecordingPercentage(int)}.
+ *
+ * @since 3.4.0
+ */
+public final class FlightRecordingSummary {
+
+    private final long durationNanos;
+
+    private final long executionSamples;
+
+    private final Map<String, Long> hotMethods;
+
+    private final int gcCount;
+
+    private final long gcPauseNanos;
+
+    private final long gcMaxPauseNanos;
+
+    private final long allocatedBytes;
+
+    FlightRecordingSummary(
+            long durationNanos,
+            long executionSamples,
+            Map<String, Long> hotMethods,
+            int gcCount,
+            long gcPauseNanos,
+            long gcMaxPauseNanos,
+            long allocatedBytes) {
+        this.durationNanos = durationNanos;
+        this.executionSamples = executionSamples;
+        this.hotMethods = Collections.unmodifiableMap(new LinkedHashMap<>(hotMethods));
+        this.gcCount = gcCount;
+        this.gcPauseNanos = gcPauseNanos;
+        this.gcMaxPauseNanos = gcMaxPauseNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Gets the time span covered by the recording.
+     *
+     * @return The recording duration in milliseconds.
+     */
+    public long getDurationMillis() {
+        return durationNanos / 1_000_000L;
+    }
+
+    /**
+     * Gets the number of execution samples of Java threads.
+     *
+     * @return The number of execution samples.
+     */
+    public long getExecutionSamples() {
+        return executionSamples;
+    }
+
+    /**
+     * Gets the methods most often found executing at the top of the sampled stacks.
+     *
+     * @return The number of samples by method (<code>class.method</code>) in descending order, never
+     *         <code>null</code>.
+     */
+    public Map<String, Long> getHotMethods() {
+        return hotMethods;
+    }
+
+    /**
+     * Gets the number of garbage collections.
+     *
+     * @return The number of garbage collections.
+     */
+    public int getGcCount() {
+        return gcCount;
+    }
+
+    /**
+     * Gets the sum of all garbage collection pauses.
+     *
+     * @return The total pause time in milliseconds.
+     */
+    public double getGcPauseTotalMillis() {
+        return gcPauseNanos / 1e6;
+    }
+
+    /**
+     * Gets the longest garbage collection pause.
+     *
+     * @return The longest pause in milliseconds.
+     */
+    public double getGcPauseMaxMillis() {
+        return gcMaxPauseNanos / 1e6;
+    }
+
+    /**
+     * Gets the estimated number of bytes allocated on the heap, either from allocation samples or, for JVMs without
+     * them, from the heap usage before and after each garbage collection.
+     *
+     * @return The allocated bytes.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Gets the average allocation rate.
+     *
+     * @return The allocated bytes per second.
+     */
+    public double getAllocationRate() {
+        return durationNanos > 0 ? allocatedBytes * 1e9 / durationNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "FlightRecordingSummary[duration=" + getDurationMillis() + " ms, samples=" + executionSamples
+                + ", gcCount=" + gcCount + ", gcPause=" + getGcPauseTotalMillis() + " ms, allocated="
+                + allocatedBytes + " bytes]";
+    }
+}
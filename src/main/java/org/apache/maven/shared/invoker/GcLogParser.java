@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the unified GC log (<code>-Xlog:gc</code>) written by a Java 9+ JVM. Only the summary lines of the
+ * <code>gc</code> tag are needed, e.g.
+ *
+ * <pre>
+ * [1.234s][info][gc] GC(3) Pause Young (Normal) (G1 Evacuation Pause) 24M-&gt;3M(256M) 3.456ms
+ * [2.345s][info][gc] GC(4) Garbage Collection (Allocation Rate) 120M(6%)-&gt;40M(2%)
+ * </pre>
+ */
+final class GcLogParser {
+
+    /**
+     * The JVM option logging collections to the given file, which is quoted since Windows paths contain colons. The
+     * default decorations are uptime, level and tags.
+     */
+    static final String XLOG_OPTION = "-Xlog:gc:file=";
+
+    private static final Pattern PAUSE = Pattern.compile("\\bPause\\b.*?(\\d+(?:\\.\\d+)?)ms\\s*$");
+
+    private static final Pattern HEAP = Pattern.compile("->(\\d+)([BKMGT]?)(?:\\((\\d+)([BKMGT]?)\\)|\\(\\d+%\\))");
+
+    private GcLogParser() {}
+
+    static GcLogSummary parse(File gcLog) throws IOException {
+        try (Reader reader = Files.newBufferedReader(gcLog.toPath(), StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    static GcLogSummary parse(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        int pauseCount = 0;
+        double totalPause = 0;
+        double maxPause = 0;
+        long peakHeapAfterGc = 0;
+        long peakHeapCapacity = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            if (!line.contains("GC(")) {
+                continue;
+            }
+            Matcher pause = PAUSE.matcher(line);
+            if (pause.find()) {
+                double millis = Double.parseDouble(pause.group(1));
+                pauseCount++;
+                totalPause += millis;
+                maxPause = Math.max(maxPause, millis);
+            }
+            Matcher heap = HEAP.matcher(line);
+            if (heap.find()) {
+                peakHeapAfterGc = Math.max(peakHeapAfterGc, toBytes(heap.group(1), heap.group(2)));
+                if (heap.group(3) != null) {
+                    peakHeapCapacity = Math.max(peakHeapCapacity, toBytes(heap.group(3), heap.group(4)));
+                }
+            }
+        }
+        return new GcLogSummary(pauseCount, totalPause, maxPause, peakHeapAfterGc, peakHeapCapacity);
+    }
+
+    private static long toBytes(String value, String unit) {
+        return JvmOptions.parseSize("B".equals(unit) ? value : value + unit);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+/**
+ * Summarizes the unified GC log of a forked Maven JVM. See {@link InvocationRequest#setGcLogging(boolean)}.
+ *
+ * @since 3.4.0
+ */
+public final class GcLogSummary {
+
+    private static final long MIN_HEAP = 256L * 1024 * 1024;
+
+    private static final long HEAP_GRANULE = 64L * 1024 * 1024;
+
+    private final int pauseCount;
+
+    private final double totalPauseMillis;
+
+    private final double maxPauseMillis;
+
+    private final long peakHeapAfterGc;
+
+    private final long peakHeapCapacity;
+
+    GcLogSummary(
+            int pauseCount,
+            double totalPauseMillis,
+            double maxPauseMillis,
+            long peakHeapAfterGc,
+            long peakHeapCapacity) {
+        this.pauseCount = pauseCount;
+        this.totalPauseMillis = totalPauseMillis;
+        this.maxPauseMillis = maxPauseMillis;
+        this.peakHeapAfterGc = peakHeapAfterGc;
+        this.peakHeapCapacity = peakHeapCapacity;
+    }
+
+    /**
+     * Gets the number of stop-the-world pauses.
+     *
+     * @return The number of pauses.
+     */
+    public int getPauseCount() {
+        return pauseCount;
+    }
+
+    /**
+     * Gets the sum of all stop-the-world pauses.
+     *
+     * @return The total pause time in milliseconds.
+     */
+    public double getTotalPauseMillis() {
+        return totalPauseMillis;
+    }
+
+    /**
+     * Gets the longest stop-the-world pause.
+     *
+     * @return The longest pause in milliseconds.
+     */
+    public double getMaxPauseMillis() {
+        return maxPauseMillis;
+    }
+
+    /**
+     * Gets the largest heap occupancy right after a collection, which approximates the live data of the build.
+     *
+     * @return The peak heap after GC in bytes.
+     */
+    public long getPeakHeapAfterGc() {
+        return peakHeapAfterGc;
+    }
+
+    /**
+     * Gets the largest committed heap size reported by a collection.
+     *
+     * @return The peak heap capacity in bytes, <code>0</code> if the collector does not report it.
+     */
+    public long getPeakHeapCapacity() {
+        return peakHeapCapacity;
+    }
+
+    /**
+     * Gets the recommended maximum heap size: three times the peak heap after GC, rounded up to 64 MiB and at least
+     * 256 MiB.
+     *
+     * @return The recommended maximum heap size in bytes.
+     */
+    public long getRecommendedMaxHeap() {
+        long heap = (peakHeapAfterGc * 3 + HEAP_GRANULE - 1) / HEAP_GRANULE * HEAP_GRANULE;
+        return Math.max(MIN_HEAP, heap);
+    }
+
+    /**
+     * Gets the recommended maximum heap size as JVM option, suitable for
+     * {@link InvocationRequest#setMavenOpts(String)}.
+     *
+     * @return The option, e.g. <code>-Xmx768m</code>.
+     */
+    public String getRecommendedXmx() {
+        return "-Xmx" + getRecommendedMaxHeap() / (1024 * 1024) + "m";
+    }
+
+    @Override
+    public String toString() {
+        return "GcLogSummary[pauses=" + pauseCount + ", totalPause=" + totalPauseMillis + " ms, maxPause="
+                + maxPauseMillis + " ms, peakHeapAfterGc=" + peakHeapAfterGc + ", recommended=" + getRecommendedXmx()
+                + "]";
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads the resource pressure of the host from <code>/proc</code> and the cgroup file system. Values which cannot be
+ * determined, e.g. on operating systems other than Linux, are reported as {@link #UNKNOWN}.
+ */
+class HostMetrics {
+
+    /** Marker for values which cannot be determined on this host. */
+    static final long UNKNOWN = -1;
+
+    private static final Path PROC = Paths.get("/proc");
+
+    private static final Path CGROUP = Paths.get("/sys/fs/cgroup");
+
+    /**
+     * Gets the number of processors available to this JVM.
+     *
+     * @return The number of processors.
+     */
+    int availableProcessors() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Gets the number of processors this host grants to its processes, taking a cgroup CPU quota into account.
+     *
+     * @return The number of processors, at least 1.
+     */
+    int effectiveProcessors() {
+        int processors = availableProcessors();
+        double quota = cpuQuota();
+        if (quota > 0) {
+            processors = Math.min(processors, (int) Math.max(1, Math.ceil(quota)));
+        }
+        return Math.max(1, processors);
+    }
+
+    /**
+     * Gets the CPU quota of the cgroup of this process.
+     *
+     * @return The quota in processors or {@link #UNKNOWN} if the group is not limited.
+     */
+    double cpuQuota() {
+        String cpuMax = readFirstLine(CGROUP.resolve("cpu.max"));
+        if (cpuMax != null) {
+            return parseCpuMax(cpuMax);
+        }
+        long quota = readLong(CGROUP.resolve("cpu/cpu.cfs_quota_us"));
+        long period = readLong(CGROUP.resolve("cpu/cpu.cfs_period_us"));
+        return quota > 0 && period > 0 ? (double) quota / period : UNKNOWN;
+    }
+
+    /**
+     * Parses the <code>cpu.max</code> file of cgroup v2, consisting of the quota (or <code>max</code>) and the period.
+     *
+     * @param cpuMax The first line of the file.
+     * @return The quota in processors or {@link #UNKNOWN} if the group is not limited.
+     */
+    static double parseCpuMax(String cpuMax) {
+        String[] fields = cpuMax.trim().split("\\s+");
+        long quota = parseLimit(fields[0]);
+        long period = fields.length > 1 ? parseLimit(fields[1]) : UNKNOWN;
+        return quota > 0 && period > 0 ? (double) quota / period : UNKNOWN;
+    }
+
+    /**
+     * Gets the system load average of the last minute.
+     *
+     * @return The load average or a negative value if not available.
+     */
+    double loadAverage() {
+        String loadavg = readFirstLine(PROC.resolve("loadavg"));
+        if (loadavg != null) {
+            try {
+                return Double.parseDouble(loadavg.split("\\s+")[0]);
+            } catch (NumberFormatException e) {
+                // fall through to the platform MBean
+            }
+        }
+        return ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+    }
+
+    /**
+     * Gets the memory usable by processes of this host, taking a cgroup memory limit into account.
+     *
+     * @return The memory limit in bytes or {@link #UNKNOWN}.
+     */
+    long totalMemory() {
+        return min(meminfo("MemTotal:"), cgroupMemoryLimit());
+    }
+
+    /**
+     * Gets the memory currently available for new processes, taking a cgroup memory limit into account.
+     *
+     * @return The available memory in bytes or {@link #UNKNOWN}.
+     */
+    long availableMemory() {
+        long cgroupAvailable = UNKNOWN;
+        long limit = cgroupMemoryLimit();
+        if (limit != UNKNOWN) {
+            long usage = readLong(CGROUP.resolve("memory.current"));
+            if (usage == UNKNOWN) {
+                usage = readLong(CGROUP.resolve("memory/memory.usage_in_bytes"));
+            }
+            if (usage != UNKNOWN) {
+                cgroupAvailable = Math.max(0, limit - usage);
+            }
+        }
+        return min(meminfo("MemAvailable:"), cgroupAvailable);
+    }
+
+    /**
+     * Gets the number of file descriptors which can still be opened, both system wide and by this process.
+     *
+     * @return The number of free file descriptors or {@link #UNKNOWN}.
+     */
+    long freeFileDescriptors() {
+        long systemFree = UNKNOWN;
+        String fileNr = readFirstLine(PROC.resolve("sys/fs/file-nr"));
+        if (fileNr != null) {
+            String[] fields = fileNr.trim().split("\\s+");
+            if (fields.length == 3) {
+                try {
+                    systemFree = Long.parseLong(fields[2]) - Long.parseLong(fields[0]) + Long.parseLong(fields[1]);
+                } catch (NumberFormatException e) {
+                    systemFree = UNKNOWN;
+                }
+            }
+        }
+
+        long processFree = UNKNOWN;
+        long softLimit = openFilesLimit();
+        File fdDirectory = PROC.resolve("self/fd").toFile();
+        String[] openFiles = fdDirectory.list();
+        if (softLimit != UNKNOWN && openFiles != null) {
+            processFree = Math.max(0, softLimit - openFiles.length);
+        }
+
+        return min(systemFree, processFree);
+    }
+
+    private long openFilesLimit() {
+        try (Stream<String> lines = Files.lines(PROC.resolve("self/limits"), StandardCharsets.US_ASCII)) {
+            return lines.filter(l -> l.startsWith("Max open files"))
+                    .map(l -> l.substring("Max open files".length()).trim().split("\\s+")[0])
+                    .map(HostMetrics::parseLimit)
+                    .findFirst()
+                    .orElse(UNKNOWN);
+        } catch (IOException | RuntimeException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private long cgroupMemoryLimit() {
+        long limit = readLong(CGROUP.resolve("memory.max"));
+        if (limit == UNKNOWN) {
+            limit = readLong(CGROUP.resolve("memory/memory.limit_in_bytes"));
+            // cgroup v1 reports an unlimited group as a huge page aligned number
+            if (limit >= Long.MAX_VALUE / 2) {
+                limit = UNKNOWN;
+            }
+        }
+        return limit;
+    }
+
+    private long meminfo(String key) {
+        try (Stream<String> lines = Files.lines(PROC.resolve("meminfo"), StandardCharsets.US_ASCII)) {
+            return lines.filter(l -> l.startsWith(key))
+                    .map(l -> l.substring(key.length()).trim().split("\\s+")[0])
+                    .mapToLong(kb -> Long.parseLong(kb) * 1024)
+                    .findFirst()
+                    .orElse(UNKNOWN);
+        } catch (IOException | RuntimeException e) {
+            return UNKNOWN;
+        }
+    }
+
+    static long readLong(Path file) {
+        String line = readFirstLine(file);
+        return line != null ? parseLimit(line.trim()) : UNKNOWN;
+    }
+
+    static String readFirstLine(Path file) {
+        if (!Files.isReadable(file)) {
+            return null;
+        }
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.US_ASCII);
+            return lines.isEmpty() ? null : lines.get(0);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static long parseLimit(String value) {
+        if ("max".equals(value) || "unlimited".equals(value)) {
+            return UNKNOWN;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private static long min(long a, long b) {
+        if (a == UNKNOWN) {
+            return b;
+        }
+        if (b == UNKNOWN) {
+            return a;
+        }
+        return Math.min(a, b);
+    }
+}
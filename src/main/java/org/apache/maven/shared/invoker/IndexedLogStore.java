@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stores the output of Maven in memory-mapped segment files and indexes it, so huge logs can be accessed at random
+ * without reading them from the start. The store maintains the offset of each line within its segment and the line
+ * numbers of the {@link EventKind events} found in the output. Lines are returned as read-only slices of the mapped
+ * segments, i.e. without copying them.
+ * <p>
+ * Lines are encoded using UTF-8 and written to files named <code>segment-00000.log</code>,
+ * <code>segment-00001.log</code>, etc., each line terminated by a line feed. A line never spans two segments, a line
+ * larger than the segment size gets a segment of its own. Line numbers start at <code>0</code>.
+ * </p>
+ * <p>
+ * The store can be used as the output and error handler of the same request, writing and reading is thread-safe. The
+ * buffers returned by the store must not be accessed after the store has been {@link #close() closed}, which
+ * truncates the segment files to the written data.
+ * </p>
+ *
+ * @since 3.4.0
+ */
+public class IndexedLogStore implements InvocationOutputHandler, Closeable {
+
+    /**
+     * The kinds of indexed output lines.
+     */
+    public enum EventKind {
+        /**
+         * A line starting with <code>[ERROR]</code>.
+         */
+        ERROR,
+        /**
+         * A line starting with <code>[WARNING]</code>.
+         */
+        WARNING,
+        /**
+         * The header line starting the build of a module, e.g.
+         * <code>[INFO] ----------&lt; org.apache.maven:maven-core &gt;----------</code>.
+         */
+        MODULE
+    }
+
+    /**
+     * The default size of a segment file, 64 MiB.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final String ERROR_PREFIX = "[ERROR]";
+
+    private static final String WARNING_PREFIX = "[WARNING]";
+
+    private static final String MODULE_PREFIX = "[INFO] --";
+
+    private final File directory;
+
+    private final int segmentSize;
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    private final Map<EventKind, IntList> events = new EnumMap<>(EventKind.class);
+
+    private long lineCount;
+
+    private boolean closed;
+
+    /**
+     * Creates a new store using the default segment size.
+     *
+     * @param directory The directory to write the segment files to, must not be <code>null</code>. It is created if it
+     *            does not exist.
+     */
+    public IndexedLogStore(File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a new store.
+     *
+     * @param directory The directory to write the segment files to, must not be <code>null</code>. It is created if it
+     *            does not exist.
+     * @param segmentSize The size of a segment file in bytes, must be positive.
+     */
+    public IndexedLogStore(File directory, int segmentSize) {
+        if (directory == null) {
+            throw new NullPointerException("missing store directory");
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segment size must be positive: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        for (EventKind kind : EventKind.values()) {
+            events.put(kind, new IntList());
+        }
+    }
+
+    @Override
+    public void consumeLine(String line) throws IOException {
+        byte[] bytes = (line != null ? line : "").getBytes(StandardCharsets.UTF_8);
+        EventKind kind = line != null ? classify(line) : null;
+        synchronized (this) {
+            if (closed) {
+                throw new IOException("log store " + directory + " has been closed");
+            }
+            if (lineCount == Integer.MAX_VALUE) {
+                throw new IOException("log store " + directory + " is full");
+            }
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || segment.remaining() < bytes.length + 1) {
+                segment = newSegment(bytes.length + 1);
+            }
+            segment.append(bytes);
+            if (kind != null) {
+                events.get(kind).add((int) lineCount);
+            }
+            lineCount++;
+        }
+    }
+
+    static EventKind classify(String line) {
+        if (line.startsWith(ERROR_PREFIX)) {
+            return EventKind.ERROR;
+        } else if (line.startsWith(WARNING_PREFIX)) {
+            return EventKind.WARNING;
+        } else if (line.startsWith(MODULE_PREFIX) && line.endsWith("-")) {
+            int start = line.indexOf("< ");
+            if (start > 0 && line.indexOf(" >", start) > 0) {
+                return EventKind.MODULE;
+            }
+        }
+        return null;
+    }
+
+    private Segment newSegment(int required) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Could not create log store directory " + directory);
+        }
+        File file = new File(directory, String.format(Locale.ROOT, "segment-%05d.log", segments.size()));
+        Segment segment = new Segment(file, lineCount, Math.max(segmentSize, required));
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Gets the number of stored lines.
+     *
+     * @return The number of lines.
+     */
+    public synchronized long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Gets a line without its terminator.
+     *
+     * @param lineNumber The zero-based number of the line.
+     * @return A read-only buffer holding the UTF-8 encoded line, never <code>null</code>.
+     * @throws IndexOutOfBoundsException if the line does not exist.
+     */
+    public synchronized ByteBuffer getLine(long lineNumber) {
+        if (lineNumber < 0 || lineNumber >= lineCount) {
+            throw new IndexOutOfBoundsException("line " + lineNumber + " of " + lineCount);
+        }
+        Segment segment = segmentOf(lineNumber);
+        return segment.line((int) (lineNumber - segment.firstLine));
+    }
+
+    /**
+     * Gets a line as string.
+     *
+     * @param lineNumber The zero-based number of the line.
+     * @return The line, never <code>null</code>.
+     * @throws IndexOutOfBoundsException if the line does not exist.
+     */
+    public String getLineAsString(long lineNumber) {
+        return StandardCharsets.UTF_8.decode(getLine(lineNumber)).toString();
+    }
+
+    /**
+     * Gets the number of stored events of a kind.
+     *
+     * @param kind The kind of the events, must not be <code>null</code>.
+     * @return The number of events.
+     */
+    public synchronized int getEventCount(EventKind kind) {
+        return events.get(kind).size;
+    }
+
+    /**
+     * Gets the line number of an event, e.g. of the third error.
+     *
+     * @param kind The kind of the event, must not be <code>null</code>.
+     * @param index The zero-based index of the event among the events of its kind.
+     * @return The number of the line holding the event.
+     * @throws IndexOutOfBoundsException if the event does not exist.
+     */
+    public synchronized long getEventLineNumber(EventKind kind, int index) {
+        return events.get(kind).get(index);
+    }
+
+    /**
+     * Gets the line of an event, e.g. of the third error.
+     *
+     * @param kind The kind of the event, must not be <code>null</code>.
+     * @param index The zero-based index of the event among the events of its kind.
+     * @return A read-only buffer holding the UTF-8 encoded line, never <code>null</code>.
+     * @throws IndexOutOfBoundsException if the event does not exist.
+     */
+    public synchronized ByteBuffer getEvent(EventKind kind, int index) {
+        return getLine(getEventLineNumber(kind, index));
+    }
+
+    /**
+     * Gets the segment files written so far.
+     *
+     * @return The segment files in the order of the lines they hold, never <code>null</code>.
+     */
+    public synchronized List<File> getSegmentFiles() {
+        List<File> files = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            files.add(segment.file);
+        }
+        return files;
+    }
+
+    /**
+     * Closes the segment files and truncates them to the written data. Lines passed to the store afterwards are
+     * rejected.
+     *
+     * @throws IOException if a segment file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IOException failure = null;
+        for (Segment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private Segment segmentOf(long lineNumber) {
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (segments.get(mid).firstLine <= lineNumber) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return segments.get(low);
+    }
+
+    private static final class Segment {
+
+        final File file;
+
+        final long firstLine;
+
+        private final RandomAccessFile raf;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * The offsets of the lines within this segment.
+         */
+        private final IntList offsets = new IntList();
+
+        Segment(File file, long firstLine, int size) throws IOException {
+            this.file = file;
+            this.firstLine = firstLine;
+            this.raf = new RandomAccessFile(file, "rw");
+            try {
+                this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } catch (IOException | RuntimeException e) {
+                raf.close();
+                throw e;
+            }
+        }
+
+        int remaining() {
+            return buffer.remaining();
+        }
+
+        void append(byte[] line) {
+            offsets.add(buffer.position());
+            buffer.put(line);
+            buffer.put((byte) '\n');
+        }
+
+        ByteBuffer line(int index) {
+            int start = offsets.get(index);
+            int end = (index + 1 < offsets.size ? offsets.get(index + 1) : buffer.position()) - 1;
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit(end);
+            slice.position(start);
+            return slice.slice().asReadOnlyBuffer();
+        }
+
+        void close() throws IOException {
+            try {
+                buffer.force();
+                try {
+                    raf.setLength(buffer.position());
+                } catch (IOException e) {
+                    // some platforms refuse to truncate a mapped file, the unused tail of the segment remains zeroed
+                }
+            } finally {
+                raf.close();
+            }
+        }
+    }
+
+    /**
+     * A growable array of primitive integers, keeping the index compact.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[64];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1));
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + " of " + size);
+            }
+            return values[index];
+        }
+    }
+}
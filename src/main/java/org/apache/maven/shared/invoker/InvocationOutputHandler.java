@@ -21,7 +21,8 @@ package org.apache.maven.shared.invoker;
 import org.apache.maven.shared.utils.cli.StreamConsumer;
 
 /**
- * Receives the standard/error output from a Maven invocation.
+ * Receives the standard/error output from a Maven invocation. Handlers which also implement {@link java.io.Flushable}
+ * are flushed by the invoker once the Maven process terminated.
  *
  */
 public interface InvocationOutputHandler extends StreamConsumer {
@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+/**
+ * Defines the priority classes used by the {@link InvocationScheduler}. Queued invocations of a higher priority are
+ * always dispatched before queued invocations of a lower priority, invocations of the same priority are shared fairly
+ * between the submitting clients.
+ *
+ * @since 3.4.0
+ */
+public enum InvocationPriority {
+    /**
+     * Builds somebody is actively waiting for, e.g. triggered from an IDE or a pull request.
+     */
+    INTERACTIVE,
+
+    /**
+     * Regular builds, this is the default priority.
+     */
+    NORMAL,
+
+    /**
+     * Bulk work like nightly builds which should only use the capacity left over by other builds.
+     */
+    BULK
+}
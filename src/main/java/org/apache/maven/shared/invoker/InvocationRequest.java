@@ -24,6 +24,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * Specifies the parameters used to control a Maven invocation.
@@ -572,6 +573,15 @@ public interface InvocationRequest {
      */
     InvocationRequest addArgs(Collection<String> args);
 
+    /**
+     * Replaces the raw arguments passed to the Maven cli.
+     *
+     * @param args The raw Maven arguments, may be <code>null</code> to pass none.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setArgs(List<String> args);
+
     /**
      * Sets the path to the base directory of the POM for the Maven invocation. If {@link #getPomFile()} does not return
      * <code>null</code>, this setting only affects the working directory for the Maven invocation.
@@ -877,4 +887,219 @@ public interface InvocationRequest {
      * @since 3.2.0
      */
     InvocationRequest setMavenExecutable(File mavenExecutable);
+
+    /**
+     * Gets the archive the output of the Maven build is written to in addition to the output handlers.
+     *
+     * @return The log archive or <code>null</code> if the output is not archived.
+     * @since 3.4.0
+     */
+    CompressedLogArchive getLogArchive();
+
+    /**
+     * Sets the archive the output of the Maven build is written to in addition to the output handlers. The amount of
+     * data archived by the invocation is reported by {@link InvocationResult#getLogArchiveStatistics()}.
+     *
+     * @param logArchive The log archive, may be <code>null</code> if the output should not be archived.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setLogArchive(CompressedLogArchive logArchive);
+
+    /**
+     * Gets the triggers which stop the Maven build as soon as they are found in its output.
+     *
+     * @return The kill triggers, never <code>null</code>.
+     * @since 3.4.0
+     */
+    Set<KillTrigger> getKillTriggers();
+
+    /**
+     * Sets the triggers which stop the Maven build as soon as they are found in its output. All triggers are matched
+     * in a single pass over each line of the standard and error output. When a trigger matches, the process tree of
+     * the build is destroyed and the trigger is reported by {@link InvocationResult#getKillTrigger()}.
+     *
+     * @param killTriggers The kill triggers, may be <code>null</code> to not stop the build early.
+     * @return This invocation request.
+     * @see KillTrigger#defaults()
+     * @since 3.4.0
+     */
+    InvocationRequest setKillTriggers(Collection<KillTrigger> killTriggers);
+
+    /**
+     * Adds a trigger which stops the Maven build as soon as it is found in its output.
+     *
+     * @param killTrigger The kill trigger to add, must not be <code>null</code>.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest addKillTrigger(KillTrigger killTrigger);
+
+    /**
+     * Indicates whether the execution events of the build are recorded.
+     *
+     * @return <code>true</code> if build events are recorded, <code>false</code> otherwise.
+     * @since 3.4.0
+     */
+    boolean isRecordBuildEvents();
+
+    /**
+     * Sets whether the execution events of the build are recorded. If enabled, a small event spy extension is
+     * injected into Maven via <code>maven.ext.class.path</code>, which records session, project and mojo events with
+     * nanosecond timestamps to a temporary file. The events and the timings aggregated from them are reported by
+     * {@link InvocationResult#getBuildEventSummary()}.
+     *
+     * @param recordBuildEvents <code>true</code> to record build events, <code>false</code> otherwise.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setRecordBuildEvents(boolean recordBuildEvents);
+
+    /**
+     * Indicates whether the Surefire and Failsafe reports written by the build are ingested.
+     *
+     * @return <code>true</code> if test reports are ingested, <code>false</code> otherwise.
+     * @since 3.4.0
+     */
+    boolean isIngestTestReports();
+
+    /**
+     * Sets whether the Surefire and Failsafe reports written by the build are ingested. If enabled, the
+     * <code>target/surefire-reports</code> and <code>target/failsafe-reports</code> directories of the reactor are
+     * polled while the build runs and new reports are parsed with a streaming parser. The summary is reported by
+     * {@link InvocationResult#getTestReportSummary()}.
+     *
+     * @param ingestTestReports <code>true</code> to ingest test reports, <code>false</code> otherwise.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setIngestTestReports(boolean ingestTestReports);
+
+    /**
+     * Gets the percentage of invocations for which the forked Maven JVM is profiled with JDK Flight Recorder.
+     *
+     * @return The sampling percentage between 0 and 100.
+     * @since 3.4.0
+     */
+    int getFlightRecordingPercentage();
+
+    /**
+     * Sets the percentage of invocations for which the forked Maven JVM is profiled with JDK Flight Recorder. A
+     * sampled invocation appends <code>-XX:StartFlightRecording</code> with the low overhead <code>default</code>
+     * settings to <code>MAVEN_OPTS</code>, and the recording is summarized by
+     * {@link InvocationResult#getFlightRecordingSummary()} once Maven exits. This requires a JVM supporting Flight
+     * Recorder for Maven (e.g. Java 11+) and Java 11+ for the invoker, no recording is made otherwise. Builds stopped
+     * by a timeout or kill trigger do not dump their recording.
+     *
+     * @param flightRecordingPercentage The sampling percentage between 0 (never) and 100 (always).
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setFlightRecordingPercentage(int flightRecordingPercentage);
+
+    /**
+     * Indicates whether the forked Maven JVM writes a GC log.
+     *
+     * @return <code>true</code> if GC logging is enabled, <code>false</code> otherwise.
+     * @since 3.4.0
+     */
+    boolean isGcLogging();
+
+    /**
+     * Sets whether the forked Maven JVM writes a unified GC log. If enabled, <code>-Xlog:gc</code> is appended to
+     * <code>MAVEN_OPTS</code>, which requires Maven to run on Java 9 or later; no log is written if Maven is known to
+     * run on an older JDK. The log is parsed once Maven exits and summarized by
+     * {@link InvocationResult#getGcLogSummary()}, including a recommended <code>-Xmx</code>.
+     *
+     * @param gcLogging <code>true</code> to enable GC logging, <code>false</code> otherwise.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setGcLogging(boolean gcLogging);
+
+    /**
+     * Gets the build duration after which thread dumps of Maven are sampled.
+     *
+     * @return The threshold in seconds, <code>0</code> if sampling is disabled.
+     * @since 3.4.0
+     */
+    int getStackSamplingThresholdInSeconds();
+
+    /**
+     * Sets the build duration after which thread dumps of the Maven JVM and its forks (e.g. Surefire) are taken
+     * periodically via <code>jcmd &lt;pid&gt; Thread.print</code>. The dumps are aggregated into the profile reported
+     * by {@link InvocationResult#getStackProfile()}. The <code>jcmd</code> tool is taken from the Java home of the
+     * request or the JDK of the invoker.
+     *
+     * @param stackSamplingThresholdInSeconds The threshold in seconds, <code>0</code> to disable sampling.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setStackSamplingThresholdInSeconds(int stackSamplingThresholdInSeconds);
+
+    /**
+     * Constant <code>DEFAULT_STACK_SAMPLING_INTERVAL=10</code>
+     *
+     * @since 3.4.0
+     */
+    int DEFAULT_STACK_SAMPLING_INTERVAL = 10;
+
+    /**
+     * Gets the time between two thread dumps of Maven.
+     *
+     * @return The interval in seconds.
+     * @since 3.4.0
+     */
+    int getStackSamplingIntervalInSeconds();
+
+    /**
+     * Sets the time between two thread dumps of Maven, see {@link #setStackSamplingThresholdInSeconds(int)}. The
+     * default is {@value #DEFAULT_STACK_SAMPLING_INTERVAL} seconds.
+     *
+     * @param stackSamplingIntervalInSeconds The interval in seconds, must be positive.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setStackSamplingIntervalInSeconds(int stackSamplingIntervalInSeconds);
+
+    /**
+     * Indicates whether the thread count of the build is assigned by the invoker.
+     *
+     * @return <code>true</code> if the thread count is assigned adaptively, <code>false</code> otherwise.
+     * @since 3.4.0
+     */
+    boolean isAdaptiveThreads();
+
+    /**
+     * Sets whether the invoker assigns the thread count (<code>-T</code>) of the build instead of using
+     * {@link #getThreads()}. The count is derived from the processors of the host, its cgroup CPU quota and the other
+     * Maven processes started by invokers of this JVM: each adaptive invocation receives an equal share of the
+     * processors, limited to those not yet occupied by the running builds. Since a running build keeps its thread
+     * count, the shares are rebalanced as further invocations start and finish.
+     *
+     * @param adaptiveThreads <code>true</code> to assign the thread count adaptively, <code>false</code> otherwise.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setAdaptiveThreads(boolean adaptiveThreads);
+
+    /**
+     * Gets the JVM profile of the Maven JVM.
+     *
+     * @return The JVM profile or <code>null</code> if none.
+     * @since 3.4.0
+     */
+    JvmProfile getJvmProfile();
+
+    /**
+     * Sets the JVM profile tuning the Maven JVM. The options of the profile are appended to <code>MAVEN_OPTS</code>,
+     * except for the settings already configured by the <code>MAVEN_OPTS</code> of the request or the shell, or by
+     * the <code>.mvn/jvm.config</code> of the project. The applied profile is reported by
+     * {@link InvocationResult#getJvmProfile()}.
+     *
+     * @param jvmProfile The JVM profile, may be <code>null</code> to not tune the Maven JVM.
+     * @return This invocation request.
+     * @since 3.4.0
+     */
+    InvocationRequest setJvmProfile(JvmProfile jvmProfile);
 }
@@ -18,6 +18,8 @@
  */
 package org.apache.maven.shared.invoker;
 
+import java.util.List;
+
 import org.apache.maven.shared.utils.cli.CommandLineException;
 
 /**
@@ -42,4 +44,111 @@ public interface InvocationResult {
      * @return The exit code from the Maven invocation.
      */
     int getExitCode();
+
+    /**
+     * Gets the amount of output archived by this invocation to the {@link InvocationRequest#getLogArchive() log
+     * archive} of the request.
+     *
+     * @return The statistics of the archived output or <code>null</code> if the output was not archived.
+     * @since 3.4.0
+     */
+    LogArchiveStatistics getLogArchiveStatistics();
+
+    /**
+     * Gets the kill trigger which stopped the Maven build. The exit code of a stopped build is the one of the
+     * destroyed process.
+     *
+     * @return The kill trigger which matched the output or <code>null</code> if the build was not stopped early.
+     * @since 3.4.0
+     */
+    KillTrigger getKillTrigger();
+
+    /**
+     * Gets the execution events recorded during the build and the timings aggregated from them.
+     *
+     * @return The recorded build events or <code>null</code> if build events were not
+     *         {@link InvocationRequest#setRecordBuildEvents(boolean) recorded} or Maven did not load the event spy.
+     * @since 3.4.0
+     */
+    BuildEventSummary getBuildEventSummary();
+
+    /**
+     * Gets the summary of the Surefire and Failsafe reports written by the build.
+     *
+     * @return The test report summary or <code>null</code> if test reports were not
+     *         {@link InvocationRequest#setIngestTestReports(boolean) ingested}.
+     * @since 3.4.0
+     */
+    TestReportSummary getTestReportSummary();
+
+    /**
+     * Gets the summary of the Flight Recorder profile of the forked Maven JVM.
+     *
+     * @return The profile summary or <code>null</code> if the invocation was not
+     *         {@link InvocationRequest#setFlightRecordingPercentage(int) sampled} or Maven did not dump a recording.
+     * @since 3.4.0
+     */
+    FlightRecordingSummary getFlightRecordingSummary();
+
+    /**
+     * Gets the summary of the GC log written by the forked Maven JVM.
+     *
+     * @return The GC log summary or <code>null</code> if {@link InvocationRequest#setGcLogging(boolean) GC logging}
+     *         was not enabled or the log could not be read.
+     * @since 3.4.0
+     */
+    GcLogSummary getGcLogSummary();
+
+    /**
+     * Gets the profile aggregated from thread dumps of the Maven JVM and its forks.
+     *
+     * @return The stack profile or <code>null</code> if the build ended before the
+     *         {@link InvocationRequest#setStackSamplingThresholdInSeconds(int) sampling threshold} or no thread dump
+     *         could be taken.
+     * @since 3.4.0
+     */
+    StackProfile getStackProfile();
+
+    /**
+     * Gets the project from which the failed build can be resumed, as suggested by Maven in its output (e.g.
+     * <code>mvn &lt;args&gt; -rf :module</code>).
+     *
+     * @return The project selector for {@link InvocationRequest#setResumeFrom(String)} or <code>null</code> if Maven
+     *         did not suggest to resume the build.
+     * @since 3.4.0
+     */
+    String getResumeFrom();
+
+    /**
+     * Gets the results of the earlier attempts if the invoker retried the build, see
+     * {@link DefaultInvoker#setResumeRetries(int)}. This result is the one of the last attempt.
+     *
+     * @return The results of the earlier attempts, oldest first, never <code>null</code>.
+     * @since 3.4.0
+     */
+    List<InvocationResult> getPreviousAttempts();
+
+    /**
+     * Gets the version of the Maven installation which ran the build, see {@link RuntimeDiscovery}.
+     *
+     * @return The Maven version or <code>null</code> if unknown, e.g. for a Maven wrapper of the project.
+     * @since 3.4.0
+     */
+    String getMavenVersion();
+
+    /**
+     * Gets the version of the JDK which ran the build, see {@link RuntimeDiscovery}.
+     *
+     * @return The Java version or <code>null</code> if unknown, e.g. if the JDK is looked up on the path.
+     * @since 3.4.0
+     */
+    String getJavaVersion();
+
+    /**
+     * Gets the JVM profile applied to the Maven JVM, e.g. to compare the build times of profiles.
+     *
+     * @return The JVM profile or <code>null</code> if none was requested.
+     * @since 3.4.0
+     */
+    JvmProfile getJvmProfile();
 }
@@ -0,0 +1,396 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules invocation requests from many clients on top of an {@link Invoker}, using a bounded number of concurrent
+ * Maven processes.
+ * <p>
+ * Queued invocations are dispatched by {@link InvocationPriority priority} first: an invocation is only started when
+ * no invocation of a higher priority is waiting. Invocations of the same priority are shared between the clients by
+ * weighted fair queuing, i.e. a client with weight 2 gets twice as many invocations started as a client with weight 1
+ * while both have work queued, and a client submitting a large batch cannot starve the other clients.
+ * </p>
+ *
+ * @since 3.4.0
+ */
+public class InvocationScheduler implements Closeable {
+
+    private static final int DEFAULT_WEIGHT = 1;
+
+    /**
+     * Orders invocations of the same priority by their virtual finish time, ties are broken by submission order.
+     */
+    private static final Comparator<ScheduledInvocation> FAIR_ORDER =
+            Comparator.<ScheduledInvocation>comparingDouble(i -> i.finishTag).thenComparingLong(i -> i.sequence);
+
+    private final Invoker invoker;
+
+    private final int maxConcurrentInvocations;
+
+    private final ExecutorService executor;
+
+    private final Object lock = new Object();
+
+    private final Map<InvocationPriority, PriorityQueue<ScheduledInvocation>> queues =
+            new EnumMap<>(InvocationPriority.class);
+
+    private final double[] virtualTimes = new double[InvocationPriority.values().length];
+
+    private final Map<String, Client> clients = new HashMap<>();
+
+    private final Map<String, QueueWaitStatistics.Recorder> clientWaits = new ConcurrentHashMap<>();
+
+    private final Map<InvocationPriority, QueueWaitStatistics.Recorder> priorityWaits =
+            new EnumMap<>(InvocationPriority.class);
+
+    private final QueueWaitStatistics.Recorder totalWaits = new QueueWaitStatistics.Recorder();
+
+    private long sequence;
+
+    private int queued;
+
+    private int active;
+
+    private boolean closed;
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param invoker The invoker used to execute the requests, must not be <code>null</code>.
+     * @param maxConcurrentInvocations The maximum number of invocations running at the same time, must be positive.
+     */
+    public InvocationScheduler(Invoker invoker, int maxConcurrentInvocations) {
+        if (invoker == null) {
+            throw new NullPointerException("missing invoker");
+        }
+        if (maxConcurrentInvocations < 1) {
+            throw new IllegalArgumentException(
+                    "The maximum number of concurrent invocations must be positive: " + maxConcurrentInvocations);
+        }
+        this.invoker = invoker;
+        this.maxConcurrentInvocations = maxConcurrentInvocations;
+        this.executor = Executors.newCachedThreadPool(InvokerThreads.newThreadFactory("maven-invoker-scheduler-"));
+
+        for (InvocationPriority priority : InvocationPriority.values()) {
+            queues.put(priority, new PriorityQueue<>(FAIR_ORDER));
+            priorityWaits.put(priority, new QueueWaitStatistics.Recorder());
+        }
+    }
+
+    /**
+     * Sets the share a client gets from the capacity of its priority class, relative to the other clients. Clients
+     * not configured explicitly have a weight of <code>1</code>. The new weight applies to invocations submitted
+     * afterwards.
+     *
+     * @param clientKey The key identifying the client, must not be <code>null</code>.
+     * @param weight The weight of the client, must be positive.
+     * @return This scheduler.
+     */
+    public InvocationScheduler setClientWeight(String clientKey, int weight) {
+        if (clientKey == null) {
+            throw new NullPointerException("missing client key");
+        }
+        if (weight < 1) {
+            throw new IllegalArgumentException("The weight of client '" + clientKey + "' must be positive: " + weight);
+        }
+        synchronized (lock) {
+            client(clientKey).weight = weight;
+        }
+        return this;
+    }
+
+    /**
+     * Queues an invocation request with {@link InvocationPriority#NORMAL normal} priority.
+     *
+     * @param request The invocation request to execute, must not be <code>null</code>.
+     * @param clientKey The key identifying the submitting client, must not be <code>null</code>.
+     * @return The future result of the invocation, never <code>null</code>.
+     * @see #submit(InvocationRequest, String, InvocationPriority)
+     */
+    public Future<InvocationResult> submit(InvocationRequest request, String clientKey) {
+        return submit(request, clientKey, InvocationPriority.NORMAL);
+    }
+
+    /**
+     * Queues an invocation request. The returned future fails with a {@link MavenInvocationException} if the request
+     * could not be executed, cancelling the future removes a request from the queue if it has not been started yet.
+     *
+     * @param request The invocation request to execute, must not be <code>null</code>.
+     * @param clientKey The key identifying the submitting client, must not be <code>null</code>.
+     * @param priority The priority of the invocation, must not be <code>null</code>.
+     * @return The future result of the invocation, never <code>null</code>.
+     * @throws RejectedExecutionException if this scheduler has been closed.
+     */
+    public Future<InvocationResult> submit(InvocationRequest request, String clientKey, InvocationPriority priority) {
+        if (request == null) {
+            throw new NullPointerException("missing invocation request");
+        }
+        if (clientKey == null) {
+            throw new NullPointerException("missing client key");
+        }
+        if (priority == null) {
+            throw new NullPointerException("missing priority");
+        }
+
+        ScheduledInvocation invocation = new ScheduledInvocation(request, clientKey, priority);
+
+        synchronized (lock) {
+            if (closed) {
+                throw new RejectedExecutionException("The invocation scheduler has been closed.");
+            }
+
+            Client client = client(clientKey);
+            int level = priority.ordinal();
+            invocation.startTag = Math.max(virtualTimes[level], client.finishTags[level]);
+            invocation.finishTag = invocation.startTag + 1.0 / client.weight;
+            invocation.sequence = sequence++;
+            client.finishTags[level] = invocation.finishTag;
+
+            queues.get(priority).add(invocation);
+            queued++;
+        }
+
+        dispatch();
+
+        return invocation;
+    }
+
+    /**
+     * Gets the number of invocations waiting to be started.
+     *
+     * @return The number of queued invocations.
+     */
+    public int getQueuedCount() {
+        synchronized (lock) {
+            return queued;
+        }
+    }
+
+    /**
+     * Gets the number of invocations currently running.
+     *
+     * @return The number of active invocations.
+     */
+    public int getActiveCount() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    /**
+     * Gets the maximum number of invocations running at the same time.
+     *
+     * @return The maximum number of concurrent invocations.
+     */
+    public int getMaxConcurrentInvocations() {
+        return maxConcurrentInvocations;
+    }
+
+    /**
+     * Gets the queue wait times of all invocations started so far.
+     *
+     * @return The queue wait statistics, never <code>null</code>.
+     */
+    public QueueWaitStatistics getQueueWaitStatistics() {
+        return totalWaits.snapshot();
+    }
+
+    /**
+     * Gets the queue wait times of the invocations of the given priority started so far.
+     *
+     * @param priority The priority, must not be <code>null</code>.
+     * @return The queue wait statistics, never <code>null</code>.
+     */
+    public QueueWaitStatistics getQueueWaitStatistics(InvocationPriority priority) {
+        return priorityWaits.get(priority).snapshot();
+    }
+
+    /**
+     * Gets the queue wait times of the invocations of the given client started so far.
+     *
+     * @param clientKey The key identifying the client.
+     * @return The queue wait statistics, never <code>null</code>.
+     */
+    public QueueWaitStatistics getQueueWaitStatistics(String clientKey) {
+        QueueWaitStatistics.Recorder recorder = clientWaits.get(clientKey);
+        return recorder != null ? recorder.snapshot() : new QueueWaitStatistics(0, 0, 0);
+    }
+
+    /**
+     * Stops accepting new requests. Invocations already queued or running are still completed.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+        }
+        shutdownIfDrained();
+    }
+
+    /**
+     * Blocks until all queued and running invocations completed after this scheduler has been closed.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of the timeout argument.
+     * @return <code>true</code> if all invocations completed, <code>false</code> if the timeout elapsed before.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return executor.awaitTermination(timeout, unit);
+    }
+
+    private Client client(String clientKey) {
+        return clients.computeIfAbsent(clientKey, k -> new Client());
+    }
+
+    private void dispatch() {
+        List<ScheduledInvocation> started = new ArrayList<>();
+
+        synchronized (lock) {
+            while (active < maxConcurrentInvocations) {
+                ScheduledInvocation next = poll();
+                if (next == null) {
+                    break;
+                }
+                active++;
+                started.add(next);
+            }
+        }
+
+        for (ScheduledInvocation invocation : started) {
+            long waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - invocation.enqueuedNanos);
+            totalWaits.record(waitMillis);
+            priorityWaits.get(invocation.priority).record(waitMillis);
+            clientWaits
+                    .computeIfAbsent(invocation.clientKey, k -> new QueueWaitStatistics.Recorder())
+                    .record(waitMillis);
+
+            try {
+                executor.execute(() -> {
+                    try {
+                        invocation.run();
+                    } finally {
+                        synchronized (lock) {
+                            active--;
+                        }
+                        dispatch();
+                        shutdownIfDrained();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                synchronized (lock) {
+                    active--;
+                }
+                invocation.cancel(false);
+            }
+        }
+    }
+
+    private void shutdownIfDrained() {
+        synchronized (lock) {
+            if (!closed || queued > 0 || active > 0) {
+                return;
+            }
+        }
+        executor.shutdown();
+    }
+
+    private ScheduledInvocation poll() {
+        for (InvocationPriority priority : InvocationPriority.values()) {
+            ScheduledInvocation next = queues.get(priority).poll();
+            if (next != null) {
+                queued--;
+                int level = priority.ordinal();
+                virtualTimes[level] = Math.max(virtualTimes[level], next.startTag);
+                return next;
+            }
+        }
+        return null;
+    }
+
+    private boolean dequeue(ScheduledInvocation invocation) {
+        synchronized (lock) {
+            if (queues.get(invocation.priority).remove(invocation)) {
+                queued--;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The fair queuing state of a client.
+     */
+    private static final class Client {
+
+        private int weight = DEFAULT_WEIGHT;
+
+        private final double[] finishTags = new double[InvocationPriority.values().length];
+    }
+
+    /**
+     * A queued or running invocation.
+     */
+    private final class ScheduledInvocation extends FutureTask<InvocationResult> {
+
+        private final String clientKey;
+
+        private final InvocationPriority priority;
+
+        private final long enqueuedNanos = System.nanoTime();
+
+        private double startTag;
+
+        private double finishTag;
+
+        private long sequence;
+
+        ScheduledInvocation(InvocationRequest request, String clientKey, InvocationPriority priority) {
+            super(() -> invoker.execute(request));
+            this.clientKey = clientKey;
+            this.priority = priority;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && dequeue(this)) {
+                shutdownIfDrained();
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.util.function.Supplier;
+
+/**
+ * Traces the lifecycle of a single invocation, e.g. as JDK Flight Recorder events. The phases are reported in order,
+ * phases which do not occur are skipped, and {@link #completed(int)} is always reported last. All methods are no-ops
+ * by default.
+ */
+interface InvocationTrace {
+
+    /**
+     * The trace which ignores all phases, used when tracing is not supported or disabled.
+     */
+    InvocationTrace DISABLED = new InvocationTrace() {};
+
+    /**
+     * Starts the trace of an invocation, assuming the command line is built next.
+     *
+     * @param request The invocation request, must not be <code>null</code>.
+     * @param defaultBaseDirectory The base directory to use if the request does not specify one, may be
+     *            <code>null</code>.
+     * @return The trace, never <code>null</code>.
+     */
+    static InvocationTrace start(InvocationRequest request, File defaultBaseDirectory) {
+        return FlightRecorderSupport.start(request, defaultBaseDirectory);
+    }
+
+    /**
+     * Creates traces, implemented by the tracing backends.
+     */
+    interface Factory {
+
+        /**
+         * Starts the trace of an invocation.
+         *
+         * @param baseDirectory The base directory of the invocation, may be <code>null</code>.
+         * @param goals Supplies the goals and arguments of the invocation, space separated, never <code>null</code>.
+         * @return The trace, never <code>null</code>.
+         */
+        InvocationTrace start(File baseDirectory, Supplier<String> goals);
+    }
+
+    default void commandLineBuilt() {}
+
+    default void processSpawning() {}
+
+    default void processSpawned() {}
+
+    /**
+     * Wraps an output handler to report the first line of output.
+     */
+    default InvocationOutputHandler watch(InvocationOutputHandler handler) {
+        return handler;
+    }
+
+    default void timedOut() {}
+
+    default void killed(KillTrigger trigger) {}
+
+    /**
+     * Reports the end of the invocation.
+     *
+     * @param exitCode The exit code of Maven, {@link Integer#MIN_VALUE} if Maven did not terminate normally.
+     */
+    default void completed(int exitCode) {}
+}
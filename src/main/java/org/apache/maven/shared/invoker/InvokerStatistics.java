@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.maven.shared.utils.cli.CommandLineException;
+import org.apache.maven.shared.utils.cli.CommandLineTimeOutException;
+
+/**
+ * Live statistics of the invocations run by a {@link DefaultInvoker}. Counters are striped so that concurrent
+ * invocations do not contend when updating them. An instance may be shared by several invokers and can be exposed
+ * via JMX by {@link #registerMBean(String)}.
+ *
+ * @since 3.4.0
+ */
+public class InvokerStatistics implements InvokerStatisticsMXBean {
+
+    /**
+     * The JMX domain of the statistics MBeans.
+     */
+    public static final String JMX_DOMAIN = "org.apache.maven.shared.invoker";
+
+    private final LongAdder queued = new LongAdder();
+
+    private final LongAdder active = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder kills = new LongAdder();
+
+    private final LongAdder outputLines = new LongAdder();
+
+    private final LongAdder outputCharacters = new LongAdder();
+
+    private final Map<Integer, LongAdder> exitCodes = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram spawnLatency = new LatencyHistogram();
+
+    private final LatencyHistogram totalDuration = new LatencyHistogram();
+
+    private ObjectName objectName;
+
+    /**
+     * Registers these statistics with the platform MBean server under the object name
+     * <code>org.apache.maven.shared.invoker:type=Invoker,name=&lt;name&gt;</code>.
+     *
+     * @param name The value of the <code>name</code> key of the object name, must not be <code>null</code>.
+     * @return The object name of the registered MBean, never <code>null</code>.
+     * @throws JMException If the MBean could not be registered, e.g. because the name is already in use.
+     */
+    public synchronized ObjectName registerMBean(String name) throws JMException {
+        if (name == null) {
+            throw new NullPointerException("missing name");
+        }
+        if (objectName != null) {
+            throw new IllegalStateException("already registered as " + objectName);
+        }
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Invoker,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.objectName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Unregisters these statistics from the platform MBean server, if registered.
+     *
+     * @throws JMException If the MBean could not be unregistered.
+     */
+    public synchronized void unregisterMBean() throws JMException {
+        if (objectName != null) {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            objectName = null;
+        }
+    }
+
+    @Override
+    public long getQueuedInvocations() {
+        return queued.sum();
+    }
+
+    @Override
+    public long getActiveInvocations() {
+        return active.sum();
+    }
+
+    @Override
+    public long getCompletedInvocations() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getFailedInvocations() {
+        return failed.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getKills() {
+        return kills.sum();
+    }
+
+    @Override
+    public long getOutputLines() {
+        return outputLines.sum();
+    }
+
+    @Override
+    public long getOutputCharacters() {
+        return outputCharacters.sum();
+    }
+
+    @Override
+    public Map<Integer, Long> getExitCodeHistogram() {
+        Map<Integer, Long> histogram = new TreeMap<>();
+        exitCodes.forEach((exitCode, count) -> histogram.put(exitCode, count.sum()));
+        return histogram;
+    }
+
+    @Override
+    public LatencyPercentiles getSpawnLatency() {
+        return spawnLatency.snapshot();
+    }
+
+    @Override
+    public LatencyPercentiles getTotalDuration() {
+        return totalDuration.snapshot();
+    }
+
+    @Override
+    public void reset() {
+        completed.reset();
+        failed.reset();
+        timeouts.reset();
+        kills.reset();
+        outputLines.reset();
+        outputCharacters.reset();
+        exitCodes.clear();
+        spawnLatency.reset();
+        totalDuration.reset();
+    }
+
+    void invocationQueued() {
+        queued.increment();
+    }
+
+    void invocationDequeued() {
+        queued.decrement();
+    }
+
+    void invocationStarted() {
+        active.increment();
+    }
+
+    void processSpawned(long spawnNanos) {
+        spawnLatency.record(spawnNanos);
+    }
+
+    void invocationCompleted(int exitCode) {
+        completed.increment();
+        exitCodes.computeIfAbsent(exitCode, k -> new LongAdder()).increment();
+    }
+
+    void invocationFailed(CommandLineException e) {
+        failed.increment();
+        if (e instanceof CommandLineTimeOutException) {
+            timeouts.increment();
+        }
+    }
+
+    void invocationKilled() {
+        kills.increment();
+    }
+
+    void invocationFinished(long totalNanos) {
+        active.decrement();
+        totalDuration.record(totalNanos);
+    }
+
+    /**
+     * Wraps an output handler to count the lines passing through it.
+     */
+    InvocationOutputHandler count(InvocationOutputHandler handler) {
+        return new CountingHandler(handler);
+    }
+
+    private final class CountingHandler implements InvocationOutputHandler, Flushable {
+
+        private final InvocationOutputHandler delegate;
+
+        CountingHandler(InvocationOutputHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void consumeLine(String line) throws IOException {
+            outputLines.increment();
+            outputCharacters.add(line.length() + 1L);
+            if (delegate != null) {
+                delegate.consumeLine(line);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (delegate instanceof Flushable) {
+                ((Flushable) delegate).flush();
+            }
+        }
+    }
+}
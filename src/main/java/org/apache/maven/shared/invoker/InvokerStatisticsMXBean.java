@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.Map;
+
+/**
+ * The management interface of {@link InvokerStatistics}, registered as MXBean so that generic JMX consoles can
+ * display all attributes.
+ *
+ * @since 3.4.0
+ */
+public interface InvokerStatisticsMXBean {
+
+    /**
+     * Gets the number of invocations waiting for admission.
+     *
+     * @return The number of queued invocations.
+     */
+    long getQueuedInvocations();
+
+    /**
+     * Gets the number of invocations currently running Maven.
+     *
+     * @return The number of active invocations.
+     */
+    long getActiveInvocations();
+
+    /**
+     * Gets the number of invocations for which Maven terminated with an exit code.
+     *
+     * @return The number of completed invocations.
+     */
+    long getCompletedInvocations();
+
+    /**
+     * Gets the number of invocations which failed to run Maven or to process its output, including timeouts.
+     *
+     * @return The number of failed invocations.
+     */
+    long getFailedInvocations();
+
+    /**
+     * Gets the number of invocations which timed out.
+     *
+     * @return The number of timeouts.
+     */
+    long getTimeouts();
+
+    /**
+     * Gets the number of builds stopped by a kill trigger.
+     *
+     * @return The number of kills.
+     */
+    long getKills();
+
+    /**
+     * Gets the number of output lines processed.
+     *
+     * @return The number of standard and error output lines.
+     */
+    long getOutputLines();
+
+    /**
+     * Gets the number of output characters processed, including one line terminator per line. For ASCII output, this
+     * equals the number of bytes.
+     *
+     * @return The number of standard and error output characters.
+     */
+    long getOutputCharacters();
+
+    /**
+     * Gets the number of completed invocations by exit code.
+     *
+     * @return The histogram of exit codes, never <code>null</code>.
+     */
+    Map<Integer, Long> getExitCodeHistogram();
+
+    /**
+     * Gets the percentiles of the time needed to spawn the Maven process.
+     *
+     * @return The spawn latency, never <code>null</code>.
+     */
+    LatencyPercentiles getSpawnLatency();
+
+    /**
+     * Gets the percentiles of the total duration of invocations, including admission and the command line setup.
+     *
+     * @return The total duration, never <code>null</code>.
+     */
+    LatencyPercentiles getTotalDuration();
+
+    /**
+     * Resets all counters except for the queued and active invocations.
+     */
+    void reset();
+}
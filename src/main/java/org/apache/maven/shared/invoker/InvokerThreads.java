@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads used by the invoker to pump streams and wait for forked processes. On JDK 21 and later these
+ * are virtual threads, so concurrent invocations do not tie up platform threads; on older JDKs daemon platform
+ * threads are used.
+ * <p>
+ * Reading the pipe of a process blocks in a native call which the JDK cannot unmount, so a virtual thread blocked on
+ * a pipe occupies its carrier thread and the scheduler temporarily adds carriers to compensate. Their number is
+ * capped by <code>jdk.virtualThreadScheduler.maxPoolSize</code>, 256 by default, which therefore still bounds the
+ * number of streams pumped concurrently. Thousands of concurrent invocations should use the {@link ProcessIoReactor}
+ * instead, see {@link DefaultInvoker#setMultiplexedIo(boolean)}.
+ * </p>
+ */
+final class InvokerThreads {
+
+    private static final Method OF_VIRTUAL;
+
+    private static final Method BUILDER_NAME;
+
+    private static final Method BUILDER_FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            // fails if virtual threads are a preview feature which is not enabled
+            factory.invoke(ofVirtual.invoke(null));
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = name;
+        BUILDER_FACTORY = factory;
+    }
+
+    private InvokerThreads() {
+        // hide constructor
+    }
+
+    /**
+     * Indicates whether virtual threads are used.
+     *
+     * @return <code>true</code> if the threads created by this class are virtual threads.
+     */
+    static boolean isVirtual() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a thread factory for virtual threads if available or for daemon platform threads otherwise.
+     *
+     * @param prefix The prefix of the thread names, a counter is appended, must not be <code>null</code>.
+     * @return The thread factory, never <code>null</code>.
+     */
+    static ThreadFactory newThreadFactory(String prefix) {
+        if (OF_VIRTUAL != null) {
+            try {
+                Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L);
+                return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            } catch (ReflectiveOperationException e) {
+                // fall back to platform threads
+            }
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Helper methods dealing with the JVM options of the forked Maven process, i.e. <code>MAVEN_OPTS</code> and
+ * <code>.mvn/jvm.config</code>.
+ */
+final class JvmOptions {
+
+    /** Marker for sizes which are not configured. */
+    static final long UNKNOWN = -1;
+
+    private JvmOptions() {
+        // hide constructor
+    }
+
+    /**
+     * Gets the <code>MAVEN_OPTS</code> the forked process will see: the value of the request, an environment variable
+     * explicitly added to the request, or the variable inherited from this process.
+     *
+     * @param request The invocation request, must not be <code>null</code>.
+     * @return The effective <code>MAVEN_OPTS</code> or <code>null</code> if none.
+     */
+    static String effectiveMavenOpts(InvocationRequest request) {
+        String mavenOpts = request.getShellEnvironments().get("MAVEN_OPTS");
+        if (mavenOpts == null) {
+            mavenOpts = request.getMavenOpts();
+        }
+        if (mavenOpts == null && request.isShellEnvironmentInherited()) {
+            mavenOpts = System.getenv("MAVEN_OPTS");
+        }
+        return mavenOpts;
+    }
+
+    /**
+     * Reads the <code>.mvn/jvm.config</code> of the project which contains the given directory, searching the parent
+     * directories like the <code>mvn</code> launcher script does.
+     *
+     * @param directory The directory to start the search from, may be <code>null</code>.
+     * @return The JVM options of the project or <code>null</code> if there are none.
+     */
+    static String readJvmConfig(File directory) {
+        for (File dir = directory; dir != null; dir = dir.getParentFile()) {
+            if (new File(dir, ".mvn").isDirectory()) {
+                File jvmConfig = new File(dir, ".mvn/jvm.config");
+                if (!jvmConfig.isFile()) {
+                    return null;
+                }
+                try {
+                    return String.join(" ", Files.readAllLines(jvmConfig.toPath(), StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Splits JVM options at whitespace, keeping quoted options together.
+     *
+     * @param options The options, may be <code>null</code>.
+     * @return The single options, never <code>null</code>.
+     */
+    static List<String> split(String options) {
+        List<String> result = new ArrayList<>();
+        if (options == null) {
+            return result;
+        }
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+        for (char c : options.toCharArray()) {
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (Character.isWhitespace(c)) {
+                if (current.length() > 0) {
+                    result.add(current.toString());
+                    current.setLength(0);
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        if (current.length() > 0) {
+            result.add(current.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the setting a JVM option configures, so options overriding or conflicting with each other have the same
+     * key. All heap sizing options share one key as well as all options selecting a garbage collector.
+     *
+     * @param option The JVM option, must not be <code>null</code>.
+     * @return The key of the setting, never <code>null</code>.
+     */
+    static String optionKey(String option) {
+        if (option.startsWith("-Xmx")
+                || option.startsWith("-Xms")
+                || option.startsWith("-Xmn")
+                || option.matches("-XX:(Max|Min|Initial)HeapSize=.*")
+                || option.matches("-XX:\\w*RAMPercentage=.*")) {
+            return "heap";
+        }
+        if (option.matches("-XX:[+-]Use\\w*GC")) {
+            return "gc";
+        }
+        if (option.startsWith("-Xshare:")) {
+            return "-Xshare";
+        }
+        String name = option.startsWith("-XX:") ? "-XX:" + option.substring(4).replaceFirst("^[+-]", "") : option;
+        int separator = name.indexOf('=');
+        return separator > 0 ? name.substring(0, separator) : name;
+    }
+
+    /**
+     * Gets the maximum heap size configured by the given options, the last occurrence wins like in the JVM.
+     *
+     * @param options The JVM options, may be <code>null</code>.
+     * @return The maximum heap size in bytes or {@link #UNKNOWN}.
+     */
+    static long maxHeapSize(String options) {
+        long maxHeapSize = UNKNOWN;
+        for (String option : split(options)) {
+            if (option.startsWith("-Xmx")) {
+                maxHeapSize = parseSize(option.substring(4));
+            } else if (option.startsWith("-XX:MaxHeapSize=")) {
+                maxHeapSize = parseSize(option.substring("-XX:MaxHeapSize=".length()));
+            }
+        }
+        return maxHeapSize;
+    }
+
+    /**
+     * Parses a JVM memory size like <code>512m</code> or <code>2G</code>.
+     *
+     * @param size The size, may be <code>null</code>.
+     * @return The size in bytes or {@link #UNKNOWN} if the size cannot be parsed.
+     */
+    static long parseSize(String size) {
+        if (size == null || size.isEmpty()) {
+            return UNKNOWN;
+        }
+        String value = size.toLowerCase(Locale.ROOT);
+        long multiplier = 1;
+        switch (value.charAt(value.length() - 1)) {
+            case 'k':
+                multiplier = 1L << 10;
+                break;
+            case 'm':
+                multiplier = 1L << 20;
+                break;
+            case 'g':
+                multiplier = 1L << 30;
+                break;
+            case 't':
+                multiplier = 1L << 40;
+                break;
+            default:
+                break;
+        }
+        if (multiplier > 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value) * multiplier;
+        } catch (NumberFormatException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Formats a size in bytes for messages.
+     *
+     * @param bytes The size in bytes.
+     * @return The human readable size.
+     */
+    static String formatSize(long bytes) {
+        if (bytes >= 1L << 30) {
+            return String.format(Locale.ROOT, "%.1f GiB", bytes / (double) (1L << 30));
+        }
+        return String.format(Locale.ROOT, "%d MiB", bytes >> 20);
+    }
+}
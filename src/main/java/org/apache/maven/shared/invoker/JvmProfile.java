@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Curated sets of JVM options tuning the Maven JVM for a kind of build.
+ *
+ * @see InvocationRequest#setJvmProfile(JvmProfile)
+ * @since 3.4.0
+ */
+public enum JvmProfile {
+    /**
+     * Optimizes the startup of short builds like validations, expression evaluations or small test projects: only
+     * the C1 compiler is used, garbage is collected by the serial collector, the default class data archive is
+     * mapped if possible and the heap is limited to 512 MiB.
+     */
+    STARTUP("-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC", "-Xshare:auto", "-Xmx512m");
+
+    private final List<String> jvmOptions;
+
+    JvmProfile(String... jvmOptions) {
+        this.jvmOptions = Collections.unmodifiableList(Arrays.asList(jvmOptions));
+    }
+
+    /**
+     * Gets the JVM options of this profile.
+     *
+     * @return The JVM options, never <code>null</code>.
+     */
+    public List<String> getJvmOptions() {
+        return jvmOptions;
+    }
+}
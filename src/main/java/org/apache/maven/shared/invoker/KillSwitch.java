@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Watches the output of a Maven invocation for {@link KillTrigger kill triggers} and destroys the process tree of the
+ * build as soon as one matches. On Java 8 only the Maven process itself is destroyed, see
+ * {@link ProcessTrees#destroyForcibly(Process)}.
+ */
+final class KillSwitch {
+
+    private final List<KillTrigger> triggers;
+
+    private final MultiPatternMatcher matcher;
+
+    private final AtomicReference<KillTrigger> fired = new AtomicReference<>();
+
+    private volatile Process process;
+
+    KillSwitch(Collection<KillTrigger> triggers) {
+        this.triggers = new ArrayList<>(triggers);
+        List<String> patterns = new ArrayList<>(this.triggers.size());
+        for (KillTrigger trigger : this.triggers) {
+            patterns.add(trigger.getText());
+        }
+        this.matcher = new MultiPatternMatcher(patterns);
+    }
+
+    /**
+     * Wraps a handler so that the lines passed to it are matched against the triggers.
+     *
+     * @param delegate The handler to pass the lines to, may be <code>null</code>.
+     * @return The wrapping handler, never <code>null</code>.
+     */
+    InvocationOutputHandler watch(InvocationOutputHandler delegate) {
+        return new WatchingHandler(delegate);
+    }
+
+    /**
+     * Sets the process to destroy once a trigger matches.
+     *
+     * @param process The started Maven process, must not be <code>null</code>.
+     */
+    void attach(Process process) {
+        this.process = process;
+        if (fired.get() != null) {
+            ProcessTrees.destroyForcibly(process);
+        }
+    }
+
+    /**
+     * Gets the trigger which matched first.
+     *
+     * @return The matched trigger or <code>null</code> if none matched.
+     */
+    KillTrigger getFiredTrigger() {
+        return fired.get();
+    }
+
+    void match(String line) {
+        if (line == null || fired.get() != null) {
+            return;
+        }
+        int index = matcher.find(line);
+        if (index >= 0 && fired.compareAndSet(null, triggers.get(index))) {
+            Process process = this.process;
+            if (process != null) {
+                ProcessTrees.destroyForcibly(process);
+            }
+        }
+    }
+
+    private final class WatchingHandler implements InvocationOutputHandler, Flushable {
+
+        private final InvocationOutputHandler delegate;
+
+        WatchingHandler(InvocationOutputHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void consumeLine(String line) throws IOException {
+            try {
+                if (delegate != null) {
+                    delegate.consumeLine(line);
+                }
+            } finally {
+                match(line);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (delegate instanceof Flushable) {
+                ((Flushable) delegate).flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A literal text which, when found in a line of the standard or error output of Maven, makes the invoker stop the
+ * process tree of the build immediately, since the build is known to fail. Triggers are configured via
+ * {@link InvocationRequest#setKillTriggers(java.util.Collection)}, the trigger which stopped a build is reported by
+ * {@link InvocationResult#getKillTrigger()}.
+ *
+ * @since 3.4.0
+ */
+public final class KillTrigger {
+
+    /**
+     * Stops the build when Maven reports the build failure, saving the time spent on the summary and on shutting down
+     * forked processes.
+     */
+    public static final KillTrigger BUILD_FAILURE = new KillTrigger("build-failure", "BUILD FAILURE");
+
+    /**
+     * Stops the build when a JVM ran out of memory.
+     */
+    public static final KillTrigger OUT_OF_MEMORY = new KillTrigger("out-of-memory", "java.lang.OutOfMemoryError");
+
+    /**
+     * Stops the build when dependencies of a project could not be resolved.
+     */
+    public static final KillTrigger UNRESOLVED_DEPENDENCIES =
+            new KillTrigger("unresolved-dependencies", "Could not resolve dependencies");
+
+    private final String name;
+
+    private final String text;
+
+    /**
+     * Creates a new trigger.
+     *
+     * @param name The name of the trigger, reported in the result, must not be <code>null</code>.
+     * @param text The text to find in the output, must not be <code>null</code> nor empty. The text is matched
+     *            literally and case-sensitively anywhere in a line.
+     */
+    public KillTrigger(String name, String text) {
+        if (name == null) {
+            throw new NullPointerException("missing trigger name");
+        }
+        if (text == null) {
+            throw new NullPointerException("missing trigger text");
+        }
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("empty trigger text");
+        }
+        this.name = name;
+        this.text = text;
+    }
+
+    /**
+     * Gets the default triggers, i.e. {@link #BUILD_FAILURE}, {@link #OUT_OF_MEMORY} and
+     * {@link #UNRESOLVED_DEPENDENCIES}.
+     *
+     * @return The default triggers, never <code>null</code>.
+     */
+    public static Set<KillTrigger> defaults() {
+        return Collections.unmodifiableSet(
+                new LinkedHashSet<>(Arrays.asList(BUILD_FAILURE, OUT_OF_MEMORY, UNRESOLVED_DEPENDENCIES)));
+    }
+
+    /**
+     * Gets the name of this trigger.
+     *
+     * @return The name, never <code>null</code>.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the text this trigger matches.
+     *
+     * @return The text, never <code>null</code>.
+     */
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof KillTrigger)) {
+            return false;
+        }
+        KillTrigger that = (KillTrigger) obj;
+        return name.equals(that.name) && text.equals(that.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode() * 31 + text.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + text + ")";
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Percentiles of a duration recorded by {@link InvokerStatistics}, with a relative precision of 12.5%.
+ *
+ * @since 3.4.0
+ */
+public final class LatencyPercentiles {
+
+    private final long count;
+
+    private final double p50Millis;
+
+    private final double p90Millis;
+
+    private final double p99Millis;
+
+    private final double maxMillis;
+
+    /**
+     * Creates new percentiles.
+     *
+     * @param count The number of recorded durations.
+     * @param p50Millis The median in milliseconds.
+     * @param p90Millis The 90th percentile in milliseconds.
+     * @param p99Millis The 99th percentile in milliseconds.
+     * @param maxMillis The maximum in milliseconds.
+     */
+    @ConstructorProperties({"count", "p50Millis", "p90Millis", "p99Millis", "maxMillis"})
+    public LatencyPercentiles(long count, double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+        this.count = count;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     *
+     * @return The number of durations.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the median.
+     *
+     * @return The median in milliseconds.
+     */
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    /**
+     * Gets the 90th percentile.
+     *
+     * @return The 90th percentile in milliseconds.
+     */
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    /**
+     * Gets the 99th percentile.
+     *
+     * @return The 99th percentile in milliseconds.
+     */
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    /**
+     * Gets the maximum.
+     *
+     * @return The maximum in milliseconds.
+     */
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyPercentiles[count=" + count + ", p50=" + p50Millis + " ms, p90=" + p90Millis + " ms, p99="
+                + p99Millis + " ms, max=" + maxMillis + " ms]";
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Describes the data written to a {@link CompressedLogArchive}, either in total or by a single invocation.
+ *
+ * @since 3.4.0
+ */
+public final class LogArchiveStatistics {
+
+    private final long lines;
+
+    private final long uncompressedBytes;
+
+    private final long compressedBytes;
+
+    private final List<File> files;
+
+    LogArchiveStatistics(long lines, long uncompressedBytes, long compressedBytes, List<File> files) {
+        this.lines = lines;
+        this.uncompressedBytes = uncompressedBytes;
+        this.compressedBytes = compressedBytes;
+        this.files = Collections.unmodifiableList(new ArrayList<>(files));
+    }
+
+    /**
+     * Gets the number of archived lines.
+     *
+     * @return The number of lines.
+     */
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Gets the number of bytes archived before compression, including stream tags and line terminators.
+     *
+     * @return The uncompressed size in bytes.
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * Gets the number of compressed bytes written to disk.
+     *
+     * @return The compressed size in bytes.
+     */
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Gets the compression ratio, i.e. the uncompressed size divided by the compressed size.
+     *
+     * @return The compression ratio or <code>0</code> if nothing has been written.
+     */
+    public double getCompressionRatio() {
+        return compressedBytes == 0 ? 0 : uncompressedBytes / (double) compressedBytes;
+    }
+
+    /**
+     * Gets the archive files written to.
+     *
+     * @return The archive files in the order they have been written, never <code>null</code>.
+     */
+    public List<File> getFiles() {
+        return files;
+    }
+
+    LogArchiveStatistics since(LogArchiveStatistics start) {
+        List<File> written = new ArrayList<>(files);
+        // the file current at the start received data from this invocation as well
+        written.subList(0, Math.max(0, start.files.size() - 1)).clear();
+        return new LogArchiveStatistics(
+                lines - start.lines,
+                uncompressedBytes - start.uncompressedBytes,
+                compressedBytes - start.compressedBytes,
+                written);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                Locale.ROOT,
+                "LogArchiveStatistics[lines=%d, uncompressed=%d, compressed=%d, ratio=%.2f, files=%d]",
+                lines,
+                uncompressedBytes,
+                compressedBytes,
+                getCompressionRatio(),
+                files.size());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the files written by a {@link CompressedLogArchive}. The stream returned by
+ * {@link #compress(OutputStream)} must write all data passed so far in a form readable by the matching decompressor
+ * when it is {@link OutputStream#flush() flushed}, so a crash only loses the data written after the last flush.
+ *
+ * @since 3.4.0
+ */
+public interface LogCompressionCodec {
+
+    /**
+     * The gzip codec of the JDK, flushing complete deflate blocks.
+     */
+    LogCompressionCodec GZIP = new LogCompressionCodec() {
+        @Override
+        public String getFileExtension() {
+            return ".gz";
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out, 64 * 1024, true);
+        }
+
+        @Override
+        public String toString() {
+            return "gzip";
+        }
+    };
+
+    /**
+     * Gets the file extension of the compressed files, including the leading dot.
+     *
+     * @return The file extension, never <code>null</code>.
+     */
+    String getFileExtension();
+
+    /**
+     * Wraps a stream into a compressing stream. Closing the returned stream must close the wrapped stream.
+     *
+     * @param out The stream to write the compressed data to, must not be <code>null</code>.
+     * @return The compressing stream, never <code>null</code>.
+     * @throws IOException if the compressing stream could not be created.
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+}
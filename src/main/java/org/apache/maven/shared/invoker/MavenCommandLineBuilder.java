@@ -20,15 +20,20 @@ package org.apache.maven.shared.invoker;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.maven.shared.invoker.InvocationRequest.CheckSumPolicy;
 import org.apache.maven.shared.invoker.InvocationRequest.ReactorFailureBehavior;
 import org.apache.maven.shared.utils.Os;
 import org.apache.maven.shared.utils.StringUtils;
+import org.apache.maven.shared.utils.cli.Arg;
 import org.apache.maven.shared.utils.cli.CommandLineException;
 import org.apache.maven.shared.utils.cli.Commandline;
 
@@ -49,6 +54,38 @@ public class MavenCommandLineBuilder {
 
     private File mavenExecutable;
 
+    private File buildEventsFile;
+
+    private File flightRecordingFile;
+
+    private File gcLogFile;
+
+    private String mavenOpts;
+
+    private String mavenVersion;
+
+    private File javaHome;
+
+    private String javaVersion;
+
+    private ThreadAllocator threadAllocator;
+
+    private ThreadAllocator.Allocation threadAllocation;
+
+    private String requestedThreads;
+
+    private boolean adaptiveThreads;
+
+    private Arg threadsArg;
+
+    private ClassDataArchives classDataArchives;
+
+    private ClassDataArchives.Archive classDataArchive;
+
+    private SnapshotUpdateCoalescer snapshotUpdateCoalescer;
+
+    private SnapshotUpdateCoalescer.Claim snapshotUpdateClaim;
+
     /**
      * <p>build.</p>
      *
@@ -71,9 +108,16 @@ public class MavenCommandLineBuilder {
         setupMavenExecutable(request);
         cli.setExecutable(mavenExecutable.getAbsolutePath());
 
+        setupRuntimeVersions(request);
+
         // handling for OS-level envars
+        mavenOpts = null;
         setShellEnvironment(request, cli);
 
+        setFlightRecording(request, cli);
+
+        setClassDataSharing(request, cli);
+
         // interactive, offline, update-snapshots,
         // debug/show-errors, checksum policy
         setFlags(request, cli);
@@ -94,6 +138,8 @@ public class MavenCommandLineBuilder {
 
         setProperties(request, cli);
 
+        setBuildEventSpy(request, cli);
+
         setProfiles(request, cli);
 
         setGoals(request, cli);
@@ -198,6 +244,149 @@ public class MavenCommandLineBuilder {
         for (Map.Entry<String, String> entry : request.getShellEnvironments().entrySet()) {
             cli.addEnvironment(entry.getKey(), entry.getValue());
         }
+
+        if (request.getJvmProfile() != null) {
+            setJvmProfile(request, cli);
+        }
+
+        gcLogFile = null;
+        if (request.isGcLogging()) {
+            setGcLogging(request, cli);
+        }
+    }
+
+    private void setJvmProfile(InvocationRequest request, Commandline cli) {
+        Set<String> configured = new HashSet<>();
+        for (String option : JvmOptions.split(JvmOptions.effectiveMavenOpts(request))) {
+            configured.add(JvmOptions.optionKey(option));
+        }
+        for (String option : JvmOptions.split(JvmOptions.readJvmConfig(baseDirectory))) {
+            configured.add(JvmOptions.optionKey(option));
+        }
+
+        List<String> options = new ArrayList<>();
+        for (String option : request.getJvmProfile().getJvmOptions()) {
+            if (configured.contains(JvmOptions.optionKey(option))) {
+                logger.debug("JVM option " + option + " of the " + request.getJvmProfile()
+                        + " profile is already configured, keeping the configured one.");
+            } else {
+                options.add(option);
+            }
+        }
+        if (!options.isEmpty()) {
+            addMavenOpts(request, cli, String.join(" ", options));
+        }
+    }
+
+    private void setGcLogging(InvocationRequest request, Commandline cli) {
+        int javaFeatureVersion = RuntimeDiscovery.javaFeatureVersion(javaVersion);
+        if (javaFeatureVersion >= 0 && javaFeatureVersion < 9) {
+            logger.warn("Unified GC logging requires Java 9 or later, not logging GC of Maven running on Java "
+                    + javaVersion + ".");
+            return;
+        }
+
+        File file;
+        try {
+            file = File.createTempFile("maven-invoker-gc-", ".log");
+        } catch (IOException e) {
+            logger.warn("Failed to create the GC log, not logging GC: " + e.getMessage());
+            return;
+        }
+        if (!isMavenOptsSafe(file)) {
+            logger.warn("Cannot pass the GC log path " + file + " via MAVEN_OPTS, not logging GC.");
+            file.delete();
+            return;
+        }
+        gcLogFile = file;
+        addMavenOpts(request, cli, GcLogParser.XLOG_OPTION + '"' + file.getAbsolutePath() + '"');
+    }
+
+    /**
+     * Gets the GC log file of the last built command line.
+     *
+     * @return The GC log file or <code>null</code> if GC logging is not enabled.
+     */
+    File getGcLogFile() {
+        return gcLogFile;
+    }
+
+    /**
+     * Checks whether a file can be passed in a JVM option via <code>MAVEN_OPTS</code>, which the launcher scripts
+     * split at whitespace, and JVM options which split at commas or equal signs.
+     */
+    private static boolean isMavenOptsSafe(File file) {
+        return !file.getAbsolutePath().matches(".*[\\s,=].*");
+    }
+
+    /**
+     * Appends options to the <code>MAVEN_OPTS</code> of the command line, after the options given by the request or,
+     * if the request does not set them, inherited from the shell environment.
+     *
+     * @param request a {@link org.apache.maven.shared.invoker.InvocationRequest} object.
+     * @param cli a {@link org.apache.maven.shared.utils.cli.Commandline} object.
+     * @param options The JVM options to append, space separated.
+     */
+    void addMavenOpts(InvocationRequest request, Commandline cli, String options) {
+        if (mavenOpts == null) {
+            mavenOpts = JvmOptions.effectiveMavenOpts(request);
+        }
+        mavenOpts = mavenOpts == null || mavenOpts.trim().isEmpty() ? options : mavenOpts.trim() + ' ' + options;
+        cli.addEnvironment("MAVEN_OPTS", mavenOpts);
+    }
+
+    /**
+     * Starts a Flight Recorder recording in the Maven JVM if the request is sampled for profiling. The file receiving
+     * the recording is created and available via {@link #getFlightRecordingFile()}.
+     *
+     * @param request a {@link org.apache.maven.shared.invoker.InvocationRequest} object.
+     * @param cli a {@link org.apache.maven.shared.utils.cli.Commandline} object.
+     * @throws org.apache.maven.shared.invoker.CommandLineConfigurationException if the recording file cannot be
+     *             created.
+     * @since 3.4.0
+     */
+    protected void setFlightRecording(InvocationRequest request, Commandline cli)
+            throws CommandLineConfigurationException {
+        flightRecordingFile = null;
+        int percentage = request.getFlightRecordingPercentage();
+        if (percentage <= 0 || ThreadLocalRandom.current().nextInt(100) >= percentage) {
+            return;
+        }
+        if (!FlightRecorderSupport.isSummaryAvailable()) {
+            logger.warn("Flight recordings can only be summarized on Java 11 or later, not profiling Maven.");
+            return;
+        }
+        if (javaVersion != null && !FlightRecorderSupport.isRecordingSupported(javaVersion)) {
+            logger.warn("Maven runs on Java " + javaVersion + " which cannot record flights, not profiling Maven.");
+            return;
+        }
+
+        File file;
+        try {
+            file = File.createTempFile("maven-invoker-", ".jfr");
+        } catch (IOException e) {
+            throw new CommandLineConfigurationException("Failed to create the flight recording: " + e.getMessage(), e);
+        }
+        if (!isMavenOptsSafe(file)) {
+            logger.warn("Cannot pass the flight recording path " + file + " via MAVEN_OPTS, not profiling Maven.");
+            file.delete();
+            return;
+        }
+
+        flightRecordingFile = file;
+        addMavenOpts(
+                request,
+                cli,
+                "-XX:StartFlightRecording=settings=default,dumponexit=true,filename=" + file.getAbsolutePath());
+    }
+
+    /**
+     * Gets the file receiving the Flight Recorder recording of the last built command line.
+     *
+     * @return The recording file or <code>null</code> if the invocation is not profiled.
+     */
+    File getFlightRecordingFile() {
+        return flightRecordingFile;
     }
 
     /**
@@ -254,6 +443,52 @@ public class MavenCommandLineBuilder {
         }
     }
 
+    /**
+     * Injects the {@link BuildEventSpy} via <code>maven.ext.class.path</code> if the request records build events,
+     * keeping extensions given by the request properties. The file receiving the events is created and available via
+     * {@link #getBuildEventsFile()}.
+     *
+     * @param request a {@link org.apache.maven.shared.invoker.InvocationRequest} object.
+     * @param cli a {@link org.apache.maven.shared.utils.cli.Commandline} object.
+     * @throws org.apache.maven.shared.invoker.CommandLineConfigurationException if the event spy cannot be set up.
+     * @since 3.4.0
+     */
+    protected void setBuildEventSpy(InvocationRequest request, Commandline cli)
+            throws CommandLineConfigurationException {
+        buildEventsFile = null;
+        if (!request.isRecordBuildEvents()) {
+            return;
+        }
+
+        String extClassPath;
+        try {
+            extClassPath = BuildEventRecording.getSpyJar().getAbsolutePath();
+            buildEventsFile = File.createTempFile("maven-invoker-events-", ".bin");
+        } catch (IOException e) {
+            throw new CommandLineConfigurationException("Failed to set up the build event spy: " + e.getMessage(), e);
+        }
+
+        Properties properties = request.getProperties();
+        String userExtClassPath = properties != null ? properties.getProperty("maven.ext.class.path") : null;
+        if (userExtClassPath != null && !userExtClassPath.isEmpty()) {
+            extClassPath = userExtClassPath + File.pathSeparator + extClassPath;
+        }
+
+        cli.createArg().setValue("-D");
+        cli.createArg().setValue("maven.ext.class.path=" + extClassPath);
+        cli.createArg().setValue("-D");
+        cli.createArg().setValue(BuildEventSpy.FILE_PROPERTY + '=' + buildEventsFile.getAbsolutePath());
+    }
+
+    /**
+     * Gets the file receiving the build events recorded by the last built command line.
+     *
+     * @return The build events file or <code>null</code> if the request does not record build events.
+     */
+    File getBuildEventsFile() {
+        return buildEventsFile;
+    }
+
     /**
      * <p>setPomLocation.</p>
      *
@@ -353,6 +588,26 @@ public class MavenCommandLineBuilder {
         }
     }
 
+    /**
+     * Identifies the local repository an invocation uses: its directory if set by the request, the invoker or the
+     * <code>maven.repo.local</code> property, otherwise the settings files which may configure it.
+     */
+    private String localRepositoryKey(InvocationRequest request) {
+        File directory = request.getLocalRepositoryDirectory(localRepositoryDirectory);
+        if (directory == null && request.getProperties() != null) {
+            String property = request.getProperties().getProperty("maven.repo.local");
+            directory = property != null ? new File(property) : null;
+        }
+        if (directory != null) {
+            try {
+                return directory.getCanonicalPath();
+            } catch (IOException e) {
+                return directory.getAbsolutePath();
+            }
+        }
+        return "settings:" + request.getUserSettingsFile() + ':' + request.getGlobalSettingsFile();
+    }
+
     /**
      * <p>setReactorBehavior.</p>
      *
@@ -406,11 +661,26 @@ public class MavenCommandLineBuilder {
             cli.createArg().setValue("-o");
         }
 
-        if (request.getUpdateSnapshotsPolicy() == UpdateSnapshotsPolicy.ALWAYS) {
+        UpdateSnapshotsPolicy updateSnapshotsPolicy = request.getUpdateSnapshotsPolicy();
+        snapshotUpdateClaim = null;
+        if (updateSnapshotsPolicy == UpdateSnapshotsPolicy.ALWAYS && snapshotUpdateCoalescer != null) {
+            try {
+                snapshotUpdateClaim = snapshotUpdateCoalescer.claimUpdate(localRepositoryKey(request));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting for the snapshot update of another invocation.");
+            }
+            if (snapshotUpdateClaim != null && !snapshotUpdateClaim.isUpdating()) {
+                logger.debug("Snapshots were updated by a previous invocation, not updating them again.");
+                updateSnapshotsPolicy = UpdateSnapshotsPolicy.NEVER;
+            }
+        }
+
+        if (updateSnapshotsPolicy == UpdateSnapshotsPolicy.ALWAYS) {
             cli.createArg().setValue("-U");
         }
 
-        if (request.getUpdateSnapshotsPolicy() == UpdateSnapshotsPolicy.NEVER) {
+        if (updateSnapshotsPolicy == UpdateSnapshotsPolicy.NEVER) {
             cli.createArg().setValue("-nsu");
         }
 
@@ -441,7 +711,7 @@ public class MavenCommandLineBuilder {
             cli.createArg().setValue("-V");
         }
 
-        if (request.getBuilder() != null) {
+        if (request.getBuilder() != null && isSupported("-b", "3.2.1")) {
             cli.createArg().setValue("-b");
             cli.createArg().setValue(request.getBuilder());
         }
@@ -454,7 +724,7 @@ public class MavenCommandLineBuilder {
             cli.createArg().setValue("-ntp");
         }
 
-        if (request.isIgnoreTransitiveRepositories()) {
+        if (request.isIgnoreTransitiveRepositories() && isSupported("-itr", "3.9.7")) {
             cli.createArg().setValue("-itr");
         }
     }
@@ -467,10 +737,43 @@ public class MavenCommandLineBuilder {
      */
     protected void setThreads(InvocationRequest request, Commandline cli) {
         String threads = request.getThreads();
+        threadAllocation = null;
+        threadsArg = null;
+        requestedThreads = threads;
+        adaptiveThreads = request.isAdaptiveThreads();
+        if (adaptiveThreads) {
+            int count = threadAllocator != null
+                    ? threadAllocator.share()
+                    : ThreadAllocator.getDefault().share();
+            if (threadAllocator == null) {
+                logger.debug("Assigning " + count + " threads to the build");
+            }
+            threads = String.valueOf(count);
+        }
         if (threads != null && !threads.isEmpty()) {
             cli.createArg().setValue("-T");
-            cli.createArg().setValue(threads);
+            threadsArg = cli.createArg();
+            threadsArg.setValue(threads);
+        }
+    }
+
+    /**
+     * Allocates the threads of the last built command line. This is meant to be called once the invocation is admitted
+     * to run, so that queued invocations do not occupy any threads. An adaptive thread count is reassigned from the
+     * invocations running at that point.
+     *
+     * @return The thread allocation, which must be closed once Maven terminated, or <code>null</code> if no allocator
+     *         is set.
+     */
+    ThreadAllocator.Allocation allocateThreads() {
+        if (threadAllocator != null && threadAllocation == null) {
+            threadAllocation = threadAllocator.allocate(requestedThreads, adaptiveThreads);
+            if (adaptiveThreads) {
+                logger.debug("Assigning " + threadAllocation.getThreads() + " threads to the build");
+                threadsArg.setValue(String.valueOf(threadAllocation.getThreads()));
+            }
         }
+        return threadAllocation;
     }
 
     protected void setArgs(InvocationRequest request, Commandline cli) {
@@ -479,6 +782,171 @@ public class MavenCommandLineBuilder {
         }
     }
 
+    /**
+     * Tells whether the Maven version supports a command line option. Options are kept if the version is unknown.
+     */
+    private boolean isSupported(String option, String minimumVersion) {
+        if (mavenVersion == null || RuntimeDiscovery.compareVersions(mavenVersion, minimumVersion) >= 0) {
+            return true;
+        }
+        logger.warn("Ignoring option " + option + " which requires Maven " + minimumVersion + " or later, " + mavenHome
+                + " is Maven " + mavenVersion);
+        return false;
+    }
+
+    /**
+     * Looks up the versions of Maven and the JDK used by the command line. The Maven version is only known if the
+     * executable belongs to the Maven home, the Java version only if the Java home is set explicitly or by the
+     * inherited environment.
+     */
+    private void setupRuntimeVersions(InvocationRequest request) {
+        RuntimeDiscovery discovery = RuntimeDiscovery.getDefault();
+
+        mavenVersion = null;
+        File executableHome = mavenExecutable.getAbsoluteFile().getParentFile();
+        executableHome = executableHome != null ? executableHome.getParentFile() : null;
+        if (mavenHome != null && executableHome != null) {
+            try {
+                if (executableHome.getCanonicalFile().equals(mavenHome.getCanonicalFile())) {
+                    mavenVersion = discovery.getMavenVersion(mavenHome);
+                }
+            } catch (IOException e) {
+                logger.debug("Failed to canonicalize maven home: '" + mavenHome + "'.", e);
+            }
+        }
+
+        String javaHomePath = request.getShellEnvironments().get("JAVA_HOME");
+        if (javaHomePath == null && request.getJavaHome() != null) {
+            javaHomePath = request.getJavaHome().getPath();
+        }
+        if (javaHomePath == null && request.isShellEnvironmentInherited()) {
+            javaHomePath = System.getenv("JAVA_HOME");
+        }
+        javaHome = javaHomePath != null && !javaHomePath.isEmpty() ? new File(javaHomePath) : null;
+        javaVersion = discovery.getJavaVersion(javaHome);
+    }
+
+    /**
+     * Maps the Class Data Sharing archive of the Maven home and JDK into the Maven JVM, or dumps it on a training
+     * run, unless the JVM options of the request or the project already configure class data sharing.
+     */
+    private void setClassDataSharing(InvocationRequest request, Commandline cli) {
+        classDataArchive = null;
+        if (classDataArchives == null) {
+            return;
+        }
+        if (mavenVersion == null || javaVersion == null) {
+            logger.debug("Unknown Maven or Java version, not sharing class data.");
+            return;
+        }
+
+        List<String> options = new ArrayList<>(JvmOptions.split(JvmOptions.effectiveMavenOpts(request)));
+        options.addAll(JvmOptions.split(JvmOptions.readJvmConfig(baseDirectory)));
+        for (String option : options) {
+            if (option.equals("-Xshare:off")
+                    || option.startsWith("-XX:SharedArchiveFile=")
+                    || option.startsWith("-XX:ArchiveClassesAtExit=")
+                    || option.equals("-XX:+AutoCreateSharedArchive")) {
+                logger.debug("Class data sharing configured by " + option + ", not sharing class data.");
+                return;
+            }
+        }
+
+        ClassDataArchives.Archive archive;
+        try {
+            archive = classDataArchives.prepare(mavenHome, mavenVersion, javaHome, javaVersion);
+        } catch (IOException e) {
+            logger.warn("Failed to prepare the class data archive, not sharing class data: " + e.getMessage());
+            return;
+        }
+        if (archive == null) {
+            return;
+        }
+        classDataArchive = archive;
+        if (!isMavenOptsSafe(archive.getJvmFile())) {
+            logger.warn("Cannot pass the class data archive " + archive.getJvmFile()
+                    + " via MAVEN_OPTS, not sharing class data.");
+            return;
+        }
+        logger.debug((archive.isTraining() ? "Dumping" : "Mapping") + " class data archive " + archive.getJvmFile());
+        addMavenOpts(request, cli, archive.getJvmOption());
+    }
+
+    /**
+     * Sets the coalescer of snapshot updates.
+     *
+     * @param snapshotUpdateCoalescer The coalescer, may be <code>null</code> to update snapshots as requested.
+     */
+    void setSnapshotUpdateCoalescer(SnapshotUpdateCoalescer snapshotUpdateCoalescer) {
+        this.snapshotUpdateCoalescer = snapshotUpdateCoalescer;
+    }
+
+    /**
+     * Gets the claim of the last built command line on the snapshot update of its local repository, which must be
+     * completed once Maven terminated or will not be run.
+     *
+     * @return The claim or <code>null</code> if snapshot updates are not coalesced.
+     */
+    SnapshotUpdateCoalescer.Claim getSnapshotUpdateClaim() {
+        return snapshotUpdateClaim;
+    }
+
+    /**
+     * Sets the archives of Class Data Sharing for the Maven JVM.
+     *
+     * @param classDataArchives The archives, may be <code>null</code> to not share class data.
+     */
+    void setClassDataArchives(ClassDataArchives classDataArchives) {
+        this.classDataArchives = classDataArchives;
+    }
+
+    /**
+     * Gets the Class Data Sharing archive used by the last built command line, which must be completed once Maven
+     * terminated.
+     *
+     * @return The archive or <code>null</code> if class data is not shared.
+     */
+    ClassDataArchives.Archive getClassDataArchive() {
+        return classDataArchive;
+    }
+
+    /**
+     * Sets the allocator which accounts for the threads of the built command lines. Without an allocator, adaptive
+     * thread counts are derived from the invocations accounted by the default allocator.
+     *
+     * @param threadAllocator The thread allocator, may be <code>null</code>.
+     */
+    void setThreadAllocator(ThreadAllocator threadAllocator) {
+        this.threadAllocator = threadAllocator;
+    }
+
+    /**
+     * Gets the threads allocated to the last built command line, which must be closed once Maven terminated.
+     *
+     * @return The thread allocation or <code>null</code> if no allocator is set or the threads are not allocated yet.
+     */
+    ThreadAllocator.Allocation getThreadAllocation() {
+        return threadAllocation;
+    }
+
+    /**
+     * Gets the version of the Maven installation used by the last built command line.
+     *
+     * @return The Maven version or <code>null</code> if unknown.
+     */
+    String getMavenVersion() {
+        return mavenVersion;
+    }
+
+    /**
+     * Gets the version of the JDK used by the last built command line.
+     *
+     * @return The Java version or <code>null</code> if unknown.
+     */
+    String getJavaVersion() {
+        return javaVersion;
+    }
+
     private void setupMavenHome(InvocationRequest request) {
         if (request.getMavenHome() != null) {
             mavenHome = request.getMavenHome();
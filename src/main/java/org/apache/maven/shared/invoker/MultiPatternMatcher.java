@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Finds any of a set of literal patterns in a text with a single pass over the text, using the Aho-Corasick automaton.
+ * The cost of matching a line is linear in its length, regardless of the number of patterns. Instances are immutable
+ * and thread-safe.
+ */
+final class MultiPatternMatcher {
+
+    private static final int ROOT = 0;
+
+    /**
+     * The sorted characters of the transitions of each node.
+     */
+    private char[][] keys;
+
+    /**
+     * The target nodes of the transitions of each node, in the order of {@link #keys}.
+     */
+    private int[][] targets;
+
+    private int[] failures;
+
+    /**
+     * The index of the pattern matching when a node is reached, including patterns ending in a suffix of the node,
+     * <code>-1</code> if none.
+     */
+    private int[] matches;
+
+    private int size;
+
+    /**
+     * Creates a matcher for the given patterns.
+     *
+     * @param patterns The patterns to find, must not be <code>null</code> nor contain empty patterns.
+     */
+    MultiPatternMatcher(List<String> patterns) {
+        keys = new char[16][];
+        targets = new int[16][];
+        matches = new int[16];
+        newNode();
+        for (int i = 0; i < patterns.size(); i++) {
+            String pattern = patterns.get(i);
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("empty pattern");
+            }
+            int node = ROOT;
+            for (int j = 0; j < pattern.length(); j++) {
+                int next = next(node, pattern.charAt(j));
+                if (next < 0) {
+                    next = newNode();
+                    addTransition(node, pattern.charAt(j), next);
+                }
+                node = next;
+            }
+            if (matches[node] < 0) {
+                matches[node] = i;
+            }
+        }
+        buildFailures();
+    }
+
+    /**
+     * Searches the text for the patterns.
+     *
+     * @param text The text to search, must not be <code>null</code>.
+     * @return The index of the pattern whose occurrence ends first in the text, <code>-1</code> if none occurs.
+     */
+    int find(CharSequence text) {
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next = next(node, c);
+            while (next < 0 && node != ROOT) {
+                node = failures[node];
+                next = next(node, c);
+            }
+            node = next < 0 ? ROOT : next;
+            if (matches[node] >= 0) {
+                return matches[node];
+            }
+        }
+        return -1;
+    }
+
+    private int newNode() {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            targets = Arrays.copyOf(targets, size * 2);
+            matches = Arrays.copyOf(matches, size * 2);
+        }
+        keys[size] = new char[0];
+        targets[size] = new int[0];
+        matches[size] = -1;
+        return size++;
+    }
+
+    private int next(int node, char c) {
+        int index = Arrays.binarySearch(keys[node], c);
+        return index < 0 ? -1 : targets[node][index];
+    }
+
+    private void addTransition(int node, char c, int target) {
+        int index = -Arrays.binarySearch(keys[node], c) - 1;
+        char[] oldKeys = keys[node];
+        int[] oldTargets = targets[node];
+        char[] newKeys = new char[oldKeys.length + 1];
+        int[] newTargets = new int[oldTargets.length + 1];
+        System.arraycopy(oldKeys, 0, newKeys, 0, index);
+        System.arraycopy(oldTargets, 0, newTargets, 0, index);
+        newKeys[index] = c;
+        newTargets[index] = target;
+        System.arraycopy(oldKeys, index, newKeys, index + 1, oldKeys.length - index);
+        System.arraycopy(oldTargets, index, newTargets, index + 1, oldTargets.length - index);
+        keys[node] = newKeys;
+        targets[node] = newTargets;
+    }
+
+    private void buildFailures() {
+        failures = new int[size];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[ROOT]) {
+            failures[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.remove();
+            for (int i = 0; i < keys[node].length; i++) {
+                char c = keys[node][i];
+                int child = targets[node][i];
+                int failure = failures[node];
+                int next = next(failure, c);
+                while (next < 0 && failure != ROOT) {
+                    failure = failures[failure];
+                    next = next(failure, c);
+                }
+                failures[child] = next < 0 ? ROOT : next;
+                if (matches[child] < 0) {
+                    matches[child] = matches[failures[child]];
+                }
+                queue.add(child);
+            }
+        }
+    }
+}
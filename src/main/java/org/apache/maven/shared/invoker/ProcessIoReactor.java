@@ -0,0 +1,495 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.maven.shared.utils.cli.CommandLineException;
+import org.apache.maven.shared.utils.cli.CommandLineTimeOutException;
+import org.apache.maven.shared.utils.cli.StreamConsumer;
+
+/**
+ * Serves the streams of all running child processes from a single event loop thread, so the number of threads used
+ * by the invoker does not grow with the number of concurrent builds.
+ * <p>
+ * The pipes of a {@link Process} are not selectable channels, so the loop polls how many bytes each pipe has
+ * {@link InputStream#available() available} and only reads those, which never blocks. Bytes are decoded and split
+ * into lines per stream, then passed to the stream consumer of the invocation. The timeouts of all processes are
+ * tracked by the same loop in a deadline queue. When no pipe had data the loop backs off for a few milliseconds.
+ * </p>
+ * <p>
+ * Consumers are called on the event loop thread, a slow consumer therefore delays the output of all processes. Wrap
+ * slow consumers accordingly.
+ * </p>
+ */
+final class ProcessIoReactor implements Runnable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final long MIN_BACKOFF_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final ProcessIoReactor INSTANCE = new ProcessIoReactor();
+
+    private final Queue<Registration> pending = new ConcurrentLinkedQueue<>();
+
+    private final List<Registration> active = new ArrayList<>();
+
+    private final PriorityQueue<Registration> deadlines =
+            new PriorityQueue<>(Comparator.comparingLong(r -> r.deadlineNanos));
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    private volatile Thread thread;
+
+    private ProcessIoReactor() {
+        // singleton
+    }
+
+    /**
+     * Gets the event loop shared by all invokers.
+     *
+     * @return The event loop, never <code>null</code>.
+     */
+    static ProcessIoReactor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts serving the streams of a process.
+     *
+     * @param process The started process, must not be <code>null</code>.
+     * @param systemIn The input fed to the process, may be <code>null</code>.
+     * @param systemOut The consumer of the standard output, may be <code>null</code>.
+     * @param systemErr The consumer of the error output, may be <code>null</code>.
+     * @param timeoutInSeconds The timeout of the process, <code>0</code> or less for no timeout.
+     * @return The registration to wait for, never <code>null</code>.
+     */
+    Registration register(
+            Process process,
+            InputStream systemIn,
+            StreamConsumer systemOut,
+            StreamConsumer systemErr,
+            int timeoutInSeconds) {
+        Registration registration = new Registration(process, systemIn, systemOut, systemErr, timeoutInSeconds);
+        pending.add(registration);
+        wakeup();
+        return registration;
+    }
+
+    private void wakeup() {
+        Thread loop = thread;
+        if (loop == null) {
+            synchronized (this) {
+                if (thread == null) {
+                    loop = new Thread(this, "maven-invoker-io");
+                    loop.setDaemon(true);
+                    thread = loop;
+                    loop.start();
+                    return;
+                }
+                loop = thread;
+            }
+        }
+        LockSupport.unpark(loop);
+    }
+
+    @Override
+    public void run() {
+        try {
+            loop();
+        } finally {
+            // only reached if the loop itself failed, release its registrations so no invocation waits forever
+            IllegalStateException failure = new IllegalStateException("The event loop terminated unexpectedly.");
+            for (Registration registration : active) {
+                registration.fail(failure);
+            }
+            active.clear();
+            deadlines.clear();
+            synchronized (this) {
+                thread = null;
+            }
+            if (!pending.isEmpty()) {
+                wakeup();
+            }
+        }
+    }
+
+    private void loop() {
+        long backoffNanos = MIN_BACKOFF_NANOS;
+        while (true) {
+            for (Registration registration = pending.poll(); registration != null; registration = pending.poll()) {
+                active.add(registration);
+                if (registration.deadlineNanos != Long.MAX_VALUE) {
+                    deadlines.add(registration);
+                }
+            }
+
+            boolean progress = false;
+            for (Iterator<Registration> it = active.iterator(); it.hasNext(); ) {
+                Registration registration = it.next();
+                try {
+                    progress |= registration.poll(buffer);
+                } catch (Throwable t) {
+                    // fail only this invocation, the loop keeps serving the others
+                    registration.fail(t);
+                }
+                if (registration.isDone()) {
+                    it.remove();
+                    deadlines.remove(registration);
+                }
+            }
+
+            long now = System.nanoTime();
+            while (!deadlines.isEmpty() && deadlines.peek().deadlineNanos - now <= 0) {
+                Registration registration = deadlines.poll();
+                active.remove(registration);
+                try {
+                    registration.timeout();
+                } catch (Throwable t) {
+                    registration.fail(t);
+                }
+            }
+
+            if (progress) {
+                backoffNanos = MIN_BACKOFF_NANOS;
+            } else if (active.isEmpty() && pending.isEmpty()) {
+                LockSupport.park(this);
+            } else {
+                LockSupport.parkNanos(this, backoffNanos);
+                backoffNanos = Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+            }
+        }
+    }
+
+    /**
+     * The streams of a single process served by the event loop.
+     */
+    static final class Registration {
+
+        private final Process process;
+
+        private final int timeoutInSeconds;
+
+        private final long deadlineNanos;
+
+        private final InputStream systemIn;
+
+        private final OutputStream processIn;
+
+        private final LineSplitter stdout;
+
+        private final LineSplitter stderr;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile int exitCode;
+
+        private volatile CommandLineException failure;
+
+        private boolean finished;
+
+        Registration(
+                Process process,
+                InputStream systemIn,
+                StreamConsumer systemOut,
+                StreamConsumer systemErr,
+                int timeoutInSeconds) {
+            this.process = process;
+            this.timeoutInSeconds = timeoutInSeconds;
+            this.deadlineNanos = timeoutInSeconds > 0
+                    ? System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutInSeconds)
+                    : Long.MAX_VALUE;
+            this.systemIn = systemIn;
+            this.processIn = process.getOutputStream();
+            this.stdout = new LineSplitter(process.getInputStream(), systemOut);
+            this.stderr = new LineSplitter(process.getErrorStream(), systemErr);
+        }
+
+        /**
+         * Waits until the process terminated and its output has been consumed.
+         *
+         * @return The exit code of the process.
+         * @throws CommandLineException if the process timed out or its streams failed.
+         * @throws InterruptedException if interrupted while waiting.
+         */
+        int await() throws CommandLineException, InterruptedException {
+            done.await();
+            if (failure != null) {
+                throw failure;
+            }
+            return exitCode;
+        }
+
+        boolean isDone() {
+            return finished;
+        }
+
+        /**
+         * Transfers the bytes available without blocking and completes the registration if the process terminated.
+         *
+         * @return <code>true</code> if any bytes have been transferred.
+         */
+        boolean poll(byte[] buffer) {
+            // check first, so that all output written before the termination is read below
+            boolean alive = process.isAlive();
+
+            boolean progress = feedInput(buffer);
+            progress |= stdout.poll(buffer);
+            progress |= stderr.poll(buffer);
+
+            if (!alive && !progress) {
+                stdout.finish();
+                stderr.finish();
+                exitCode = process.exitValue();
+                if (stdout.exception != null) {
+                    complete(new CommandLineException("Failure processing stdout.", stdout.exception));
+                } else if (stderr.exception != null) {
+                    complete(new CommandLineException("Failure processing stderr.", stderr.exception));
+                } else {
+                    complete(null);
+                }
+            }
+            return progress;
+        }
+
+        private boolean feedInput(byte[] buffer) {
+            if (systemIn == null) {
+                return false;
+            }
+            try {
+                int available = systemIn.available();
+                if (available > 0) {
+                    int read = systemIn.read(buffer, 0, Math.min(available, buffer.length));
+                    if (read > 0) {
+                        processIn.write(buffer, 0, read);
+                        processIn.flush();
+                        return true;
+                    }
+                }
+            } catch (IOException e) {
+                // the process stopped reading its input, which is no failure of the invocation
+            }
+            return false;
+        }
+
+        void timeout() {
+            process.destroy();
+            stdout.finish();
+            stderr.finish();
+            complete(new CommandLineTimeOutException(
+                    String.format("Process timed out after %d seconds.", timeoutInSeconds)));
+        }
+
+        /**
+         * Destroys the process and completes the registration after an unexpected failure while serving it.
+         *
+         * @param cause The failure, must not be <code>null</code>.
+         */
+        void fail(Throwable cause) {
+            if (finished) {
+                return;
+            }
+            process.destroy();
+            finishQuietly(stdout);
+            finishQuietly(stderr);
+            complete(new CommandLineException("Failure serving the process streams.", cause));
+        }
+
+        private static void finishQuietly(LineSplitter splitter) {
+            try {
+                splitter.finish();
+            } catch (Throwable t) {
+                // the original failure is reported
+            }
+        }
+
+        private void complete(CommandLineException failure) {
+            this.failure = failure;
+            this.finished = true;
+            try {
+                processIn.close();
+            } catch (IOException e) {
+                // ignore, the process is gone
+            }
+            done.countDown();
+        }
+    }
+
+    /**
+     * Decodes the bytes of a process stream and splits them into lines like {@link java.io.BufferedReader} does.
+     */
+    static final class LineSplitter {
+
+        private final InputStream in;
+
+        private final StreamConsumer consumer;
+
+        private final CharsetDecoder decoder = Charset.defaultCharset()
+                .newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+        private final StringBuilder line = new StringBuilder();
+
+        private boolean skipLineFeed;
+
+        private boolean closed;
+
+        private Throwable exception;
+
+        LineSplitter(InputStream in, StreamConsumer consumer) {
+            this.in = in;
+            this.consumer = consumer;
+        }
+
+        /**
+         * Reads the available bytes of the stream.
+         *
+         * @return <code>true</code> if any bytes have been read.
+         */
+        boolean poll(byte[] buffer) {
+            if (closed) {
+                return false;
+            }
+            try {
+                int available = in.available();
+                if (available <= 0) {
+                    return false;
+                }
+                int read = in.read(buffer, 0, Math.min(available, buffer.length));
+                if (read < 0) {
+                    finish();
+                    return false;
+                }
+                accept(buffer, 0, read);
+                return read > 0;
+            } catch (IOException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+                finish();
+                return false;
+            }
+        }
+
+        void accept(byte[] buffer, int offset, int length) {
+            if (bytes.remaining() < length) {
+                ByteBuffer larger = ByteBuffer.allocate(bytes.position() + length);
+                bytes.flip();
+                larger.put(bytes);
+                bytes = larger;
+            }
+            bytes.put(buffer, offset, length);
+            bytes.flip();
+            decode(false);
+            // keep an incomplete multi-byte sequence for the next chunk
+            bytes.compact();
+        }
+
+        private void decode(boolean endOfInput) {
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, endOfInput);
+                chars.flip();
+                split();
+                chars.clear();
+            } while (result.isOverflow());
+        }
+
+        private void split() {
+            while (chars.hasRemaining()) {
+                char c = chars.get();
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        continue;
+                    }
+                }
+                if (c == '\n') {
+                    emit();
+                } else if (c == '\r') {
+                    emit();
+                    skipLineFeed = true;
+                } else {
+                    line.append(c);
+                }
+            }
+        }
+
+        private void emit() {
+            String value = line.toString();
+            line.setLength(0);
+            if (consumer != null && exception == null) {
+                try {
+                    consumer.consumeLine(value);
+                } catch (Throwable t) {
+                    exception = t;
+                }
+            }
+        }
+
+        /**
+         * Passes a trailing line without line terminator and closes the stream.
+         */
+        void finish() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            bytes.flip();
+            decode(true);
+            decoder.flush(chars);
+            chars.flip();
+            split();
+            chars.clear();
+            if (line.length() > 0) {
+                emit();
+            }
+            try {
+                in.close();
+            } catch (IOException e) {
+                // ignore, all data has been read
+            }
+        }
+    }
+}
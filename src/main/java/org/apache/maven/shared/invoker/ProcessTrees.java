@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Accesses the process tree of a {@link Process} via the <code>ProcessHandle</code> API of Java 9 and later, found
+ * reflectively since the invoker still runs on Java 8. Without that API, only the process itself is known.
+ */
+final class ProcessTrees {
+
+    private static final Method TO_HANDLE;
+
+    private static final Method DESCENDANTS;
+
+    private static final Method PID;
+
+    private static final Method DESTROY_FORCIBLY;
+
+    static {
+        Method toHandle = null;
+        Method descendants = null;
+        Method pid = null;
+        Method destroyForcibly = null;
+        try {
+            Class<?> handleType = Class.forName("java.lang.ProcessHandle");
+            toHandle = Process.class.getMethod("toHandle");
+            descendants = handleType.getMethod("descendants");
+            pid = handleType.getMethod("pid");
+            destroyForcibly = handleType.getMethod("destroyForcibly");
+        } catch (ReflectiveOperationException | LinkageError e) {
+            toHandle = null;
+        }
+        TO_HANDLE = toHandle;
+        DESCENDANTS = descendants;
+        PID = pid;
+        DESTROY_FORCIBLY = destroyForcibly;
+    }
+
+    private ProcessTrees() {
+        // hide constructor
+    }
+
+    /**
+     * Forcibly destroys a process and its descendants. The descendants are collected first, so that processes are not
+     * missed which get reparented when their parent dies. Unlike {@link Process#destroyForcibly()}, destroying the
+     * process via its handle leaves its streams open, so the remaining output can still be read. Without the
+     * <code>ProcessHandle</code> API, the streams are closed.
+     *
+     * @param process The process to destroy, must not be <code>null</code>.
+     */
+    static void destroyForcibly(Process process) {
+        if (TO_HANDLE != null) {
+            try {
+                Object handle = TO_HANDLE.invoke(process);
+                List<Object> descendants = new ArrayList<>();
+                try (Stream<?> stream = (Stream<?>) DESCENDANTS.invoke(handle)) {
+                    for (Iterator<?> it = stream.iterator(); it.hasNext(); ) {
+                        descendants.add(it.next());
+                    }
+                }
+                DESTROY_FORCIBLY.invoke(handle);
+                for (Object descendant : descendants) {
+                    DESTROY_FORCIBLY.invoke(descendant);
+                }
+                return;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // fall back to the process itself
+            }
+        }
+        process.destroyForcibly();
+    }
+
+    /**
+     * Gets the native process ids of a process and its descendants.
+     *
+     * @param process The process, must not be <code>null</code>.
+     * @return The process ids, starting with the process itself, empty if unknown.
+     */
+    static List<Long> pids(Process process) {
+        List<Long> pids = new ArrayList<>();
+        if (TO_HANDLE != null) {
+            try {
+                Object handle = TO_HANDLE.invoke(process);
+                pids.add((Long) PID.invoke(handle));
+                try (Stream<?> stream = (Stream<?>) DESCENDANTS.invoke(handle)) {
+                    for (Iterator<?> it = stream.iterator(); it.hasNext(); ) {
+                        pids.add((Long) PID.invoke(it.next()));
+                    }
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // keep the pids found so far
+            }
+        }
+        return pids;
+    }
+
+    /**
+     * Gets the native process id of a process.
+     *
+     * @param process The process, must not be <code>null</code>.
+     * @return The process id or <code>-1</code> if unknown.
+     */
+    static long pid(Process process) {
+        if (TO_HANDLE != null) {
+            try {
+                return (Long) PID.invoke(TO_HANDLE.invoke(process));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // unknown
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,504 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Queries the effective POM and the dependency tree of projects by running <code>help:effective-pom</code> and
+ * <code>dependency:tree</code> with file output, and parses the files with streaming parsers.
+ * <p>
+ * The plugin output is cached on disk, keyed by the hash of the POM file, its parent POMs, the settings files and the
+ * profiles and properties of the request, so Maven is only invoked again once one of them changed. Parent POMs are
+ * followed along their relative paths, parent POMs from a repository contribute their coordinates only. Changes of
+ * imported BOMs or of snapshot dependencies are not detected, delete the cache directory in that case.
+ * </p>
+ *
+ * @since 3.4.0
+ */
+public class ProjectInspector {
+
+    static final String EFFECTIVE_POM_GOAL = "org.apache.maven.plugins:maven-help-plugin:3.4.0:effective-pom";
+
+    static final String DEPENDENCY_TREE_GOAL = "org.apache.maven.plugins:maven-dependency-plugin:3.8.1:tree";
+
+    private static final List<String> PROJECT_ELEMENTS =
+            Arrays.asList("groupId", "artifactId", "version", "packaging", "name");
+
+    private static final List<String> PARENT_ELEMENTS =
+            Arrays.asList("groupId", "artifactId", "version", "relativePath");
+
+    private static final List<String> DEPENDENCY_ELEMENTS =
+            Arrays.asList("groupId", "artifactId", "version", "type", "classifier", "scope", "optional");
+
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    static {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        XML_INPUT_FACTORY = factory;
+    }
+
+    private final Invoker invoker;
+
+    private final File cacheDirectory;
+
+    /**
+     * Creates a new inspector.
+     *
+     * @param invoker The invoker used to execute Maven, must not be <code>null</code>.
+     * @param cacheDirectory The directory caching the plugin output, must not be <code>null</code>. It is created if
+     *            missing and may be shared by several inspectors and processes.
+     */
+    public ProjectInspector(Invoker invoker, File cacheDirectory) {
+        if (invoker == null) {
+            throw new NullPointerException("missing invoker");
+        }
+        if (cacheDirectory == null) {
+            throw new NullPointerException("missing cache directory");
+        }
+        this.invoker = invoker;
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Gets the effective POM of a project in batch mode.
+     *
+     * @param pomFile The POM file of the project, must not be <code>null</code>.
+     * @return The effective POM, never <code>null</code>.
+     * @throws MavenInvocationException if Maven could not be invoked or the effective POM could not be determined.
+     * @see #getEffectivePom(InvocationRequest, File)
+     */
+    public EffectivePom getEffectivePom(File pomFile) throws MavenInvocationException {
+        return getEffectivePom(new DefaultInvocationRequest().setBatchMode(true), pomFile);
+    }
+
+    /**
+     * Gets the effective POM of a project. The request supplies the settings, profiles, properties and other options
+     * of the invocation. Its base directory, POM file, arguments and recursive flag are replaced during the invocation
+     * and restored afterwards, so it should not hold any goals and must not be used concurrently.
+     *
+     * @param request The request to invoke Maven with, must not be <code>null</code>.
+     * @param pomFile The POM file of the project, must not be <code>null</code>.
+     * @return The effective POM, never <code>null</code>.
+     * @throws MavenInvocationException if Maven could not be invoked or the effective POM could not be determined.
+     */
+    public EffectivePom getEffectivePom(InvocationRequest request, File pomFile) throws MavenInvocationException {
+        File file = query(request, pomFile, EFFECTIVE_POM_GOAL, "output", ".xml");
+        try {
+            return parseEffectivePom(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException | XMLStreamException e) {
+            throw new MavenInvocationException("Failed to read the effective POM " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the resolved dependency tree of a project in batch mode.
+     *
+     * @param pomFile The POM file of the project, must not be <code>null</code>.
+     * @return The root node representing the project, never <code>null</code>.
+     * @throws MavenInvocationException if Maven could not be invoked or the dependencies could not be resolved.
+     * @see #getDependencyTree(InvocationRequest, File)
+     */
+    public DependencyNode getDependencyTree(File pomFile) throws MavenInvocationException {
+        return getDependencyTree(new DefaultInvocationRequest().setBatchMode(true), pomFile);
+    }
+
+    /**
+     * Gets the resolved dependency tree of a project. The request is used like by
+     * {@link #getEffectivePom(InvocationRequest, File)}.
+     *
+     * @param request The request to invoke Maven with, must not be <code>null</code>.
+     * @param pomFile The POM file of the project, must not be <code>null</code>.
+     * @return The root node representing the project, never <code>null</code>.
+     * @throws MavenInvocationException if Maven could not be invoked or the dependencies could not be resolved.
+     */
+    public DependencyNode getDependencyTree(InvocationRequest request, File pomFile) throws MavenInvocationException {
+        File file = query(request, pomFile, DEPENDENCY_TREE_GOAL, "outputFile", ".tgf");
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return parseTgf(reader);
+        } catch (IOException e) {
+            throw new MavenInvocationException("Failed to read the dependency tree " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Gets the cached output of a goal, running the goal if the output is not cached yet.
+     */
+    private File query(InvocationRequest request, File pomFile, String goal, String outputProperty, String extension)
+            throws MavenInvocationException {
+        if (request == null) {
+            throw new NullPointerException("missing request");
+        }
+        if (pomFile == null) {
+            throw new NullPointerException("missing POM file");
+        }
+
+        File cached;
+        try {
+            cached = new File(cacheDirectory, cacheKey(request, pomFile, goal) + extension);
+        } catch (IOException e) {
+            throw new MavenInvocationException("Failed to read " + pomFile + ": " + e.getMessage(), e);
+        }
+        if (cached.isFile()) {
+            return cached;
+        }
+
+        File previousPomFile = request.getPomFile();
+        File previousBaseDirectory = request.getBaseDirectory();
+        List<String> previousArgs = new ArrayList<>(request.getArgs());
+        boolean previousRecursive = request.isRecursive();
+        Properties previousProperties = request.getProperties();
+        File output = null;
+        try {
+            Files.createDirectories(cacheDirectory.toPath());
+            output = File.createTempFile("query-", extension + ".tmp", cacheDirectory);
+
+            Properties properties = new Properties();
+            if (previousProperties != null) {
+                properties.putAll(previousProperties);
+            }
+            properties.setProperty(outputProperty, output.getAbsolutePath());
+            if (DEPENDENCY_TREE_GOAL.equals(goal)) {
+                properties.setProperty("outputType", "tgf");
+            }
+            request.setPomFile(pomFile.getAbsoluteFile());
+            request.setBaseDirectory(pomFile.getAbsoluteFile().getParentFile());
+            request.setArgs(Collections.singletonList(goal));
+            request.setRecursive(false);
+            request.setProperties(properties);
+            InvocationResult result = invoker.execute(request);
+
+            if (result.getExecutionException() != null) {
+                throw new MavenInvocationException(
+                        "Failed to run " + goal + " for " + pomFile + ": "
+                                + result.getExecutionException().getMessage(),
+                        result.getExecutionException());
+            }
+            if (result.getExitCode() != 0 || output.length() == 0) {
+                throw new MavenInvocationException("Failed to run " + goal + " for " + pomFile
+                        + ", Maven exited with code " + result.getExitCode());
+            }
+            Files.move(output.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return cached;
+        } catch (IOException e) {
+            throw new MavenInvocationException("Failed to cache the output of " + goal + ": " + e.getMessage(), e);
+        } finally {
+            request.setPomFile(previousPomFile);
+            request.setBaseDirectory(previousBaseDirectory);
+            request.setArgs(previousArgs);
+            request.setRecursive(previousRecursive);
+            request.setProperties(previousProperties);
+            if (output != null) {
+                output.delete();
+            }
+        }
+    }
+
+    /**
+     * Gets the key of the cached goal output, hashing everything the output depends on.
+     */
+    static String cacheKey(InvocationRequest request, File pomFile, String goal) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, goal);
+        update(digest, pomFile.getAbsolutePath());
+
+        Set<File> visited = new HashSet<>();
+        for (File pom = pomFile.getAbsoluteFile(); pom != null && visited.add(pom); ) {
+            byte[] content = Files.readAllBytes(pom.toPath());
+            digest.update(content);
+            String[] parent = parseParent(content);
+            if (parent == null) {
+                break;
+            }
+            // the coordinates identify parents from a repository
+            update(digest, parent[0] + ':' + parent[1] + ':' + parent[2]);
+            pom = resolveParent(pom, parent[3]);
+        }
+
+        File userSettings = request.getUserSettingsFile() != null
+                ? request.getUserSettingsFile()
+                : new File(System.getProperty("user.home"), ".m2/settings.xml");
+        for (File settings : Arrays.asList(userSettings, request.getGlobalSettingsFile())) {
+            if (settings != null && settings.isFile()) {
+                digest.update(Files.readAllBytes(settings.toPath()));
+            }
+        }
+        if (request.getProfiles() != null) {
+            update(digest, String.join(",", request.getProfiles()));
+        }
+        if (request.getProperties() != null) {
+            for (Map.Entry<Object, Object> property : new TreeMap<>(request.getProperties()).entrySet()) {
+                update(digest, property.getKey() + "=" + property.getValue());
+            }
+        }
+        return ExpressionEvaluator.hex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static File resolveParent(File pom, String relativePath) {
+        if (relativePath == null) {
+            relativePath = "../pom.xml";
+        } else if (relativePath.trim().isEmpty()) {
+            return null;
+        }
+        File parent = new File(pom.getParentFile(), relativePath.trim());
+        if (parent.isDirectory()) {
+            parent = new File(parent, "pom.xml");
+        }
+        try {
+            return parent.isFile() ? parent.getCanonicalFile() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the parent of a POM.
+     *
+     * @return The group id, artifact id, version and relative path of the parent, or <code>null</code> if the POM has
+     *         no parent or is no well-formed XML.
+     */
+    static String[] parseParent(byte[] pom) {
+        try (InputStream in = new ByteArrayInputStream(pom)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                Deque<String> path = new ArrayDeque<>();
+                String[] parent = null;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        path.push(reader.getLocalName());
+                        if (path.size() == 2 && "parent".equals(path.peek())) {
+                            parent = new String[4];
+                        } else if (parent != null && path.size() == 3) {
+                            int index = PARENT_ELEMENTS.indexOf(path.peek());
+                            if (index >= 0) {
+                                parent[index] = reader.getElementText().trim();
+                                path.pop();
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        path.pop();
+                        if (parent != null && path.size() == 1) {
+                            return parent;
+                        }
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses the output of <code>help:effective-pom</code> for a single project.
+     */
+    static EffectivePom parseEffectivePom(String xml) throws XMLStreamException {
+        EffectivePom.Builder pom = new EffectivePom.Builder();
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xml));
+        try {
+            Deque<String> path = new ArrayDeque<>();
+            String[] dependency = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    path.push(reader.getLocalName());
+                    String element = path.peek();
+                    if (path.size() == 2) {
+                        String text = PROJECT_ELEMENTS.contains(element)
+                                ? reader.getElementText().trim()
+                                : null;
+                        if (text != null) {
+                            path.pop();
+                            if ("groupId".equals(element)) {
+                                pom.groupId = text;
+                            } else if ("artifactId".equals(element)) {
+                                pom.artifactId = text;
+                            } else if ("version".equals(element)) {
+                                pom.version = text;
+                            } else if ("packaging".equals(element)) {
+                                pom.packaging = text;
+                            } else if ("name".equals(element)) {
+                                pom.name = text;
+                            }
+                        }
+                    } else if (path.size() == 3 && parentIs(path, "properties")) {
+                        pom.properties.setProperty(
+                                element, reader.getElementText().trim());
+                        path.pop();
+                    } else if (path.size() == 3 && parentIs(path, "modules")) {
+                        pom.modules.add(reader.getElementText().trim());
+                        path.pop();
+                    } else if (path.size() == 3 && parentIs(path, "dependencies")) {
+                        dependency = new String[7];
+                    } else if (path.size() == 4 && dependency != null) {
+                        int index = DEPENDENCY_ELEMENTS.indexOf(element);
+                        if (index >= 0) {
+                            dependency[index] = reader.getElementText().trim();
+                            path.pop();
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    path.pop();
+                    if (path.size() == 2 && dependency != null) {
+                        pom.dependencies.add(new DependencyNode(
+                                dependency[0],
+                                dependency[1],
+                                dependency[2],
+                                dependency[3] != null ? dependency[3] : "jar",
+                                dependency[4],
+                                dependency[5] != null ? dependency[5] : "compile",
+                                Boolean.parseBoolean(dependency[6])));
+                        dependency = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        if (pom.artifactId == null) {
+            throw new XMLStreamException("Missing artifactId of the project");
+        }
+        return new EffectivePom(pom, xml);
+    }
+
+    private static boolean parentIs(Deque<String> path, String element) {
+        Iterator<String> ancestors = path.iterator();
+        ancestors.next();
+        return element.equals(ancestors.next());
+    }
+
+    /**
+     * Parses a dependency tree in the Trivial Graph Format written by <code>dependency:tree</code>. The node labels
+     * are <code>groupId:artifactId:type[:classifier]:version[:scope]</code>, the root having no scope, optionally
+     * followed by annotations like <code>(optional)</code>.
+     *
+     * @param reader The reader of the TGF file, must not be <code>null</code>.
+     * @return The root node, never <code>null</code>.
+     * @throws IOException if the file could not be read or is malformed.
+     */
+    static DependencyNode parseTgf(BufferedReader reader) throws IOException {
+        Map<String, String> labels = new LinkedHashMap<>();
+        Map<String, List<String>> edges = new HashMap<>();
+        Set<String> targets = new HashSet<>();
+        boolean inEdges = false;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if ("#".equals(line)) {
+                inEdges = true;
+                continue;
+            }
+            String[] parts = line.split("\\s+", 3);
+            if (parts.length < 2) {
+                throw new IOException("Malformed dependency tree line: " + line);
+            }
+            if (inEdges) {
+                edges.computeIfAbsent(parts[0], id -> new ArrayList<>()).add(parts[1]);
+                targets.add(parts[1]);
+            } else {
+                labels.put(parts[0], line.substring(parts[0].length()).trim());
+            }
+        }
+
+        String root = null;
+        for (String id : labels.keySet()) {
+            if (!targets.contains(id)) {
+                root = id;
+                break;
+            }
+        }
+        if (root == null) {
+            throw new IOException("Missing root of the dependency tree");
+        }
+        return node(root, true, labels, edges, new HashSet<>());
+    }
+
+    private static DependencyNode node(
+            String id, boolean root, Map<String, String> labels, Map<String, List<String>> edges, Set<String> path)
+            throws IOException {
+        String label = labels.get(id);
+        if (label == null || !path.add(id)) {
+            throw new IOException("Malformed dependency tree node: " + id);
+        }
+        int space = label.indexOf(' ');
+        String[] coordinates = (space >= 0 ? label.substring(0, space) : label).split(":");
+        int length = root ? coordinates.length + 1 : coordinates.length;
+        if (length != 5 && length != 6) {
+            throw new IOException("Malformed dependency tree node: " + label);
+        }
+        String classifier = length == 6 ? coordinates[3] : null;
+        String version = coordinates[length - 2];
+        String scope = root ? null : coordinates[length - 1];
+        boolean optional = space >= 0 && label.substring(space).contains("optional");
+        DependencyNode node = new DependencyNode(
+                coordinates[0], coordinates[1], version, coordinates[2], classifier, scope, optional);
+        for (String child : edges.getOrDefault(id, Collections.emptyList())) {
+            node.addChild(node(child, false, labels, edges, path));
+        }
+        path.remove(id);
+        return node;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Describes how long invocations waited in the queue of an {@link InvocationScheduler} before they were started.
+ *
+ * @since 3.4.0
+ */
+public final class QueueWaitStatistics {
+
+    private final long count;
+
+    private final long totalWaitMillis;
+
+    private final long maxWaitMillis;
+
+    QueueWaitStatistics(long count, long totalWaitMillis, long maxWaitMillis) {
+        this.count = count;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Gets the number of invocations which left the queue.
+     *
+     * @return The number of dequeued invocations.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the accumulated queue wait time of all dequeued invocations.
+     *
+     * @return The total wait time in milliseconds.
+     */
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    /**
+     * Gets the longest queue wait time of a single invocation.
+     *
+     * @return The maximum wait time in milliseconds.
+     */
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    /**
+     * Gets the average queue wait time.
+     *
+     * @return The average wait time in milliseconds or <code>0</code> if no invocation left the queue yet.
+     */
+    public long getAverageWaitMillis() {
+        return count == 0 ? 0 : totalWaitMillis / count;
+    }
+
+    @Override
+    public String toString() {
+        return "QueueWaitStatistics[count=" + count + ", total=" + totalWaitMillis + "ms, max=" + maxWaitMillis
+                + "ms, average=" + getAverageWaitMillis() + "ms]";
+    }
+
+    /**
+     * Accumulates wait times, safe for concurrent use.
+     */
+    static final class Recorder {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalWaitMillis = new LongAdder();
+
+        private final AtomicLong maxWaitMillis = new AtomicLong();
+
+        void record(long waitMillis) {
+            count.increment();
+            totalWaitMillis.add(waitMillis);
+            maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+        }
+
+        QueueWaitStatistics snapshot() {
+            return new QueueWaitStatistics(count.sum(), totalWaitMillis.sum(), maxWaitMillis.get());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Watches the output of a failed Maven build for the hint how to resume it, e.g.
+ * <code>[ERROR]   mvn &lt;args&gt; -rf :module</code>, and for the plugins whose goals failed, e.g.
+ * <code>[ERROR] Failed to execute goal org.apache.maven.plugins:maven-surefire-plugin:3.2.5:test (default-test) on
+ * project module: There are test failures.</code>
+ */
+final class ResumeHint {
+
+    private static final Pattern ANSI_ESCAPE = Pattern.compile("\u001B\\[[;\\d]*m");
+
+    private static final Pattern RESUME_FROM = Pattern.compile("\\s-rf\\s+(\\S+)");
+
+    private static final Pattern FAILED_GOAL = Pattern.compile("Failed to execute goal [^:\\s]+:([^:\\s]+):");
+
+    private static final Set<String> TEST_PLUGINS =
+            new HashSet<>(Arrays.asList("maven-surefire-plugin", "maven-failsafe-plugin"));
+
+    private volatile String resumeFrom;
+
+    private volatile boolean testGoalFailed;
+
+    private volatile boolean otherGoalFailed;
+
+    /**
+     * Wraps an output handler to watch its lines for the hint.
+     */
+    InvocationOutputHandler watch(InvocationOutputHandler handler) {
+        return new WatchingHandler(handler);
+    }
+
+    /**
+     * Gets the project from which the build can be resumed.
+     *
+     * @return The last project given by a hint or <code>null</code> if Maven did not give a hint.
+     */
+    String getResumeFrom() {
+        return resumeFrom;
+    }
+
+    /**
+     * Indicates whether the build failed only because of failing tests.
+     *
+     * @return <code>true</code> if only goals of Surefire or Failsafe failed, <code>false</code> otherwise.
+     */
+    boolean isTestFailure() {
+        return testGoalFailed && !otherGoalFailed;
+    }
+
+    /**
+     * Parses a line for the plugin whose goal failed.
+     *
+     * @param line The output line, may be <code>null</code>.
+     * @return The artifact id of the plugin or <code>null</code> if the line reports no failed goal.
+     */
+    static String parseFailedPlugin(String line) {
+        if (line == null || !line.contains("Failed to execute goal")) {
+            return null;
+        }
+        Matcher matcher = FAILED_GOAL.matcher(ANSI_ESCAPE.matcher(line).replaceAll(""));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Parses a line for the project to resume from.
+     *
+     * @param line The output line, may be <code>null</code>.
+     * @return The project selector, e.g. <code>:module</code>, or <code>null</code> if the line is no hint.
+     */
+    static String parse(String line) {
+        if (line == null || !line.contains("-rf")) {
+            return null;
+        }
+        Matcher matcher = RESUME_FROM.matcher(ANSI_ESCAPE.matcher(line).replaceAll(""));
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private final class WatchingHandler implements InvocationOutputHandler, Flushable {
+
+        private final InvocationOutputHandler delegate;
+
+        WatchingHandler(InvocationOutputHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void consumeLine(String line) throws IOException {
+            String project = parse(line);
+            if (project != null) {
+                resumeFrom = project;
+            }
+            String plugin = parseFailedPlugin(line);
+            if (plugin != null) {
+                if (TEST_PLUGINS.contains(plugin)) {
+                    testGoalFailed = true;
+                } else {
+                    otherGoalFailed = true;
+                }
+            }
+            if (delegate != null) {
+                delegate.consumeLine(line);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (delegate instanceof Flushable) {
+                ((Flushable) delegate).flush();
+            }
+        }
+    }
+}
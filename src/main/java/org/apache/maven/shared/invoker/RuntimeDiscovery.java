@@ -0,0 +1,423 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+
+/**
+ * Discovers Maven installations and JDKs and their versions without launching any process. The Maven version is read
+ * from the <code>lib/maven-core-*.jar</code> of a Maven home, the Java version from the <code>release</code> file of a
+ * JDK. Versions and the installations found in the configured locations are cached until a file system watch reports
+ * a change of the respective directory.
+ *
+ * @since 3.4.0
+ */
+public class RuntimeDiscovery implements Closeable {
+
+    private static final RuntimeDiscovery DEFAULT = new RuntimeDiscovery();
+
+    private static final String UNKNOWN = "";
+
+    private final List<File> mavenLocations = new CopyOnWriteArrayList<>();
+
+    private final List<File> javaLocations = new CopyOnWriteArrayList<>();
+
+    private final Map<File, String> mavenVersions = new ConcurrentHashMap<>();
+
+    private final Map<File, String> javaVersions = new ConcurrentHashMap<>();
+
+    private final Map<File, List<File>> scans = new ConcurrentHashMap<>();
+
+    /**
+     * The cache keys to invalidate by watched directory.
+     */
+    private final Map<Path, Set<File>> dependents = new ConcurrentHashMap<>();
+
+    private final Object watchLock = new Object();
+
+    private WatchService watchService;
+
+    private boolean closed;
+
+    /**
+     * Gets the discovery shared by all invokers, which is used to adapt command lines to the Maven version.
+     *
+     * @return The shared discovery, never <code>null</code>.
+     */
+    public static RuntimeDiscovery getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Adds a location of Maven installations, e.g. <code>~/.sdkman/candidates/maven</code>. The location is either a
+     * Maven home itself or a directory whose subdirectories are Maven homes.
+     *
+     * @param location The location, must not be <code>null</code>.
+     * @return This discovery.
+     */
+    public RuntimeDiscovery addMavenLocation(File location) {
+        if (location == null) {
+            throw new NullPointerException("missing location");
+        }
+        mavenLocations.add(location.getAbsoluteFile());
+        return this;
+    }
+
+    /**
+     * Adds a location of JDKs, e.g. <code>/usr/lib/jvm</code>. The location is either a Java home itself or a
+     * directory whose subdirectories are Java homes.
+     *
+     * @param location The location, must not be <code>null</code>.
+     * @return This discovery.
+     */
+    public RuntimeDiscovery addJavaLocation(File location) {
+        if (location == null) {
+            throw new NullPointerException("missing location");
+        }
+        javaLocations.add(location.getAbsoluteFile());
+        return this;
+    }
+
+    /**
+     * Gets the Maven installations found in the configured locations.
+     *
+     * @return The Maven versions by canonical Maven home, ordered by Maven home, never <code>null</code>.
+     */
+    public Map<File, String> getMavenHomes() {
+        Map<File, String> homes = new TreeMap<>();
+        for (File location : mavenLocations) {
+            for (File home : scan(location, true)) {
+                String version = getMavenVersion(home);
+                if (version != null) {
+                    homes.put(home, version);
+                }
+            }
+        }
+        return homes;
+    }
+
+    /**
+     * Gets the JDKs found in the configured locations.
+     *
+     * @return The Java versions by canonical Java home, ordered by Java home, never <code>null</code>.
+     */
+    public Map<File, String> getJavaHomes() {
+        Map<File, String> homes = new TreeMap<>();
+        for (File location : javaLocations) {
+            for (File home : scan(location, false)) {
+                String version = getJavaVersion(home);
+                if (version != null) {
+                    homes.put(home, version);
+                }
+            }
+        }
+        return homes;
+    }
+
+    /**
+     * Gets the version of a Maven installation.
+     *
+     * @param mavenHome The Maven home, may be <code>null</code>.
+     * @return The Maven version, e.g. <code>3.9.6</code>, or <code>null</code> if unknown.
+     */
+    public String getMavenVersion(File mavenHome) {
+        return cachedVersion(mavenHome, true);
+    }
+
+    /**
+     * Gets the version of a JDK.
+     *
+     * @param javaHome The Java home, may be <code>null</code>.
+     * @return The Java version, e.g. <code>17.0.9</code> or <code>1.8.0_392</code>, or <code>null</code> if unknown.
+     */
+    public String getJavaVersion(File javaHome) {
+        return cachedVersion(javaHome, false);
+    }
+
+    /**
+     * Stops watching the file system and clears the caches. The discovery still works afterwards but no longer caches.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (watchLock) {
+            closed = true;
+            if (watchService != null) {
+                watchService.close();
+                watchService = null;
+            }
+        }
+        mavenVersions.clear();
+        javaVersions.clear();
+        scans.clear();
+        dependents.clear();
+    }
+
+    private String cachedVersion(File home, boolean maven) {
+        if (home == null) {
+            return null;
+        }
+        File key = canonical(home);
+        Map<File, String> versions = maven ? mavenVersions : javaVersions;
+        String version = versions.get(key);
+        if (version == null) {
+            // watch before reading so no change goes unnoticed; the JARs of a Maven home are replaced within lib, the
+            // release file of a JDK within its home
+            boolean watched = watch(maven ? new File(key, "lib") : key, key);
+            version = maven ? readMavenVersion(key) : readJavaVersion(key);
+            if (version == null) {
+                version = UNKNOWN;
+            }
+            if (watched) {
+                versions.put(key, version);
+            }
+        }
+        return UNKNOWN.equals(version) ? null : version;
+    }
+
+    private List<File> scan(File location, boolean maven) {
+        File key = canonical(location);
+        List<File> homes = scans.get(key);
+        if (homes == null) {
+            boolean watched = watch(key, key);
+            homes = new ArrayList<>();
+            if (isHome(key, maven)) {
+                homes.add(key);
+            } else {
+                File[] children = key.listFiles(File::isDirectory);
+                if (children != null) {
+                    for (File child : children) {
+                        File home = canonical(child);
+                        if (isHome(home, maven) && !homes.contains(home)) {
+                            homes.add(home);
+                        }
+                    }
+                }
+            }
+            homes = Collections.unmodifiableList(homes);
+            if (watched) {
+                scans.put(key, homes);
+            }
+        }
+        return homes;
+    }
+
+    private static boolean isHome(File directory, boolean maven) {
+        return maven ? findMavenCore(directory) != null : new File(directory, "release").isFile();
+    }
+
+    /**
+     * Registers a directory for invalidation of a cache key.
+     *
+     * @return <code>true</code> if the directory is watched and the value may be cached.
+     */
+    private boolean watch(File directory, File key) {
+        synchronized (watchLock) {
+            if (closed || !directory.isDirectory()) {
+                return false;
+            }
+            try {
+                if (watchService == null) {
+                    watchService = FileSystems.getDefault().newWatchService();
+                    WatchService service = watchService;
+                    InvokerThreads.newThreadFactory("maven-invoker-discovery-")
+                            .newThread(() -> processEvents(service))
+                            .start();
+                }
+                Path path = directory.toPath();
+                path.register(
+                        watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                dependents
+                        .computeIfAbsent(path, p -> ConcurrentHashMap.newKeySet())
+                        .add(key);
+                return true;
+            } catch (IOException | UnsupportedOperationException e) {
+                return false;
+            }
+        }
+    }
+
+    private void processEvents(WatchService service) {
+        try {
+            while (true) {
+                WatchKey watchKey = service.take();
+                watchKey.pollEvents();
+                Set<File> keys = dependents.remove((Path) watchKey.watchable());
+                if (keys != null) {
+                    for (File key : keys) {
+                        mavenVersions.remove(key);
+                        javaVersions.remove(key);
+                        scans.remove(key);
+                    }
+                }
+                watchKey.reset();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    private static File canonical(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+
+    private static File findMavenCore(File mavenHome) {
+        File[] jars = new File(mavenHome, "lib")
+                .listFiles((dir, name) -> name.startsWith("maven-core-") && name.endsWith(".jar"));
+        return jars != null && jars.length > 0 ? jars[0] : null;
+    }
+
+    /**
+     * Reads the version of a Maven installation from its <code>maven-core</code> JAR.
+     */
+    static String readMavenVersion(File mavenHome) {
+        File mavenCore = findMavenCore(mavenHome);
+        if (mavenCore == null) {
+            return null;
+        }
+        try (JarFile jar = new JarFile(mavenCore)) {
+            ZipEntry pomProperties = jar.getEntry("META-INF/maven/org.apache.maven/maven-core/pom.properties");
+            if (pomProperties != null) {
+                Properties properties = new Properties();
+                try (InputStream in = jar.getInputStream(pomProperties)) {
+                    properties.load(in);
+                }
+                if (properties.getProperty("version") != null) {
+                    return properties.getProperty("version");
+                }
+            }
+            Manifest manifest = jar.getManifest();
+            if (manifest != null
+                    && manifest.getMainAttributes().getValue(Attributes.Name.IMPLEMENTATION_VERSION) != null) {
+                return manifest.getMainAttributes().getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+            }
+        } catch (IOException e) {
+            // fall back to the file name
+        }
+        String name = mavenCore.getName();
+        return name.substring("maven-core-".length(), name.length() - ".jar".length());
+    }
+
+    /**
+     * Reads the version of a JDK from its <code>release</code> file.
+     */
+    static String readJavaVersion(File javaHome) {
+        File release = new File(javaHome, "release");
+        if (!release.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(release)) {
+            properties.load(in);
+        } catch (IOException e) {
+            return null;
+        }
+        String version = properties.getProperty("JAVA_VERSION");
+        if (version == null) {
+            return null;
+        }
+        version = version.trim();
+        if (version.length() >= 2 && version.startsWith("\"") && version.endsWith("\"")) {
+            version = version.substring(1, version.length() - 1);
+        }
+        return version.isEmpty() ? null : version;
+    }
+
+    /**
+     * Gets the feature release of a Java version, e.g. <code>8</code> for <code>1.8.0_392</code> and <code>17</code>
+     * for <code>17.0.9</code>.
+     *
+     * @return The feature release or <code>-1</code> if the version cannot be parsed.
+     */
+    static int javaFeatureVersion(String version) {
+        if (version == null) {
+            return -1;
+        }
+        int[] numbers = numbers(version.startsWith("1.") ? version.substring(2) : version);
+        return numbers.length > 0 ? numbers[0] : -1;
+    }
+
+    /**
+     * Compares versions by their leading numeric components, e.g. <code>3.2.1</code> is less than
+     * <code>3.10.0</code> and <code>4.0.0-rc-2</code> equals <code>4.0.0</code>.
+     */
+    static int compareVersions(String version1, String version2) {
+        int[] numbers1 = numbers(version1);
+        int[] numbers2 = numbers(version2);
+        for (int i = 0; i < Math.max(numbers1.length, numbers2.length); i++) {
+            int number1 = i < numbers1.length ? numbers1[i] : 0;
+            int number2 = i < numbers2.length ? numbers2[i] : 0;
+            if (number1 != number2) {
+                return Integer.compare(number1, number2);
+            }
+        }
+        return 0;
+    }
+
+    private static int[] numbers(String version) {
+        List<Integer> numbers = new ArrayList<>();
+        for (String part : version.split("\\.")) {
+            int end = 0;
+            while (end < part.length() && Character.isDigit(part.charAt(end))) {
+                end++;
+            }
+            if (end == 0) {
+                break;
+            }
+            numbers.add(Integer.parseInt(part.substring(0, Math.min(end, 9))));
+            if (end < part.length()) {
+                break;
+            }
+        }
+        int[] result = new int[numbers.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = numbers.get(i);
+        }
+        return result;
+    }
+}
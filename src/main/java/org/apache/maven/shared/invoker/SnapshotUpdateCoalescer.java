@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces the snapshot updates of a batch of invocations sharing a local repository. Only the first invocation with
+ * {@link UpdateSnapshotsPolicy#ALWAYS} updates the snapshots of a local repository with <code>-U</code>. Once it
+ * succeeded, the following ones within a time window are run with <code>-nsu</code> instead and use the snapshots
+ * the first one resolved. Once the window elapsed, the next invocation updates the snapshots again.
+ * <p>
+ * Invocations starting while the updating invocation still runs wait for it to terminate. If it fails or is not run
+ * at all, e.g. because it was rejected by the {@link AdmissionController}, the next invocation updates the snapshots
+ * instead. Local repositories are distinguished by their directory or, if the request does not set one, by the
+ * settings files configuring it. An instance may be shared by several invokers.
+ * </p>
+ *
+ * @see DefaultInvoker#setSnapshotUpdateCoalescer(SnapshotUpdateCoalescer)
+ * @since 3.4.0
+ */
+public class SnapshotUpdateCoalescer {
+
+    private final long windowNanos;
+
+    private final Map<String, Long> updates = new HashMap<>();
+
+    private final Map<String, Claim> pendingUpdates = new HashMap<>();
+
+    private final LongAdder updateCount = new LongAdder();
+
+    private final LongAdder coalescedCount = new LongAdder();
+
+    /**
+     * Creates a new coalescer.
+     *
+     * @param window The time snapshots are considered fresh after an update, must not be negative.
+     * @param unit The unit of the window, must not be <code>null</code>.
+     */
+    public SnapshotUpdateCoalescer(long window, TimeUnit unit) {
+        if (window < 0) {
+            throw new IllegalArgumentException("window must not be negative: " + window);
+        }
+        if (unit == null) {
+            throw new NullPointerException("missing unit");
+        }
+        this.windowNanos = unit.toNanos(window);
+    }
+
+    /**
+     * Claims the snapshot update of a local repository, waiting for an invocation currently updating its snapshots.
+     * The claim must be completed once the invocation terminated or is abandoned.
+     *
+     * @param localRepository The key of the local repository, must not be <code>null</code>.
+     * @return The claim, never <code>null</code>.
+     * @throws InterruptedException if the thread was interrupted while waiting for another invocation.
+     */
+    synchronized Claim claimUpdate(String localRepository) throws InterruptedException {
+        while (pendingUpdates.containsKey(localRepository)) {
+            wait();
+        }
+        Long lastUpdate = updates.get(localRepository);
+        if (lastUpdate != null && System.nanoTime() - lastUpdate < windowNanos) {
+            coalescedCount.increment();
+            return new Claim(localRepository, false);
+        }
+        Claim claim = new Claim(localRepository, true);
+        pendingUpdates.put(localRepository, claim);
+        updateCount.increment();
+        return claim;
+    }
+
+    private synchronized void complete(Claim claim, boolean succeeded) {
+        if (pendingUpdates.remove(claim.localRepository, claim)) {
+            if (succeeded) {
+                updates.put(claim.localRepository, System.nanoTime());
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Forgets all updates, so the next invocation of each local repository updates its snapshots again.
+     */
+    public synchronized void reset() {
+        updates.clear();
+    }
+
+    /**
+     * Gets the number of invocations which updated snapshots.
+     *
+     * @return The number of invocations run with <code>-U</code>.
+     */
+    public long getUpdateCount() {
+        return updateCount.sum();
+    }
+
+    /**
+     * Gets the number of invocations whose snapshot update was skipped because another invocation updated them.
+     *
+     * @return The number of invocations rewritten to <code>-nsu</code>.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * The claim of an invocation on the snapshot update of a local repository.
+     */
+    final class Claim {
+
+        private final String localRepository;
+
+        private final boolean updating;
+
+        private Claim(String localRepository, boolean updating) {
+            this.localRepository = localRepository;
+            this.updating = updating;
+        }
+
+        /**
+         * Tells whether the invocation updates the snapshots.
+         *
+         * @return <code>true</code> if the invocation updates the snapshots, <code>false</code> if they were updated
+         *         within the window.
+         */
+        boolean isUpdating() {
+            return updating;
+        }
+
+        /**
+         * Completes the claim. A successful update starts the window, otherwise the next invocation updates the
+         * snapshots. Repeated calls have no effect.
+         *
+         * @param succeeded <code>true</code> if the invocation updated the snapshots successfully.
+         */
+        void complete(boolean succeeded) {
+            if (updating) {
+                SnapshotUpdateCoalescer.this.complete(this, succeeded);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A profile of a forked Maven build aggregated from periodic thread dumps, in the collapsed stack format read by
+ * flame graph tools. See {@link InvocationRequest#setStackSamplingThresholdInSeconds(int)}.
+ *
+ * @since 3.4.0
+ */
+public final class StackProfile {
+
+    private final int sampleCount;
+
+    private final Map<String, Long> stacks;
+
+    StackProfile(int sampleCount, Map<String, Long> stacks) {
+        this.sampleCount = sampleCount;
+        Map<String, Long> sorted = new LinkedHashMap<>();
+        stacks.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        this.stacks = Collections.unmodifiableMap(sorted);
+    }
+
+    /**
+     * Gets the number of thread dumps taken, counting one per sampled JVM and round.
+     *
+     * @return The number of thread dumps.
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Gets the collapsed stacks, i.e. the frames of a thread from the root to the top joined by semicolons, each frame
+     * given as <code>class.method</code>.
+     *
+     * @return The number of threads seen with each stack in descending order, never <code>null</code>.
+     */
+    public Map<String, Long> getStacks() {
+        return stacks;
+    }
+
+    /**
+     * Writes the profile as collapsed stacks, one stack and its count per line, e.g. as input for
+     * <code>flamegraph.pl</code>.
+     *
+     * @param writer The writer to write to, must not be <code>null</code>.
+     * @throws IOException If the profile could not be written.
+     */
+    public void writeCollapsed(Writer writer) throws IOException {
+        for (Map.Entry<String, Long> entry : stacks.entrySet()) {
+            writer.write(entry.getKey());
+            writer.write(' ');
+            writer.write(String.valueOf(entry.getValue()));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    @Override
+    public String toString() {
+        return "StackProfile[samples=" + sampleCount + ", stacks=" + stacks.size() + "]";
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.shared.utils.Os;
+
+/**
+ * Periodically takes thread dumps of a forked Maven JVM and its forks via <code>jcmd &lt;pid&gt; Thread.print</code>
+ * once the build has run longer than a threshold, aggregating them into a {@link StackProfile}. Only processes listed
+ * by <code>jcmd -l</code> are sampled, as jcmd sends <code>SIGQUIT</code> to its target, which terminates processes
+ * that are not Java VMs.
+ */
+final class StackSampler {
+
+    private static final ThreadFactory SAMPLER_THREADS = InvokerThreads.newThreadFactory("maven-invoker-sampler-");
+
+    private static final long JCMD_TIMEOUT_SECONDS = 30;
+
+    private final String jcmd;
+
+    private final long thresholdMillis;
+
+    private final long intervalMillis;
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private final Map<String, Long> stacks = new HashMap<>();
+
+    private int sampleCount;
+
+    private Thread sampler;
+
+    /**
+     * Creates a new sampler.
+     *
+     * @param jcmd The <code>jcmd</code> executable, must not be <code>null</code>.
+     * @param thresholdMillis The time in milliseconds after which sampling starts.
+     * @param intervalMillis The time in milliseconds between two samples.
+     */
+    StackSampler(String jcmd, long thresholdMillis, long intervalMillis) {
+        this.jcmd = jcmd;
+        this.thresholdMillis = thresholdMillis;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Finds the <code>jcmd</code> executable of a JDK, preferring the one Maven runs with.
+     *
+     * @param javaHome The Java home of Maven, may be <code>null</code>.
+     * @return The executable, never <code>null</code>.
+     */
+    static String findJcmd(File javaHome) {
+        String executable = Os.isFamily(Os.FAMILY_WINDOWS) ? "jcmd.exe" : "jcmd";
+        File invokerHome = new File(System.getProperty("java.home"));
+        for (File home : new File[] {javaHome, invokerHome, invokerHome.getParentFile()}) {
+            if (home != null) {
+                File candidate = new File(home, "bin/" + executable);
+                if (candidate.isFile()) {
+                    return candidate.getAbsolutePath();
+                }
+            }
+        }
+        return executable;
+    }
+
+    /**
+     * Starts sampling a process once the threshold has elapsed.
+     *
+     * @param process The Maven process, must not be <code>null</code>.
+     */
+    void attach(Process process) {
+        sampler = SAMPLER_THREADS.newThread(() -> {
+            try {
+                if (stopped.await(thresholdMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                do {
+                    sample(process);
+                } while (!stopped.await(intervalMillis, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        sampler.start();
+    }
+
+    /**
+     * Stops sampling and waits for a running thread dump to complete.
+     *
+     * @return The profile or <code>null</code> if no thread dump was taken.
+     */
+    StackProfile finish() {
+        stopped.countDown();
+        if (sampler != null) {
+            try {
+                sampler.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            return sampleCount > 0 ? new StackProfile(sampleCount, stacks) : null;
+        }
+    }
+
+    private void sample(Process process) throws InterruptedException {
+        Set<Long> jvms = null;
+        for (long pid : ProcessTrees.pids(process)) {
+            if (!process.isAlive() || stopped.getCount() == 0) {
+                return;
+            }
+            if (jvms == null) {
+                jvms = listJvms();
+            }
+            if (!jvms.contains(pid)) {
+                continue;
+            }
+            Map<String, Long> dump = threadDump(pid);
+            if (!dump.isEmpty()) {
+                synchronized (this) {
+                    sampleCount++;
+                    dump.forEach((stack, count) -> stacks.merge(stack, count, Long::sum));
+                }
+            }
+        }
+    }
+
+    private Set<Long> listJvms() throws InterruptedException {
+        Set<Long> jvms = new HashSet<>();
+        File output = runJcmd("-l");
+        if (output != null) {
+            try (BufferedReader reader = Files.newBufferedReader(output.toPath(), Charset.defaultCharset())) {
+                parseJvms(reader, jvms);
+            } catch (IOException e) {
+                jvms.clear();
+            } finally {
+                output.delete();
+            }
+        }
+        return jvms;
+    }
+
+    private Map<String, Long> threadDump(long pid) throws InterruptedException {
+        Map<String, Long> dump = new HashMap<>();
+        File output = runJcmd(String.valueOf(pid), "Thread.print");
+        if (output != null) {
+            try (BufferedReader reader = Files.newBufferedReader(output.toPath(), Charset.defaultCharset())) {
+                parseThreadDump(reader, dump);
+            } catch (IOException e) {
+                dump.clear();
+            } finally {
+                output.delete();
+            }
+        }
+        return dump;
+    }
+
+    /**
+     * Runs jcmd with its output redirected to a file, so that a jcmd hanging on an unresponsive process can be
+     * destroyed once the timeout elapsed.
+     *
+     * @param args The arguments of jcmd.
+     * @return The output file, which the caller must delete, or <code>null</code> if jcmd failed or timed out.
+     * @throws InterruptedException If the thread was interrupted while waiting for jcmd.
+     */
+    private File runJcmd(String... args) throws InterruptedException {
+        File output;
+        try {
+            output = File.createTempFile("maven-invoker-jcmd", ".txt");
+        } catch (IOException e) {
+            return null;
+        }
+        List<String> command = new ArrayList<>();
+        command.add(jcmd);
+        Collections.addAll(command, args);
+        Process jcmdProcess = null;
+        boolean exited = false;
+        try {
+            jcmdProcess = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(output)
+                    .start();
+            jcmdProcess.getOutputStream().close();
+            exited = jcmdProcess.waitFor(JCMD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (IOException e) {
+            // jcmd is not available
+        } finally {
+            if (!exited) {
+                if (jcmdProcess != null) {
+                    jcmdProcess.destroyForcibly();
+                }
+                output.delete();
+            }
+        }
+        return exited ? output : null;
+    }
+
+    /**
+     * Parses the output of <code>jcmd -l</code> into the process ids of the running Java VMs.
+     *
+     * @param reader The output, must not be <code>null</code>.
+     * @param jvms The process ids to add the Java VMs to, must not be <code>null</code>.
+     * @throws IOException If the output could not be read.
+     */
+    static void parseJvms(BufferedReader reader, Set<Long> jvms) throws IOException {
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            String trimmed = line.trim();
+            int end = trimmed.indexOf(' ');
+            try {
+                jvms.add(Long.parseLong(end > 0 ? trimmed.substring(0, end) : trimmed));
+            } catch (NumberFormatException e) {
+                // not a process line
+            }
+        }
+    }
+
+    /**
+     * Parses the output of <code>Thread.print</code> into collapsed stacks, ignoring threads without Java frames.
+     *
+     * @param reader The thread dump, must not be <code>null</code>.
+     * @param stacks The collapsed stacks to add the threads to, must not be <code>null</code>.
+     * @throws IOException If the thread dump could not be read.
+     */
+    static void parseThreadDump(BufferedReader reader, Map<String, Long> stacks) throws IOException {
+        List<String> frames = new ArrayList<>();
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("at ")) {
+                int paren = trimmed.indexOf('(');
+                frames.add(trimmed.substring(3, paren > 0 ? paren : trimmed.length()));
+            } else if (trimmed.isEmpty() || line.startsWith("\"")) {
+                addStack(frames, stacks);
+            }
+        }
+        addStack(frames, stacks);
+    }
+
+    private static void addStack(List<String> frames, Map<String, Long> stacks) {
+        if (frames.isEmpty()) {
+            return;
+        }
+        StringBuilder stack = new StringBuilder();
+        for (int i = frames.size() - 1; i >= 0; i--) {
+            if (stack.length() > 0) {
+                stack.append(';');
+            }
+            stack.append(frames.get(i));
+        }
+        stacks.merge(stack.toString(), 1L, Long::sum);
+        frames.clear();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Passes each line to two handlers in turn, flushing those which are {@link Flushable}.
+ */
+final class TeeOutputHandler implements InvocationOutputHandler, Flushable {
+
+    private final InvocationOutputHandler first;
+
+    private final InvocationOutputHandler second;
+
+    private TeeOutputHandler(InvocationOutputHandler first, InvocationOutputHandler second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    /**
+     * Combines two handlers, either of which may be <code>null</code>.
+     *
+     * @param first The handler to receive the lines first, may be <code>null</code>.
+     * @param second The handler to receive the lines second, may be <code>null</code>.
+     * @return The combined handler or <code>null</code> if both handlers are <code>null</code>.
+     */
+    static InvocationOutputHandler of(InvocationOutputHandler first, InvocationOutputHandler second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return new TeeOutputHandler(first, second);
+    }
+
+    @Override
+    public void consumeLine(String line) throws IOException {
+        first.consumeLine(line);
+        second.consumeLine(line);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        try {
+            flush(first);
+        } finally {
+            flush(second);
+        }
+    }
+
+    private static void flush(InvocationOutputHandler handler) throws IOException {
+        if (handler instanceof Flushable) {
+            ((Flushable) handler).flush();
+        }
+    }
+}
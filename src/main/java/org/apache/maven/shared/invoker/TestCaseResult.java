@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+
+/**
+ * The result of a single test case, read from a Surefire or Failsafe XML report.
+ *
+ * @since 3.4.0
+ */
+public final class TestCaseResult {
+
+    /**
+     * The outcome of a test case.
+     */
+    public enum Status {
+        PASSED,
+        FAILED,
+        ERROR,
+        SKIPPED
+    }
+
+    private final String className;
+
+    private final String name;
+
+    private final double time;
+
+    private final Status status;
+
+    private final String message;
+
+    private final File moduleDirectory;
+
+    TestCaseResult(String className, String name, double time, Status status, String message, File moduleDirectory) {
+        this.className = className;
+        this.name = name;
+        this.time = time;
+        this.status = status;
+        this.message = message;
+        this.moduleDirectory = moduleDirectory;
+    }
+
+    /**
+     * Gets the class of the test case.
+     *
+     * @return The fully qualified class name, may be <code>null</code> if the report does not name it.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Gets the name of the test case, usually the test method.
+     *
+     * @return The name, never <code>null</code>.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the execution time of the test case.
+     *
+     * @return The time in seconds.
+     */
+    public double getTime() {
+        return time;
+    }
+
+    /**
+     * Gets the outcome of the test case.
+     *
+     * @return The status, never <code>null</code>.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Gets the message of the failure, error or skip.
+     *
+     * @return The message or <code>null</code> if none.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets the base directory of the module whose build ran the test case.
+     *
+     * @return The module directory, never <code>null</code>.
+     */
+    public File getModuleDirectory() {
+        return moduleDirectory;
+    }
+
+    @Override
+    public String toString() {
+        return className + '#' + name + " " + status + " (" + time + " s)";
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests the Surefire and Failsafe XML reports of a Maven build. Reports are parsed with a streaming StAX reader, so
+ * only the test cases of interest are kept in memory, and files of different modules are parsed in parallel. While
+ * the build runs, the reactor is polled for new or modified reports, so most reports have already been ingested when
+ * the build ends. Reports older than the start of the invocation are ignored.
+ */
+final class TestReportCollector {
+
+    static final int SLOWEST_TESTS = 10;
+
+    private static final long POLL_MILLIS = 2000;
+
+    private static final String[] REPORT_DIRECTORIES = {"surefire-reports", "failsafe-reports"};
+
+    private static final ThreadFactory POLL_THREADS = InvokerThreads.newThreadFactory("maven-invoker-reports-");
+
+    private static final Comparator<TestCaseResult> BY_TIME = Comparator.comparingDouble(TestCaseResult::getTime);
+
+    private static final XMLInputFactory XML_INPUT_FACTORY;
+
+    static {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        XML_INPUT_FACTORY = factory;
+    }
+
+    private final Path baseDirectory;
+
+    private final long since;
+
+    private final Map<Path, Report> reports = new ConcurrentHashMap<>();
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private Thread poller;
+
+    /**
+     * Creates a new collector.
+     *
+     * @param baseDirectory The base directory of the reactor, must not be <code>null</code>.
+     * @param since The time in milliseconds since the epoch before which reports are ignored.
+     */
+    TestReportCollector(File baseDirectory, long since) {
+        this.baseDirectory = baseDirectory.toPath();
+        // file systems may store modification times with a granularity of seconds
+        this.since = since - since % 1000;
+    }
+
+    /**
+     * Starts polling for reports while the build runs.
+     */
+    void start() {
+        poller = POLL_THREADS.newThread(() -> {
+            try {
+                while (!stopped.await(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    sweep();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        poller.start();
+    }
+
+    /**
+     * Stops polling, ingests the reports not yet seen and summarizes all reports.
+     *
+     * @return The summary, never <code>null</code>.
+     */
+    TestReportSummary finish() {
+        stopped.countDown();
+        if (poller != null) {
+            try {
+                poller.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sweep();
+        return summarize(reports.values());
+    }
+
+    synchronized void sweep() {
+        findReports().parallelStream().forEach(this::ingest);
+    }
+
+    private void ingest(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long modified = attributes.lastModifiedTime().toMillis();
+            if (modified < since) {
+                return;
+            }
+            Report previous = reports.get(file);
+            if (previous != null && previous.modified == modified && previous.size == attributes.size()) {
+                return;
+            }
+            File moduleDirectory = file.getParent().getParent().getParent().toFile();
+            Report report = parse(file, moduleDirectory);
+            report.modified = modified;
+            report.size = attributes.size();
+            reports.put(file, report);
+        } catch (IOException | XMLStreamException e) {
+            // the report is still being written or broken, retry with the next sweep
+        }
+    }
+
+    private List<Path> findReports() {
+        List<Path> files = new ArrayList<>();
+        try {
+            Files.walkFileTree(baseDirectory, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (dir.equals(baseDirectory)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    String name = dir.getFileName().toString();
+                    if ("target".equals(name)) {
+                        for (String reportDirectory : REPORT_DIRECTORIES) {
+                            listReports(dir.resolve(reportDirectory), files);
+                        }
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (name.startsWith(".") || "src".equals(name) || "node_modules".equals(name)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            // ingest what has been found
+        }
+        return files;
+    }
+
+    private static void listReports(Path directory, List<Path> files) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "TEST-*.xml")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            // the directory is being cleaned
+        }
+    }
+
+    /**
+     * Parses a single report file.
+     *
+     * @param file The report file, must not be <code>null</code>.
+     * @param moduleDirectory The base directory of the module, must not be <code>null</code>.
+     * @return The parsed report, never <code>null</code>.
+     * @throws IOException if the file could not be read.
+     * @throws XMLStreamException if the file is no well-formed XML, e.g. because it is still being written.
+     */
+    static Report parse(Path file, File moduleDirectory) throws IOException, XMLStreamException {
+        Report report = new Report();
+        try (InputStream in = Files.newInputStream(file)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                String className = null;
+                String name = null;
+                double time = 0;
+                TestCaseResult.Status status = null;
+                String message = null;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String element = reader.getLocalName();
+                        if ("testcase".equals(element)) {
+                            className = reader.getAttributeValue(null, "classname");
+                            name = reader.getAttributeValue(null, "name");
+                            time = parseTime(reader.getAttributeValue(null, "time"));
+                            status = TestCaseResult.Status.PASSED;
+                            message = null;
+                        } else if (status == TestCaseResult.Status.PASSED) {
+                            if ("failure".equals(element)) {
+                                status = TestCaseResult.Status.FAILED;
+                                message = reader.getAttributeValue(null, "message");
+                            } else if ("error".equals(element)) {
+                                status = TestCaseResult.Status.ERROR;
+                                message = reader.getAttributeValue(null, "message");
+                            } else if ("skipped".equals(element)) {
+                                status = TestCaseResult.Status.SKIPPED;
+                                message = reader.getAttributeValue(null, "message");
+                            }
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT
+                            && "testcase".equals(reader.getLocalName())
+                            && status != null) {
+                        report.add(new TestCaseResult(
+                                className, name != null ? name : "", time, status, message, moduleDirectory));
+                        status = null;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        return report;
+    }
+
+    private static double parseTime(String time) {
+        if (time == null || time.isEmpty()) {
+            return 0;
+        }
+        try {
+            // older Surefire versions format the time with grouping separators
+            return Double.parseDouble(time.replace(",", ""));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static TestReportSummary summarize(Iterable<Report> reports) {
+        int count = 0;
+        int tests = 0;
+        int failures = 0;
+        int errors = 0;
+        int skipped = 0;
+        List<TestCaseResult> failing = new ArrayList<>();
+        PriorityQueue<TestCaseResult> slowest = new PriorityQueue<>(SLOWEST_TESTS + 1, BY_TIME);
+        for (Report report : reports) {
+            count++;
+            tests += report.tests;
+            failures += report.failures;
+            errors += report.errors;
+            skipped += report.skipped;
+            failing.addAll(report.failing);
+            for (TestCaseResult test : report.slowest) {
+                offer(slowest, test);
+            }
+        }
+        failing.sort(Comparator.comparing(TestCaseResult::getClassName, Comparator.nullsFirst(String::compareTo))
+                .thenComparing(TestCaseResult::getName));
+        List<TestCaseResult> slowestTests = new ArrayList<>(slowest);
+        slowestTests.sort(BY_TIME.reversed());
+        return new TestReportSummary(count, tests, failures, errors, skipped, failing, slowestTests);
+    }
+
+    private static void offer(PriorityQueue<TestCaseResult> slowest, TestCaseResult test) {
+        slowest.add(test);
+        if (slowest.size() > SLOWEST_TESTS) {
+            slowest.remove();
+        }
+    }
+
+    /**
+     * The part of a report file which is kept in memory.
+     */
+    static final class Report {
+
+        int tests;
+
+        int failures;
+
+        int errors;
+
+        int skipped;
+
+        final List<TestCaseResult> failing = new ArrayList<>();
+
+        final PriorityQueue<TestCaseResult> slowest = new PriorityQueue<>(SLOWEST_TESTS + 1, BY_TIME);
+
+        long modified;
+
+        long size;
+
+        void add(TestCaseResult test) {
+            tests++;
+            switch (test.getStatus()) {
+                case FAILED:
+                    failures++;
+                    failing.add(test);
+                    break;
+                case ERROR:
+                    errors++;
+                    failing.add(test);
+                    break;
+                case SKIPPED:
+                    skipped++;
+                    break;
+                default:
+                    break;
+            }
+            offer(slowest, test);
+        }
+    }
+}
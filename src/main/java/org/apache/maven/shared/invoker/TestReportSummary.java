@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Summarizes the Surefire and Failsafe XML reports written during a Maven invocation. See
+ * {@link InvocationRequest#setIngestTestReports(boolean)}.
+ *
+ * @since 3.4.0
+ */
+public final class TestReportSummary {
+
+    private final int reportCount;
+
+    private final int tests;
+
+    private final int failures;
+
+    private final int errors;
+
+    private final int skipped;
+
+    private final List<TestCaseResult> failingTests;
+
+    private final List<TestCaseResult> slowestTests;
+
+    private final List<TestCaseResult> flakyTests;
+
+    TestReportSummary(
+            int reportCount,
+            int tests,
+            int failures,
+            int errors,
+            int skipped,
+            List<TestCaseResult> failingTests,
+            List<TestCaseResult> slowestTests) {
+        this.reportCount = reportCount;
+        this.tests = tests;
+        this.failures = failures;
+        this.errors = errors;
+        this.skipped = skipped;
+        this.failingTests = Collections.unmodifiableList(new ArrayList<>(failingTests));
+        this.slowestTests = Collections.unmodifiableList(new ArrayList<>(slowestTests));
+        this.flakyTests = Collections.emptyList();
+    }
+
+    private TestReportSummary(
+            TestReportSummary original,
+            int failures,
+            int errors,
+            List<TestCaseResult> failingTests,
+            List<TestCaseResult> flakyTests) {
+        this.reportCount = original.reportCount;
+        this.tests = original.tests;
+        this.failures = failures;
+        this.errors = errors;
+        this.skipped = original.skipped;
+        this.failingTests = Collections.unmodifiableList(new ArrayList<>(failingTests));
+        this.slowestTests = original.slowestTests;
+        this.flakyTests = Collections.unmodifiableList(new ArrayList<>(flakyTests));
+    }
+
+    /**
+     * Gets the number of ingested report files.
+     *
+     * @return The number of reports.
+     */
+    public int getReportCount() {
+        return reportCount;
+    }
+
+    /**
+     * Gets the number of test cases.
+     *
+     * @return The number of test cases.
+     */
+    public int getTests() {
+        return tests;
+    }
+
+    /**
+     * Gets the number of failed test cases.
+     *
+     * @return The number of failures.
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Gets the number of test cases with errors.
+     *
+     * @return The number of errors.
+     */
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * Gets the number of skipped test cases.
+     *
+     * @return The number of skipped test cases.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Gets the failed test cases and those with errors.
+     *
+     * @return The failing test cases, never <code>null</code>.
+     */
+    public List<TestCaseResult> getFailingTests() {
+        return failingTests;
+    }
+
+    /**
+     * Gets the slowest test cases, the slowest first.
+     *
+     * @return The slowest test cases, never <code>null</code>.
+     */
+    public List<TestCaseResult> getSlowestTests() {
+        return slowestTests;
+    }
+
+    /**
+     * Gets the test cases which failed but passed when they were run again, see
+     * {@link DefaultInvoker#setFailedTestRetries(int)}.
+     *
+     * @return The flaky test cases as they failed first, never <code>null</code>.
+     */
+    public List<TestCaseResult> getFlakyTests() {
+        return flakyTests;
+    }
+
+    /**
+     * Merges the summary of a build which ran the failing tests of this summary again. The test cases failing again
+     * replace the failing test cases of this summary, the others are considered flaky.
+     *
+     * @param rerun The summary of the rerun, may be <code>null</code> if no reports were written.
+     * @return The merged summary, never <code>null</code>.
+     */
+    TestReportSummary merge(TestReportSummary rerun) {
+        if (rerun == null) {
+            return this;
+        }
+        Set<String> stillFailing = new HashSet<>();
+        for (TestCaseResult test : rerun.failingTests) {
+            stillFailing.add(test.getClassName() + '#' + test.getName());
+        }
+        List<TestCaseResult> flaky = new ArrayList<>(flakyTests);
+        for (TestCaseResult test : failingTests) {
+            if (!stillFailing.contains(test.getClassName() + '#' + test.getName())) {
+                flaky.add(test);
+            }
+        }
+        int failures = 0;
+        int errors = 0;
+        for (TestCaseResult test : rerun.failingTests) {
+            if (test.getStatus() == TestCaseResult.Status.ERROR) {
+                errors++;
+            } else {
+                failures++;
+            }
+        }
+        return new TestReportSummary(this, failures, errors, rerun.failingTests, flaky);
+    }
+
+    @Override
+    public String toString() {
+        return "TestReportSummary[reports=" + reportCount + ", tests=" + tests + ", failures=" + failures + ", errors="
+                + errors + ", skipped=" + skipped + ", flaky=" + flakyTests.size() + "]";
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns the number of threads of parallel builds (<code>-T</code>) from the processors of the host, its cgroup CPU
+ * quota and the Maven processes currently running. Each invocation holds an {@link Allocation} while Maven runs:
+ * invocations with a fixed thread count occupy the threads they requested, and an adaptive invocation receives an
+ * equal share of the processors among all running invocations, limited to the processors not yet occupied by the
+ * others. As a running Maven process cannot change its thread count, the assignment is rebalanced whenever an
+ * invocation starts, based on the invocations finished in the meantime.
+ */
+class ThreadAllocator {
+
+    private static final ThreadAllocator DEFAULT = new ThreadAllocator(new HostMetrics());
+
+    private final HostMetrics metrics;
+
+    private final List<Allocation> allocations = new ArrayList<>();
+
+    ThreadAllocator(HostMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the allocator shared by all invokers of this JVM.
+     *
+     * @return The default allocator, never <code>null</code>.
+     */
+    static ThreadAllocator getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Allocates the threads of an invocation. The allocation must be closed once the Maven process terminated.
+     *
+     * @param threads The thread count requested by {@link InvocationRequest#getThreads()}, may be <code>null</code>.
+     * @param adaptive <code>true</code> to assign the thread count, <code>false</code> to occupy the requested one.
+     * @return The allocation, never <code>null</code>.
+     */
+    synchronized Allocation allocate(String threads, boolean adaptive) {
+        int processors = metrics.effectiveProcessors();
+        int count = adaptive ? share(processors) : parseThreads(threads, processors);
+        Allocation allocation = new Allocation(count);
+        allocations.add(allocation);
+        return allocation;
+    }
+
+    /**
+     * Gets the thread count an adaptive invocation started now would be assigned, without allocating it.
+     *
+     * @return The thread count, at least 1.
+     */
+    synchronized int share() {
+        return share(metrics.effectiveProcessors());
+    }
+
+    private int share(int processors) {
+        int occupied = 0;
+        for (Allocation allocation : allocations) {
+            occupied += allocation.threads;
+        }
+        int fairShare = processors / (allocations.size() + 1);
+        return Math.max(1, Math.min(fairShare, processors - occupied));
+    }
+
+    /**
+     * Gets the number of running invocations.
+     *
+     * @return The number of open allocations.
+     */
+    synchronized int getRunningCount() {
+        return allocations.size();
+    }
+
+    /**
+     * Parses a thread count as understood by Maven's <code>-T</code> option, i.e. a number of threads or a multiple
+     * of the processors suffixed by <code>C</code>.
+     *
+     * @param threads The thread count, may be <code>null</code>.
+     * @param processors The number of processors.
+     * @return The number of threads, <code>1</code> if the build is not parallel or the value is invalid.
+     */
+    static int parseThreads(String threads, int processors) {
+        if (threads == null || threads.trim().isEmpty()) {
+            return 1;
+        }
+        String value = threads.trim();
+        try {
+            if (value.endsWith("C") || value.endsWith("c")) {
+                double factor = Double.parseDouble(value.substring(0, value.length() - 1));
+                return Math.max(1, (int) (factor * processors));
+            }
+            return Math.max(1, (int) Double.parseDouble(value));
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * The threads allocated to a running invocation.
+     */
+    final class Allocation implements AutoCloseable {
+
+        private final int threads;
+
+        private Allocation(int threads) {
+            this.threads = threads;
+        }
+
+        /**
+         * Gets the number of threads allocated to the invocation.
+         *
+         * @return The number of threads, at least 1.
+         */
+        int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Releases the threads, repeated calls have no effect.
+         */
+        @Override
+        public void close() {
+            synchronized (ThreadAllocator.this) {
+                allocations.remove(this);
+            }
+        }
+    }
+}
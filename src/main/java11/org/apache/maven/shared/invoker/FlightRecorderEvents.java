@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JDK Flight Recorder events of the invocation lifecycle. All events of an invocation are committed when it
+ * completes so that each carries the exit code of Maven.
+ */
+final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {}
+
+    @Category({"Apache Maven", "Invoker"})
+    @StackTrace(false)
+    abstract static class InvocationEvent extends Event {
+
+        @Label("Base Directory")
+        String baseDirectory;
+
+        @Label("Goals")
+        @Description("The goals and arguments of the invocation")
+        String goals;
+
+        @Label("Exit Code")
+        @Description("The exit code of Maven, Integer.MIN_VALUE if Maven did not terminate normally")
+        int exitCode;
+    }
+
+    @Name("org.apache.maven.shared.invoker.CommandLineBuild")
+    @Label("Maven Command Line Build")
+    static final class CommandLineBuild extends InvocationEvent {}
+
+    @Name("org.apache.maven.shared.invoker.ProcessSpawn")
+    @Label("Maven Process Spawn")
+    static final class ProcessSpawn extends InvocationEvent {}
+
+    @Name("org.apache.maven.shared.invoker.FirstOutput")
+    @Label("Maven First Output")
+    static final class FirstOutput extends InvocationEvent {}
+
+    @Name("org.apache.maven.shared.invoker.Timeout")
+    @Label("Maven Timeout")
+    static final class Timeout extends InvocationEvent {}
+
+    @Name("org.apache.maven.shared.invoker.Kill")
+    @Label("Maven Kill")
+    static final class Kill extends InvocationEvent {
+
+        @Label("Trigger")
+        String trigger;
+    }
+
+    @Name("org.apache.maven.shared.invoker.Invocation")
+    @Label("Maven Invocation")
+    @Description("The complete invocation from building the command line to the termination of Maven")
+    static final class Invocation extends InvocationEvent {}
+}
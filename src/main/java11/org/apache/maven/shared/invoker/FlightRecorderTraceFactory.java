@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Creates {@link InvocationTrace}s emitting JDK Flight Recorder events. While no recording has been started in the
+ * JVM, or none of the events is enabled, invocations are not traced at all.
+ */
+final class FlightRecorderTraceFactory implements InvocationTrace.Factory {
+
+    @Override
+    public InvocationTrace start(File baseDirectory, Supplier<String> goals) {
+        if (!FlightRecorder.isInitialized() || !isEnabled()) {
+            return InvocationTrace.DISABLED;
+        }
+        return new FlightRecorderTrace(baseDirectory != null ? baseDirectory.getPath() : null, goals.get());
+    }
+
+    private static boolean isEnabled() {
+        return EventType.getEventType(FlightRecorderEvents.Invocation.class).isEnabled()
+                || EventType.getEventType(FlightRecorderEvents.CommandLineBuild.class).isEnabled()
+                || EventType.getEventType(FlightRecorderEvents.ProcessSpawn.class).isEnabled()
+                || EventType.getEventType(FlightRecorderEvents.FirstOutput.class).isEnabled()
+                || EventType.getEventType(FlightRecorderEvents.Timeout.class).isEnabled()
+                || EventType.getEventType(FlightRecorderEvents.Kill.class).isEnabled();
+    }
+
+    private static final class FlightRecorderTrace implements InvocationTrace {
+
+        private final String baseDirectory;
+
+        private final String goals;
+
+        private final FlightRecorderEvents.Invocation invocation = new FlightRecorderEvents.Invocation();
+
+        private final List<FlightRecorderEvents.InvocationEvent> events = new ArrayList<>();
+
+        private final AtomicBoolean outputSeen = new AtomicBoolean();
+
+        private final FlightRecorderEvents.CommandLineBuild commandLineBuild =
+                new FlightRecorderEvents.CommandLineBuild();
+
+        private FlightRecorderEvents.ProcessSpawn processSpawn;
+
+        FlightRecorderTrace(String baseDirectory, String goals) {
+            this.baseDirectory = baseDirectory;
+            this.goals = goals;
+            invocation.begin();
+            commandLineBuild.begin();
+        }
+
+        private synchronized <E extends FlightRecorderEvents.InvocationEvent> E add(E event) {
+            events.add(event);
+            return event;
+        }
+
+        private <E extends FlightRecorderEvents.InvocationEvent> E instant(E event) {
+            event.begin();
+            event.end();
+            return add(event);
+        }
+
+        @Override
+        public void commandLineBuilt() {
+            commandLineBuild.end();
+            add(commandLineBuild);
+        }
+
+        @Override
+        public void processSpawning() {
+            processSpawn = new FlightRecorderEvents.ProcessSpawn();
+            processSpawn.begin();
+        }
+
+        @Override
+        public void processSpawned() {
+            if (processSpawn != null) {
+                processSpawn.end();
+                add(processSpawn);
+            }
+        }
+
+        @Override
+        public InvocationOutputHandler watch(InvocationOutputHandler handler) {
+            return new FirstOutputHandler(handler);
+        }
+
+        @Override
+        public void timedOut() {
+            instant(new FlightRecorderEvents.Timeout());
+        }
+
+        @Override
+        public void killed(KillTrigger trigger) {
+            instant(new FlightRecorderEvents.Kill()).trigger = trigger.getName();
+        }
+
+        @Override
+        public void completed(int exitCode) {
+            invocation.end();
+            List<FlightRecorderEvents.InvocationEvent> events;
+            synchronized (this) {
+                events = new ArrayList<>(this.events);
+            }
+            events.add(invocation);
+            for (FlightRecorderEvents.InvocationEvent event : events) {
+                if (event.shouldCommit()) {
+                    event.baseDirectory = baseDirectory;
+                    event.goals = goals;
+                    event.exitCode = exitCode;
+                    event.commit();
+                }
+            }
+        }
+
+        private final class FirstOutputHandler implements InvocationOutputHandler, Flushable {
+
+            private final InvocationOutputHandler delegate;
+
+            FirstOutputHandler(InvocationOutputHandler delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void consumeLine(String line) throws IOException {
+                if (!outputSeen.get() && outputSeen.compareAndSet(false, true)) {
+                    instant(new FlightRecorderEvents.FirstOutput());
+                }
+                if (delegate != null) {
+                    delegate.consumeLine(line);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (delegate instanceof Flushable) {
+                    ((Flushable) delegate).flush();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Summarizes a Flight Recorder recording of a Maven JVM in a single streaming pass over its events.
+ */
+final class FlightRecordingSummaryReader implements FlightRecorderSupport.SummaryReader {
+
+    static final int HOT_METHODS = 10;
+
+    @Override
+    public FlightRecordingSummary read(File recording) throws IOException {
+        Instant start = null;
+        Instant end = null;
+        long executionSamples = 0;
+        Map<String, Long> methodSamples = new HashMap<>();
+        int gcCount = 0;
+        long gcPauseNanos = 0;
+        long gcMaxPauseNanos = 0;
+        long sampledAllocation = 0;
+        Map<Long, long[]> heapUsage = new TreeMap<>();
+
+        try (RecordingFile file = new RecordingFile(recording.toPath())) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                if (start == null || event.getStartTime().isBefore(start)) {
+                    start = event.getStartTime();
+                }
+                if (end == null || event.getEndTime().isAfter(end)) {
+                    end = event.getEndTime();
+                }
+                switch (event.getEventType().getName()) {
+                    case "jdk.ExecutionSample":
+                        executionSamples++;
+                        String method = topMethod(event.getStackTrace());
+                        if (method != null) {
+                            methodSamples.merge(method, 1L, Long::sum);
+                        }
+                        break;
+                    case "jdk.GarbageCollection":
+                        gcCount++;
+                        gcPauseNanos += event.getDuration("sumOfPauses").toNanos();
+                        gcMaxPauseNanos = Math.max(
+                                gcMaxPauseNanos,
+                                event.getDuration("longestPause").toNanos());
+                        break;
+                    case "jdk.ObjectAllocationSample":
+                        sampledAllocation += event.getLong("weight");
+                        break;
+                    case "jdk.GCHeapSummary":
+                        long[] usage = heapUsage.computeIfAbsent(event.getLong("gcId"), id -> new long[] {-1, -1});
+                        usage["Before GC".equals(event.getString("when")) ? 0 : 1] = event.getLong("heapUsed");
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        long duration = start != null ? Duration.between(start, end).toNanos() : 0;
+        long allocated = sampledAllocation > 0 ? sampledAllocation : estimateAllocation(heapUsage);
+        return new FlightRecordingSummary(
+                duration,
+                executionSamples,
+                hottest(methodSamples),
+                gcCount,
+                gcPauseNanos,
+                gcMaxPauseNanos,
+                allocated);
+    }
+
+    private static String topMethod(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return null;
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        if (frames.isEmpty()) {
+            return null;
+        }
+        RecordedMethod method = frames.get(0).getMethod();
+        return method.getType().getName() + '.' + method.getName();
+    }
+
+    private static Map<String, Long> hottest(Map<String, Long> methodSamples) {
+        Map<String, Long> hottest = new LinkedHashMap<>();
+        methodSamples.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(HOT_METHODS)
+                .forEach(entry -> hottest.put(entry.getKey(), entry.getValue()));
+        return hottest;
+    }
+
+    /**
+     * Estimates the allocated bytes as the growth of the heap between the end of a collection and the start of the
+     * next one.
+     */
+    private static long estimateAllocation(Map<Long, long[]> heapUsage) {
+        long allocated = 0;
+        long previousAfter = 0;
+        for (long[] usage : heapUsage.values()) {
+            if (previousAfter >= 0 && usage[0] > previousAfter) {
+                allocated += usage[0] - previousAfter;
+            }
+            previousAfter = usage[1];
+        }
+        return allocated;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControllerTest {
+
+    private static final long GIB = 1L << 30;
+
+    @TempDir
+    private Path temporaryFolder;
+
+    private final FakeHostMetrics metrics = new FakeHostMetrics();
+
+    private final AdmissionController controller = new AdmissionController(metrics)
+            .setMaxDelay(0, TimeUnit.MILLISECONDS)
+            .setNonHeapOverhead(0)
+            .setDefaultHeapSize(GIB);
+
+    private final InvokerLogger logger = new SystemOutLogger();
+
+    @Test
+    void testAdmitsAndReleasesReservation() throws Exception {
+        InvocationRequest request = new DefaultInvocationRequest().setMavenOpts("-Xms256m -Xmx2g");
+
+        try (AdmissionController.Admission admission = controller.admit(request, null, logger)) {
+            assertEquals(2 * GIB, admission.getReservedMemory());
+            assertEquals(2 * GIB, controller.getReservedMemory());
+            assertEquals(1, controller.getAdmittedCount());
+        }
+
+        assertEquals(0, controller.getReservedMemory());
+        assertEquals(0, controller.getAdmittedCount());
+    }
+
+    @Test
+    void testRejectsOnLoad() {
+        metrics.load = 20;
+
+        AdmissionRejectedException e = assertThrows(
+                AdmissionRejectedException.class, () -> controller.admit(new DefaultInvocationRequest(), null, logger));
+
+        assertEquals(AdmissionController.Pressure.LOAD, e.getPressure());
+    }
+
+    @Test
+    void testRejectsWhenReservationsExceedHostMemory() throws Exception {
+        InvocationRequest request = new DefaultInvocationRequest().setMavenOpts("-Xmx3g");
+
+        try (AdmissionController.Admission first = controller.admit(request, null, logger)) {
+            AdmissionRejectedException e =
+                    assertThrows(AdmissionRejectedException.class, () -> controller.admit(request, null, logger));
+
+            assertEquals(AdmissionController.Pressure.MEMORY, e.getPressure());
+            assertTrue(e.getMessage().contains("1 running invocation"), e.getMessage());
+        }
+
+        controller.admit(request, null, logger).close();
+    }
+
+    @Test
+    void testRejectsWhenAvailableMemoryIsLow() {
+        metrics.availableMemory = GIB / 2;
+
+        AdmissionRejectedException e = assertThrows(
+                AdmissionRejectedException.class, () -> controller.admit(new DefaultInvocationRequest(), null, logger));
+
+        assertEquals(AdmissionController.Pressure.MEMORY, e.getPressure());
+    }
+
+    @Test
+    void testRejectsOnFileDescriptors() {
+        metrics.freeFileDescriptors = 10;
+
+        AdmissionRejectedException e = assertThrows(
+                AdmissionRejectedException.class, () -> controller.admit(new DefaultInvocationRequest(), null, logger));
+
+        assertEquals(AdmissionController.Pressure.FILE_DESCRIPTORS, e.getPressure());
+    }
+
+    @Test
+    void testUnknownMetricsAreNotChecked() throws Exception {
+        metrics.load = -1;
+        metrics.totalMemory = HostMetrics.UNKNOWN;
+        metrics.availableMemory = HostMetrics.UNKNOWN;
+        metrics.freeFileDescriptors = HostMetrics.UNKNOWN;
+
+        controller
+                .admit(new DefaultInvocationRequest().setMavenOpts("-Xmx64g"), null, logger)
+                .close();
+    }
+
+    @Test
+    void testDelaysUntilPressureIsGone() throws Exception {
+        metrics.load = 20;
+        controller.setMaxDelay(10, TimeUnit.SECONDS).setPollInterval(10, TimeUnit.MILLISECONDS);
+
+        Thread relief = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            metrics.load = 0.5;
+        });
+        relief.start();
+
+        controller.admit(new DefaultInvocationRequest(), null, logger).close();
+        relief.join();
+    }
+
+    @Test
+    void testRequiredMemory() throws IOException {
+        File basedir = temporaryFolder.toFile();
+        Files.createDirectories(temporaryFolder.resolve(".mvn"));
+        Files.write(
+                temporaryFolder.resolve(".mvn/jvm.config"),
+                Collections.singletonList("-Xmx512m"),
+                StandardCharsets.UTF_8);
+        File module = Files.createDirectories(temporaryFolder.resolve("module")).toFile();
+
+        InvocationRequest request = new DefaultInvocationRequest().setShellEnvironmentInherited(false);
+        assertEquals(512L << 20, controller.requiredMemory(request, module));
+        assertEquals(512L << 20, controller.requiredMemory(request, basedir));
+
+        request.setMavenOpts("-Xmx1g -XX:MaxHeapSize=768m");
+        assertEquals(768L << 20, controller.requiredMemory(request, basedir));
+
+        request.addShellEnvironment("MAVEN_OPTS", "-Xmx128M");
+        assertEquals(128L << 20, controller.requiredMemory(request, basedir));
+
+        assertEquals(
+                GIB,
+                controller.requiredMemory(new DefaultInvocationRequest().setShellEnvironmentInherited(false), null));
+        assertEquals(
+                512L << 20,
+                controller.requiredMemory(
+                        new DefaultInvocationRequest()
+                                .setShellEnvironmentInherited(false)
+                                .setJvmProfile(JvmProfile.STARTUP),
+                        null));
+    }
+
+    private static final class FakeHostMetrics extends HostMetrics {
+
+        private volatile double load = 1.0;
+
+        private long totalMemory = 4 * GIB;
+
+        private long availableMemory = 4 * GIB;
+
+        private long freeFileDescriptors = 10_000;
+
+        @Override
+        int availableProcessors() {
+            return 4;
+        }
+
+        @Override
+        double loadAverage() {
+            return load;
+        }
+
+        @Override
+        long totalMemory() {
+            return totalMemory;
+        }
+
+        @Override
+        long availableMemory() {
+            return availableMemory;
+        }
+
+        @Override
+        long freeFileDescriptors() {
+            return freeFileDescriptors;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncOutputHandlerTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private final InvocationOutputHandler slowHandler = line -> {
+        try {
+            gate.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        received.add(line);
+    };
+
+    @Test
+    void testQueue() {
+        BoundedLineQueue queue = new BoundedLineQueue(3);
+
+        assertEquals(4, queue.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer("line " + i));
+        }
+        assertFalse(queue.offer("overflow"));
+        assertEquals(4, queue.size());
+        assertEquals("line 0", queue.poll());
+        assertTrue(queue.offer("line 4"));
+        for (int i = 1; i < 5; i++) {
+            assertEquals("line " + i, queue.poll());
+        }
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    void testLinesArePassedInOrder() throws IOException {
+        AsyncOutputHandler handler = new AsyncOutputHandler(received::add, 16);
+
+        List<String> expected = produce(handler, 1000);
+        handler.flush();
+
+        assertEquals(expected, received);
+        assertEquals(0, handler.getQueueDepth());
+    }
+
+    @Test
+    void testBlockWaitsForSlowHandler() throws Exception {
+        AsyncOutputHandler handler = new AsyncOutputHandler(slowHandler, 4, AsyncOutputHandler.OverflowPolicy.BLOCK);
+
+        Thread opener = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            gate.countDown();
+        });
+        opener.start();
+        List<String> expected = produce(handler, 20);
+        handler.flush();
+        opener.join();
+
+        assertEquals(expected, received);
+        assertTrue(handler.getBlockedLines() > 0);
+        assertEquals(0, handler.getDroppedLines());
+    }
+
+    @Test
+    void testDropOldest() throws IOException {
+        AsyncOutputHandler handler =
+                new AsyncOutputHandler(slowHandler, 4, AsyncOutputHandler.OverflowPolicy.DROP_OLDEST);
+
+        produce(handler, 100);
+        assertTrue(handler.getDroppedLines() > 0);
+        assertEquals(4, handler.getMaxQueueDepth());
+
+        gate.countDown();
+        handler.flush();
+
+        assertEquals(100, received.size() + handler.getDroppedLines());
+        assertEquals("line 99", received.get(received.size() - 1));
+    }
+
+    @Test
+    void testSpillToDisk() throws IOException {
+        AsyncOutputHandler handler = new AsyncOutputHandler(
+                        slowHandler, 4, AsyncOutputHandler.OverflowPolicy.SPILL_TO_DISK)
+                .setSpillDirectory(temporaryFolder.toFile());
+
+        List<String> expected = produce(handler, 100);
+        assertTrue(handler.getSpilledLines() > 0);
+        assertTrue(handler.getSpillDepth() > 0);
+
+        gate.countDown();
+        handler.flush();
+
+        assertEquals(expected, received);
+        assertEquals(0, handler.getDroppedLines());
+        assertEquals(0, handler.getSpillDepth());
+        try (Stream<Path> files = Files.list(temporaryFolder)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void testFlushReportsHandlerFailure() {
+        IllegalStateException failure = new IllegalStateException("broken");
+        AsyncOutputHandler handler = new AsyncOutputHandler(
+                line -> {
+                    throw failure;
+                },
+                4);
+
+        produce(handler, 3);
+        IOException e = assertThrows(IOException.class, handler::flush);
+
+        assertSame(failure, e.getCause());
+    }
+
+    private static List<String> produce(AsyncOutputHandler handler, int count) {
+        List<String> lines = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                String line = "line " + i;
+                lines.add(line);
+                handler.consumeLine(line);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return lines;
+    }
+}
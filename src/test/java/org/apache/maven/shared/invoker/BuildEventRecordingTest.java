@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.jar.JarFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildEventRecordingTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    @Test
+    void testTypeCodes() {
+        List<String> names = new ArrayList<>();
+        for (String type : BuildEventSpy.TYPES) {
+            names.add(type.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT));
+        }
+        List<String> expected = new ArrayList<>();
+        for (BuildEvent.Type type : BuildEvent.Type.values()) {
+            expected.add(type.name());
+        }
+        assertEquals(expected, names);
+    }
+
+    @Test
+    void testSpyJar() throws IOException {
+        File jar = BuildEventRecording.getSpyJar();
+
+        try (JarFile jarFile = new JarFile(jar)) {
+            assertNotNull(jarFile.getEntry("org/apache/maven/shared/invoker/BuildEventSpy.class"));
+            assertNotNull(jarFile.getEntry("org/apache/maven/shared/invoker/ExpressionEvaluationSpy.class"));
+            assertNotNull(jarFile.getEntry("META-INF/plexus/components.xml"));
+            assertEquals(3, Collections.list(jarFile.entries()).size());
+        }
+        assertEquals(jar, BuildEventRecording.getSpyJar());
+    }
+
+    @Test
+    void testSummary() throws IOException {
+        File file = temporaryFolder.resolve("events.bin").toFile();
+        try (DataOutputStream out = newEventFile(file)) {
+            write(out, BuildEvent.Type.SESSION_STARTED, 0, null, null, null, null);
+            write(out, BuildEvent.Type.PROJECT_STARTED, 10, "g:a:1", null, null, null);
+            write(out, BuildEvent.Type.MOJO_STARTED, 20, "g:a:1", "p:compiler:3:compile", "default-compile", null);
+            write(out, BuildEvent.Type.MOJO_SUCCEEDED, 120, "g:a:1", "p:compiler:3:compile", "default-compile", null);
+            write(out, BuildEvent.Type.PROJECT_SUCCEEDED, 130, "g:a:1", null, null, null);
+            write(out, BuildEvent.Type.PROJECT_STARTED, 140, "g:b:1", null, null, null);
+            write(out, BuildEvent.Type.MOJO_STARTED, 150, "g:b:1", "p:compiler:3:compile", "default-compile", null);
+            write(out, BuildEvent.Type.MOJO_FAILED, 200, "g:b:1", "p:compiler:3:compile", "default-compile", "boom");
+            write(out, BuildEvent.Type.PROJECT_FAILED, 210, "g:b:1", null, null, "boom");
+            write(out, BuildEvent.Type.SESSION_ENDED, 250, null, null, null, null);
+        }
+
+        BuildEventSummary summary = BuildEventRecording.read(file);
+
+        assertEquals(1234L, summary.getStartTime());
+        assertEquals(10, summary.getEvents().size());
+        BuildEvent failed = summary.getEvents().get(7);
+        assertEquals(BuildEvent.Type.MOJO_FAILED, failed.getType());
+        assertEquals("g:b:1", failed.getProjectId());
+        assertEquals("p:compiler:3:compile", failed.getMojoId());
+        assertEquals("default-compile", failed.getExecutionId());
+        assertEquals("boom", failed.getFailure());
+        assertNull(summary.getEvents().get(0).getProjectId());
+
+        assertEquals(250, summary.getSessionNanos());
+        assertEquals(Long.valueOf(120), summary.getProjectNanos().get("g:a:1"));
+        assertEquals(Long.valueOf(70), summary.getProjectNanos().get("g:b:1"));
+        assertEquals(Collections.singletonMap("p:compiler:3:compile", 150L), summary.getMojoNanos());
+    }
+
+    @Test
+    void testTruncatedFile() throws IOException {
+        File file = temporaryFolder.resolve("events.bin").toFile();
+        try (DataOutputStream out = newEventFile(file)) {
+            write(out, BuildEvent.Type.SESSION_STARTED, 0, null, null, null, null);
+            write(out, BuildEvent.Type.PROJECT_STARTED, 10, "g:a:1", null, null, null);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        BuildEventSummary summary = BuildEventRecording.read(file);
+
+        assertEquals(1, summary.getEvents().size());
+        assertEquals(0, summary.getSessionNanos());
+        assertTrue(summary.getProjectNanos().isEmpty());
+    }
+
+    @Test
+    void testUnwrittenAndInvalidFiles() throws IOException {
+        File file = temporaryFolder.resolve("events.bin").toFile();
+        assertTrue(file.createNewFile());
+        assertNull(BuildEventRecording.read(file));
+
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not an event file".getBytes(StandardCharsets.UTF_8));
+        }
+        assertThrows(IOException.class, () -> BuildEventRecording.read(file));
+    }
+
+    private static DataOutputStream newEventFile(File file) throws IOException {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        out.writeInt(BuildEventSpy.MAGIC);
+        out.writeByte(BuildEventSpy.VERSION);
+        out.writeLong(1234L);
+        return out;
+    }
+
+    private static void write(
+            DataOutputStream out,
+            BuildEvent.Type type,
+            long nanos,
+            String project,
+            String mojo,
+            String execution,
+            String failure)
+            throws IOException {
+        out.writeByte(type.ordinal());
+        out.writeLong(nanos);
+        out.writeUTF(project != null ? project : "");
+        out.writeUTF(mojo != null ? mojo : "");
+        out.writeUTF(execution != null ? execution : "");
+        out.writeUTF(failure != null ? failure : "");
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.shared.invoker.BuildProgressEvent.Download;
+import org.apache.maven.shared.invoker.BuildProgressEvent.ModuleFinished;
+import org.apache.maven.shared.invoker.BuildProgressEvent.ModuleStarted;
+import org.apache.maven.shared.invoker.BuildProgressEvent.MojoStarted;
+import org.apache.maven.shared.invoker.BuildProgressEvent.TestsRun;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildProgressHandlerTest {
+
+    private final List<BuildProgressEvent> events = new ArrayList<>();
+
+    private final BuildProgressListener listener = new BuildProgressListener() {
+        @Override
+        public void moduleStarted(ModuleStarted event) {
+            events.add(event);
+        }
+
+        @Override
+        public void mojoStarted(MojoStarted event) {
+            events.add(event);
+        }
+
+        @Override
+        public void moduleFinished(ModuleFinished event) {
+            events.add(event);
+        }
+
+        @Override
+        public void testsRun(TestsRun event) {
+            events.add(event);
+        }
+
+        @Override
+        public void downloadStarted(Download event) {
+            events.add(event);
+        }
+
+        @Override
+        public void downloadFinished(Download event) {
+            events.add(event);
+        }
+    };
+
+    @Test
+    void testMultiModuleBuild() throws Exception {
+        List<String> lines = new ArrayList<>();
+        BuildProgressHandler handler = new BuildProgressHandler(listener, lines::add);
+        List<String> output = Arrays.asList(
+                "[INFO] Scanning for projects...",
+                "[INFO] ------------------------------------------------------------------------",
+                "[INFO] Reactor Build Order:",
+                "[INFO] ",
+                "[INFO] Parent                                                             [pom]",
+                "[INFO] Data                                                               [jar]",
+                "[INFO] ",
+                "[INFO] ---------------------------< org.example:parent >---------------------------",
+                "[INFO] Building Parent 1.0-SNAPSHOT                                         [1/2]",
+                "[INFO]   from pom.xml",
+                "[INFO] --------------------------------[ pom ]---------------------------------",
+                "[INFO] ----------------------------< org.example:data >----------------------------",
+                "[INFO] Building Data 1.0-SNAPSHOT                                           [2/2]",
+                "[INFO] --- compiler:3.13.0:compile (default-compile) @ data ---",
+                "[INFO] --- maven-surefire-plugin:3.5.3:test (default-test) @ data ---",
+                "[INFO] Tests run: 3, Failures: 1, Errors: 0, Skipped: 1, Time elapsed: 0.052 s <<< FAILURE! -- in"
+                        + " org.example.DataTest",
+                "[ERROR] Tests run: 3, Failures: 1, Errors: 0, Skipped: 1",
+                "[INFO] Building jar: /work/data/target/data-1.0-SNAPSHOT.jar",
+                "[INFO] ------------------------------------------------------------------------",
+                "[INFO] Reactor Summary for Parent 1.0-SNAPSHOT:",
+                "[INFO] ",
+                "[INFO] Parent ............................................. SUCCESS [  0.123 s]",
+                "[INFO] Data ............................................... FAILURE [  1.456 s]",
+                "[INFO] ------------------------------------------------------------------------",
+                "[INFO] BUILD FAILURE",
+                "[INFO] ------------------------------------------------------------------------");
+        for (String line : output) {
+            handler.consumeLine(line);
+        }
+
+        assertEquals(output, lines);
+        assertEquals(8, events.size(), events::toString);
+
+        ModuleStarted parent = (ModuleStarted) events.get(0);
+        assertEquals("org.example:parent", parent.getProjectId());
+        assertEquals("Parent", parent.getName());
+        assertEquals("1.0-SNAPSHOT", parent.getVersion());
+        assertEquals(1, parent.getIndex());
+        assertEquals(2, parent.getTotal());
+
+        ModuleStarted data = (ModuleStarted) events.get(1);
+        assertEquals("org.example:data", data.getProjectId());
+        assertEquals(2, data.getIndex());
+
+        MojoStarted compile = (MojoStarted) events.get(2);
+        assertEquals("compiler", compile.getPlugin());
+        assertEquals("3.13.0", compile.getVersion());
+        assertEquals("compile", compile.getGoal());
+        assertEquals("default-compile", compile.getExecutionId());
+        assertEquals("data", compile.getModule());
+        assertEquals("maven-surefire-plugin", ((MojoStarted) events.get(3)).getPlugin());
+
+        TestsRun testClass = (TestsRun) events.get(4);
+        assertEquals("org.example.DataTest", testClass.getTestClass());
+        assertEquals(3, testClass.getRun());
+        assertEquals(1, testClass.getFailures());
+        assertEquals(0, testClass.getErrors());
+        assertEquals(1, testClass.getSkipped());
+        assertNull(((TestsRun) events.get(5)).getTestClass());
+
+        ModuleFinished parentFinished = (ModuleFinished) events.get(6);
+        assertEquals("Parent", parentFinished.getName());
+        assertEquals(ModuleFinished.Status.SUCCESS, parentFinished.getStatus());
+        assertEquals("0.123 s", parentFinished.getTime());
+        assertEquals(ModuleFinished.Status.FAILURE, ((ModuleFinished) events.get(7)).getStatus());
+    }
+
+    @Test
+    void testSingleModuleBuild() throws Exception {
+        BuildProgressHandler handler = new BuildProgressHandler(listener);
+        handler.consumeLine("[INFO] -------------------< org.example:app >-------------------");
+        handler.consumeLine("[INFO] Building app 1");
+        handler.consumeLine("[DEBUG] Building app 2 [1/1]");
+        handler.consumeLine("[INFO] BUILD SUCCESS");
+
+        assertEquals(2, events.size(), events::toString);
+        ModuleStarted started = (ModuleStarted) events.get(0);
+        assertEquals("app", started.getName());
+        assertEquals("1", started.getVersion());
+        assertEquals(1, started.getTotal());
+        ModuleFinished finished = (ModuleFinished) events.get(1);
+        assertEquals("app", finished.getName());
+        assertEquals(ModuleFinished.Status.SUCCESS, finished.getStatus());
+        assertNull(finished.getTime());
+    }
+
+    @Test
+    void testDownloads() throws Exception {
+        BuildProgressHandler handler = new BuildProgressHandler(listener);
+        handler.consumeLine("[INFO] Downloading from central: https://repo.maven.apache.org/maven2/a/b/1/b-1.pom");
+        handler.consumeLine(
+                "[INFO] Downloaded from central: https://repo.maven.apache.org/maven2/a/b/1/b-1.pom (2.1 kB at 35 kB/s)");
+        handler.consumeLine("Downloaded: http://repo1.maven.org/maven2/a/c/1/c-1.jar (12 KB at 3.4 KB/sec)");
+
+        assertEquals(3, events.size(), events::toString);
+        Download started = (Download) events.get(0);
+        assertEquals(false, started.isFinished());
+        assertEquals("central", started.getRepository());
+        assertEquals("https://repo.maven.apache.org/maven2/a/b/1/b-1.pom", started.getUrl());
+        assertNull(started.getSize());
+        Download finished = (Download) events.get(1);
+        assertTrue(finished.isFinished());
+        assertEquals("2.1 kB", finished.getSize());
+        Download legacy = (Download) events.get(2);
+        assertNull(legacy.getRepository());
+        assertEquals("http://repo1.maven.org/maven2/a/c/1/c-1.jar", legacy.getUrl());
+        assertEquals("12 KB", legacy.getSize());
+    }
+
+    @Test
+    void testColoredOutput() throws Exception {
+        BuildProgressHandler handler = new BuildProgressHandler(listener);
+        handler.consumeLine("[\u001B[1;34mINFO\u001B[m] \u001B[1m--- \u001B[0;32mjar:3.4.1:jar\u001B[m "
+                + "\u001B[1m(default-jar)\u001B[m @ \u001B[36mapp\u001B[0;1m ---\u001B[m");
+
+        assertEquals(1, events.size(), events::toString);
+        assertEquals("jar", ((MojoStarted) events.get(0)).getPlugin());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClassDataArchivesTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    private File mavenHome;
+
+    private File javaHome;
+
+    private ClassDataArchives archives;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        mavenHome = Files.createDirectories(temporaryFolder.resolve("maven/lib"))
+                .getParent()
+                .toFile();
+        Files.write(mavenHome.toPath().resolve("lib/maven-core-3.9.6.jar"), new byte[] {1});
+        javaHome = Files.createDirectories(temporaryFolder.resolve("jdk/lib"))
+                .getParent()
+                .toFile();
+        Files.write(javaHome.toPath().resolve("lib/modules"), new byte[] {2});
+        archives = new ClassDataArchives(temporaryFolder.resolve("cds").toFile());
+    }
+
+    @Test
+    void testTrainingRunThenReuse() throws IOException {
+        ClassDataArchives.Archive training = archives.prepare(mavenHome, "3.9.6", javaHome, "17.0.9");
+
+        assertTrue(training.isTraining());
+        assertTrue(training.getJvmOption().startsWith("-XX:ArchiveClassesAtExit="));
+        assertNotEquals(training.getArchiveFile(), training.getJvmFile());
+        Files.write(training.getJvmFile().toPath(), new byte[] {3});
+        training.complete(true);
+        assertTrue(training.getArchiveFile().isFile());
+        assertFalse(training.getJvmFile().exists());
+
+        ClassDataArchives.Archive reuse = archives.prepare(mavenHome, "3.9.6", javaHome, "17.0.9");
+
+        assertFalse(reuse.isTraining());
+        assertEquals(training.getArchiveFile(), reuse.getJvmFile());
+        assertEquals("-XX:SharedArchiveFile=" + reuse.getArchiveFile().getAbsolutePath(), reuse.getJvmOption());
+    }
+
+    @Test
+    void testSingleTrainingRun() throws IOException {
+        ClassDataArchives.Archive training = archives.prepare(mavenHome, "3.9.6", javaHome, "17.0.9");
+
+        assertNull(archives.prepare(mavenHome, "3.9.6", javaHome, "17.0.9"));
+
+        Files.write(training.getJvmFile().toPath(), new byte[] {3});
+        training.complete(false);
+        assertFalse(training.getArchiveFile().exists());
+        assertFalse(training.getJvmFile().exists());
+
+        ClassDataArchives.Archive retraining = archives.prepare(mavenHome, "3.9.6", javaHome, "17.0.9");
+        assertNotNull(retraining);
+        assertTrue(retraining.isTraining());
+        retraining.complete(false);
+    }
+
+    @Test
+    void testChangedMavenHomeReplacesArchive() throws IOException {
+        ClassDataArchives.Archive training = archives.prepare(mavenHome, "3.9.6", javaHome, "17.0.9");
+        Files.write(training.getJvmFile().toPath(), new byte[] {3});
+        training.complete(true);
+
+        Files.write(mavenHome.toPath().resolve("lib/extension.jar"), new byte[] {4});
+        ClassDataArchives.Archive retraining = archives.prepare(mavenHome, "3.9.6", javaHome, "17.0.9");
+
+        assertTrue(retraining.isTraining());
+        assertNotEquals(training.getArchiveFile(), retraining.getArchiveFile());
+        Files.write(retraining.getJvmFile().toPath(), new byte[] {5});
+        retraining.complete(true);
+        assertTrue(retraining.getArchiveFile().isFile());
+        assertFalse(training.getArchiveFile().exists());
+    }
+
+    @Test
+    void testUnsupportedJava() throws IOException {
+        assertNull(archives.prepare(mavenHome, "3.9.6", javaHome, "11.0.21"));
+        assertNull(archives.prepare(mavenHome, "3.9.6", javaHome, "1.8.0_392"));
+    }
+}
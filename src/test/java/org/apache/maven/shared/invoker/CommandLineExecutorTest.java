@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.shared.utils.cli.CommandLineException;
+import org.apache.maven.shared.utils.cli.CommandLineTimeOutException;
+import org.apache.maven.shared.utils.cli.Commandline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisabledOnOs(OS.WINDOWS)
+class CommandLineExecutorTest {
+
+    private final List<String> out = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<String> err = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void testExitCodeAndOutput() throws Exception {
+        Commandline cli = shell("echo one; echo two; echo oops >&2; exit 3");
+
+        int exitCode = CommandLineExecutor.execute(cli, null, out::add, err::add, 0, false);
+
+        assertEquals(3, exitCode);
+        assertEquals(Arrays.asList("one", "two"), out);
+        assertEquals(Collections.singletonList("oops"), err);
+    }
+
+    @Test
+    void testInput() throws Exception {
+        Commandline cli = shell("read line; echo \"got $line\"");
+        ByteArrayInputStream in = new ByteArrayInputStream("hello\n".getBytes(StandardCharsets.UTF_8));
+
+        int exitCode = CommandLineExecutor.execute(cli, in, out::add, err::add, 10, false);
+
+        assertEquals(0, exitCode);
+        assertEquals(Collections.singletonList("got hello"), out);
+    }
+
+    @Test
+    void testTimeout() {
+        Commandline cli = shell("sleep 30");
+
+        CommandLineTimeOutException e = assertThrows(
+                CommandLineTimeOutException.class,
+                () -> CommandLineExecutor.execute(cli, null, out::add, err::add, 1, false));
+
+        assertEquals("Process timed out after 1 seconds.", e.getMessage());
+    }
+
+    @Test
+    void testMultiplexedExitCodeAndOutput() throws Exception {
+        Commandline cli = shell("echo one; printf 'two\\r\\nthree'; echo oops >&2; exit 3");
+
+        int exitCode = CommandLineExecutor.execute(cli, null, out::add, err::add, 0, true);
+
+        assertEquals(3, exitCode);
+        assertEquals(Arrays.asList("one", "two", "three"), out);
+        assertEquals(Collections.singletonList("oops"), err);
+    }
+
+    @Test
+    void testMultiplexedLargeOutput() throws Exception {
+        Commandline cli = shell("i=0; while [ $i -lt 5000 ]; do echo \"line $i\"; i=$((i+1)); done");
+
+        int exitCode = CommandLineExecutor.execute(cli, null, out::add, err::add, 0, true);
+
+        assertEquals(0, exitCode);
+        assertEquals(5000, out.size());
+        assertEquals("line 4999", out.get(4999));
+    }
+
+    @Test
+    void testMultiplexedConcurrentProcesses() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        List<Integer> exitCodes = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 20; i++) {
+            int code = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    exitCodes.add(CommandLineExecutor.execute(
+                            shell("echo " + code + "; exit " + code), null, out::add, err::add, 0, true));
+                } catch (Exception e) {
+                    err.add(e.toString());
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(20, exitCodes.size());
+        assertEquals(20, out.size());
+        assertEquals(Collections.emptyList(), err);
+    }
+
+    @Test
+    void testMultiplexedInput() throws Exception {
+        Commandline cli = shell("read line; echo \"got $line\"");
+        ByteArrayInputStream in = new ByteArrayInputStream("hello\n".getBytes(StandardCharsets.UTF_8));
+
+        int exitCode = CommandLineExecutor.execute(cli, in, out::add, err::add, 10, true);
+
+        assertEquals(0, exitCode);
+        assertEquals(Collections.singletonList("got hello"), out);
+    }
+
+    @Test
+    void testMultiplexedTimeout() {
+        Commandline cli = shell("sleep 30");
+
+        CommandLineTimeOutException e = assertThrows(
+                CommandLineTimeOutException.class,
+                () -> CommandLineExecutor.execute(cli, null, out::add, err::add, 1, true));
+
+        assertEquals("Process timed out after 1 seconds.", e.getMessage());
+    }
+
+    @Test
+    void testMultiplexedFailingConsumer() throws Exception {
+        CommandLineException e = assertThrows(
+                CommandLineException.class,
+                () -> CommandLineExecutor.execute(
+                        shell("echo one; echo two"),
+                        null,
+                        line -> {
+                            throw new Error("consumer failed");
+                        },
+                        err::add,
+                        10,
+                        true));
+
+        assertEquals("consumer failed", e.getCause().getMessage());
+
+        // the event loop keeps serving other processes
+        assertEquals(0, CommandLineExecutor.execute(shell("echo three"), null, out::add, err::add, 10, true));
+        assertEquals(Collections.singletonList("three"), out);
+    }
+
+    @Test
+    void testMultiplexedFailingStream() throws Exception {
+        BrokenProcess broken = new BrokenProcess();
+
+        CommandLineException e = assertThrows(CommandLineException.class, () -> ProcessIoReactor.getInstance()
+                .register(broken, null, out::add, err::add, 0)
+                .await());
+
+        assertEquals("available failed", e.getCause().getMessage());
+        assertTrue(broken.destroyed);
+        assertEquals(0, CommandLineExecutor.execute(shell("echo after"), null, out::add, err::add, 10, true));
+        assertEquals(Collections.singletonList("after"), out);
+    }
+
+    private static Commandline shell(String script) {
+        Commandline cli = new Commandline();
+        cli.setExecutable("/bin/sh");
+        cli.createArg().setValue("-c");
+        cli.createArg().setValue(script);
+        return cli;
+    }
+
+    /**
+     * A running process whose output cannot be polled.
+     */
+    private static final class BrokenProcess extends Process {
+
+        private volatile boolean destroyed;
+
+        @Override
+        public OutputStream getOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return -1;
+                }
+
+                @Override
+                public int available() {
+                    throw new IllegalStateException("available failed");
+                }
+            };
+        }
+
+        @Override
+        public InputStream getErrorStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public int waitFor() {
+            return 0;
+        }
+
+        @Override
+        public int exitValue() {
+            return 0;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return !destroyed;
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+    }
+}
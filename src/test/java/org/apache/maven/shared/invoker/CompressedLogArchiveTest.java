@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedLogArchiveTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    @Test
+    void testMergesStreamsWithTags() throws IOException {
+        File file;
+        try (CompressedLogArchive archive = new CompressedLogArchive(temporaryFolder.toFile(), "build")) {
+            archive.getOutputHandler().consumeLine("[INFO] Scanning for projects...");
+            archive.getErrorHandler().consumeLine("warning: ünïcödé");
+            archive.getOutputHandler().consumeLine(null);
+            file = archive.getStatistics().getFiles().get(0);
+        }
+
+        assertEquals("build.log.gz", file.getName());
+        assertEquals(
+                Arrays.asList("[out] [INFO] Scanning for projects...", "[err] warning: ünïcödé", "[out] "), read(file));
+    }
+
+    @Test
+    void testFlushedArchiveIsReadable() throws IOException {
+        CompressedLogArchive archive = new CompressedLogArchive(temporaryFolder.toFile(), "build");
+        archive.getOutputHandler().consumeLine("first");
+        archive.flush();
+
+        // the archive has not been finished, as if the build crashed, but the flushed block can be read
+        File file = archive.getStatistics().getFiles().get(0);
+        byte[] expected = "[out] first\n".getBytes(StandardCharsets.UTF_8);
+        byte[] actual = new byte[expected.length];
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file.toPath())))) {
+            in.readFully(actual);
+        }
+        assertArrayEquals(expected, actual);
+        archive.close();
+    }
+
+    @Test
+    void testStatistics() throws IOException {
+        try (CompressedLogArchive archive = new CompressedLogArchive(temporaryFolder.toFile(), "build")) {
+            for (int i = 0; i < 1000; i++) {
+                archive.getOutputHandler().consumeLine("[INFO] Building module " + i % 10);
+            }
+            archive.flush();
+
+            LogArchiveStatistics statistics = archive.getStatistics();
+            assertEquals(1000, statistics.getLines());
+            assertEquals(1000 * "[out] [INFO] Building module 0\n".length(), statistics.getUncompressedBytes());
+            assertEquals(Files.size(statistics.getFiles().get(0).toPath()), statistics.getCompressedBytes());
+            assertTrue(statistics.getCompressionRatio() > 10, statistics.toString());
+        }
+    }
+
+    @Test
+    void testRotatesBySize() throws IOException {
+        List<String> expected = new ArrayList<>();
+        LogArchiveStatistics statistics;
+        try (CompressedLogArchive archive = new CompressedLogArchive(temporaryFolder.toFile(), "build")
+                .setMaxFileSize(256)
+                .setFlushBlockSize(512)) {
+            for (int i = 0; i < 200; i++) {
+                String line = "line " + i + " " + Integer.toHexString(i * 0x9E3779B9);
+                archive.getErrorHandler().consumeLine(line);
+                expected.add("[err] " + line);
+            }
+            statistics = archive.getStatistics();
+        }
+
+        List<File> files = statistics.getFiles();
+        assertTrue(files.size() > 1, files.toString());
+        assertEquals("build-2.log.gz", files.get(1).getName());
+        List<String> lines = new ArrayList<>();
+        long size = 0;
+        for (File file : files) {
+            lines.addAll(read(file));
+            size += file.length();
+        }
+        assertEquals(expected, lines);
+        assertTrue(size >= statistics.getCompressedBytes());
+    }
+
+    @Test
+    void testClosedArchiveRejectsLines() throws IOException {
+        CompressedLogArchive archive = new CompressedLogArchive(temporaryFolder.toFile(), "build");
+        archive.close();
+        assertThrows(IOException.class, () -> archive.getOutputHandler().consumeLine("late"));
+        assertTrue(archive.getStatistics().getFiles().isEmpty());
+    }
+
+    @Test
+    void testInvalidSettings() {
+        CompressedLogArchive archive = new CompressedLogArchive(temporaryFolder.toFile(), "build");
+        assertThrows(IllegalArgumentException.class, () -> archive.setMaxFileSize(0));
+        assertThrows(IllegalArgumentException.class, () -> archive.setFlushBlockSize(-1));
+        assertThrows(NullPointerException.class, () -> new CompressedLogArchive(null, "build"));
+    }
+
+    @Test
+    void testTeeOutputHandler() throws IOException {
+        List<String> received = new ArrayList<>();
+        InvocationOutputHandler handler = received::add;
+        assertSame(handler, TeeOutputHandler.of(handler, null));
+        assertSame(handler, TeeOutputHandler.of(null, handler));
+        assertNull(TeeOutputHandler.of(null, null));
+
+        try (CompressedLogArchive archive = new CompressedLogArchive(temporaryFolder.toFile(), "build")) {
+            InvocationOutputHandler tee = TeeOutputHandler.of(handler, archive.getOutputHandler());
+            tee.consumeLine("line");
+            ((Flushable) tee).flush();
+            assertEquals(Arrays.asList("line"), received);
+            assertEquals(1, archive.getStatistics().getLines());
+            assertTrue(archive.getStatistics().getCompressedBytes() > 0);
+        }
+    }
+
+    @Test
+    void testStatisticsSince() {
+        File first = new File("build.log.gz");
+        File second = new File("build-2.log.gz");
+        LogArchiveStatistics start = new LogArchiveStatistics(10, 100, 20, Arrays.asList(first));
+        LogArchiveStatistics end = new LogArchiveStatistics(15, 160, 30, Arrays.asList(first, second));
+
+        LogArchiveStatistics delta = end.since(start);
+        assertEquals(5, delta.getLines());
+        assertEquals(60, delta.getUncompressedBytes());
+        assertEquals(10, delta.getCompressedBytes());
+        assertEquals(6.0, delta.getCompressionRatio(), 0.001);
+        assertEquals(Arrays.asList(first, second), delta.getFiles());
+    }
+
+    private static List<String> read(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file.toPath())), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+}
@@ -19,11 +19,22 @@
 package org.apache.maven.shared.invoker;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.maven.shared.utils.Os;
 import org.apache.maven.shared.utils.StringUtils;
@@ -34,6 +45,10 @@ import org.junit.jupiter.api.condition.OS;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DefaultInvokerTest {
@@ -58,6 +73,7 @@ class DefaultInvokerTest {
         InvocationResult result = invoker.execute(request);
 
         assertEquals(0, result.getExitCode());
+        assertNotNull(result.getMavenVersion());
     }
 
     @Test
@@ -217,6 +233,327 @@ class DefaultInvokerTest {
         assertTrue(output.contains("INVOKER_TEST_ENV_2=test-env-value-2"));
     }
 
+    @Test
+    void testLogArchive() throws Exception {
+        File basedir = getBasedirForBuild();
+        request.setBaseDirectory(basedir);
+        request.addArg("validate");
+
+        final List<String> outlines = new ArrayList<>();
+        request.setOutputHandler(outlines::add);
+
+        try (CompressedLogArchive archive = new CompressedLogArchive(new File(basedir, "target"), "build")) {
+            request.setLogArchive(archive);
+
+            InvocationResult result = invoker.execute(request);
+
+            assertEquals(0, result.getExitCode());
+            LogArchiveStatistics statistics = result.getLogArchiveStatistics();
+            assertTrue(statistics.getLines() >= outlines.size());
+            assertTrue(statistics.getCompressedBytes() > 0);
+            assertTrue(statistics.getCompressionRatio() > 1, statistics.toString());
+            assertEquals(archive.getStatistics().getFiles(), statistics.getFiles());
+        }
+    }
+
+    @Test
+    void testKillTrigger() throws Exception {
+        File basedir = getBasedirForBuild();
+        request.setBaseDirectory(basedir);
+        request.addArg("validate");
+        KillTrigger trigger = new KillTrigger("scanning", "Scanning for projects");
+        request.setKillTriggers(Arrays.asList(KillTrigger.BUILD_FAILURE, trigger));
+
+        InvocationResult result = invoker.execute(request);
+
+        assertEquals(trigger, result.getKillTrigger());
+        assertNotEquals(0, result.getExitCode());
+    }
+
+    @Test
+    void testRecordBuildEvents() throws Exception {
+        File basedir = getBasedirForBuild();
+        request.setBaseDirectory(basedir);
+        request.addArg("clean");
+        request.setRecordBuildEvents(true);
+
+        InvocationResult result = invoker.execute(request);
+
+        assertEquals(0, result.getExitCode());
+        BuildEventSummary summary = result.getBuildEventSummary();
+        assertNotNull(summary);
+        assertEquals(BuildEvent.Type.SESSION_STARTED, summary.getEvents().get(0).getType());
+        assertTrue(summary.getSessionNanos() > 0);
+        assertTrue(summary.getProjectNanos().containsKey("org.apache.maven.shared.invoker:test-record-build-events:1"));
+        assertTrue(
+                summary.getMojoNanos().keySet().stream().anyMatch(mojo -> mojo.endsWith(":clean")),
+                summary.getMojoNanos()::toString);
+    }
+
+    @Test
+    void testIngestTestReports() throws Exception {
+        File basedir = getBasedirForBuild();
+        request.setBaseDirectory(basedir);
+        request.addArgs(Arrays.asList("clean", "test"));
+        request.getProperties().setProperty("maven.test.failure.ignore", "true");
+        request.setIngestTestReports(true);
+
+        InvocationResult result = invoker.execute(request);
+
+        assertEquals(0, result.getExitCode());
+        TestReportSummary summary = result.getTestReportSummary();
+        assertEquals(1, summary.getReportCount());
+        assertEquals(2, summary.getTests());
+        assertEquals(1, summary.getFailures());
+        TestCaseResult failed = summary.getFailingTests().get(0);
+        assertEquals("org.apache.maven.shared.invoker.AppTest", failed.getClassName());
+        assertEquals("testFails", failed.getName());
+        assertEquals("expected failure", failed.getMessage());
+        assertEquals(basedir.getCanonicalFile(), failed.getModuleDirectory().getCanonicalFile());
+    }
+
+    @Test
+    void testStatistics() throws Exception {
+        File basedir = getBasedirForBuild();
+        request.setBaseDirectory(basedir);
+        request.addArg("validate");
+        InvokerStatistics statistics = new InvokerStatistics();
+        ((DefaultInvoker) invoker).setStatistics(statistics);
+
+        InvocationResult result = invoker.execute(request);
+
+        assertEquals(0, result.getExitCode());
+        assertEquals(1, statistics.getCompletedInvocations());
+        assertEquals(0, statistics.getActiveInvocations());
+        assertEquals(Long.valueOf(1), statistics.getExitCodeHistogram().get(0));
+        assertTrue(statistics.getOutputLines() > 0);
+        assertEquals(1, statistics.getSpawnLatency().getCount());
+        assertEquals(1, statistics.getTotalDuration().getCount());
+    }
+
+    @Test
+    void testFlightRecording() throws Exception {
+        File basedir = getBasedirForBuild();
+        request.setBaseDirectory(basedir);
+        request.addArg("validate");
+        request.setFlightRecordingPercentage(100);
+
+        InvocationResult result = invoker.execute(request);
+
+        assertEquals(0, result.getExitCode());
+        FlightRecordingSummary summary = result.getFlightRecordingSummary();
+        if (!FlightRecorderSupport.isSummaryAvailable()
+                || !FlightRecorderSupport.isRecordingSupported(result.getJavaVersion())) {
+            // the recording cannot be read by this JVM or taken by the JVM of Maven
+            assertNull(summary);
+            return;
+        }
+        assertNotNull(summary);
+        assertTrue(summary.getDurationMillis() > 0);
+        assertTrue(summary.getExecutionSamples() >= summary.getHotMethods().size());
+    }
+
+    @Test
+    void testGcLogging() throws Exception {
+        File basedir = getBasedirForBuild();
+        request.setBaseDirectory(basedir);
+        request.addArg("validate");
+        request.setMavenOpts("-XX:+UseSerialGC");
+        request.setGcLogging(true);
+
+        InvocationResult result = invoker.execute(request);
+
+        assertEquals(0, result.getExitCode());
+        GcLogSummary summary = result.getGcLogSummary();
+        if (RuntimeDiscovery.javaFeatureVersion(result.getJavaVersion()) < 9) {
+            // unified GC logging is not available to the JVM of Maven
+            assertNull(summary);
+            return;
+        }
+        assertNotNull(summary);
+        assertTrue(summary.getRecommendedMaxHeap() >= summary.getPeakHeapAfterGc());
+    }
+
+    @Test
+    void testJvmProfile() throws Exception {
+        File basedir = getBasedirForBuild();
+        request.setBaseDirectory(basedir);
+        request.addArg("validate");
+        request.setJvmProfile(JvmProfile.STARTUP);
+
+        InvocationResult result = invoker.execute(request);
+
+        assertEquals(0, result.getExitCode());
+        assertEquals(JvmProfile.STARTUP, result.getJvmProfile());
+    }
+
+    @Test
+    void testResumeRetries() throws Exception {
+        File basedir = getBasedirForBuild();
+        request.setBaseDirectory(basedir);
+        request.addArg("compile");
+        ((DefaultInvoker) invoker).setResumeRetries(1);
+
+        InvocationResult result = invoker.execute(request);
+
+        assertNotEquals(0, result.getExitCode());
+        assertEquals(":b", result.getResumeFrom());
+        assertEquals(1, result.getPreviousAttempts().size());
+        assertEquals(":b", result.getPreviousAttempts().get(0).getResumeFrom());
+        assertNull(request.getResumeFrom());
+    }
+
+    @Test
+    void testFailedTestRetries() throws Exception {
+        File basedir = getBasedirForBuild();
+        new File(basedir, "flaky.marker").delete();
+        request.setBaseDirectory(basedir);
+        request.addArgs(Arrays.asList("clean", "test"));
+        ((DefaultInvoker) invoker).setFailedTestRetries(1);
+
+        InvocationResult result = invoker.execute(request);
+
+        assertNotEquals(0, result.getExitCode());
+        assertEquals(1, result.getPreviousAttempts().size());
+        TestReportSummary summary = result.getTestReportSummary();
+        assertEquals(3, summary.getTests());
+        assertEquals(1, summary.getFailures());
+        assertEquals("testFails", summary.getFailingTests().get(0).getName());
+        assertEquals(1, summary.getFlakyTests().size());
+        assertEquals("testFlaky", summary.getFlakyTests().get(0).getName());
+        assertNull(request.getProperties().getProperty("test"));
+        assertNull(request.getProjects());
+    }
+
+    @Test
+    void testEvaluateExpressions() throws Exception {
+        File basedir = getBasedirForBuild();
+        File parent = new File(basedir, "pom.xml");
+        File child = new File(basedir, "child/pom.xml");
+        ExpressionEvaluator evaluator = new ExpressionEvaluator(invoker);
+
+        Map<File, Map<String, String>> values = evaluator.evaluate(
+                request,
+                Arrays.asList(parent, child),
+                Arrays.asList("project.version", "${custom.property}", "project.build.directory", "missing"));
+
+        assertEquals("1", values.get(parent).get("project.version"));
+        assertEquals("2", values.get(child).get("project.version"));
+        assertEquals("parent value", values.get(child).get("${custom.property}"));
+        assertEquals(
+                new File(child.getParentFile(), "target").getCanonicalFile(),
+                new File(values.get(child).get("project.build.directory")).getCanonicalFile());
+        assertNull(values.get(parent).get("missing"));
+        assertTrue(values.get(parent).containsKey("missing"));
+        assertNull(request.getPomFile());
+
+        // evaluated again for other properties
+        request.getProperties().setProperty("custom.property", "user value");
+        assertEquals(
+                "user value",
+                evaluator
+                        .evaluate(
+                                request, Collections.singletonList(child), Collections.singletonList("custom.property"))
+                        .get(child)
+                        .get("custom.property"));
+        request.getProperties().remove("custom.property");
+
+        // served from the cache
+        ((DefaultInvoker) invoker).setMavenHome(new File("missing"));
+        assertEquals(
+                "2",
+                evaluator
+                        .evaluate(
+                                request, Collections.singletonList(child), Collections.singletonList("project.version"))
+                        .get(child)
+                        .get("project.version"));
+    }
+
+    @Test
+    void testProjectInspector() throws Exception {
+        File basedir = getBasedirForBuild();
+        File child = new File(basedir, "child/pom.xml");
+        File cacheDirectory = new File(basedir, "target/inspector-cache");
+        deleteDirectory(cacheDirectory.toPath());
+        ProjectInspector inspector = new ProjectInspector(invoker, cacheDirectory);
+
+        EffectivePom pom = inspector.getEffectivePom(request, child);
+        DependencyNode tree = inspector.getDependencyTree(request, child);
+
+        assertEquals("org.apache.maven.shared.invoker:test-project-inspector-child:jar:1", pom.toString());
+        assertEquals("parent value", pom.getProperties().getProperty("custom.property"));
+        assertEquals("junit:junit:jar:4.13.1:test", pom.getDependencies().get(0).toString());
+        assertEquals("test-project-inspector-child", tree.getArtifactId());
+        assertEquals("junit", tree.getChildren().get(0).getArtifactId());
+        assertEquals(
+                "hamcrest-core", tree.getChildren().get(0).getChildren().get(0).getArtifactId());
+        assertNull(request.getPomFile());
+        assertTrue(request.isRecursive());
+
+        // served from the cache
+        ((DefaultInvoker) invoker).setMavenHome(new File("missing"));
+        assertEquals(pom.getXml(), inspector.getEffectivePom(request, child).getXml());
+    }
+
+    @Test
+    void testClassDataSharing() throws Exception {
+        File basedir = getBasedirForBuild();
+        File cacheDirectory = new File(basedir, "target/cds-cache");
+        deleteDirectory(cacheDirectory.toPath());
+        ((DefaultInvoker) invoker).setClassDataSharingDirectory(cacheDirectory);
+        request.setBaseDirectory(basedir);
+        request.addArg("validate");
+
+        InvocationResult result = invoker.execute(request);
+        assertEquals(0, result.getExitCode());
+        if (RuntimeDiscovery.javaFeatureVersion(result.getJavaVersion()) < ClassDataArchives.MIN_JAVA_VERSION) {
+            // dynamic archives are not supported by the JVM of Maven
+            assertFalse(cacheDirectory.exists());
+            return;
+        }
+
+        File[] archives = cacheDirectory.listFiles();
+        assertNotNull(archives);
+        assertEquals(1, archives.length);
+        assertTrue(archives[0].getName().endsWith(".jsa"));
+
+        assertEquals(0, invoker.execute(request).getExitCode());
+        assertEquals(1, cacheDirectory.listFiles().length);
+    }
+
+    @Test
+    void testRejectedSnapshotUpdateIsNotCoalesced() throws Exception {
+        SnapshotUpdateCoalescer coalescer = new SnapshotUpdateCoalescer(1, TimeUnit.HOURS);
+        AdmissionController admissionController = new AdmissionController(new HostMetrics() {
+                    @Override
+                    double loadAverage() {
+                        return 1000;
+                    }
+                })
+                .setMaxDelay(0, TimeUnit.MILLISECONDS);
+        ((DefaultInvoker) invoker).setSnapshotUpdateCoalescer(coalescer).setAdmissionController(admissionController);
+        request.setUpdateSnapshotsPolicy(UpdateSnapshotsPolicy.ALWAYS);
+        request.addArg("validate");
+
+        assertThrows(AdmissionRejectedException.class, () -> invoker.execute(request));
+        assertThrows(AdmissionRejectedException.class, () -> invoker.execute(request));
+
+        assertEquals(2, coalescer.getUpdateCount());
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    private void deleteDirectory(Path directory) throws IOException {
+        if (Files.exists(directory)) {
+            List<Path> paths;
+            try (Stream<Path> walk = Files.walk(directory)) {
+                paths = walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            }
+            for (Path path : paths) {
+                Files.delete(path);
+            }
+        }
+    }
+
     private Invoker newInvoker() {
         Invoker invoker = new DefaultInvoker();
 
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExpressionEvaluatorTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    @Test
+    void testNormalize() {
+        assertEquals("${project.version}", ExpressionEvaluator.normalize("project.version"));
+        assertEquals("${project.version}", ExpressionEvaluator.normalize("${project.version}"));
+        assertEquals(
+                "${project.groupId}:${project.artifactId}",
+                ExpressionEvaluator.normalize("${project.groupId}:${project.artifactId}"));
+    }
+
+    @Test
+    void testValues() throws Exception {
+        List<File> pomFiles = Arrays.asList(new File("a/pom.xml"), new File("b/pom.xml"));
+        List<String> expressions = Arrays.asList("project.version", "missing");
+        Properties output = new Properties();
+        output.setProperty("0.0", "1.0");
+        output.setProperty("1.0", "2.0");
+
+        List<Map<String, String>> values = ExpressionEvaluator.values(output, pomFiles, expressions);
+
+        assertEquals("1.0", values.get(0).get("project.version"));
+        assertEquals("2.0", values.get(1).get("project.version"));
+        assertNull(values.get(0).get("missing"));
+        assertEquals(expressions, Arrays.asList(values.get(1).keySet().toArray()));
+    }
+
+    @Test
+    void testValuesOfBrokenPom() {
+        List<File> pomFiles = Collections.singletonList(new File("a/pom.xml"));
+        Properties output = new Properties();
+        output.setProperty("0.error", "Non-parseable POM");
+
+        MavenInvocationException e = assertThrows(
+                MavenInvocationException.class,
+                () -> ExpressionEvaluator.values(output, pomFiles, Collections.singletonList("project.version")));
+
+        assertEquals("Failed to build " + pomFiles.get(0) + ": Non-parseable POM", e.getMessage());
+    }
+
+    @Test
+    void testHashChangesWithContent() throws Exception {
+        InvocationRequest request = new DefaultInvocationRequest();
+        File pomFile = temporaryFolder.resolve("pom.xml").toFile();
+        Files.write(pomFile.toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+        String hash = ExpressionEvaluator.hash(request, pomFile);
+
+        assertEquals(hash, ExpressionEvaluator.hash(request, pomFile));
+        Files.write(pomFile.toPath(), "<project></project>".getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(hash, ExpressionEvaluator.hash(request, pomFile));
+        assertThrows(
+                MavenInvocationException.class,
+                () -> ExpressionEvaluator.hash(request, new File(temporaryFolder.toFile(), "x")));
+    }
+
+    @Test
+    void testHashChangesWithConfiguration() throws Exception {
+        File pomFile = temporaryFolder.resolve("pom.xml").toFile();
+        Files.write(pomFile.toPath(), "<project/>".getBytes(StandardCharsets.UTF_8));
+        String hash = ExpressionEvaluator.hash(new DefaultInvocationRequest(), pomFile);
+
+        Properties properties = new Properties();
+        properties.setProperty("x", "y");
+        assertNotEquals(
+                hash, ExpressionEvaluator.hash(new DefaultInvocationRequest().setProperties(properties), pomFile));
+        assertNotEquals(
+                hash,
+                ExpressionEvaluator.hash(
+                        new DefaultInvocationRequest().setProfiles(Collections.singletonList("foo")), pomFile));
+    }
+}
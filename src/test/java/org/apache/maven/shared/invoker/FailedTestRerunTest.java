@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FailedTestRerunTest {
+
+    private final File base = new File("target/rerun");
+
+    @Test
+    void testTestFilter() {
+        List<TestCaseResult> tests = Arrays.asList(
+                failed("com.example.FooTest", "testA"),
+                failed("com.example.BarTest", "testC(int)[1]"),
+                failed("com.example.FooTest", "testB"),
+                failed("com.example.BazTest", "initializationError something"),
+                failed("com.example.BazTest", "testD"),
+                failed(null, "orphan"));
+
+        assertEquals(
+                "com.example.FooTest#testA+testB,com.example.BarTest#testC,com.example.BazTest",
+                FailedTestRerun.testFilter(tests));
+    }
+
+    @Test
+    void testProjects() {
+        List<TestCaseResult> tests = Arrays.asList(
+                failed("a.ATest", "test", new File(base, "module-a")),
+                failed("b.BTest", "test", new File(base, "parent/../module-b")),
+                failed("a.OtherTest", "test", new File(base, "module-a")),
+                failed("root.RootTest", "test", base));
+
+        assertEquals(Arrays.asList("module-a", "module-b", "."), FailedTestRerun.projects(base, tests));
+    }
+
+    @Test
+    void testApplyAndRestore() {
+        Properties properties = new Properties();
+        properties.setProperty("foo", "bar");
+        InvocationRequest request = new DefaultInvocationRequest()
+                .setProperties(properties)
+                .setProjects(Collections.singletonList("other"));
+
+        FailedTestRerun rerun = FailedTestRerun.apply(
+                request, base, Collections.singletonList(failed("a.ATest", "testX", new File(base, "module-a"))));
+
+        assertEquals("a.ATest#testX", request.getProperties().getProperty("test"));
+        assertEquals("a.ATest#testX", request.getProperties().getProperty("it.test"));
+        assertEquals("false", request.getProperties().getProperty("surefire.failIfNoSpecifiedTests"));
+        assertEquals("bar", request.getProperties().getProperty("foo"));
+        assertEquals(Collections.singletonList("module-a"), request.getProjects());
+        assertNull(properties.getProperty("test"));
+
+        rerun.restore(request);
+
+        assertSame(properties, request.getProperties());
+        assertEquals(Collections.singletonList("other"), request.getProjects());
+        assertFalse(request.isAlsoMake());
+    }
+
+    @Test
+    void testMerge() {
+        TestCaseResult flaky = failed("a.ATest", "testX");
+        TestCaseResult broken = failed("a.ATest", "testY");
+        TestReportSummary first =
+                new TestReportSummary(1, 10, 2, 0, 0, Arrays.asList(flaky, broken), Collections.emptyList());
+        TestReportSummary rerun = new TestReportSummary(
+                1, 2, 1, 0, 0, Collections.singletonList(failed("a.ATest", "testY")), Collections.emptyList());
+
+        TestReportSummary merged = first.merge(rerun);
+
+        assertEquals(10, merged.getTests());
+        assertEquals(1, merged.getFailures());
+        assertEquals(0, merged.getErrors());
+        assertEquals(Collections.singletonList("testY"), names(merged.getFailingTests()));
+        assertEquals(Collections.singletonList(flaky), merged.getFlakyTests());
+        assertSame(first, first.merge(null));
+    }
+
+    private TestCaseResult failed(String className, String name) {
+        return failed(className, name, base);
+    }
+
+    private static TestCaseResult failed(String className, String name, File moduleDirectory) {
+        return new TestCaseResult(className, name, 0.1, TestCaseResult.Status.FAILED, "boom", moduleDirectory);
+    }
+
+    private static List<String> names(List<TestCaseResult> tests) {
+        String[] names = new String[tests.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = tests.get(i).getName();
+        }
+        return Arrays.asList(names);
+    }
+}
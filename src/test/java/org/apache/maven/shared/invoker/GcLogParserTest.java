@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GcLogParserTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @Test
+    void testG1() throws Exception {
+        GcLogSummary summary = GcLogParser.parse(new StringReader("[0.005s][info][gc] Using G1\n"
+                + "[0.512s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->3M(256M) 3.456ms\n"
+                + "[1.020s][info][gc] GC(1) Pause Young (Concurrent Start) (G1 Humongous Allocation) 120M->90M(256M)"
+                + " 10.5ms\n"
+                + "[1.021s][info][gc] GC(2) Concurrent Mark Cycle\n"
+                + "[1.100s][info][gc] GC(2) Pause Remark 95M->95M(256M) 1.044ms\n"
+                + "[1.200s][info][gc] GC(2) Pause Cleanup 95M->95M(256M) 0.100ms\n"
+                + "[1.300s][info][gc] GC(2) Concurrent Mark Cycle 279.123ms\n"
+                + "[2.000s][info][gc] GC(3) Pause Full (System.gc()) 100M->60M(300M) 40.000ms\n"));
+
+        assertEquals(5, summary.getPauseCount());
+        assertEquals(55.1, summary.getTotalPauseMillis(), 0.001);
+        assertEquals(40.0, summary.getMaxPauseMillis(), 0.001);
+        assertEquals(95 * MB, summary.getPeakHeapAfterGc());
+        assertEquals(300 * MB, summary.getPeakHeapCapacity());
+        assertEquals(320 * MB, summary.getRecommendedMaxHeap());
+        assertEquals("-Xmx320m", summary.getRecommendedXmx());
+    }
+
+    @Test
+    void testParallel() throws Exception {
+        GcLogSummary summary = GcLogParser.parse(new StringReader(
+                "[0.300s][info][gc] GC(0) Pause Young (Allocation Failure) 1536K->512K(9728K) 0.789ms\n"));
+
+        assertEquals(1, summary.getPauseCount());
+        assertEquals(512 * 1024, summary.getPeakHeapAfterGc());
+        assertEquals(256 * MB, summary.getRecommendedMaxHeap());
+    }
+
+    @Test
+    void testZgc() throws Exception {
+        GcLogSummary summary = GcLogParser.parse(
+                new StringReader("[1.0s][info][gc] GC(0) Garbage Collection (Warmup) 410M(10%)->120M(3%)\n"));
+
+        assertEquals(0, summary.getPauseCount());
+        assertEquals(120 * MB, summary.getPeakHeapAfterGc());
+        assertEquals(0, summary.getPeakHeapCapacity());
+        assertEquals(384 * MB, summary.getRecommendedMaxHeap());
+    }
+
+    @Test
+    void testEmptyLog() throws Exception {
+        GcLogSummary summary = GcLogParser.parse(new StringReader(""));
+
+        assertEquals(0, summary.getPauseCount());
+        assertEquals("-Xmx256m", summary.getRecommendedXmx());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.shared.invoker.IndexedLogStore.EventKind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndexedLogStoreTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    @Test
+    void testRandomAccessByLineNumber() throws IOException {
+        try (IndexedLogStore store = new IndexedLogStore(temporaryFolder.toFile())) {
+            for (int i = 0; i < 1000; i++) {
+                store.consumeLine("[DEBUG] line " + i);
+            }
+            store.consumeLine("ünïcödé");
+            store.consumeLine(null);
+
+            assertEquals(1002, store.getLineCount());
+            assertEquals("[DEBUG] line 0", store.getLineAsString(0));
+            assertEquals("[DEBUG] line 567", store.getLineAsString(567));
+            assertEquals("ünïcödé", store.getLineAsString(1000));
+            assertEquals("", store.getLineAsString(1001));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.getLine(1002));
+            assertThrows(IndexOutOfBoundsException.class, () -> store.getLine(-1));
+        }
+    }
+
+    @Test
+    void testSlicesAreReadOnlyViews() throws IOException {
+        try (IndexedLogStore store = new IndexedLogStore(temporaryFolder.toFile())) {
+            store.consumeLine("first");
+            store.consumeLine("second");
+
+            ByteBuffer line = store.getLine(1);
+            assertTrue(line.isReadOnly());
+            assertEquals(0, line.position());
+            assertEquals(6, line.remaining());
+            assertEquals("second", StandardCharsets.UTF_8.decode(line).toString());
+        }
+    }
+
+    @Test
+    void testEventIndex() throws IOException {
+        try (IndexedLogStore store = new IndexedLogStore(temporaryFolder.toFile())) {
+            store.consumeLine("[INFO] Scanning for projects...");
+            store.consumeLine("[INFO] ------------------< org.apache.maven:module-a >------------------");
+            store.consumeLine("[INFO] --- maven-compiler-plugin:3.13.0:compile (default-compile) @ module-a ---");
+            store.consumeLine("[WARNING] deprecated API");
+            store.consumeLine("[INFO] ------------------< org.apache.maven:module-b >------------------");
+            store.consumeLine("[ERROR] first error");
+            store.consumeLine("[ERROR] second error");
+
+            assertEquals(2, store.getEventCount(EventKind.MODULE));
+            assertEquals(1, store.getEventLineNumber(EventKind.MODULE, 0));
+            assertEquals(4, store.getEventLineNumber(EventKind.MODULE, 1));
+            assertEquals(1, store.getEventCount(EventKind.WARNING));
+            assertEquals(2, store.getEventCount(EventKind.ERROR));
+            assertEquals(
+                    "[ERROR] second error",
+                    StandardCharsets.UTF_8
+                            .decode(store.getEvent(EventKind.ERROR, 1))
+                            .toString());
+            assertThrows(IndexOutOfBoundsException.class, () -> store.getEvent(EventKind.ERROR, 2));
+        }
+    }
+
+    @Test
+    void testClassify() {
+        assertEquals(EventKind.ERROR, IndexedLogStore.classify("[ERROR] Failed to execute goal"));
+        assertEquals(EventKind.WARNING, IndexedLogStore.classify("[WARNING] Using platform encoding"));
+        assertEquals(EventKind.MODULE, IndexedLogStore.classify("[INFO] --------< org.example:app >--------"));
+        assertNull(IndexedLogStore.classify("[INFO] --- jar:3.4.1:jar (default-jar) @ app ---"));
+        assertNull(IndexedLogStore.classify("[INFO] ------------------------------------------------------------"));
+        assertNull(IndexedLogStore.classify("[INFO] BUILD SUCCESS"));
+    }
+
+    @Test
+    void testSegments() throws IOException {
+        List<File> files;
+        try (IndexedLogStore store = new IndexedLogStore(temporaryFolder.toFile(), 64)) {
+            for (int i = 0; i < 20; i++) {
+                store.consumeLine("line " + i);
+            }
+            char[] large = new char[100];
+            Arrays.fill(large, 'x');
+            store.consumeLine(new String(large));
+            store.consumeLine("last");
+
+            for (int i = 0; i < 20; i++) {
+                assertEquals("line " + i, store.getLineAsString(i));
+            }
+            assertEquals(new String(large), store.getLineAsString(20));
+            assertEquals("last", store.getLineAsString(21));
+            files = store.getSegmentFiles();
+        }
+
+        assertTrue(files.size() > 2, files.toString());
+        assertEquals("segment-00000.log", files.get(0).getName());
+        StringBuilder content = new StringBuilder();
+        for (File file : files) {
+            content.append(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        }
+        assertTrue(content.toString().startsWith("line 0\nline 1\n"));
+        assertTrue(content.toString().endsWith("\nlast\n"));
+    }
+
+    @Test
+    void testClosedStoreRejectsLines() throws IOException {
+        IndexedLogStore store = new IndexedLogStore(temporaryFolder.toFile());
+        store.close();
+        assertThrows(IOException.class, () -> store.consumeLine("late"));
+        assertThrows(IllegalArgumentException.class, () -> new IndexedLogStore(temporaryFolder.toFile(), 0));
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvocationSchedulerTest {
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+
+    private final RecordingInvoker invoker = new RecordingInvoker(gate);
+
+    private final InvocationScheduler scheduler = new InvocationScheduler(invoker, 1);
+
+    @AfterEach
+    void tearDown() {
+        gate.countDown();
+        scheduler.close();
+    }
+
+    @Test
+    void testHigherPriorityIsDispatchedFirst() throws Exception {
+        Future<InvocationResult> blocker = scheduler.submit(request("blocker"), "team-a");
+        scheduler.submit(request("nightly"), "team-a", InvocationPriority.BULK);
+        scheduler.submit(request("regular"), "team-b", InvocationPriority.NORMAL);
+        Future<InvocationResult> last = scheduler.submit(request("ide"), "team-c", InvocationPriority.INTERACTIVE);
+
+        assertEquals(3, scheduler.getQueuedCount());
+        gate.countDown();
+        blocker.get(10, TimeUnit.SECONDS);
+        last.get(10, TimeUnit.SECONDS);
+        scheduler.close();
+        assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(Arrays.asList("blocker", "ide", "regular", "nightly"), invoker.executed());
+    }
+
+    @Test
+    void testClientsAreSharedFairly() throws Exception {
+        scheduler.submit(request("blocker"), "batch");
+        for (int i = 0; i < 4; i++) {
+            scheduler.submit(request("batch-" + i), "batch");
+        }
+        scheduler.submit(request("small-0"), "small");
+        scheduler.submit(request("small-1"), "small");
+
+        gate.countDown();
+        scheduler.close();
+        assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<String> executed = invoker.executed();
+        assertEquals(7, executed.size());
+        assertEquals("small-0", executed.get(1));
+        assertTrue(executed.indexOf("small-1") < executed.indexOf("batch-2"));
+    }
+
+    @Test
+    void testClientWeight() throws Exception {
+        scheduler.setClientWeight("heavy", 2);
+        scheduler.submit(request("blocker"), "other");
+        for (int i = 0; i < 4; i++) {
+            scheduler.submit(request("heavy-" + i), "heavy");
+            scheduler.submit(request("light-" + i), "light");
+        }
+
+        gate.countDown();
+        scheduler.close();
+        assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<String> executed = invoker.executed().subList(1, 7);
+        long heavy = executed.stream().filter(s -> s.startsWith("heavy")).count();
+        assertEquals(4, heavy);
+    }
+
+    @Test
+    void testCancelRemovesQueuedInvocation() throws Exception {
+        scheduler.submit(request("blocker"), "team-a");
+        Future<InvocationResult> cancelled = scheduler.submit(request("cancelled"), "team-a");
+
+        assertTrue(cancelled.cancel(false));
+        assertEquals(0, scheduler.getQueuedCount());
+
+        gate.countDown();
+        scheduler.close();
+        assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(Collections.singletonList("blocker"), invoker.executed());
+    }
+
+    @Test
+    void testQueueWaitStatistics() throws Exception {
+        scheduler.submit(request("blocker"), "team-a");
+        scheduler.submit(request("waiting"), "team-b");
+        Thread.sleep(50);
+
+        gate.countDown();
+        scheduler.close();
+        assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(2, scheduler.getQueueWaitStatistics().getCount());
+        assertEquals(
+                2, scheduler.getQueueWaitStatistics(InvocationPriority.NORMAL).getCount());
+        assertEquals(1, scheduler.getQueueWaitStatistics("team-b").getCount());
+        assertTrue(scheduler.getQueueWaitStatistics("team-b").getMaxWaitMillis() >= 50);
+        assertEquals(0, scheduler.getQueueWaitStatistics("unknown").getCount());
+    }
+
+    @Test
+    void testSubmitAfterClose() {
+        scheduler.close();
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.submit(request("late"), "team-a"));
+    }
+
+    private static InvocationRequest request(String name) {
+        return new DefaultInvocationRequest().setGoals(Collections.singletonList(name));
+    }
+
+    /**
+     * Records the executed requests, the first invocation blocks until the gate opens.
+     */
+    private static final class RecordingInvoker implements Invoker {
+
+        private final CountDownLatch gate;
+
+        private final List<String> executed = new ArrayList<>();
+
+        RecordingInvoker(CountDownLatch gate) {
+            this.gate = gate;
+        }
+
+        synchronized List<String> executed() {
+            return new ArrayList<>(executed);
+        }
+
+        @Override
+        public InvocationResult execute(InvocationRequest request) throws MavenInvocationException {
+            synchronized (this) {
+                executed.add(request.getGoals().get(0));
+            }
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            DefaultInvocationResult result = new DefaultInvocationResult();
+            result.setExitCode(0);
+            return result;
+        }
+
+        @Override
+        public File getLocalRepositoryDirectory() {
+            return null;
+        }
+
+        @Override
+        public File getWorkingDirectory() {
+            return null;
+        }
+
+        @Override
+        public InvokerLogger getLogger() {
+            return null;
+        }
+
+        @Override
+        public File getMavenHome() {
+            return null;
+        }
+
+        @Override
+        public Invoker setMavenHome(File mavenHome) {
+            return this;
+        }
+
+        @Override
+        public File getMavenExecutable() {
+            return null;
+        }
+
+        @Override
+        public Invoker setMavenExecutable(File mavenExecutable) {
+            return this;
+        }
+
+        @Override
+        public Invoker setLocalRepositoryDirectory(File localRepositoryDirectory) {
+            return this;
+        }
+
+        @Override
+        public Invoker setLogger(InvokerLogger logger) {
+            return this;
+        }
+
+        @Deprecated
+        @Override
+        public Invoker setWorkingDirectory(File workingDirectory) {
+            return this;
+        }
+
+        @Deprecated
+        @Override
+        public Invoker setInputStream(InputStream inputStream) {
+            return this;
+        }
+
+        @Deprecated
+        @Override
+        public Invoker setOutputHandler(InvocationOutputHandler outputHandler) {
+            return this;
+        }
+
+        @Deprecated
+        @Override
+        public Invoker setErrorHandler(InvocationOutputHandler errorHandler) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.shared.utils.cli.CommandLineException;
+import org.apache.maven.shared.utils.cli.CommandLineTimeOutException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvokerStatisticsTest {
+
+    private final InvokerStatistics statistics = new InvokerStatistics();
+
+    @Test
+    void testCounters() {
+        statistics.invocationQueued();
+        statistics.invocationQueued();
+        statistics.invocationDequeued();
+        statistics.invocationStarted();
+        statistics.invocationStarted();
+
+        assertEquals(1, statistics.getQueuedInvocations());
+        assertEquals(2, statistics.getActiveInvocations());
+
+        statistics.invocationCompleted(0);
+        statistics.invocationFinished(TimeUnit.SECONDS.toNanos(2));
+        statistics.invocationFailed(new CommandLineTimeOutException("Process timed out after 1 seconds."));
+        statistics.invocationFailed(new CommandLineException("Error while executing process."));
+        statistics.invocationKilled();
+        statistics.invocationFinished(TimeUnit.SECONDS.toNanos(1));
+
+        assertEquals(0, statistics.getActiveInvocations());
+        assertEquals(1, statistics.getCompletedInvocations());
+        assertEquals(2, statistics.getFailedInvocations());
+        assertEquals(1, statistics.getTimeouts());
+        assertEquals(1, statistics.getKills());
+        assertEquals(Collections.singletonMap(0, 1L), statistics.getExitCodeHistogram());
+        assertEquals(2, statistics.getTotalDuration().getCount());
+    }
+
+    @Test
+    void testOutputCounting() throws Exception {
+        StringBuilder out = new StringBuilder();
+        InvocationOutputHandler handler = statistics.count(out::append);
+
+        handler.consumeLine("[INFO] one");
+        handler.consumeLine("");
+
+        assertEquals("[INFO] one", out.toString());
+        assertEquals(2, statistics.getOutputLines());
+        assertEquals(12, statistics.getOutputCharacters());
+    }
+
+    @Test
+    void testReset() {
+        statistics.invocationStarted();
+        statistics.invocationCompleted(1);
+        statistics.processSpawned(1000);
+
+        statistics.reset();
+
+        assertEquals(1, statistics.getActiveInvocations());
+        assertEquals(0, statistics.getCompletedInvocations());
+        assertTrue(statistics.getExitCodeHistogram().isEmpty());
+        assertEquals(0, statistics.getSpawnLatency().getCount());
+    }
+
+    @Test
+    void testPercentiles() {
+        for (int i = 1; i <= 100; i++) {
+            statistics.processSpawned(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        LatencyPercentiles percentiles = statistics.getSpawnLatency();
+
+        assertEquals(100, percentiles.getCount());
+        assertEquals(50, percentiles.getP50Millis(), 50 * 0.125);
+        assertEquals(90, percentiles.getP90Millis(), 90 * 0.125);
+        assertEquals(99, percentiles.getP99Millis(), 99 * 0.125);
+        assertEquals(100, percentiles.getMaxMillis(), 0.001);
+    }
+
+    @Test
+    void testHistogramBuckets() {
+        for (long value : new long[] {0, 1, 7, 8, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.upperBound(index) >= value, () -> "upper bound of " + value);
+            assertTrue(index == 0 || LatencyHistogram.upperBound(index - 1) < value, () -> "lower bound of " + value);
+        }
+    }
+
+    @Test
+    void testRegisterMBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        statistics.invocationCompleted(1);
+        statistics.processSpawned(TimeUnit.MILLISECONDS.toNanos(5));
+
+        ObjectName name = statistics.registerMBean("test");
+        try {
+            assertEquals(1L, server.getAttribute(name, "CompletedInvocations"));
+            CompositeData spawnLatency = (CompositeData) server.getAttribute(name, "SpawnLatency");
+            assertEquals(1L, spawnLatency.get("count"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "CompletedInvocations"));
+        } finally {
+            statistics.unregisterMBean();
+        }
+
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.shared.utils.cli.Commandline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.condition.OS;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class KillTriggerTest {
+
+    private final List<String> out = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void testMatcher() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList("he", "she", "his", "hers"));
+
+        assertEquals(-1, matcher.find(""));
+        assertEquals(-1, matcher.find("xyz h s hi"));
+        assertEquals(0, matcher.find("the"));
+        assertEquals(1, matcher.find("ushers"));
+        assertEquals(2, matcher.find("this"));
+        assertEquals(0, matcher.find("hers"));
+    }
+
+    @Test
+    void testMatcherFollowsFailureLinks() {
+        MultiPatternMatcher matcher = new MultiPatternMatcher(Arrays.asList("abcd", "bce", "x"));
+
+        assertEquals(1, matcher.find("abce"));
+        assertEquals(2, matcher.find("abcx"));
+        assertEquals(-1, new MultiPatternMatcher(Collections.emptyList()).find("anything"));
+        assertThrows(IllegalArgumentException.class, () -> new MultiPatternMatcher(Arrays.asList("a", "")));
+    }
+
+    @Test
+    void testDefaults() {
+        KillSwitch killSwitch = new KillSwitch(KillTrigger.defaults());
+
+        killSwitch.match("[INFO] Building module-a 1.0");
+        assertNull(killSwitch.getFiredTrigger());
+
+        killSwitch.match("[ERROR] Failed to execute goal on project app: Could not resolve dependencies for project");
+        assertSame(KillTrigger.UNRESOLVED_DEPENDENCIES, killSwitch.getFiredTrigger());
+
+        // the first trigger wins
+        killSwitch.match("[INFO] BUILD FAILURE");
+        assertSame(KillTrigger.UNRESOLVED_DEPENDENCIES, killSwitch.getFiredTrigger());
+    }
+
+    @Test
+    void testCustomTrigger() throws Exception {
+        KillTrigger custom = new KillTrigger("flaky-infra", "Connection reset by peer");
+        KillSwitch killSwitch = new KillSwitch(Arrays.asList(KillTrigger.OUT_OF_MEMORY, custom));
+        InvocationOutputHandler handler = killSwitch.watch(out::add);
+
+        handler.consumeLine("[WARNING] Connection reset by peer");
+
+        assertEquals(Collections.singletonList("[WARNING] Connection reset by peer"), out);
+        assertEquals(custom, killSwitch.getFiredTrigger());
+        assertEquals(custom, new KillTrigger("flaky-infra", "Connection reset by peer"));
+        assertThrows(IllegalArgumentException.class, () -> new KillTrigger("empty", ""));
+    }
+
+    @Test
+    void testRequestTriggers() {
+        InvocationRequest request = new DefaultInvocationRequest();
+        assertEquals(Collections.emptySet(), request.getKillTriggers());
+
+        request.setKillTriggers(KillTrigger.defaults());
+        request.addKillTrigger(KillTrigger.BUILD_FAILURE);
+        assertEquals(KillTrigger.defaults(), request.getKillTriggers());
+
+        request.setKillTriggers(null);
+        assertEquals(Collections.emptySet(), request.getKillTriggers());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    @EnabledForJreRange(min = JRE.JAVA_9)
+    void testStopsProcessTree() {
+        // the background process keeps the output pipe open unless the whole tree is destroyed
+        Commandline cli = new Commandline();
+        cli.setExecutable("/bin/sh");
+        cli.createArg().setValue("-c");
+        cli.createArg().setValue("sleep 60 & echo started; echo '[INFO] BUILD FAILURE'; wait");
+        KillSwitch killSwitch = new KillSwitch(KillTrigger.defaults());
+
+        int exitCode = assertTimeoutPreemptively(
+                Duration.ofSeconds(30),
+                () -> CommandLineExecutor.execute(
+                        cli, null, killSwitch.watch(out::add), null, 0, false, killSwitch::attach));
+
+        assertNotEquals(0, exitCode);
+        assertSame(KillTrigger.BUILD_FAILURE, killSwitch.getFiredTrigger());
+        assertEquals(Arrays.asList("started", "[INFO] BUILD FAILURE"), out);
+    }
+}
@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.maven.shared.utils.Os;
 import org.apache.maven.shared.utils.cli.Commandline;
@@ -44,6 +45,8 @@ import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
@@ -316,6 +319,39 @@ class MavenCommandLineBuilderTest {
         assertArgumentsNotPresent(cli, Collections.singleton("-U"));
     }
 
+    @Test
+    void testShouldCoalesceSnapshotUpdates() {
+        SnapshotUpdateCoalescer coalescer = new SnapshotUpdateCoalescer(1, TimeUnit.HOURS);
+        mclb.setSnapshotUpdateCoalescer(coalescer);
+        File localRepository = temporaryFolder.toFile();
+
+        mclb.setFlags(
+                newRequest()
+                        .setLocalRepositoryDirectory(localRepository)
+                        .setUpdateSnapshotsPolicy(UpdateSnapshotsPolicy.ALWAYS),
+                cli);
+
+        assertArgumentsPresent(cli, Collections.singleton("-U"));
+        mclb.getSnapshotUpdateClaim().complete(true);
+
+        Commandline second = new Commandline();
+        mclb.setFlags(
+                newRequest()
+                        .setLocalRepositoryDirectory(localRepository)
+                        .setUpdateSnapshotsPolicy(UpdateSnapshotsPolicy.ALWAYS),
+                second);
+
+        assertArgumentsPresent(second, Collections.singleton("-nsu"));
+        assertArgumentsNotPresent(second, Collections.singleton("-U"));
+
+        Commandline other = new Commandline();
+        mclb.setFlags(newRequest().setUpdateSnapshotsPolicy(UpdateSnapshotsPolicy.ALWAYS), other);
+
+        assertArgumentsPresent(other, Collections.singleton("-U"));
+        assertEquals(2, coalescer.getUpdateCount());
+        assertEquals(1, coalescer.getCoalescedCount());
+    }
+
     @Test
     void testShouldSetDebugFlagFromRequest() {
 
@@ -370,6 +406,55 @@ class MavenCommandLineBuilderTest {
         assertArgumentsPresentInOrder(cli, "-b", "builder-id-123");
     }
 
+    @Test
+    void testShouldDropOptionsUnsupportedByMavenVersion() throws Exception {
+        File mavenHome = newMavenHome("3.9.6");
+        File javaHome = Files.createDirectories(temporaryFolder.resolve("jdk")).toFile();
+        RuntimeDiscoveryTest.writeRelease(javaHome, "17.0.9");
+        InvocationRequest request = newRequest()
+                .setMavenHome(mavenHome)
+                .setJavaHome(javaHome)
+                .setBaseDirectory(temporaryFolder.toFile())
+                .setBuilder("singlethreaded")
+                .setIgnoreTransitiveRepositories(true);
+
+        Commandline commandline = mclb.build(request);
+
+        assertArgumentsPresentInOrder(commandline, "-b", "singlethreaded");
+        assertArgumentsNotPresent(commandline, Collections.singleton("-itr"));
+        assertEquals("3.9.6", mclb.getMavenVersion());
+        assertEquals("17.0.9", mclb.getJavaVersion());
+    }
+
+    @Test
+    void testShouldKeepOptionsSupportedByMavenVersion() throws Exception {
+        InvocationRequest request = newRequest()
+                .setMavenHome(newMavenHome("4.0.0-rc-2"))
+                .setBaseDirectory(temporaryFolder.toFile())
+                .setIgnoreTransitiveRepositories(true);
+
+        Commandline commandline = mclb.build(request);
+
+        assertArgumentsPresent(commandline, Collections.singleton("-itr"));
+        assertEquals("4.0.0-rc-2", mclb.getMavenVersion());
+    }
+
+    @Test
+    void testShouldKeepIgnoreTransitiveRepositoriesSinceMaven397() throws Exception {
+        for (String version : Arrays.asList("3.9.7", "3.9.11")) {
+            InvocationRequest request = newRequest()
+                    .setMavenHome(newMavenHome(version))
+                    .setBaseDirectory(temporaryFolder.toFile())
+                    .setIgnoreTransitiveRepositories(true);
+
+            MavenCommandLineBuilder builder = new MavenCommandLineBuilder();
+            Commandline commandline = builder.build(request);
+
+            assertArgumentsPresent(commandline, Collections.singleton("-itr"));
+            assertEquals(version, builder.getMavenVersion());
+        }
+    }
+
     @Test
     void testAlsoMake() {
 
@@ -757,6 +842,63 @@ class MavenCommandLineBuilderTest {
         assertArgumentsPresentInOrder(cli, "-T", "2.0C");
     }
 
+    @Test
+    void testShouldAssignAdaptiveThreads() {
+        ThreadAllocator allocator = new ThreadAllocator(new HostMetrics() {
+            @Override
+            int availableProcessors() {
+                return 4;
+            }
+
+            @Override
+            double cpuQuota() {
+                return UNKNOWN;
+            }
+        });
+        mclb.setThreadAllocator(allocator);
+
+        mclb.setThreads(newRequest().setThreads("2.0C").setAdaptiveThreads(true), cli);
+
+        assertArgumentsPresentInOrder(cli, "-T", "4");
+        assertNull(mclb.getThreadAllocation());
+        assertEquals(0, allocator.getRunningCount());
+
+        ThreadAllocator.Allocation allocation = mclb.allocateThreads();
+
+        assertEquals(4, allocation.getThreads());
+        assertEquals(1, allocator.getRunningCount());
+        allocation.close();
+        assertEquals(0, allocator.getRunningCount());
+    }
+
+    @Test
+    void testShouldAssignAdaptiveThreadsOnAllocation() {
+        ThreadAllocator allocator = new ThreadAllocator(new HostMetrics() {
+            @Override
+            int availableProcessors() {
+                return 4;
+            }
+
+            @Override
+            double cpuQuota() {
+                return UNKNOWN;
+            }
+        });
+        mclb.setThreadAllocator(allocator);
+        mclb.setThreads(newRequest().setAdaptiveThreads(true), cli);
+        assertArgumentsPresentInOrder(cli, "-T", "4");
+
+        // another invocation started while this one was queued
+        try (ThreadAllocator.Allocation other = allocator.allocate("2", false)) {
+            try (ThreadAllocator.Allocation allocation = mclb.allocateThreads()) {
+                assertEquals(2, allocation.getThreads());
+                assertArgumentsPresentInOrder(cli, "-T", "2");
+                assertSame(allocation, mclb.allocateThreads());
+            }
+        }
+        assertEquals(0, allocator.getRunningCount());
+    }
+
     @Test
     void testBuildTypicalMavenInvocationEndToEnd() throws Exception {
         File mavenDir = setupTempMavenHomeIfMissing(false);
@@ -830,6 +972,134 @@ class MavenCommandLineBuilderTest {
         assertArgumentsPresentInOrder(commandline, "-P", profile1 + "," + profile2);
     }
 
+    @Test
+    void testShouldInjectBuildEventSpy() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("maven.ext.class.path", "/opt/ext.jar");
+
+        mclb.setBuildEventSpy(newRequest().setRecordBuildEvents(true).setProperties(properties), cli);
+
+        File eventsFile = mclb.getBuildEventsFile();
+        assertTrue(eventsFile.isFile());
+        eventsFile.delete();
+        assertArgumentsPresentInOrder(
+                cli,
+                "-D",
+                "maven.ext.class.path=/opt/ext.jar" + File.pathSeparator
+                        + BuildEventRecording.getSpyJar().getAbsolutePath(),
+                "-D",
+                "maven.invoker.buildEvents=" + eventsFile.getAbsolutePath());
+    }
+
+    @Test
+    void testShouldNotInjectBuildEventSpyByDefault() throws Exception {
+        mclb.setBuildEventSpy(newRequest(), cli);
+
+        assertNull(mclb.getBuildEventsFile());
+        assertEquals(0, cli.getArguments().length);
+    }
+
+    @Test
+    void testShouldStartFlightRecordingWhenSampled() throws Exception {
+        assumeTrue(FlightRecorderSupport.isSummaryAvailable());
+
+        mclb.setFlightRecording(newRequest().setMavenOpts("-Xmx512m").setFlightRecordingPercentage(100), cli);
+
+        File recordingFile = mclb.getFlightRecordingFile();
+        assertTrue(recordingFile.isFile());
+        recordingFile.delete();
+        assertEnvironmentVariablePresent(
+                cli,
+                "MAVEN_OPTS",
+                "-Xmx512m -XX:StartFlightRecording=settings=default,dumponexit=true,filename="
+                        + recordingFile.getAbsolutePath());
+    }
+
+    @Test
+    void testShouldNotStartFlightRecordingByDefault() throws Exception {
+        mclb.setFlightRecording(newRequest(), cli);
+
+        assertNull(mclb.getFlightRecordingFile());
+        assertFalse(Arrays.stream(cli.getEnvironmentVariables()).anyMatch(env -> env.contains("StartFlightRecording")));
+    }
+
+    @Test
+    void testShouldLogGcInShellEnvironment() throws Exception {
+        InvocationRequest request = newRequest().setGcLogging(true);
+        request.addShellEnvironment("MAVEN_OPTS", "-Xmx1g");
+
+        mclb.setShellEnvironment(request, cli);
+
+        File gcLogFile = mclb.getGcLogFile();
+        assertTrue(gcLogFile.isFile());
+        gcLogFile.delete();
+        assertEnvironmentVariablePresent(
+                cli, "MAVEN_OPTS", "-Xmx1g -Xlog:gc:file=\"" + gcLogFile.getAbsolutePath() + "\"");
+    }
+
+    @Test
+    void testShouldMergeJvmProfileIntoShellEnvironment() throws Exception {
+        Files.createDirectories(temporaryFolder.resolve(".mvn"));
+        Files.write(temporaryFolder.resolve(".mvn/jvm.config"), Collections.singletonList("-XX:+UseParallelGC"));
+        mclb.setBaseDirectory(temporaryFolder.toFile());
+        InvocationRequest request = newRequest().setMavenOpts("-Xms1g").setJvmProfile(JvmProfile.STARTUP);
+
+        mclb.setShellEnvironment(request, cli);
+
+        assertEnvironmentVariablePresent(cli, "MAVEN_OPTS", "-Xms1g -XX:TieredStopAtLevel=1 -Xshare:auto");
+    }
+
+    @Test
+    void testShouldNotLogGcOnJava8() throws Exception {
+        File javaHome = Files.createDirectories(temporaryFolder.resolve("jdk8")).toFile();
+        RuntimeDiscoveryTest.writeRelease(javaHome, "1.8.0_392");
+        InvocationRequest request = newRequest()
+                .setMavenHome(newMavenHome("3.9.6"))
+                .setJavaHome(javaHome)
+                .setBaseDirectory(temporaryFolder.toFile())
+                .setGcLogging(true);
+
+        Commandline commandline = mclb.build(request);
+
+        assertEquals("1.8.0_392", mclb.getJavaVersion());
+        assertNull(mclb.getGcLogFile());
+        assertFalse(Arrays.stream(commandline.getEnvironmentVariables()).anyMatch(env -> env.contains("-Xlog")));
+    }
+
+    @Test
+    void testShouldNotStartFlightRecordingOnUnsupportedJava() throws Exception {
+        assumeTrue(FlightRecorderSupport.isSummaryAvailable());
+        File javaHome = Files.createDirectories(temporaryFolder.resolve("jdk8")).toFile();
+        RuntimeDiscoveryTest.writeRelease(javaHome, "1.8.0_252");
+        InvocationRequest request = newRequest()
+                .setMavenHome(newMavenHome("3.9.6"))
+                .setJavaHome(javaHome)
+                .setBaseDirectory(temporaryFolder.toFile())
+                .setFlightRecordingPercentage(100);
+
+        Commandline commandline = mclb.build(request);
+
+        assertNull(mclb.getFlightRecordingFile());
+        assertFalse(Arrays.stream(commandline.getEnvironmentVariables())
+                .anyMatch(env -> env.contains("StartFlightRecording")));
+    }
+
+    @Test
+    void testFlightRecordingSupportedByJava() {
+        assertTrue(FlightRecorderSupport.isRecordingSupported("1.8.0_262"));
+        assertTrue(FlightRecorderSupport.isRecordingSupported("1.8.0_392"));
+        assertTrue(FlightRecorderSupport.isRecordingSupported("11.0.21"));
+        assertTrue(FlightRecorderSupport.isRecordingSupported("21"));
+        assertFalse(FlightRecorderSupport.isRecordingSupported("1.8.0_252"));
+        assertFalse(FlightRecorderSupport.isRecordingSupported("1.8.0"));
+        assertFalse(FlightRecorderSupport.isRecordingSupported("10.0.2"));
+    }
+
+    @Test
+    void testShouldRejectInvalidFlightRecordingPercentage() {
+        assertThrows(IllegalArgumentException.class, () -> newRequest().setFlightRecordingPercentage(101));
+    }
+
     @Test
     void testMvnExecutableFromInvoker() throws Exception {
         assumeTrue(Objects.nonNull(System.getProperty("maven.home")), "Test only works when maven.home is set");
@@ -937,6 +1207,18 @@ class MavenCommandLineBuilderTest {
         }
     }
 
+    private File newMavenHome(String version) throws IOException {
+        File mavenHome = Files.createDirectories(temporaryFolder.resolve("maven-" + version))
+                .toFile();
+        File bin = new File(mavenHome, "bin");
+        File lib = new File(mavenHome, "lib");
+        bin.mkdirs();
+        lib.mkdirs();
+        createDummyFile(bin, Os.isFamily(Os.FAMILY_WINDOWS) ? "mvn.cmd" : "mvn");
+        RuntimeDiscoveryTest.writeMavenCore(lib, version, true);
+        return mavenHome;
+    }
+
     private File createDummyFile(File directory, String filename) throws IOException {
         File dummyFile = new File(directory, filename);
 
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectInspectorTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    @Test
+    void testParseTgf() throws Exception {
+        String tgf = "1 org.example:app:jar:1.0\n"
+                + "2 junit:junit:jar:4.13.1:test\n"
+                + "3 org.hamcrest:hamcrest-core:jar:1.3:test\n"
+                + "4 org.example:native:so:linux-x86_64:2.0:compile (optional)\n"
+                + "#\n"
+                + "2 3 test\n"
+                + "1 2 test\n"
+                + "1 4 compile\n";
+
+        DependencyNode root = ProjectInspector.parseTgf(new BufferedReader(new StringReader(tgf)));
+
+        assertEquals("org.example:app:jar:1.0", root.toString());
+        assertNull(root.getScope());
+        assertEquals(2, root.getChildren().size());
+        DependencyNode junit = root.getChildren().get(0);
+        assertEquals("junit", junit.getGroupId());
+        assertEquals("4.13.1", junit.getVersion());
+        assertEquals("test", junit.getScope());
+        assertEquals("hamcrest-core", junit.getChildren().get(0).getArtifactId());
+        DependencyNode nativeLib = root.getChildren().get(1);
+        assertEquals("so", nativeLib.getType());
+        assertEquals("linux-x86_64", nativeLib.getClassifier());
+        assertEquals("2.0", nativeLib.getVersion());
+        assertTrue(nativeLib.isOptional());
+        assertFalse(junit.isOptional());
+    }
+
+    @Test
+    void testParseMalformedTgf() {
+        assertThrows(
+                Exception.class, () -> ProjectInspector.parseTgf(new BufferedReader(new StringReader("1 a:b\n#\n"))));
+        assertThrows(
+                Exception.class,
+                () -> ProjectInspector.parseTgf(new BufferedReader(new StringReader("1 a:b:jar:1\n#\n1 1 x\n"))));
+    }
+
+    @Test
+    void testParseEffectivePom() throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<!-- Effective POM -->\n"
+                + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+                + "  <parent><groupId>org.example</groupId><artifactId>parent</artifactId><version>1</version></parent>\n"
+                + "  <groupId>org.example</groupId>\n"
+                + "  <artifactId>app</artifactId>\n"
+                + "  <version>1.0</version>\n"
+                + "  <packaging>pom</packaging>\n"
+                + "  <properties><java.version>17</java.version></properties>\n"
+                + "  <modules><module>core</module></modules>\n"
+                + "  <dependencyManagement><dependencies><dependency>\n"
+                + "    <groupId>managed</groupId><artifactId>managed</artifactId><version>1</version>\n"
+                + "  </dependency></dependencies></dependencyManagement>\n"
+                + "  <dependencies>\n"
+                + "    <dependency><groupId>junit</groupId><artifactId>junit</artifactId><version>4.13.1</version>"
+                + "<scope>test</scope></dependency>\n"
+                + "    <dependency><groupId>org.example</groupId><artifactId>lib</artifactId><version>2</version>"
+                + "<classifier>tests</classifier><optional>true</optional></dependency>\n"
+                + "  </dependencies>\n"
+                + "  <build><plugins><plugin><artifactId>p</artifactId><version>9</version></plugin></plugins></build>\n"
+                + "</project>\n";
+
+        EffectivePom pom = ProjectInspector.parseEffectivePom(xml);
+
+        assertEquals("org.example:app:pom:1.0", pom.toString());
+        assertNull(pom.getName());
+        assertEquals("17", pom.getProperties().getProperty("java.version"));
+        assertEquals(1, pom.getModules().size());
+        assertEquals(2, pom.getDependencies().size());
+        assertEquals("junit:junit:jar:4.13.1:test", pom.getDependencies().get(0).toString());
+        assertEquals(
+                "org.example:lib:jar:tests:2:compile (optional)",
+                pom.getDependencies().get(1).toString());
+        assertEquals(xml, pom.getXml());
+    }
+
+    @Test
+    void testParseParent() {
+        byte[] pom = ("<project><modelVersion>4.0.0</modelVersion><parent><groupId>g</groupId>"
+                        + "<artifactId>p</artifactId><version>1</version><relativePath/></parent></project>")
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertArrayEquals(new String[] {"g", "p", "1", ""}, ProjectInspector.parseParent(pom));
+        assertNull(ProjectInspector.parseParent("<project/>".getBytes(StandardCharsets.UTF_8)));
+        assertNull(ProjectInspector.parseParent("<project".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testCacheKeyCoversParentChain() throws Exception {
+        File parent = temporaryFolder.resolve("pom.xml").toFile();
+        File child = temporaryFolder.resolve("child/pom.xml").toFile();
+        Files.createDirectories(child.getParentFile().toPath());
+        write(parent, "<project><artifactId>p</artifactId></project>");
+        write(
+                child,
+                "<project><parent><groupId>g</groupId><artifactId>p</artifactId><version>1</version></parent>"
+                        + "</project>");
+        InvocationRequest request = new DefaultInvocationRequest().setUserSettingsFile(new File("missing.xml"));
+        String key = ProjectInspector.cacheKey(request, child, ProjectInspector.EFFECTIVE_POM_GOAL);
+
+        assertEquals(key, ProjectInspector.cacheKey(request, child, ProjectInspector.EFFECTIVE_POM_GOAL));
+        assertNotEquals(key, ProjectInspector.cacheKey(request, child, ProjectInspector.DEPENDENCY_TREE_GOAL));
+
+        write(parent, "<project><artifactId>p</artifactId><packaging>pom</packaging></project>");
+        String changedParent = ProjectInspector.cacheKey(request, child, ProjectInspector.EFFECTIVE_POM_GOAL);
+        assertNotEquals(key, changedParent);
+
+        request.setProfiles(Collections.singletonList("ci"));
+        assertNotEquals(changedParent, ProjectInspector.cacheKey(request, child, ProjectInspector.EFFECTIVE_POM_GOAL));
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
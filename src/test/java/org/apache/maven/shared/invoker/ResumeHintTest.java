@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResumeHintTest {
+
+    @Test
+    void testParse() {
+        assertEquals(":module-b", ResumeHint.parse("[ERROR]   mvn <args> -rf :module-b"));
+        assertEquals(
+                ":module-b",
+                ResumeHint.parse("[\u001B[1;31mERROR\u001B[m] \u001B[1m  mvn <args> -rf :module-b\u001B[m"));
+        assertNull(ResumeHint.parse("[INFO] Building module-b 1.0"));
+        assertNull(ResumeHint.parse("[INFO] -rfoo"));
+    }
+
+    @Test
+    void testWatchKeepsLastHint() throws Exception {
+        ResumeHint hint = new ResumeHint();
+        List<String> lines = Arrays.asList("[ERROR]   mvn <args> -rf :a", "[INFO] done", "[ERROR]   mvn <args> -rf :b");
+        StringBuilder out = new StringBuilder();
+        InvocationOutputHandler handler = hint.watch(out::append);
+
+        for (String line : lines) {
+            handler.consumeLine(line);
+        }
+
+        assertEquals(":b", hint.getResumeFrom());
+        assertEquals(String.join("", lines), out.toString());
+    }
+
+    @Test
+    void testParseFailedPlugin() {
+        assertEquals(
+                "maven-surefire-plugin",
+                ResumeHint.parseFailedPlugin("[ERROR] Failed to execute goal "
+                        + "org.apache.maven.plugins:maven-surefire-plugin:3.2.5:test (default-test) on project b"));
+        assertNull(ResumeHint.parseFailedPlugin("[INFO] BUILD FAILURE"));
+    }
+
+    @Test
+    void testTestFailure() throws Exception {
+        ResumeHint tests = new ResumeHint();
+        InvocationOutputHandler handler = tests.watch(line -> {});
+        handler.consumeLine("[ERROR] Failed to execute goal org.apache.maven.plugins:maven-surefire-plugin:3.2.5:test");
+        handler.consumeLine(
+                "[ERROR] Failed to execute goal org.apache.maven.plugins:maven-failsafe-plugin:3.2.5:verify");
+        assertTrue(tests.isTestFailure());
+
+        ResumeHint mixed = new ResumeHint();
+        handler = mixed.watch(line -> {});
+        handler.consumeLine("[ERROR] Failed to execute goal org.apache.maven.plugins:maven-surefire-plugin:3.2.5:test");
+        handler.consumeLine(
+                "[ERROR] Failed to execute goal org.apache.maven.plugins:maven-compiler-plugin:3.13.0:compile");
+        assertFalse(mixed.isTestFailure());
+
+        assertFalse(new ResumeHint().isTestFailure());
+    }
+}
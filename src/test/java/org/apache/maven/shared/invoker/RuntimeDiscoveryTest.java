@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RuntimeDiscoveryTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    private final RuntimeDiscovery discovery = new RuntimeDiscovery();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        discovery.close();
+    }
+
+    @Test
+    void testMavenVersion() throws Exception {
+        File mavenHome = newMavenHome("apache-maven-3.9.6", "3.9.6", true);
+        File wrapperHome = newMavenHome("apache-maven-4", "4.0.0-rc-2", false);
+
+        assertEquals("3.9.6", discovery.getMavenVersion(mavenHome));
+        assertEquals("4.0.0-rc-2", discovery.getMavenVersion(wrapperHome));
+        assertNull(discovery.getMavenVersion(temporaryFolder.toFile()));
+        assertNull(discovery.getMavenVersion(null));
+    }
+
+    @Test
+    void testJavaVersion() throws Exception {
+        File jdk17 = newJavaHome("jdk-17", "17.0.9");
+        File jdk8 = newJavaHome("jdk-8", "1.8.0_392");
+
+        assertEquals("17.0.9", discovery.getJavaVersion(jdk17));
+        assertEquals("1.8.0_392", discovery.getJavaVersion(jdk8));
+        assertNull(discovery.getJavaVersion(temporaryFolder.toFile()));
+    }
+
+    @Test
+    void testLocations() throws Exception {
+        File mavenHome = newMavenHome("maven/3.9.6", "3.9.6", true);
+        newMavenHome("maven/3.8.8", "3.8.8", true);
+        File jdk = newJavaHome("jvm/jdk-21", "21.0.1");
+        Files.createDirectories(temporaryFolder.resolve("jvm/not-a-jdk"));
+
+        discovery.addMavenLocation(temporaryFolder.resolve("maven").toFile());
+        discovery.addMavenLocation(mavenHome);
+        discovery.addJavaLocation(temporaryFolder.resolve("jvm").toFile());
+
+        Map<File, String> mavenHomes = discovery.getMavenHomes();
+        assertEquals(2, mavenHomes.size());
+        assertEquals("3.9.6", mavenHomes.get(mavenHome.getCanonicalFile()));
+        Map<File, String> javaHomes = discovery.getJavaHomes();
+        assertEquals(1, javaHomes.size());
+        assertEquals("21.0.1", javaHomes.get(jdk.getCanonicalFile()));
+    }
+
+    @Test
+    void testChangeInvalidatesCache() throws Exception {
+        File mavenHome = newMavenHome("apache-maven", "3.9.6", true);
+        File javaHome = newJavaHome("jdk", "17.0.9");
+        discovery.addMavenLocation(temporaryFolder.resolve("maven").toFile());
+        assertEquals("3.9.6", discovery.getMavenVersion(mavenHome));
+        assertEquals("17.0.9", discovery.getJavaVersion(javaHome));
+        assertEquals(0, discovery.getMavenHomes().size());
+
+        Files.delete(new File(mavenHome, "lib/maven-core-3.9.6.jar").toPath());
+        writeMavenCore(new File(mavenHome, "lib"), "3.9.7", true);
+        writeRelease(javaHome, "17.0.10");
+        newMavenHome("maven/3.9.7", "3.9.7", true);
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!("3.9.7".equals(discovery.getMavenVersion(mavenHome))
+                        && "17.0.10".equals(discovery.getJavaVersion(javaHome))
+                        && discovery.getMavenHomes().size() == 1)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals("3.9.7", discovery.getMavenVersion(mavenHome));
+        assertEquals("17.0.10", discovery.getJavaVersion(javaHome));
+        assertEquals(1, discovery.getMavenHomes().size());
+    }
+
+    @Test
+    void testCompareVersions() {
+        assertTrue(RuntimeDiscovery.compareVersions("3.2.1", "3.10.0") < 0);
+        assertTrue(RuntimeDiscovery.compareVersions("3.2.5", "3.2.1") > 0);
+        assertEquals(0, RuntimeDiscovery.compareVersions("4.0.0-rc-2", "4.0.0"));
+        assertEquals(0, RuntimeDiscovery.compareVersions("4", "4.0.0"));
+        assertTrue(RuntimeDiscovery.compareVersions("3.9.11", "4.0.0") < 0);
+    }
+
+    @Test
+    void testJavaFeatureVersion() {
+        assertEquals(8, RuntimeDiscovery.javaFeatureVersion("1.8.0_392"));
+        assertEquals(17, RuntimeDiscovery.javaFeatureVersion("17.0.9"));
+        assertEquals(21, RuntimeDiscovery.javaFeatureVersion("21"));
+        assertEquals(-1, RuntimeDiscovery.javaFeatureVersion("unknown"));
+        assertEquals(-1, RuntimeDiscovery.javaFeatureVersion(null));
+    }
+
+    private File newMavenHome(String path, String version, boolean pomProperties) throws IOException {
+        File mavenHome = Files.createDirectories(temporaryFolder.resolve(path)).toFile();
+        File lib = new File(mavenHome, "lib");
+        lib.mkdirs();
+        writeMavenCore(lib, version, pomProperties);
+        return mavenHome;
+    }
+
+    static void writeMavenCore(File lib, String version, boolean pomProperties) throws IOException {
+        try (JarOutputStream out =
+                new JarOutputStream(new FileOutputStream(new File(lib, "maven-core-" + version + ".jar")))) {
+            if (pomProperties) {
+                out.putNextEntry(new JarEntry("META-INF/maven/org.apache.maven/maven-core/pom.properties"));
+                out.write(("version=" + version + "\n").getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+    }
+
+    private File newJavaHome(String path, String version) throws IOException {
+        File javaHome = Files.createDirectories(temporaryFolder.resolve(path)).toFile();
+        writeRelease(javaHome, version);
+        return javaHome;
+    }
+
+    static void writeRelease(File javaHome, String version) throws IOException {
+        Files.write(
+                new File(javaHome, "release").toPath(),
+                ("IMPLEMENTOR=\"Test\"\nJAVA_VERSION=\"" + version + "\"\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
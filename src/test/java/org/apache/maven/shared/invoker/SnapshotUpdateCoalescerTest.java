@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotUpdateCoalescerTest {
+
+    @Test
+    void testFirstInvocationPerRepositoryUpdates() throws Exception {
+        SnapshotUpdateCoalescer coalescer = new SnapshotUpdateCoalescer(1, TimeUnit.HOURS);
+
+        assertTrue(update(coalescer, "/repo1", true));
+        assertFalse(update(coalescer, "/repo1", true));
+        assertTrue(update(coalescer, "/repo2", true));
+        assertFalse(update(coalescer, "/repo2", true));
+
+        assertEquals(2, coalescer.getUpdateCount());
+        assertEquals(2, coalescer.getCoalescedCount());
+
+        coalescer.reset();
+        assertTrue(update(coalescer, "/repo1", true));
+    }
+
+    @Test
+    void testUpdatesAgainAfterWindow() throws Exception {
+        SnapshotUpdateCoalescer coalescer = new SnapshotUpdateCoalescer(0, TimeUnit.SECONDS);
+
+        assertTrue(update(coalescer, "/repo", true));
+        assertTrue(update(coalescer, "/repo", true));
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    void testUpdatesAgainAfterFailedUpdate() throws Exception {
+        SnapshotUpdateCoalescer coalescer = new SnapshotUpdateCoalescer(1, TimeUnit.HOURS);
+
+        assertTrue(update(coalescer, "/repo", false));
+        assertTrue(update(coalescer, "/repo", true));
+        assertFalse(update(coalescer, "/repo", true));
+        assertEquals(2, coalescer.getUpdateCount());
+    }
+
+    @Test
+    void testWaitsForPendingUpdate() throws Exception {
+        SnapshotUpdateCoalescer coalescer = new SnapshotUpdateCoalescer(1, TimeUnit.HOURS);
+        SnapshotUpdateCoalescer.Claim leader = coalescer.claimUpdate("/repo");
+
+        CompletableFuture<Boolean> follower = claimAsync(coalescer, "/repo");
+        Thread.sleep(100);
+        assertFalse(follower.isDone());
+
+        leader.complete(true);
+        assertFalse(follower.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testAbandonedUpdateReleasesPendingInvocation() throws Exception {
+        SnapshotUpdateCoalescer coalescer = new SnapshotUpdateCoalescer(1, TimeUnit.HOURS);
+        SnapshotUpdateCoalescer.Claim leader = coalescer.claimUpdate("/repo");
+
+        CompletableFuture<Boolean> follower = claimAsync(coalescer, "/repo");
+        Thread.sleep(100);
+        assertFalse(follower.isDone());
+
+        leader.complete(false);
+        leader.complete(true);
+        assertTrue(follower.get(10, TimeUnit.SECONDS));
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    void testInvalidWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotUpdateCoalescer(-1, TimeUnit.SECONDS));
+        assertThrows(NullPointerException.class, () -> new SnapshotUpdateCoalescer(1, null));
+    }
+
+    private static boolean update(SnapshotUpdateCoalescer coalescer, String localRepository, boolean succeeded)
+            throws InterruptedException {
+        SnapshotUpdateCoalescer.Claim claim = coalescer.claimUpdate(localRepository);
+        claim.complete(succeeded);
+        return claim.isUpdating();
+    }
+
+    private static CompletableFuture<Boolean> claimAsync(SnapshotUpdateCoalescer coalescer, String localRepository) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                future.complete(update(coalescer, localRepository, true));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StackSamplerTest {
+
+    private static final String THREAD_DUMP = "12345:\n"
+            + "2024-05-07 20:49:21\n"
+            + "Full thread dump OpenJDK 64-Bit Server VM (17.0.10+7 mixed mode, sharing):\n"
+            + "\n"
+            + "\"main\" #1 prio=5 os_prio=0 cpu=1234.56ms elapsed=12.34s tid=0x00007f nid=0x1 waiting on condition\n"
+            + "   java.lang.Thread.State: TIMED_WAITING (sleeping)\n"
+            + "\tat java.lang.Thread.sleep(java.base@17.0.10/Native Method)\n"
+            + "\tat org.example.SlowMojo.execute(SlowMojo.java:42)\n"
+            + "\t- locked <0x000000008a> (a java.lang.Object)\n"
+            + "\tat org.apache.maven.cli.MavenCli.main(MavenCli.java:210)\n"
+            + "\n"
+            + "\"Reference Handler\" #2 daemon prio=10 os_prio=0 tid=0x00007f nid=0x2 runnable\n"
+            + "   java.lang.Thread.State: RUNNABLE\n"
+            + "\tat java.lang.ref.Reference.waitForReferencePendingList(java.base@17.0.10/Native Method)\n"
+            + "\n"
+            + "\"VM Thread\" os_prio=0 tid=0x00007f nid=0x3 runnable\n"
+            + "\n"
+            + "JNI global refs: 15, weak refs: 0\n";
+
+    @TempDir
+    private Path temporaryFolder;
+
+    @Test
+    void testParseThreadDump() throws Exception {
+        Map<String, Long> stacks = new HashMap<>();
+
+        StackSampler.parseThreadDump(new BufferedReader(new StringReader(THREAD_DUMP)), stacks);
+        StackSampler.parseThreadDump(new BufferedReader(new StringReader(THREAD_DUMP)), stacks);
+
+        assertEquals(2, stacks.size());
+        assertEquals(
+                Long.valueOf(2),
+                stacks.get("org.apache.maven.cli.MavenCli.main;org.example.SlowMojo.execute;java.lang.Thread.sleep"));
+        assertEquals(Long.valueOf(2), stacks.get("java.lang.ref.Reference.waitForReferencePendingList"));
+    }
+
+    @Test
+    void testParseJvms() throws Exception {
+        Set<Long> jvms = new HashSet<>();
+
+        StackSampler.parseJvms(
+                new BufferedReader(new StringReader("12345 org.codehaus.plexus.classworlds.launcher.Launcher validate\n"
+                        + "678 jdk.jcmd/sun.tools.jcmd.JCmd -l\n"
+                        + "9\n"
+                        + "Could not attach\n")),
+                jvms);
+
+        assertEquals(new HashSet<>(Arrays.asList(12345L, 678L, 9L)), jvms);
+    }
+
+    @Test
+    void testWriteCollapsed() throws Exception {
+        Map<String, Long> stacks = new HashMap<>();
+        stacks.put("a;b", 1L);
+        stacks.put("a;c", 3L);
+        StringWriter writer = new StringWriter();
+
+        new StackProfile(2, stacks).writeCollapsed(writer);
+
+        assertEquals("a;c 3\na;b 1\n", writer.toString());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testNoSampleBeforeThreshold() throws Exception {
+        Process process = new ProcessBuilder("sleep", "5").start();
+        try {
+            StackSampler sampler = new StackSampler("jcmd", 60_000, 1000);
+            sampler.attach(process);
+
+            assertNull(sampler.finish());
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_11)
+    void testSampleJavaProcess() throws Exception {
+        Path source = temporaryFolder.resolve("Sleeper.java");
+        Files.write(
+                source,
+                "class Sleeper { public static void main(String[] args) throws Exception { Thread.sleep(30000); } }"
+                        .getBytes(StandardCharsets.UTF_8));
+        String java = new File(System.getProperty("java.home"), "bin/java").getPath();
+        Process process = new ProcessBuilder(java, source.toString()).start();
+        try {
+            StackSampler sampler = new StackSampler(StackSampler.findJcmd(null), 1000, 500);
+            sampler.attach(process);
+            Thread.sleep(4000);
+
+            StackProfile profile = sampler.finish();
+
+            assertNotNull(profile);
+            assertTrue(profile.getSampleCount() > 0);
+            assertTrue(
+                    profile.getStacks().keySet().stream()
+                            .anyMatch(stack -> stack.endsWith("Sleeper.main;java.lang.Thread.sleep")
+                                    || stack.contains("Sleeper.main;java.lang.Thread.sleep")),
+                    profile.getStacks()::toString);
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    @EnabledForJreRange(min = JRE.JAVA_11)
+    void testNonJavaProcessesSurviveSampling() throws Exception {
+        Path source = temporaryFolder.resolve("Forker.java");
+        Files.write(
+                source,
+                ("class Forker { public static void main(String[] args) throws Exception {"
+                                + " new ProcessBuilder(\"sleep\", \"30\").start().waitFor(); } }")
+                        .getBytes(StandardCharsets.UTF_8));
+        String java = new File(System.getProperty("java.home"), "bin/java").getPath();
+        Process process = new ProcessBuilder(java, source.toString()).start();
+        try {
+            // sample once the source launcher compiled the class and started the child
+            StackSampler sampler = new StackSampler(StackSampler.findJcmd(null), 4000, 500);
+            sampler.attach(process);
+            Thread.sleep(8000);
+
+            StackProfile profile = sampler.finish();
+
+            assertNotNull(profile);
+            // jcmd must neither attach to nor send SIGQUIT to the sleep child
+            assertTrue(
+                    profile.getStacks().keySet().stream().noneMatch(stack -> stack.contains("sun.tools.attach")),
+                    profile.getStacks()::toString);
+            assertTrue(process.isAlive());
+            assertEquals(2, ProcessTrees.pids(process).size());
+        } finally {
+            ProcessTrees.destroyForcibly(process);
+        }
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testNonJavaProcessIsNotSampled() throws Exception {
+        Process process = new ProcessBuilder("sleep", "30").start();
+        try {
+            StackSampler sampler = new StackSampler(StackSampler.findJcmd(null), 0, 500);
+            sampler.attach(process);
+            Thread.sleep(2000);
+
+            assertNull(sampler.finish());
+            assertTrue(process.isAlive());
+        } finally {
+            process.destroyForcibly();
+        }
+    }
+}
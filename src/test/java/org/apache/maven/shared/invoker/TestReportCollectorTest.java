@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TestReportCollectorTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    @Test
+    void testParse() throws Exception {
+        Path file = report(
+                "module-a/target/surefire-reports",
+                "TEST-org.example.ATest.xml",
+                testCase("org.example.ATest", "passes", "0.5", ""),
+                testCase("org.example.ATest", "fails", "1,234.5", "<failure message=\"expected: 1\" type=\"A\"/>"),
+                testCase("org.example.ATest", "errs", "0.1", "<error message=\"NPE\"/>"),
+                testCase("org.example.ATest", "skips", "0", "<skipped message=\"ignored\"/>"),
+                testCase("org.example.ATest", "flaky", "0.2", "<flakyFailure message=\"once\"/>"),
+                "<system-out><![CDATA[lots of output]]></system-out>");
+
+        TestReportCollector.Report report = TestReportCollector.parse(
+                file, temporaryFolder.resolve("module-a").toFile());
+
+        assertEquals(5, report.tests);
+        assertEquals(1, report.failures);
+        assertEquals(1, report.errors);
+        assertEquals(1, report.skipped);
+        assertEquals(2, report.failing.size());
+        TestCaseResult failed = report.failing.get(0);
+        assertEquals("org.example.ATest", failed.getClassName());
+        assertEquals("fails", failed.getName());
+        assertEquals(1234.5, failed.getTime(), 0.001);
+        assertEquals(TestCaseResult.Status.FAILED, failed.getStatus());
+        assertEquals("expected: 1", failed.getMessage());
+        assertEquals(temporaryFolder.resolve("module-a").toFile(), failed.getModuleDirectory());
+        assertEquals(TestCaseResult.Status.ERROR, report.failing.get(1).getStatus());
+    }
+
+    @Test
+    void testCollectsReactorReports() throws Exception {
+        report(
+                "module-a/target/surefire-reports",
+                "TEST-org.example.ATest.xml",
+                testCase("org.example.ATest", "one", "3.0", ""),
+                testCase("org.example.ATest", "two", "0.1", "<failure message=\"boom\"/>"));
+        report(
+                "nested/module-b/target/failsafe-reports",
+                "TEST-org.example.BIT.xml",
+                testCase("org.example.BIT", "three", "7.0", ""));
+        // neither reports of earlier builds nor files outside the report directories are ingested
+        Path old = report(
+                "module-c/target/surefire-reports",
+                "TEST-org.example.CTest.xml",
+                testCase("org.example.CTest", "old", "9.0", "<failure/>"));
+        Files.setLastModifiedTime(old, FileTime.fromMillis(System.currentTimeMillis() - 3_600_000));
+        report("module-c/src/test/resources", "TEST-org.example.Fixture.xml", testCase("x", "y", "1", ""));
+        report("module-c/target/surefire-reports", "TEST-broken.xml", "<testcase name=\"partial\"");
+
+        TestReportCollector collector =
+                new TestReportCollector(temporaryFolder.toFile(), System.currentTimeMillis() - 60_000);
+        TestReportSummary summary = collector.finish();
+
+        assertEquals(2, summary.getReportCount());
+        assertEquals(3, summary.getTests());
+        assertEquals(1, summary.getFailures());
+        assertEquals(0, summary.getErrors());
+        assertEquals(1, summary.getFailingTests().size());
+        assertEquals("two", summary.getFailingTests().get(0).getName());
+        List<String> slowest = new ArrayList<>();
+        for (TestCaseResult test : summary.getSlowestTests()) {
+            slowest.add(test.getName());
+        }
+        assertEquals(Arrays.asList("three", "one", "two"), slowest);
+    }
+
+    @Test
+    void testSlowestTestsAreLimited() throws Exception {
+        String[] cases = new String[TestReportCollector.SLOWEST_TESTS * 2];
+        for (int i = 0; i < cases.length; i++) {
+            cases[i] = testCase("org.example.ManyTest", "test" + i, Integer.toString(i), "");
+        }
+        report("target/surefire-reports", "TEST-org.example.ManyTest.xml", cases);
+
+        TestReportSummary summary = new TestReportCollector(temporaryFolder.toFile(), 0).finish();
+
+        assertEquals(cases.length, summary.getTests());
+        assertEquals(
+                TestReportCollector.SLOWEST_TESTS, summary.getSlowestTests().size());
+        assertEquals(
+                "test" + (cases.length - 1), summary.getSlowestTests().get(0).getName());
+    }
+
+    @Test
+    void testIncrementalIngestion() throws Exception {
+        TestReportCollector collector = new TestReportCollector(temporaryFolder.toFile(), 0);
+        collector.start();
+        report("target/surefire-reports", "TEST-org.example.ATest.xml", testCase("org.example.ATest", "a", "1", ""));
+        collector.sweep();
+        // a report rewritten by a later execution replaces the earlier one
+        Path file = report(
+                "target/surefire-reports",
+                "TEST-org.example.ATest.xml",
+                testCase("org.example.ATest", "a", "1", ""),
+                testCase("org.example.ATest", "b", "1", "<error/>"));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+
+        TestReportSummary summary = collector.finish();
+
+        assertEquals(1, summary.getReportCount());
+        assertEquals(2, summary.getTests());
+        assertEquals(1, summary.getErrors());
+        assertNull(summary.getFailingTests().get(0).getMessage());
+    }
+
+    private Path report(String directory, String name, String... content) throws IOException {
+        Path dir = Files.createDirectories(temporaryFolder.resolve(directory));
+        StringBuilder xml =
+                new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuite name=\"suite\">\n");
+        for (String line : content) {
+            xml.append(line).append('\n');
+        }
+        if (!name.contains("broken")) {
+            xml.append("</testsuite>\n");
+        }
+        return Files.write(dir.resolve(name), xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String testCase(String className, String name, String time, String body) {
+        return "<testcase name=\"" + name + "\" classname=\"" + className + "\" time=\"" + time + "\">" + body
+                + "</testcase>";
+    }
+}
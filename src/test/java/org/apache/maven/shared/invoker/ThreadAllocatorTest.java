@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ThreadAllocatorTest {
+
+    private final FakeHostMetrics metrics = new FakeHostMetrics();
+
+    private final ThreadAllocator allocator = new ThreadAllocator(metrics);
+
+    @Test
+    void testAdaptiveSharesProcessors() {
+        try (ThreadAllocator.Allocation first = allocator.allocate(null, true)) {
+            assertEquals(8, first.getThreads());
+            try (ThreadAllocator.Allocation second = allocator.allocate(null, true)) {
+                // the first build still occupies all processors
+                assertEquals(1, second.getThreads());
+                assertEquals(2, allocator.getRunningCount());
+            }
+        }
+        assertEquals(0, allocator.getRunningCount());
+    }
+
+    @Test
+    void testRebalancesAsBuildsFinish() {
+        ThreadAllocator.Allocation fixed = allocator.allocate("2", false);
+        ThreadAllocator.Allocation first = allocator.allocate(null, true);
+        assertEquals(4, first.getThreads());
+
+        fixed.close();
+        fixed.close();
+        assertEquals(4, allocator.share());
+
+        first.close();
+        assertEquals(8, allocator.share());
+    }
+
+    @Test
+    void testFixedThreadsOccupyProcessors() {
+        try (ThreadAllocator.Allocation fixed = allocator.allocate("0.5C", false)) {
+            assertEquals(4, fixed.getThreads());
+            assertEquals(4, allocator.share());
+        }
+    }
+
+    @Test
+    void testCgroupQuotaLimitsProcessors() {
+        metrics.cpuQuota = 2.5;
+
+        assertEquals(3, allocator.share());
+    }
+
+    @Test
+    void testParseThreads() {
+        assertEquals(1, ThreadAllocator.parseThreads(null, 8));
+        assertEquals(1, ThreadAllocator.parseThreads("", 8));
+        assertEquals(4, ThreadAllocator.parseThreads("4", 8));
+        assertEquals(8, ThreadAllocator.parseThreads("1C", 8));
+        assertEquals(12, ThreadAllocator.parseThreads("1.5C", 8));
+        assertEquals(1, ThreadAllocator.parseThreads("many", 8));
+    }
+
+    @Test
+    void testParseCpuMax() {
+        assertEquals(2.5, HostMetrics.parseCpuMax("250000 100000"), 0.001);
+        assertEquals(HostMetrics.UNKNOWN, HostMetrics.parseCpuMax("max 100000"), 0.001);
+    }
+
+    private static final class FakeHostMetrics extends HostMetrics {
+
+        private double cpuQuota = UNKNOWN;
+
+        @Override
+        int availableProcessors() {
+            return 8;
+        }
+
+        @Override
+        double cpuQuota() {
+            return cpuQuota;
+        }
+    }
+}
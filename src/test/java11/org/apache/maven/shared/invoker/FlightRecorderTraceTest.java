@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecorderTraceTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    @Test
+    void testEvents() throws Exception {
+        assertTrue(FlightRecorderSupport.isAvailable());
+        InvocationRequest request = new DefaultInvocationRequest()
+                .setBaseDirectory(new File("project"))
+                .addArgs(Arrays.asList("clean", "-X"));
+        Path file = temporaryFolder.resolve("invoker.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("org.apache.maven.shared.invoker.*");
+            recording.start();
+
+            InvocationTrace trace = InvocationTrace.start(request, null);
+            assertNotSame(InvocationTrace.DISABLED, trace);
+            trace.commandLineBuilt();
+            trace.processSpawning();
+            trace.processSpawned();
+            InvocationOutputHandler handler = trace.watch(null);
+            handler.consumeLine("first");
+            handler.consumeLine("second");
+            trace.killed(KillTrigger.BUILD_FAILURE);
+            trace.completed(137);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().startsWith("org.apache.maven.shared.invoker."))
+                .collect(Collectors.toList());
+        assertEquals(
+                Arrays.asList("CommandLineBuild", "FirstOutput", "Invocation", "Kill", "ProcessSpawn"),
+                events.stream()
+                        .map(event -> event.getEventType().getName().substring(32))
+                        .sorted()
+                        .collect(Collectors.toList()));
+        for (RecordedEvent event : events) {
+            assertEquals("project", event.getString("baseDirectory"));
+            assertEquals("clean -X", event.getString("goals"));
+            assertEquals(137, event.getInt("exitCode"));
+        }
+    }
+
+    @Test
+    void testDisabledWithoutRecording() {
+        InvocationTrace trace = InvocationTrace.start(new DefaultInvocationRequest(), null);
+
+        assertSame(InvocationTrace.DISABLED, trace);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.shared.invoker;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecordingSummaryReaderTest {
+
+    @TempDir
+    private Path temporaryFolder;
+
+    @Test
+    void testSummary() throws Exception {
+        Path file = temporaryFolder.resolve("maven.jfr");
+
+        try (Recording recording = new Recording(Configuration.getConfiguration("default"))) {
+            recording.start();
+            long deadline = System.nanoTime() + 500_000_000L;
+            List<byte[]> garbage = new ArrayList<>();
+            while (System.nanoTime() < deadline) {
+                garbage.add(new byte[1024]);
+                if (garbage.size() > 10_000) {
+                    garbage.clear();
+                }
+            }
+            System.gc();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        FlightRecordingSummary summary = FlightRecorderSupport.readSummary(file.toFile());
+
+        assertTrue(summary.getDurationMillis() >= 500, summary::toString);
+        assertTrue(summary.getExecutionSamples() > 0, summary::toString);
+        assertTrue(summary.getHotMethods().size() <= FlightRecordingSummaryReader.HOT_METHODS);
+        assertTrue(summary.getGcCount() > 0, summary::toString);
+        assertTrue(summary.getGcPauseTotalMillis() >= summary.getGcPauseMaxMillis());
+        assertTrue(summary.getAllocatedBytes() > 0, summary::toString);
+        assertTrue(summary.getAllocationRate() > 0, summary::toString);
+    }
+
+    @Test
+    void testEmptyRecording() throws Exception {
+        File file = temporaryFolder.resolve("killed.jfr").toFile();
+        file.createNewFile();
+
+        assertNull(FlightRecorderSupport.readSummary(file));
+    }
+}